@@ -37,7 +37,13 @@ import org.springframework.scheduling.concurrent.ConcurrentTaskScheduler;
 @EnableScheduling
 public class MainApp {
 
+    private static final String REACTOR_NETTY_NATIVE_PROPERTY = "reactor.netty.native";
+
     public static void main(String[] args) {
+        // The native transport is opted in by app.netty-native-transport, other reactor netty clients keep using NIO
+        if (System.getProperty(REACTOR_NETTY_NATIVE_PROPERTY) == null) {
+            System.setProperty(REACTOR_NETTY_NATIVE_PROPERTY, "false");
+        }
         SpringApplication.run(MainApp.class, args);
     }
 
@@ -0,0 +1,122 @@
+/*-
+ * ============LICENSE_START======================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * ============LICENSE_END========================================================================
+ */
+
+
+package org.onap.dcaegen2.collectors.datafile.commons;
+
+import java.nio.file.Path;
+import java.util.Optional;
+
+import org.onap.dcaegen2.collectors.datafile.exceptions.DatafileTaskException;
+import org.onap.dcaegen2.collectors.datafile.model.CollectedFile;
+import org.onap.dcaegen2.collectors.datafile.model.FileData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Runs a blocking {@link FileCollectClient} on a dedicated, bounded scheduler so that it can be used as a
+ * {@link ReactiveFileCollectClient}.
+ *
+ * <p>
+ * The client is closed when the transfer terminates. If the subscription is cancelled, the client is closed from the
+ * cancelling thread, which aborts a transfer that is blocked in I/O.
+ */
+public class BlockingFileCollectClientAdapter implements ReactiveFileCollectClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(BlockingFileCollectClientAdapter.class);
+
+    // As many as the collection workers, so that a blocking transfer never waits for a thread
+    private static final int MAX_NUMBER_OF_THREADS = 200;
+    private static final int MAX_NUMBER_OF_QUEUED_TASKS = 10000;
+    private static final int THREAD_TTL_SECONDS = 60;
+
+    private static final Scheduler scheduler = Schedulers.newBoundedElastic(MAX_NUMBER_OF_THREADS,
+        MAX_NUMBER_OF_QUEUED_TASKS, "FileCollectClient", THREAD_TTL_SECONDS, true);
+
+    /**
+     * Creates the blocking client for one transfer.
+     */
+    @FunctionalInterface
+    public interface ClientFactory {
+        FileCollectClient create() throws DatafileTaskException;
+    }
+
+    private final ClientFactory clientFactory;
+
+    public BlockingFileCollectClientAdapter(ClientFactory clientFactory) {
+        this.clientFactory = clientFactory;
+    }
+
+    /**
+     * Gets the scheduler for blocking file transfers.
+     *
+     * @return the scheduler, shared by all blocking clients.
+     */
+    public static Scheduler scheduler() {
+        return scheduler;
+    }
+
+    @Override
+    public Mono<CollectedFile> collect(FileData fileData, ContentDigest digest) {
+        return Mono.using(clientFactory::create, //
+            client -> Mono.fromCallable(() -> transfer(client, fileData, digest)), //
+            BlockingFileCollectClientAdapter::closeClient) //
+            .subscribeOn(scheduler);
+    }
+
+    private static CollectedFile transfer(FileCollectClient client, FileData fileData, ContentDigest digest)
+        throws DatafileTaskException {
+        client.open();
+        String remoteFile = fileData.remoteFilePath();
+        Path localFile = fileData.getLocalFilePath();
+        PartialTransfer partial = PartialTransfer.load(localFile);
+        Optional<String> modificationTime = client.getRemoteModificationTime(remoteFile);
+        long offset = partial.length();
+        if (offset > 0 && !partial.validator().equals(modificationTime)) {
+            logger.debug("Remote file: {} is modified, fetching the whole file", fileData.name());
+            PartialTransfer.discard(localFile);
+            offset = 0;
+        }
+        if (offset > 0) {
+            logger.debug("Resuming file: {} after {} bytes", fileData.name(), offset);
+        }
+        try {
+            if (digest.isEnabled()) {
+                client.collectFile(remoteFile, localFile, offset, digest);
+            } else if (offset > 0) {
+                client.collectFile(remoteFile, localFile, offset);
+            } else {
+                client.collectFile(remoteFile, localFile);
+            }
+        } catch (DatafileTaskException | RuntimeException e) {
+            // The blocking clients write the file in order, so what has been written is a prefix of the remote file
+            PartialTransfer.saveSequential(localFile, modificationTime.orElse(null));
+            throw e;
+        }
+        PartialTransfer.completed(localFile);
+        return CollectedFile.of(localFile, digest);
+    }
+
+    private static void closeClient(FileCollectClient client) {
+        try {
+            client.close();
+        } catch (Exception e) {
+            logger.warn("Failed to close client: {}", e.toString(), e);
+        }
+    }
+}
@@ -0,0 +1,270 @@
+/*-
+ * ============LICENSE_START======================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * ============LICENSE_END========================================================================
+ */
+
+
+package org.onap.dcaegen2.collectors.datafile.commons;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import org.apache.http.conn.DnsResolver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Resolves xNF host names, shared by all {@link FileCollectClient} implementations. Resolved addresses are cached for
+ * a bounded time and failed lookups for a shorter time, so that a burst of files from the same xNF only results in
+ * one lookup. An entry that is about to expire is refreshed in the background while the cached addresses are still
+ * returned.
+ *
+ * <p>
+ * Lookups are made by a small pool of dedicated threads, so a slow name server does not occupy more than one worker
+ * per host name.
+ */
+public class CachingDnsResolver implements DnsResolver, MeterBinder {
+
+    public static final String METRIC_PREFIX = "datafile.dns.";
+    static final Duration DEFAULT_TTL = Duration.ofSeconds(60);
+    static final Duration DEFAULT_NEGATIVE_TTL = Duration.ofSeconds(5);
+    static final int DEFAULT_MAX_ENTRIES = 4096;
+    private static final int NUMBER_OF_LOOKUP_THREADS = 4;
+    private static final double REFRESH_AHEAD_FACTOR = 0.8;
+
+    private static final Logger logger = LoggerFactory.getLogger(CachingDnsResolver.class);
+    private static final CachingDnsResolver instance = new CachingDnsResolver();
+
+    /**
+     * The actual name lookup, {@link InetAddress#getAllByName(String)} by default.
+     */
+    @FunctionalInterface
+    interface Lookup {
+        InetAddress[] lookup(String host) throws UnknownHostException;
+    }
+
+    private static class Entry {
+        final CompletableFuture<InetAddress[]> addresses = new CompletableFuture<>();
+        final AtomicBoolean refreshing = new AtomicBoolean();
+        // Set when the lookup is completed, an ongoing lookup never expires
+        volatile long expiresAtNanos = Long.MAX_VALUE;
+        volatile long refreshAtNanos = Long.MAX_VALUE;
+
+        boolean isExpired(long nowNanos) {
+            return nowNanos >= expiresAtNanos;
+        }
+    }
+
+    private final Lookup lookup;
+    private final long ttlNanos;
+    private final long negativeTtlNanos;
+    private final int maxEntries;
+    private final Executor executor;
+    private final LongSupplier nanoClock;
+    private final Map<String, Entry> cache = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+    private final CompositeMeterRegistry registry = new CompositeMeterRegistry();
+    private final Timer lookupTimer;
+
+    private CachingDnsResolver() {
+        this(InetAddress::getAllByName, DEFAULT_TTL, DEFAULT_NEGATIVE_TTL, DEFAULT_MAX_ENTRIES,
+            Executors.newFixedThreadPool(NUMBER_OF_LOOKUP_THREADS, new LookupThreadFactory()), System::nanoTime);
+    }
+
+    CachingDnsResolver(Lookup lookup, Duration ttl, Duration negativeTtl, int maxEntries, Executor executor,
+        LongSupplier nanoClock) {
+        this.lookup = lookup;
+        this.ttlNanos = ttl.toNanos();
+        this.negativeTtlNanos = negativeTtl.toNanos();
+        this.maxEntries = maxEntries;
+        this.executor = executor;
+        this.nanoClock = nanoClock;
+        registry.add(new SimpleMeterRegistry());
+        lookupTimer = Timer.builder(METRIC_PREFIX + "lookup.duration") //
+            .description("Time spent in host name lookups") //
+            .register(registry);
+    }
+
+    /**
+     * Gets the resolver shared by all file collect clients.
+     */
+    public static CachingDnsResolver getInstance() {
+        return instance;
+    }
+
+    /**
+     * Resolves a host name, blocking until the addresses are known.
+     *
+     * @param host the host name or address.
+     * @return the addresses of the host.
+     * @throws UnknownHostException if the host name cannot be resolved.
+     */
+    @Override
+    public InetAddress[] resolve(String host) throws UnknownHostException {
+        try {
+            return resolveAsync(host).join().clone();
+        } catch (CompletionException e) {
+            UnknownHostException exception = new UnknownHostException(host);
+            exception.initCause(e.getCause());
+            throw exception;
+        }
+    }
+
+    /**
+     * Resolves a host name without blocking.
+     *
+     * @param host the host name or address.
+     * @return the addresses of the host, completed with an {@link UnknownHostException} if the host name cannot be
+     *         resolved. The returned array must not be modified.
+     */
+    public CompletableFuture<InetAddress[]> resolveAsync(String host) {
+        final long now = nanoClock.getAsLong();
+        Entry entry = cache.get(host);
+        if (entry == null || entry.isExpired(now)) {
+            Entry newEntry = new Entry();
+            entry = cache.compute(host, (h, old) -> (old == null || old.isExpired(now)) ? newEntry : old);
+            if (entry == newEntry) {
+                misses.increment();
+                evictIfFull(now);
+                executor.execute(() -> lookup(host, newEntry));
+                return newEntry.addresses;
+            }
+        }
+        hits.increment();
+        final Entry cachedEntry = entry;
+        if (now >= cachedEntry.refreshAtNanos && cachedEntry.refreshing.compareAndSet(false, true)) {
+            refreshes.increment();
+            executor.execute(() -> refresh(host, cachedEntry));
+        }
+        return cachedEntry.addresses;
+    }
+
+    /**
+     * Gets the number of cached host names, including ongoing lookups.
+     */
+    public int size() {
+        return cache.size();
+    }
+
+    private void lookup(String host, Entry entry) {
+        try {
+            InetAddress[] addresses = timedLookup(host);
+            long now = nanoClock.getAsLong();
+            entry.refreshAtNanos = now + (long) (ttlNanos * REFRESH_AHEAD_FACTOR);
+            entry.expiresAtNanos = now + ttlNanos;
+            entry.addresses.complete(addresses);
+        } catch (Exception e) {
+            failures.increment();
+            logger.debug("Could not resolve host: {}, {}", host, e.toString());
+            entry.expiresAtNanos = nanoClock.getAsLong() + negativeTtlNanos;
+            entry.addresses.completeExceptionally(e);
+        }
+    }
+
+    private void refresh(String host, Entry staleEntry) {
+        Entry freshEntry = new Entry();
+        lookup(host, freshEntry);
+        if (freshEntry.addresses.isCompletedExceptionally()) {
+            // Keep the stale addresses until they expire, a new lookup is then made
+            return;
+        }
+        cache.replace(host, staleEntry, freshEntry);
+    }
+
+    private InetAddress[] timedLookup(String host) throws UnknownHostException {
+        long startNanos = System.nanoTime();
+        try {
+            return lookup.lookup(host);
+        } finally {
+            lookupTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void evictIfFull(long now) {
+        if (cache.size() <= maxEntries) {
+            return;
+        }
+        cache.values().removeIf(entry -> entry.isExpired(now));
+        for (Iterator<Entry> it = cache.values().iterator(); cache.size() > maxEntries && it.hasNext();) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry meterRegistry) {
+        bindCounter(meterRegistry, "cache.hits", "Number of host name lookups served from the cache", hits);
+        bindCounter(meterRegistry, "cache.misses", "Number of host name lookups not found in the cache", misses);
+        bindCounter(meterRegistry, "lookup.failures", "Number of host names that could not be resolved", failures);
+        bindCounter(meterRegistry, "cache.refreshes", "Number of cached host names refreshed ahead of expiry",
+            refreshes);
+        registry.add(meterRegistry);
+    }
+
+    private static void bindCounter(MeterRegistry registry, String name, String description, LongAdder adder) {
+        FunctionCounter.builder(METRIC_PREFIX + name, adder, LongAdder::sum) //
+            .description(description) //
+            .register(registry);
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    public long getRefreshes() {
+        return refreshes.sum();
+    }
+
+    private static class LookupThreadFactory implements ThreadFactory {
+        private final AtomicInteger threadNumber = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "DnsLookup-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
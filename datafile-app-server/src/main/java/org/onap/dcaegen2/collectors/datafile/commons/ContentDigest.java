@@ -0,0 +1,327 @@
+/*-
+ * ============LICENSE_START======================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * ============LICENSE_END========================================================================
+ */
+
+
+package org.onap.dcaegen2.collectors.datafile.commons;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.CRC32C;
+import java.util.zip.Checksum;
+
+/**
+ * Computes a digest of a collected file from the bytes as they are written, so that the file does not have to be
+ * read again.
+ *
+ * <p>
+ * Bytes that are not written in order, such as the concurrent segments of a large HTTP file, are hashed by
+ * {@link #updateFrom(Path)} after the transfer. Only that part of the file is read again. A digest is used by one
+ * transfer at a time and is not thread safe.
+ *
+ * <p>
+ * Several algorithms can be computed in the same pass, for instance the CRC32C checksum that is published together
+ * with the SHA-256 digest that identifies the content.
+ */
+public final class ContentDigest {
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The digest algorithms.
+     */
+    public enum Algorithm {
+        NONE, SHA_256, CRC32C;
+
+        /**
+         * Gets the name used in the published checksum, for instance <code>sha-256</code>.
+         */
+        public String displayName() {
+            return name().toLowerCase(Locale.ROOT).replace('_', '-');
+        }
+    }
+
+    private interface Hasher {
+        void update(byte[] bytes, int offset, int length);
+
+        void update(ByteBuffer buffer);
+
+        byte[] digest();
+
+        void reset();
+    }
+
+    private static final ContentDigest NONE = new ContentDigest(new EnumMap<>(Algorithm.class), null);
+
+    // The first algorithm given is the one of getValue()
+    private final Map<Algorithm, Hasher> hashers;
+    private final Algorithm algorithm;
+    private final Map<Algorithm, String> values = new EnumMap<>(Algorithm.class);
+    private long length = 0;
+
+    private ContentDigest(Map<Algorithm, Hasher> hashers, Algorithm algorithm) {
+        this.hashers = hashers;
+        this.algorithm = algorithm;
+    }
+
+    /**
+     * Creates a digest.
+     *
+     * @param algorithms the algorithms to compute, {@link Algorithm#NONE} and <code>null</code> are ignored.
+     * @return a new digest.
+     */
+    public static ContentDigest create(Algorithm... algorithms) {
+        Map<Algorithm, Hasher> hashers = new EnumMap<>(Algorithm.class);
+        Algorithm first = null;
+        for (Algorithm algorithm : algorithms) {
+            Hasher hasher = algorithm == null || hashers.containsKey(algorithm) ? null : createHasher(algorithm);
+            if (hasher != null) {
+                hashers.put(algorithm, hasher);
+                first = first == null ? algorithm : first;
+            }
+        }
+        return first == null ? NONE : new ContentDigest(hashers, first);
+    }
+
+    private static Hasher createHasher(Algorithm algorithm) {
+        switch (algorithm) {
+            case SHA_256:
+                return messageDigestHasher("SHA-256");
+            case CRC32C:
+                return checksumHasher(new CRC32C());
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Gets a digest that does nothing.
+     */
+    public static ContentDigest none() {
+        return NONE;
+    }
+
+    public boolean isEnabled() {
+        return !hashers.isEmpty();
+    }
+
+    /**
+     * Gets the number of bytes hashed so far.
+     */
+    public long length() {
+        return length;
+    }
+
+    public void update(byte[] bytes, int offset, int len) {
+        if (isEnabled()) {
+            for (Hasher hasher : hashers.values()) {
+                hasher.update(bytes, offset, len);
+            }
+            length += len;
+        }
+    }
+
+    /**
+     * Hashes the remaining bytes of a buffer, without changing its position.
+     */
+    public void update(ByteBuffer buffer) {
+        if (isEnabled()) {
+            for (Hasher hasher : hashers.values()) {
+                hasher.update(buffer.duplicate());
+            }
+            length += buffer.remaining();
+        }
+    }
+
+    /**
+     * Discards the bytes hashed so far.
+     */
+    public void reset() {
+        if (isEnabled()) {
+            hashers.values().forEach(Hasher::reset);
+            values.clear();
+            length = 0;
+        }
+    }
+
+    /**
+     * Hashes the part of a file that has not been hashed yet, from {@link #length()} to the end of the file.
+     *
+     * @param file the file being hashed.
+     * @throws IOException if the file cannot be read.
+     */
+    public void updateFrom(Path file) throws IOException {
+        if (!isEnabled()) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+            while (channel.read(buffer, length) > 0) {
+                buffer.flip();
+                update(buffer);
+                buffer.clear();
+            }
+        }
+    }
+
+    /**
+     * Gets the digest of the first algorithm, as <code>algorithm:hex</code>. No more bytes can be hashed afterwards.
+     *
+     * @return the digest, empty if no algorithm is used.
+     */
+    public Optional<String> getValue() {
+        return getValue(algorithm);
+    }
+
+    /**
+     * Gets the digest of one of the algorithms, as <code>algorithm:hex</code>. No more bytes can be hashed afterwards.
+     *
+     * @param algorithm the algorithm.
+     * @return the digest, empty if the algorithm is not computed.
+     */
+    public Optional<String> getValue(Algorithm algorithm) {
+        Hasher hasher = algorithm == null ? null : hashers.get(algorithm);
+        if (hasher == null) {
+            return Optional.empty();
+        }
+        return Optional.of(values.computeIfAbsent(algorithm, a -> {
+            StringBuilder str = new StringBuilder(a.displayName()).append(':');
+            for (byte b : hasher.digest()) {
+                str.append(String.format("%02x", b));
+            }
+            return str.toString();
+        }));
+    }
+
+    /**
+     * Wraps a stream so that the bytes written to it are hashed.
+     */
+    public OutputStream wrap(OutputStream out) {
+        if (!isEnabled()) {
+            return out;
+        }
+        return new FilterOutputStream(out) {
+            @Override
+            public void write(int b) throws IOException {
+                out.write(b);
+                update(new byte[] {(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] bytes, int offset, int len) throws IOException {
+                out.write(bytes, offset, len);
+                update(bytes, offset, len);
+            }
+        };
+    }
+
+    /**
+     * Wraps a stream so that the bytes read from it are hashed.
+     */
+    public InputStream wrap(InputStream in) {
+        if (!isEnabled()) {
+            return in;
+        }
+        return new FilterInputStream(in) {
+            @Override
+            public int read() throws IOException {
+                int b = in.read();
+                if (b >= 0) {
+                    update(new byte[] {(byte) b}, 0, 1);
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] bytes, int offset, int len) throws IOException {
+                int numBytes = in.read(bytes, offset, len);
+                if (numBytes > 0) {
+                    update(bytes, offset, numBytes);
+                }
+                return numBytes;
+            }
+
+            @Override
+            public long skip(long n) throws IOException {
+                throw new IOException("skip is not supported by a hashed stream");
+            }
+        };
+    }
+
+    private static Hasher messageDigestHasher(String name) {
+        final MessageDigest messageDigest;
+        try {
+            messageDigest = MessageDigest.getInstance(name);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(name + " is not supported", e);
+        }
+        return new Hasher() {
+            @Override
+            public void update(byte[] bytes, int offset, int length) {
+                messageDigest.update(bytes, offset, length);
+            }
+
+            @Override
+            public void update(ByteBuffer buffer) {
+                messageDigest.update(buffer);
+            }
+
+            @Override
+            public byte[] digest() {
+                return messageDigest.digest();
+            }
+
+            @Override
+            public void reset() {
+                messageDigest.reset();
+            }
+        };
+    }
+
+    private static Hasher checksumHasher(Checksum checksum) {
+        return new Hasher() {
+            @Override
+            public void update(byte[] bytes, int offset, int length) {
+                checksum.update(bytes, offset, length);
+            }
+
+            @Override
+            public void update(ByteBuffer buffer) {
+                checksum.update(buffer);
+            }
+
+            @Override
+            public byte[] digest() {
+                return ByteBuffer.allocate(Integer.BYTES).putInt((int) checksum.getValue()).array();
+            }
+
+            @Override
+            public void reset() {
+                checksum.reset();
+            }
+        };
+    }
+}
@@ -0,0 +1,410 @@
+/*-
+ * ============LICENSE_START======================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * ============LICENSE_END========================================================================
+ */
+
+
+package org.onap.dcaegen2.collectors.datafile.commons;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.TrustManagerFactory;
+
+import org.apache.http.ssl.SSLContextBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Holds the key and trust material of all TLS clients, shared by the FTPES, HTTPS and DataRouter clients. Each key
+ * store and password file is read once and the loaded factories are kept until the file changes, so opening a
+ * connection does not read any files.
+ *
+ * <p>
+ * The directories of the loaded files are watched. When anything in a directory changes, which includes the symbolic
+ * link swap made when Kubernetes updates a mounted secret, all material loaded from that directory is dropped and
+ * loaded again on the next use. Rotation listeners are then told about the directory, so that clients holding on to
+ * the material, such as a connection pool, can rebuild themselves.
+ */
+public class CredentialStore implements MeterBinder {
+
+    public static final String METRIC_PREFIX = "datafile.credentials.";
+    // Time to let the writes of a rotation settle before the material is dropped
+    static final Duration DEFAULT_SETTLE_TIME = Duration.ofMillis(500);
+
+    private static final Logger logger = LoggerFactory.getLogger(CredentialStore.class);
+    private static final CredentialStore instance = new CredentialStore(DEFAULT_SETTLE_TIME);
+
+    /**
+     * Opens a key store file, {@link Files#newInputStream} by default.
+     */
+    @FunctionalInterface
+    public interface Opener {
+        InputStream open(Path path) throws IOException;
+    }
+
+    /**
+     * Identifies a key store, the file, the file holding its password, the key store type and the algorithm of the
+     * key or trust manager factory.
+     */
+    public static final class Location {
+        private final Path path;
+        private final Path passwordPath;
+        private final String type;
+        private final String algorithm;
+
+        private Location(Path path, Path passwordPath, String type, String algorithm) {
+            this.path = path.toAbsolutePath().normalize();
+            this.passwordPath = passwordPath.toAbsolutePath().normalize();
+            this.type = type;
+            this.algorithm = algorithm;
+        }
+
+        public static Location of(Path path, String passwordPath, String type, String algorithm) {
+            return new Location(path, Paths.get(passwordPath), type, algorithm);
+        }
+
+        public static Location of(String path, String passwordPath, String type, String algorithm) {
+            return of(Paths.get(path), passwordPath, type, algorithm);
+        }
+
+        /**
+         * Tells if the key store or its password file is in the given directory.
+         */
+        public boolean isIn(Path directory) {
+            return directory.equals(path.getParent()) || directory.equals(passwordPath.getParent());
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Location)) {
+                return false;
+            }
+            Location that = (Location) other;
+            return path.equals(that.path) && passwordPath.equals(that.passwordPath) && type.equals(that.type)
+                && algorithm.equals(that.algorithm);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(path, passwordPath, type, algorithm);
+        }
+
+        @Override
+        public String toString() {
+            return path.toString();
+        }
+    }
+
+    private final Duration settleTime;
+    private final Map<Location, KeyManagerFactory> keyManagers = new ConcurrentHashMap<>();
+    private final Map<Location, TrustManagerFactory> trustManagers = new ConcurrentHashMap<>();
+    private final Map<List<Location>, SSLContext> sslContexts = new ConcurrentHashMap<>();
+    private final Map<List<Object>, SSLContext> managerSslContexts = new ConcurrentHashMap<>();
+    private final Map<Path, char[]> passwords = new ConcurrentHashMap<>();
+    private final Set<Path> watchedDirectories = ConcurrentHashMap.newKeySet();
+    private final List<Consumer<Path>> rotationListeners = new CopyOnWriteArrayList<>();
+    // Bumped when material is dropped, material loaded meanwhile is not cached as it may be stale
+    private final AtomicLong generation = new AtomicLong();
+    private WatchService watchService;
+    private SSLContext trustAllSslContext;
+
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+    private final LongAdder rotations = new LongAdder();
+
+    CredentialStore(Duration settleTime) {
+        this.settleTime = settleTime;
+    }
+
+    /**
+     * Gets the store shared by all TLS clients.
+     */
+    public static CredentialStore getInstance() {
+        return instance;
+    }
+
+    /**
+     * Gets the key manager factory of a key store, loading it if needed.
+     *
+     * @param location the key store.
+     * @param opener opens the key store file.
+     * @return an initialized key manager factory.
+     * @throws IOException if the key store cannot be read.
+     * @throws GeneralSecurityException if the key store cannot be loaded.
+     */
+    public KeyManagerFactory getKeyManagerFactory(Location location, Opener opener)
+        throws IOException, GeneralSecurityException {
+        KeyManagerFactory factory = keyManagers.get(location);
+        if (factory == null) {
+            long loadedGeneration = generation.get();
+            char[] password = getPassword(location.passwordPath);
+            KeyStore keyStore = load(location, password, opener);
+            factory = KeyManagerFactory.getInstance(location.algorithm);
+            factory.init(keyStore, password);
+            cache(keyManagers, location, factory, loadedGeneration);
+        }
+        return factory;
+    }
+
+    public KeyManagerFactory getKeyManagerFactory(Location location) throws IOException, GeneralSecurityException {
+        return getKeyManagerFactory(location, Files::newInputStream);
+    }
+
+    /**
+     * Gets the trust manager factory of a trust store, loading it if needed.
+     *
+     * @param location the trust store.
+     * @param opener opens the trust store file.
+     * @return an initialized trust manager factory.
+     * @throws IOException if the trust store cannot be read.
+     * @throws GeneralSecurityException if the trust store cannot be loaded.
+     */
+    public TrustManagerFactory getTrustManagerFactory(Location location, Opener opener)
+        throws IOException, GeneralSecurityException {
+        TrustManagerFactory factory = trustManagers.get(location);
+        if (factory == null) {
+            long loadedGeneration = generation.get();
+            KeyStore trustStore = load(location, getPassword(location.passwordPath), opener);
+            factory = TrustManagerFactory.getInstance(location.algorithm);
+            factory.init(trustStore);
+            cache(trustManagers, location, factory, loadedGeneration);
+        }
+        return factory;
+    }
+
+    public TrustManagerFactory getTrustManagerFactory(Location location)
+        throws IOException, GeneralSecurityException {
+        return getTrustManagerFactory(location, Files::newInputStream);
+    }
+
+    /**
+     * Gets a TLS context using the given key and trust material, creating it if needed.
+     *
+     * @param keyLocation the key store.
+     * @param trustLocation the trust store.
+     * @return an initialized TLS context.
+     * @throws IOException if a store cannot be read.
+     * @throws GeneralSecurityException if a store cannot be loaded.
+     */
+    public SSLContext getSslContext(Location keyLocation, Location trustLocation)
+        throws IOException, GeneralSecurityException {
+        List<Location> locations = List.of(keyLocation, trustLocation);
+        SSLContext sslContext = sslContexts.get(locations);
+        if (sslContext == null) {
+            long loadedGeneration = generation.get();
+            sslContext = SSLContext.getInstance("TLS");
+            sslContext.init(getKeyManagerFactory(keyLocation).getKeyManagers(),
+                getTrustManagerFactory(trustLocation).getTrustManagers(), null);
+            cache(sslContexts, locations, sslContext, loadedGeneration);
+        }
+        return sslContext;
+    }
+
+    /**
+     * Gets a TLS context using the given key and trust managers, creating it if needed. Clients creating connections
+     * from the same managers thereby share one session cache.
+     *
+     * @param keyManager the key manager.
+     * @param trustManager the trust manager.
+     * @return an initialized TLS context.
+     * @throws GeneralSecurityException if the context cannot be created.
+     */
+    public SSLContext getSslContext(KeyManager keyManager, TrustManager trustManager)
+        throws GeneralSecurityException {
+        List<Object> managers = List.of(keyManager, trustManager);
+        SSLContext sslContext = managerSslContexts.get(managers);
+        if (sslContext == null) {
+            long loadedGeneration = generation.get();
+            sslContext = SSLContext.getInstance("TLS");
+            sslContext.init(new KeyManager[] {keyManager}, new TrustManager[] {trustManager}, null);
+            cache(managerSslContexts, managers, sslContext, loadedGeneration);
+        }
+        return sslContext;
+    }
+
+    /**
+     * Gets the TLS context trusting any server, used towards DataRouter.
+     */
+    public synchronized SSLContext getTrustAllSslContext() throws GeneralSecurityException {
+        if (trustAllSslContext == null) {
+            trustAllSslContext =
+                new SSLContextBuilder().loadTrustMaterial(null, (certificate, authType) -> true).build();
+        }
+        return trustAllSslContext;
+    }
+
+    /**
+     * Adds a listener called with the directory when material loaded from that directory has been dropped.
+     */
+    public void addRotationListener(Consumer<Path> listener) {
+        rotationListeners.add(listener);
+    }
+
+    private <K, V> void cache(Map<K, V> cache, K key, V value, long loadedGeneration) {
+        synchronized (generation) {
+            if (generation.get() == loadedGeneration) {
+                cache.put(key, value);
+            }
+        }
+    }
+
+    private char[] getPassword(Path passwordPath) {
+        char[] password = passwords.get(passwordPath);
+        if (password == null) {
+            watch(passwordPath);
+            password = SecurityUtil.getPasswordFromFile(passwordPath.toString(), "Key store").toCharArray();
+            passwords.put(passwordPath, password);
+        }
+        return password;
+    }
+
+    private KeyStore load(Location location, char[] password, Opener opener)
+        throws IOException, GeneralSecurityException {
+        logger.trace("Loading key store from file: {}", location);
+        watch(location.path);
+        try (InputStream input = opener.open(location.path)) {
+            KeyStore keyStore = KeyStore.getInstance(location.type);
+            keyStore.load(input, password);
+            loads.increment();
+            return keyStore;
+        } catch (IOException | GeneralSecurityException e) {
+            loadFailures.increment();
+            throw e;
+        }
+    }
+
+    private void watch(Path file) {
+        Path directory = file.getParent();
+        if (directory == null || !watchedDirectories.add(directory)) {
+            return;
+        }
+        try {
+            directory.register(getWatchService(), StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            logger.debug("Watching {} for rotated credentials", directory);
+        } catch (IOException e) {
+            watchedDirectories.remove(directory);
+            logger.warn("Cannot watch {} for rotated credentials: {}", directory, e.toString());
+        }
+    }
+
+    private synchronized WatchService getWatchService() throws IOException {
+        if (watchService == null) {
+            watchService = FileSystems.getDefault().newWatchService();
+            Thread thread = new Thread(this::watchLoop, "CredentialWatcher");
+            thread.setDaemon(true);
+            thread.start();
+        }
+        return watchService;
+    }
+
+    private void watchLoop() {
+        try {
+            while (true) {
+                Set<Path> changedDirectories = new HashSet<>();
+                WatchKey key = watchService.take();
+                // A rotation is several writes, they are handled together
+                while (key != null) {
+                    changedDirectories.add((Path) key.watchable());
+                    key.pollEvents();
+                    if (!key.reset()) {
+                        watchedDirectories.remove((Path) key.watchable());
+                    }
+                    key = watchService.poll(settleTime.toMillis(), TimeUnit.MILLISECONDS);
+                }
+                changedDirectories.forEach(this::rotate);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            logger.trace("Credential watcher closed");
+        }
+    }
+
+    private void rotate(Path directory) {
+        synchronized (generation) {
+            generation.incrementAndGet();
+            keyManagers.keySet().removeIf(location -> location.isIn(directory));
+            trustManagers.keySet().removeIf(location -> location.isIn(directory));
+            sslContexts.keySet().removeIf(locations -> locations.stream().anyMatch(l -> l.isIn(directory)));
+            passwords.keySet().removeIf(passwordPath -> directory.equals(passwordPath.getParent()));
+            // The managers are not tied to a location, the contexts are created again from the current managers
+            managerSslContexts.clear();
+        }
+        rotations.increment();
+        logger.info("Credentials in {} changed, they are loaded again on next use", directory);
+        for (Consumer<Path> listener : rotationListeners) {
+            try {
+                listener.accept(directory);
+            } catch (Exception e) {
+                logger.warn("Could not apply rotated credentials in {}: {}", directory, e.toString());
+            }
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry meterRegistry) {
+        bindCounter(meterRegistry, "loads", "Number of key and trust stores loaded from file", loads);
+        bindCounter(meterRegistry, "load.failures", "Number of key and trust stores that could not be loaded",
+            loadFailures);
+        bindCounter(meterRegistry, "rotations", "Number of credential directories changed on disk", rotations);
+    }
+
+    private static void bindCounter(MeterRegistry registry, String name, String description, LongAdder adder) {
+        FunctionCounter.builder(METRIC_PREFIX + name, adder, LongAdder::sum) //
+            .description(description) //
+            .register(registry);
+    }
+
+    public long getLoads() {
+        return loads.sum();
+    }
+
+    public long getLoadFailures() {
+        return loadFailures.sum();
+    }
+
+    public long getRotations() {
+        return rotations.sum();
+    }
+}
@@ -16,7 +16,9 @@
 
 package org.onap.dcaegen2.collectors.datafile.commons;
 
+import java.io.IOException;
 import java.nio.file.Path;
+import java.util.Optional;
 
 import org.onap.dcaegen2.collectors.datafile.exceptions.DatafileTaskException;
 
@@ -28,5 +30,55 @@ import org.onap.dcaegen2.collectors.datafile.exceptions.DatafileTaskException;
 public interface FileCollectClient extends AutoCloseable {
     public void collectFile(String remoteFile, Path localFile) throws DatafileTaskException;
 
+    /**
+     * Collects the rest of a file that has partly been fetched by an earlier attempt. If the local file turns out not
+     * to be a prefix of the remote file, the whole file is fetched again. The resumed file is checked against the
+     * length of the remote file.
+     *
+     * @param remoteFile the file on the xNF.
+     * @param localFile the partly fetched local file, see {@link PartialTransfer}.
+     * @param offset the length of the local file, where the transfer is resumed.
+     * @throws DatafileTaskException if the transfer fails.
+     */
+    public default void collectFile(String remoteFile, Path localFile, long offset) throws DatafileTaskException {
+        collectFile(remoteFile, localFile);
+    }
+
+    /**
+     * Collects a file and feeds the bytes to a digest. Implementations hash the bytes as they are written, the default
+     * implementation reads the local file again after the transfer.
+     *
+     * @param remoteFile the file on the xNF.
+     * @param localFile the local file.
+     * @param offset the length of a partly fetched local file, 0 if there is none.
+     * @param digest the digest to update.
+     * @throws DatafileTaskException if the transfer fails.
+     */
+    public default void collectFile(String remoteFile, Path localFile, long offset, ContentDigest digest)
+        throws DatafileTaskException {
+        if (offset > 0) {
+            collectFile(remoteFile, localFile, offset);
+        } else {
+            collectFile(remoteFile, localFile);
+        }
+        try {
+            digest.updateFrom(localFile);
+        } catch (IOException e) {
+            throw new DatafileTaskException("Could not compute digest of file: " + e, e);
+        }
+    }
+
+    /**
+     * Gets the modification time of a remote file. It is recorded with a partly fetched file, and the transfer is only
+     * resumed if the remote file still has the same modification time.
+     *
+     * @param remoteFile the file on the xNF.
+     * @return the modification time, in the format of the protocol, or empty if it is not known.
+     * @throws DatafileTaskException if the server cannot be asked.
+     */
+    public default Optional<String> getRemoteModificationTime(String remoteFile) throws DatafileTaskException {
+        return Optional.empty();
+    }
+
     public void open() throws DatafileTaskException;
 }
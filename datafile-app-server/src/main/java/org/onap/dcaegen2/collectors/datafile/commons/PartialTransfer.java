@@ -0,0 +1,210 @@
+/*-
+ * ============LICENSE_START======================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * ============LICENSE_END========================================================================
+ */
+
+
+package org.onap.dcaegen2.collectors.datafile.commons;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.Properties;
+
+import org.onap.dcaegen2.collectors.datafile.exceptions.DatafileTaskException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A transfer that was interrupted, recorded next to its local file so that the next attempt can resume it.
+ *
+ * <p>
+ * Only a prefix of the local file that was written without gaps is recorded, anything after it is cut off. A local
+ * file without a record, for instance one left by a crash, is never resumed. The length and the validator of the
+ * remote file are recorded when they are known, so that the next attempt can check that it resumes the same remote
+ * file. The validator is the ETag or Last-Modified over HTTP, and the modification time over FTPES and SFTP.
+ */
+public final class PartialTransfer {
+
+    public static final long UNKNOWN_LENGTH = -1;
+
+    static final String RECORD_SUFFIX = ".partial";
+
+    private static final String LENGTH = "length";
+    private static final String REMOTE_LENGTH = "remoteLength";
+    private static final String VALIDATOR = "validator";
+    private static final PartialTransfer NONE = new PartialTransfer(0, UNKNOWN_LENGTH, null);
+    private static final Logger logger = LoggerFactory.getLogger(PartialTransfer.class);
+
+    private final long length;
+    private final long remoteLength;
+    private final String validator;
+
+    private PartialTransfer(long length, long remoteLength, String validator) {
+        this.length = length;
+        this.remoteLength = remoteLength;
+        this.validator = validator;
+    }
+
+    /**
+     * Gets the transfer that was recorded for a local file. The local file is cut to the recorded prefix, or deleted
+     * if there is nothing to resume.
+     *
+     * @param localFile the local file.
+     * @return the recorded transfer, with length 0 if there is nothing to resume.
+     */
+    public static PartialTransfer load(Path localFile) {
+        Path record = recordOf(localFile);
+        try {
+            if (Files.isRegularFile(record) && Files.isRegularFile(localFile)) {
+                Properties properties = new Properties();
+                try (Reader reader = Files.newBufferedReader(record)) {
+                    properties.load(reader);
+                }
+                long length = Long.parseLong(properties.getProperty(LENGTH));
+                if (length > 0 && Files.size(localFile) >= length) {
+                    truncate(localFile, length);
+                    return new PartialTransfer(length,
+                        Long.parseLong(properties.getProperty(REMOTE_LENGTH, String.valueOf(UNKNOWN_LENGTH))),
+                        properties.getProperty(VALIDATOR));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.debug("Cannot resume file: {}, {}", localFile, e.toString());
+        }
+        discard(localFile);
+        return NONE;
+    }
+
+    /**
+     * Records an interrupted transfer. The local file is cut after the given prefix.
+     *
+     * @param localFile the local file.
+     * @param length the length of the prefix that was written without gaps.
+     * @param remoteLength the length of the remote file, {@link #UNKNOWN_LENGTH} if not known.
+     * @param validator the validator of the remote file, null if not known.
+     */
+    public static void save(Path localFile, long length, long remoteLength, String validator) {
+        try {
+            if (length <= 0 || !Files.isRegularFile(localFile) || Files.size(localFile) < length) {
+                discard(localFile);
+                return;
+            }
+            truncate(localFile, length);
+            Properties properties = new Properties();
+            properties.setProperty(LENGTH, String.valueOf(length));
+            properties.setProperty(REMOTE_LENGTH, String.valueOf(remoteLength));
+            if (validator != null) {
+                properties.setProperty(VALIDATOR, validator);
+            }
+            try (Writer writer = Files.newBufferedWriter(recordOf(localFile))) {
+                properties.store(writer, null);
+            }
+        } catch (IOException e) {
+            logger.debug("Cannot record partial file: {}, {}", localFile, e.toString());
+            discard(localFile);
+        }
+    }
+
+    /**
+     * Records an interrupted transfer that was written from the start of the file and in order, so that the whole
+     * local file is a prefix of the remote file.
+     *
+     * @param localFile the local file.
+     * @param validator the modification time of the remote file, null if not known.
+     */
+    public static void saveSequential(Path localFile, String validator) {
+        save(localFile, localFile.toFile().length(), UNKNOWN_LENGTH, validator);
+    }
+
+    /**
+     * Removes the record of a transfer that is finished, the local file is kept.
+     *
+     * @param localFile the local file.
+     */
+    public static void completed(Path localFile) {
+        deleteIfExists(recordOf(localFile));
+    }
+
+    /**
+     * Deletes a local file and the record of its transfer.
+     *
+     * @param localFile the local file.
+     */
+    public static void discard(Path localFile) {
+        deleteIfExists(localFile);
+        deleteIfExists(recordOf(localFile));
+    }
+
+    /**
+     * Checks that a collected local file has the length of the remote file. A file that does not is deleted, it cannot
+     * be resumed either.
+     *
+     * @param localFile the collected local file.
+     * @param remoteLength the length of the remote file, {@link #UNKNOWN_LENGTH} if not known.
+     * @throws DatafileTaskException if the lengths differ.
+     */
+    public static void checkLength(Path localFile, long remoteLength) throws DatafileTaskException {
+        long length = localFile.toFile().length();
+        if (remoteLength != UNKNOWN_LENGTH && length != remoteLength) {
+            discard(localFile);
+            throw new DatafileTaskException(
+                "File " + localFile.getFileName() + " has " + length + " bytes, expected " + remoteLength);
+        }
+    }
+
+    /**
+     * Checks that a remote file has the length of the one the transfer was started with.
+     *
+     * @param currentRemoteLength the current length of the remote file, {@link #UNKNOWN_LENGTH} if not known.
+     * @return false if both lengths are known and differ.
+     */
+    public boolean isSameRemoteLength(long currentRemoteLength) {
+        return remoteLength == UNKNOWN_LENGTH || currentRemoteLength == UNKNOWN_LENGTH
+            || remoteLength == currentRemoteLength;
+    }
+
+    public long length() {
+        return length;
+    }
+
+    public long remoteLength() {
+        return remoteLength;
+    }
+
+    public Optional<String> validator() {
+        return Optional.ofNullable(validator);
+    }
+
+    static Path recordOf(Path localFile) {
+        return localFile.resolveSibling(localFile.getFileName() + RECORD_SUFFIX);
+    }
+
+    private static void truncate(Path localFile, long length) throws IOException {
+        try (FileChannel channel = FileChannel.open(localFile, StandardOpenOption.WRITE)) {
+            channel.truncate(length);
+        }
+    }
+
+    private static void deleteIfExists(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.debug("Could not delete file: {}, {}", file, e.toString());
+        }
+    }
+}
@@ -0,0 +1,43 @@
+/*-
+ * ============LICENSE_START======================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * ============LICENSE_END========================================================================
+ */
+
+
+package org.onap.dcaegen2.collectors.datafile.commons;
+
+import org.onap.dcaegen2.collectors.datafile.model.CollectedFile;
+import org.onap.dcaegen2.collectors.datafile.model.FileData;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * A non blocking file client. Each call to {@link #collect(FileData, ContentDigest)} opens its own connection, which
+ * is closed when the returned <code>Mono</code> terminates.
+ *
+ * <p>
+ * The transfer starts on subscription. Cancelling the subscription, for instance with
+ * {@link Mono#timeout(java.time.Duration)}, aborts the transfer and releases the connection. The part of the file that
+ * was written without gaps is then recorded as a {@link PartialTransfer}, which is resumed by the next attempt.
+ */
+public interface ReactiveFileCollectClient {
+
+    /**
+     * Collects a file from the xNF and stores it in the local file system.
+     *
+     * @param fileData data about the file to collect.
+     * @param digest the digest to feed with the content of the file, {@link ContentDigest#none()} if not wanted.
+     * @return the collected file. Fails with a <code>NonRetryableDatafileTaskException</code> if there is no point in
+     *         trying again, or with a <code>DatafileTaskException</code> for other failures.
+     */
+    Mono<CollectedFile> collect(FileData fileData, ContentDigest digest);
+}
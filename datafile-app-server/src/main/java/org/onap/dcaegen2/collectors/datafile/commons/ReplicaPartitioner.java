@@ -0,0 +1,113 @@
+/*-
+ * ============LICENSE_START======================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * ============LICENSE_END========================================================================
+ */
+
+
+package org.onap.dcaegen2.collectors.datafile.commons;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import java.nio.charset.StandardCharsets;
+import java.util.OptionalInt;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Partitions the xNFs between the replicas of DFC. Each xNF, identified by its source name, is owned by exactly one
+ * replica. Consistent (jump) hashing is used, so when the number of replicas is changed, only the xNFs of the added or
+ * removed replicas are moved.
+ */
+public final class ReplicaPartitioner {
+
+    /**
+     * A partitioner for a single replica, which owns all xNFs.
+     */
+    public static final ReplicaPartitioner SINGLE_REPLICA = new ReplicaPartitioner(0, 1);
+
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+    // The ordinal of a StatefulSet pod is the suffix of its name, for instance "dcae-datafile-collector-2"
+    private static final Pattern POD_ORDINAL = Pattern.compile(".*-(\\d+)$");
+
+    private final int ordinal;
+    private final int numberOfReplicas;
+
+    private ReplicaPartitioner(int ordinal, int numberOfReplicas) {
+        this.ordinal = ordinal;
+        this.numberOfReplicas = numberOfReplicas;
+    }
+
+    /**
+     * Creates a partitioner.
+     *
+     * @param ordinal the ordinal of this replica, from 0 to <code>numberOfReplicas - 1</code>.
+     * @param numberOfReplicas the number of replicas.
+     * @return the partitioner.
+     * @throws IllegalArgumentException if the ordinal is out of range.
+     */
+    public static ReplicaPartitioner of(int ordinal, int numberOfReplicas) {
+        if (numberOfReplicas < 1 || ordinal < 0 || ordinal >= numberOfReplicas) {
+            throw new IllegalArgumentException(
+                "Invalid replica ordinal: " + ordinal + ", number of replicas: " + numberOfReplicas);
+        }
+        return new ReplicaPartitioner(ordinal, numberOfReplicas);
+    }
+
+    /**
+     * Gets the ordinal of a StatefulSet pod from its name.
+     *
+     * @param podName the name of the pod, typically the host name.
+     * @return the ordinal, empty if the name does not end with one.
+     */
+    public static OptionalInt ordinalFromPodName(String podName) {
+        if (podName == null) {
+            return OptionalInt.empty();
+        }
+        Matcher matcher = POD_ORDINAL.matcher(podName);
+        return matcher.matches() ? OptionalInt.of(Integer.parseInt(matcher.group(1))) : OptionalInt.empty();
+    }
+
+    /**
+     * Gets the replica owning an xNF.
+     *
+     * @param sourceName the source name of the xNF.
+     * @return the ordinal of the owning replica.
+     */
+    public int ownerOf(String sourceName) {
+        if (numberOfReplicas == 1) {
+            return 0;
+        }
+        return Hashing.consistentHash(HASH_FUNCTION.hashString(sourceName, StandardCharsets.UTF_8), numberOfReplicas);
+    }
+
+    public boolean isOwnedByThisReplica(String sourceName) {
+        return ownerOf(sourceName) == ordinal;
+    }
+
+    public boolean isPartitioned() {
+        return numberOfReplicas > 1;
+    }
+
+    public int getOrdinal() {
+        return ordinal;
+    }
+
+    public int getNumberOfReplicas() {
+        return numberOfReplicas;
+    }
+
+    @Override
+    public String toString() {
+        return "replica " + ordinal + " of " + numberOfReplicas;
+    }
+}
@@ -0,0 +1,117 @@
+/*-
+ * ============LICENSE_START======================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * ============LICENSE_END========================================================================
+ */
+
+
+package org.onap.dcaegen2.collectors.datafile.commons;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.net.ssl.SSLSession;
+
+/**
+ * Counts the TLS handshakes towards the xNFs, telling resumed sessions from full handshakes.
+ *
+ * <p>
+ * A session is taken as resumed when it was created before the handshake started. A resumed session keeps the
+ * creation time of the session it was resumed from, with TLS 1.2 as well as TLS 1.3, both with the JDK and with
+ * OpenSSL. OpenSSL gives the creation time in whole seconds, which is then compared with the start of the handshake
+ * in whole seconds; a session resumed within the second it was created is counted as a full handshake.
+ */
+public class TlsHandshakeMetrics implements MeterBinder {
+
+    public static final String METRIC_NAME = "datafile.tls.handshakes";
+
+    private static final TlsHandshakeMetrics instance = new TlsHandshakeMetrics();
+
+    /**
+     * The clients making handshakes.
+     */
+    public enum Client {
+        HTTPS("https"), FTPES("ftpes");
+
+        private final String tag;
+
+        Client(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    private final Map<Client, LongAdder> fullHandshakes = new EnumMap<>(Client.class);
+    private final Map<Client, LongAdder> resumedHandshakes = new EnumMap<>(Client.class);
+
+    TlsHandshakeMetrics() {
+        for (Client client : Client.values()) {
+            fullHandshakes.put(client, new LongAdder());
+            resumedHandshakes.put(client, new LongAdder());
+        }
+    }
+
+    /**
+     * Gets the metrics shared by all TLS clients.
+     */
+    public static TlsHandshakeMetrics getInstance() {
+        return instance;
+    }
+
+    /**
+     * Records a completed handshake.
+     *
+     * @param client the client that made the handshake.
+     * @param session the negotiated session.
+     * @param handshakeStartMillis the wall clock time when the handshake started.
+     */
+    public void record(Client client, SSLSession session, long handshakeStartMillis) {
+        if (isResumed(session.getCreationTime(), handshakeStartMillis)) {
+            resumedHandshakes.get(client).increment();
+        } else {
+            fullHandshakes.get(client).increment();
+        }
+    }
+
+    static boolean isResumed(long creationMillis, long handshakeStartMillis) {
+        boolean wholeSeconds = creationMillis % 1000 == 0;
+        long start = wholeSeconds ? handshakeStartMillis - handshakeStartMillis % 1000 : handshakeStartMillis;
+        return creationMillis < start;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry meterRegistry) {
+        for (Client client : Client.values()) {
+            bindCounter(meterRegistry, client, "full", fullHandshakes.get(client));
+            bindCounter(meterRegistry, client, "resumed", resumedHandshakes.get(client));
+        }
+    }
+
+    private static void bindCounter(MeterRegistry registry, Client client, String handshake, LongAdder adder) {
+        FunctionCounter.builder(METRIC_NAME, adder, LongAdder::sum) //
+            .description("Number of TLS handshakes towards the xNFs") //
+            .tag("client", client.tag) //
+            .tag("handshake", handshake) //
+            .register(registry);
+    }
+
+    public long getFullHandshakes(Client client) {
+        return fullHandshakes.get(client).sum();
+    }
+
+    public long getResumedHandshakes(Client client) {
+        return resumedHandshakes.get(client).sum();
+    }
+}
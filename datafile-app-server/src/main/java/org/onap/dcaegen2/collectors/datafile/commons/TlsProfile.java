@@ -0,0 +1,121 @@
+/*-
+ * ============LICENSE_START======================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * ============LICENSE_END========================================================================
+ */
+
+
+package org.onap.dcaegen2.collectors.datafile.commons;
+
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.SupportedCipherSuiteFilter;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
+
+/**
+ * The TLS settings used towards the xNFs, by the FTPES client as well as the blocking and the non blocking HTTPS
+ * clients.
+ *
+ * <p>
+ * The cipher suites are offered in the configured order, suites not supported by the JVM are left out. No configured
+ * suites means the JVM defaults. The session cache lets a new connection to an xNF resume an earlier session instead
+ * of making a full handshake.
+ */
+public final class TlsProfile {
+
+    public static final TlsProfile DEFAULT =
+        new TlsProfile(List.of("TLSv1.3", "TLSv1.2"), List.of(), 1000, Duration.ofHours(1));
+
+    private final String[] protocols;
+    private final List<String> cipherSuites;
+    private final int sessionCacheSize;
+    private final Duration sessionTimeout;
+
+    /**
+     * Constructor.
+     *
+     * @param protocols the enabled protocol versions.
+     * @param cipherSuites the enabled cipher suites in order of preference, empty for the JVM defaults.
+     * @param sessionCacheSize the maximum number of cached sessions per TLS context.
+     * @param sessionTimeout the time a cached session may be resumed.
+     */
+    public TlsProfile(List<String> protocols, List<String> cipherSuites, int sessionCacheSize,
+        Duration sessionTimeout) {
+        if (protocols.isEmpty()) {
+            throw new IllegalArgumentException("No TLS protocol version enabled");
+        }
+        if (sessionCacheSize < 0 || sessionTimeout.isNegative()) {
+            throw new IllegalArgumentException("Negative TLS session cache size or timeout");
+        }
+        this.protocols = protocols.toArray(new String[0]);
+        this.cipherSuites = List.copyOf(cipherSuites);
+        this.sessionCacheSize = sessionCacheSize;
+        this.sessionTimeout = sessionTimeout;
+    }
+
+    public String[] getProtocols() {
+        return protocols.clone();
+    }
+
+    /**
+     * Gets the configured cipher suites supported by a TLS context.
+     *
+     * @param sslContext the TLS context.
+     * @return the cipher suites in order of preference, or null for the defaults of the context.
+     */
+    public String[] getCipherSuites(SSLContext sslContext) {
+        if (cipherSuites.isEmpty()) {
+            return null;
+        }
+        Set<String> supported = Set.of(sslContext.getSupportedSSLParameters().getCipherSuites());
+        return cipherSuites.stream().filter(supported::contains).toArray(String[]::new);
+    }
+
+    public int getSessionCacheSize() {
+        return sessionCacheSize;
+    }
+
+    public Duration getSessionTimeout() {
+        return sessionTimeout;
+    }
+
+    /**
+     * Applies the session cache settings to the client sessions of a TLS context.
+     */
+    public void configure(SSLContext sslContext) {
+        SSLSessionContext sessionContext = sslContext.getClientSessionContext();
+        sessionContext.setSessionCacheSize(sessionCacheSize);
+        sessionContext.setSessionTimeout((int) sessionTimeout.getSeconds());
+    }
+
+    /**
+     * Applies the settings to a Netty TLS context.
+     */
+    public SslContextBuilder configure(SslContextBuilder builder) {
+        return builder.protocols(protocols) //
+            .ciphers(cipherSuites.isEmpty() ? null : cipherSuites, SupportedCipherSuiteFilter.INSTANCE) //
+            .sessionCacheSize(sessionCacheSize) //
+            .sessionTimeout(sessionTimeout.getSeconds());
+    }
+
+    @Override
+    public String toString() {
+        return "protocols " + Arrays.toString(protocols) + ", cipher suites "
+            + (cipherSuites.isEmpty() ? "default" : cipherSuites) + ", session cache " + sessionCacheSize
+            + " for " + sessionTimeout;
+    }
+}
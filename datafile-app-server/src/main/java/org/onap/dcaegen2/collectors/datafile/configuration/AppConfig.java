@@ -30,21 +30,31 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.OptionalInt;
 import java.util.Properties;
 import java.util.ServiceLoader;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.NotNull;
 
+import org.onap.dcaegen2.collectors.datafile.commons.ContentDigest;
+import org.onap.dcaegen2.collectors.datafile.commons.ReplicaPartitioner;
+import org.onap.dcaegen2.collectors.datafile.commons.TlsProfile;
 import org.onap.dcaegen2.collectors.datafile.exceptions.DatafileTaskException;
 import org.onap.dcaegen2.collectors.datafile.http.HttpsClientConnectionManagerUtil;
+import org.onap.dcaegen2.collectors.datafile.http.NettyTransport;
 import org.onap.dcaegen2.services.sdk.rest.services.cbs.client.api.CbsClient;
 import org.onap.dcaegen2.services.sdk.rest.services.cbs.client.api.CbsClientFactory;
 import org.onap.dcaegen2.services.sdk.rest.services.cbs.client.api.CbsRequests;
 import org.onap.dcaegen2.services.sdk.rest.services.cbs.client.api.exceptions.CbsClientConfigurationException;
 import org.onap.dcaegen2.services.sdk.rest.services.cbs.client.model.CbsClientConfiguration;
 import org.onap.dcaegen2.services.sdk.rest.services.cbs.client.model.CbsRequest;
+import org.onap.dcaegen2.services.sdk.rest.services.dmaap.client.model.ImmutableMessageRouterSubscribeRequest;
+import org.onap.dcaegen2.services.sdk.rest.services.dmaap.client.model.MessageRouterSubscribeRequest;
 import org.onap.dcaegen2.services.sdk.rest.services.model.logging.RequestDiagnosticContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -72,27 +82,333 @@ import reactor.core.publisher.Mono;
 public class AppConfig {
 
     private static final Logger logger = LoggerFactory.getLogger(AppConfig.class);
+    private static final String HOSTNAME_ENV_PROPERTY = "HOSTNAME";
 
     @Value("#{systemEnvironment}")
     Properties systemEnvironment;
-    private ConsumerConfiguration dmaapConsumerConfiguration;
-    private Map<String, PublisherConfiguration> publishingConfigurations;
-    private CertificateConfig certificateConfiguration;
-    private SftpConfig sftpConfiguration;
+    private final AtomicReference<ConfigSnapshot> configSnapshot = new AtomicReference<>(ConfigSnapshot.EMPTY);
+    // The certificates the HTTPS client was built with, null if the build failed so that it is tried again
+    private CertificateConfig httpsClientCertificateConfig;
     private Disposable refreshConfigTask = null;
 
     @NotEmpty
     private String filepath;
 
+    private ContentDigest.Algorithm collectedFileChecksum = ContentDigest.Algorithm.NONE;
+
+    private Duration contentDedupeWindow = Duration.ZERO;
+
+    private int contentDedupeMaxEntries = 100000;
+
+    private long bundleMaxSize = 0;
+
+    private int bundleMaxFiles = 1000;
+
+    private Duration bundleMaxDelay = Duration.ofSeconds(30);
+
+    private long bundleMaxFileSize = 100 * 1024L;
+
+    private Duration bundledFilesRetention = Duration.ofDays(7);
+
+    private int bundledFilesMaxEntries = 100000;
+
+    private int replicaCount = 1;
+
+    private int replicaOrdinal = -1;
+
+    private ReplicaPartitioner replicaPartitioner = null;
+
+    private Duration drainTimeout = Duration.ofSeconds(60);
+
+    private List<String> tlsProtocols = List.of(TlsProfile.DEFAULT.getProtocols());
+
+    private List<String> tlsCipherSuites = List.of();
+
+    private int tlsSessionCacheSize = TlsProfile.DEFAULT.getSessionCacheSize();
+
+    private Duration tlsSessionTimeout = TlsProfile.DEFAULT.getSessionTimeout();
+
+    private TlsProfile tlsProfile = null;
+
+    private boolean nettyNativeTransport = false;
+
+    private volatile ProcessingSettings processingSettings = null;
+
     public synchronized void setFilepath(String filepath) {
         this.filepath = filepath;
     }
 
+    /**
+     * Selects the digest computed while files are collected, which is published to the DataRouter as the checksum.
+     *
+     * @param collectedFileChecksum the digest algorithm, <code>NONE</code> to not compute any.
+     */
+    public synchronized void setCollectedFileChecksum(ContentDigest.Algorithm collectedFileChecksum) {
+        this.collectedFileChecksum = collectedFileChecksum;
+        this.processingSettings = null;
+    }
+
+    public synchronized ContentDigest.Algorithm getCollectedFileChecksum() {
+        return collectedFileChecksum;
+    }
+
+    /**
+     * Sets for how long a published file content is remembered. A byte identical file collected for the same feed
+     * within this time is not published again. Zero disables the deduplication.
+     *
+     * @param contentDedupeWindow the time to remember published file contents.
+     */
+    public synchronized void setContentDedupeWindow(Duration contentDedupeWindow) {
+        this.contentDedupeWindow = contentDedupeWindow;
+        this.processingSettings = null;
+    }
+
+    public synchronized Duration getContentDedupeWindow() {
+        return contentDedupeWindow;
+    }
+
+    public synchronized void setContentDedupeMaxEntries(int contentDedupeMaxEntries) {
+        this.contentDedupeMaxEntries = contentDedupeMaxEntries;
+        this.processingSettings = null;
+    }
+
+    public synchronized int getContentDedupeMaxEntries() {
+        return contentDedupeMaxEntries;
+    }
+
+    /**
+     * Sets the maximum total size of the files bundled into one DataRouter publication. Zero disables the bundling.
+     *
+     * @param bundleMaxSize the maximum size of a bundle in bytes.
+     */
+    public synchronized void setBundleMaxSize(long bundleMaxSize) {
+        this.bundleMaxSize = bundleMaxSize;
+        this.processingSettings = null;
+    }
+
+    public synchronized long getBundleMaxSize() {
+        return bundleMaxSize;
+    }
+
+    public synchronized boolean isBundlingEnabled() {
+        return bundleMaxSize > 0;
+    }
+
+    public synchronized void setBundleMaxFiles(int bundleMaxFiles) {
+        this.bundleMaxFiles = bundleMaxFiles;
+    }
+
+    public synchronized int getBundleMaxFiles() {
+        return bundleMaxFiles;
+    }
+
+    /**
+     * Sets for how long files are accumulated before a bundle is published, even if it is not full.
+     *
+     * @param bundleMaxDelay the maximum time a file waits in a bundle.
+     */
+    public synchronized void setBundleMaxDelay(Duration bundleMaxDelay) {
+        this.bundleMaxDelay = bundleMaxDelay;
+    }
+
+    public synchronized Duration getBundleMaxDelay() {
+        return bundleMaxDelay;
+    }
+
+    /**
+     * Sets the size of the largest file that is bundled. Larger files are published one by one.
+     *
+     * @param bundleMaxFileSize the maximum size of a bundled file in bytes.
+     */
+    public synchronized void setBundleMaxFileSize(long bundleMaxFileSize) {
+        this.bundleMaxFileSize = bundleMaxFileSize;
+        this.processingSettings = null;
+    }
+
+    public synchronized long getBundleMaxFileSize() {
+        return bundleMaxFileSize;
+    }
+
+    /**
+     * Sets for how long the names of the bundled files are remembered. A bundled file is only known to the DataRouter
+     * by the name of its bundle, so a bundled file announced again within this time is recognized by its name.
+     *
+     * @param bundledFilesRetention the time to remember bundled files.
+     */
+    public synchronized void setBundledFilesRetention(Duration bundledFilesRetention) {
+        this.bundledFilesRetention = bundledFilesRetention;
+        this.processingSettings = null;
+    }
+
+    public synchronized Duration getBundledFilesRetention() {
+        return bundledFilesRetention;
+    }
+
+    public synchronized void setBundledFilesMaxEntries(int bundledFilesMaxEntries) {
+        this.bundledFilesMaxEntries = bundledFilesMaxEntries;
+        this.processingSettings = null;
+    }
+
+    public synchronized int getBundledFilesMaxEntries() {
+        return bundledFilesMaxEntries;
+    }
+
+    /**
+     * Sets for how long a drain waits for the files in progress, for instance at shutdown.
+     *
+     * @param drainTimeout the maximum time to wait.
+     */
+    public synchronized void setDrainTimeout(Duration drainTimeout) {
+        this.drainTimeout = drainTimeout;
+    }
+
+    public synchronized Duration getDrainTimeout() {
+        return drainTimeout;
+    }
+
+    /**
+     * Sets the TLS protocol versions enabled towards the xNFs.
+     *
+     * @param tlsProtocols the protocol versions, for instance TLSv1.3 and TLSv1.2.
+     */
+    public synchronized void setTlsProtocols(List<String> tlsProtocols) {
+        this.tlsProtocols = tlsProtocols;
+        this.tlsProfile = null;
+        this.processingSettings = null;
+    }
+
+    /**
+     * Sets the cipher suites enabled towards the xNFs, in order of preference.
+     *
+     * @param tlsCipherSuites the cipher suites, empty for the JVM defaults.
+     */
+    public synchronized void setTlsCipherSuites(List<String> tlsCipherSuites) {
+        this.tlsCipherSuites = tlsCipherSuites;
+        this.tlsProfile = null;
+        this.processingSettings = null;
+    }
+
+    /**
+     * Sets the number of TLS sessions cached for resumption, per TLS context.
+     *
+     * @param tlsSessionCacheSize the maximum number of sessions, 0 for no limit.
+     */
+    public synchronized void setTlsSessionCacheSize(int tlsSessionCacheSize) {
+        this.tlsSessionCacheSize = tlsSessionCacheSize;
+        this.tlsProfile = null;
+        this.processingSettings = null;
+    }
+
+    /**
+     * Sets for how long a cached TLS session may be resumed.
+     *
+     * @param tlsSessionTimeout the session lifetime.
+     */
+    public synchronized void setTlsSessionTimeout(Duration tlsSessionTimeout) {
+        this.tlsSessionTimeout = tlsSessionTimeout;
+        this.tlsProfile = null;
+        this.processingSettings = null;
+    }
+
+    /**
+     * Selects the native epoll transport and OpenSSL TLS engine for the HTTP and HTTPS file collection, if they are
+     * available on this platform.
+     *
+     * @param nettyNativeTransport true to use the native transport when available.
+     */
+    public synchronized void setNettyNativeTransport(boolean nettyNativeTransport) {
+        this.nettyNativeTransport = nettyNativeTransport;
+        NettyTransport.setNativeTransport(nettyNativeTransport);
+    }
+
+    public synchronized boolean isNettyNativeTransport() {
+        return nettyNativeTransport;
+    }
+
+    /**
+     * Gets the TLS settings used towards the xNFs. If the configured settings are not valid, the defaults are used.
+     *
+     * @return the TLS profile.
+     */
+    public synchronized TlsProfile getTlsProfile() {
+        if (tlsProfile == null) {
+            try {
+                tlsProfile = new TlsProfile(tlsProtocols, tlsCipherSuites, tlsSessionCacheSize, tlsSessionTimeout);
+            } catch (IllegalArgumentException e) {
+                logger.error("Invalid TLS settings, using the defaults: {}", e.getMessage());
+                tlsProfile = TlsProfile.DEFAULT;
+            }
+            logger.info("TLS towards the xNFs: {}", tlsProfile);
+        }
+        return tlsProfile;
+    }
+
+    /**
+     * Sets the number of DFC replicas sharing the file ready events. With more than one replica, each replica only
+     * processes the events of the xNFs it owns.
+     *
+     * @param replicaCount the number of replicas.
+     */
+    public synchronized void setReplicaCount(int replicaCount) {
+        this.replicaCount = replicaCount;
+        this.replicaPartitioner = null;
+    }
+
+    /**
+     * Sets the ordinal of this replica. A negative value means that the ordinal is taken from the name of the
+     * StatefulSet pod, given by the HOSTNAME environment variable.
+     *
+     * @param replicaOrdinal the ordinal of this replica, from 0 to the number of replicas - 1.
+     */
+    public synchronized void setReplicaOrdinal(int replicaOrdinal) {
+        this.replicaOrdinal = replicaOrdinal;
+        this.replicaPartitioner = null;
+    }
+
+    /**
+     * Gets the partitioning of the xNFs between the replicas.
+     *
+     * @return the partitioner.
+     * @throws IllegalStateException if there are several replicas and the ordinal of this replica is unknown or out
+     *         of range. Processing all xNFs would collect the files of the other replicas again.
+     */
+    public synchronized ReplicaPartitioner getReplicaPartitioner() {
+        if (replicaPartitioner == null) {
+            replicaPartitioner = createReplicaPartitioner();
+            logger.info("xNF partitioning: {}", replicaPartitioner);
+        }
+        return replicaPartitioner;
+    }
+
+    private ReplicaPartitioner createReplicaPartitioner() {
+        if (replicaCount <= 1) {
+            return ReplicaPartitioner.SINGLE_REPLICA;
+        }
+        OptionalInt ordinal = replicaOrdinal >= 0 ? OptionalInt.of(replicaOrdinal)
+            : ReplicaPartitioner.ordinalFromPodName(getHostName());
+        if (!ordinal.isPresent()) {
+            throw new IllegalStateException("The ordinal of this replica is unknown, there are " + replicaCount
+                + " replicas and the pod name is " + getHostName());
+        }
+        try {
+            return ReplicaPartitioner.of(ordinal.getAsInt(), replicaCount);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+
+    private String getHostName() {
+        return systemEnvironment != null ? systemEnvironment.getProperty(HOSTNAME_ENV_PROPERTY) : null;
+    }
+
     /**
      * Reads the cloud configuration.
+     *
+     * @throws IllegalStateException if the xNF partitioning of this replica is unknown, so that DFC does not start.
      */
     public void initialize() {
         stop();
+        getReplicaPartitioner();
 
         loadConfigurationFromFile();
 
@@ -127,8 +443,31 @@ public class AppConfig {
         }
     }
 
-    public synchronized ConsumerConfiguration getDmaapConsumerConfiguration() {
-        return dmaapConsumerConfiguration;
+    /**
+     * Gets the configuration read from CBS, with the current application settings. The snapshot is immutable, so it
+     * can be held on to without locking.
+     *
+     * @return the current configuration.
+     */
+    public ConfigSnapshot getConfigSnapshot() {
+        ConfigSnapshot snapshot = configSnapshot.get();
+        ProcessingSettings settings = processingSettings;
+        return settings != null && snapshot.getSettings() == settings ? snapshot : withCurrentSettings();
+    }
+
+    private synchronized ConfigSnapshot withCurrentSettings() {
+        if (processingSettings == null) {
+            processingSettings = new ProcessingSettings(collectedFileChecksum, contentDedupeWindow,
+                contentDedupeMaxEntries, bundleMaxSize, bundleMaxFileSize, bundledFilesRetention,
+                bundledFilesMaxEntries, getTlsProfile());
+        }
+        ProcessingSettings settings = processingSettings;
+        return configSnapshot.updateAndGet(
+            snapshot -> snapshot.getSettings() == settings ? snapshot : snapshot.withSettings(settings));
+    }
+
+    public ConsumerConfiguration getDmaapConsumerConfiguration() {
+        return configSnapshot.get().getDmaapConsumerConfiguration();
     }
 
     /**
@@ -137,8 +476,8 @@ public class AppConfig {
      * @param changeIdentifier the change identifier the feed is configured to belong to.
      * @return true if a feed is configured for the given change identifier, false if not.
      */
-    public synchronized boolean isFeedConfigured(String changeIdentifier) {
-        return publishingConfigurations.containsKey(changeIdentifier);
+    public boolean isFeedConfigured(String changeIdentifier) {
+        return configSnapshot.get().isFeedConfigured(changeIdentifier);
     }
 
     /**
@@ -149,26 +488,16 @@ public class AppConfig {
      * @throws DatafileTaskException if no configuration has been loaded or the configuration is missing for the given
      *         change identifier.
      */
-    public synchronized PublisherConfiguration getPublisherConfiguration(String changeIdentifier)
-        throws DatafileTaskException {
-
-        if (publishingConfigurations == null) {
-            throw new DatafileTaskException("No PublishingConfiguration loaded, changeIdentifier: " + changeIdentifier);
-        }
-        PublisherConfiguration cfg = publishingConfigurations.get(changeIdentifier);
-        if (cfg == null) {
-            throw new DatafileTaskException(
-                "Cannot find getPublishingConfiguration for changeIdentifier: " + changeIdentifier);
-        }
-        return cfg;
+    public PublisherConfiguration getPublisherConfiguration(String changeIdentifier) throws DatafileTaskException {
+        return configSnapshot.get().getPublisherConfiguration(changeIdentifier);
     }
 
-    public synchronized CertificateConfig getCertificateConfiguration() {
-        return certificateConfiguration;
+    public CertificateConfig getCertificateConfiguration() {
+        return configSnapshot.get().getCertificateConfiguration();
     }
 
-    public synchronized SftpConfig getSftpConfiguration() {
-        return sftpConfiguration;
+    public SftpConfig getSftpConfiguration() {
+        return configSnapshot.get().getSftpConfiguration();
     }
 
     private <R> Mono<R> onErrorResume(Throwable throwable) {
@@ -193,7 +522,7 @@ public class AppConfig {
         try {
             CloudConfigParser parser =
                 new CloudConfigParser(configurationObject, systemEnvironment);
-            setConfiguration(parser.getConsumerConfiguration(),
+            setConfiguration(parser.getConsumerConfiguration(getDmaapConsumerConfiguration()),
                 parser.getDmaapPublisherConfigurations(), parser.getCertificateConfig(),
                 parser.getSftpConfig());
             logConfig();
@@ -204,10 +533,11 @@ public class AppConfig {
     }
 
     private void logConfig() {
-        logger.debug("Read and parsed sFTP configuration:      [{}]", sftpConfiguration);
-        logger.debug("Read and parsed FTPes / HTTPS configuration:     [{}]", certificateConfiguration);
-        logger.debug("Read and parsed DMaaP configuration:     [{}]", dmaapConsumerConfiguration);
-        logger.debug("Read and parsed Publish configuration:   [{}]", publishingConfigurations);
+        ConfigSnapshot config = configSnapshot.get();
+        logger.debug("Read and parsed sFTP configuration:      [{}]", config.getSftpConfiguration());
+        logger.debug("Read and parsed FTPes / HTTPS configuration:     [{}]", config.getCertificateConfiguration());
+        logger.debug("Read and parsed DMaaP configuration:     [{}]", config.getDmaapConsumerConfiguration());
+        logger.debug("Read and parsed Publish configuration:   [{}]", config.getPublishingConfigurations());
     }
 
     void loadConfigurationFromFile() {
@@ -229,18 +559,45 @@ public class AppConfig {
     private synchronized void setConfiguration(@NotNull ConsumerConfiguration consumerConfiguration,
         @NotNull Map<String, PublisherConfiguration> publisherConfiguration, @NotNull CertificateConfig certificateConfig,
         @NotNull SftpConfig sftpConfig) throws DatafileTaskException {
-        this.dmaapConsumerConfiguration = consumerConfiguration;
-        this.publishingConfigurations = publisherConfiguration;
-        this.certificateConfiguration = certificateConfig;
-        this.sftpConfiguration = sftpConfig;
+        ConfigSnapshot next = new ConfigSnapshot(withReplicaConsumerGroup(consumerConfiguration),
+            publisherConfiguration, certificateConfig, sftpConfig, configSnapshot.get().getSettings());
+        ConfigurationDiff diff = ConfigurationDiff.between(configSnapshot.get(), next);
+        if (!diff.isEmpty()) {
+            logger.info("Configuration changed: {}", diff);
+        }
+        configSnapshot.set(next);
 
         if (!certificateConfig.enableCertAuth()) {
             logger.debug("External TLS certificate disabled, skipping setup HTTPS client");
             return;
         }
+        if (certificateConfig.equals(httpsClientCertificateConfig)) {
+            logger.debug("External TLS certificate unchanged, keeping HTTPS client");
+            return;
+        }
+        httpsClientCertificateConfig = null;
         HttpsClientConnectionManagerUtil.setupOrUpdate(certificateConfig.keyCert(), certificateConfig.keyPasswordPath(),
             certificateConfig.trustedCa(), certificateConfig.trustedCaPasswordPath(),
-            certificateConfig.httpsHostnameVerify());
+            certificateConfig.httpsHostnameVerify(), getTlsProfile());
+        httpsClientCertificateConfig = certificateConfig;
+    }
+
+    /**
+     * When the xNFs are partitioned, each replica must receive all file ready events to pick its own from. So each
+     * replica subscribes with a consumer group of its own.
+     */
+    private ConsumerConfiguration withReplicaConsumerGroup(ConsumerConfiguration consumerConfiguration) {
+        ReplicaPartitioner partitioner = getReplicaPartitioner();
+        if (!partitioner.isPartitioned()) {
+            return consumerConfiguration;
+        }
+        Map<String, MessageRouterSubscribeRequest> replicaRequests = new LinkedHashMap<>();
+        consumerConfiguration.getMessageRouterSubscribeRequests().forEach((sourceName, request) -> replicaRequests
+            .put(sourceName, ImmutableMessageRouterSubscribeRequest.copyOf(request) //
+                .withConsumerGroup(request.consumerGroup() + "-" + partitioner.getOrdinal())));
+        return new ConsumerConfiguration(consumerConfiguration.getMessageRouterSubscriberConfig(),
+            consumerConfiguration.getMessageRouterSubscriber(), replicaRequests,
+            consumerConfiguration.getSubscriberSettings());
     }
 
     JsonElement getJsonElement(InputStream inputStream) {
@@ -27,6 +27,7 @@ import java.nio.file.Paths;
 import java.time.Duration;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Properties;
 
@@ -73,8 +74,10 @@ public class CloudConfigParser {
     private static final String DMAAP_CONSUMER_CONFIGURATION_CONSUMER_GROUP = "dmaap.dmaapConsumerConfiguration.consumerGroup";
     private static final String DMAAP_CONSUMER_CONFIGURATION_CONSUMER_ID = "dmaap.dmaapConsumerConfiguration.consumerId";
     private static final String DMAAP_CONSUMER_CONFIGURATION_TIMEOUT_MS = "dmaap.dmaapConsumerConfiguration.timeoutMs";
-    private static final int EXPECTED_NUMBER_OF_SOURCE_TOPICS = 1;
-    private static final int FIRST_SOURCE_INDEX = 0;
+
+    private static final String[] SUBSCRIBER_SETTING_KEYS = {DMAAP_SECURITY_ENABLE_DMAAP_CERT_AUTH,
+        DMAAP_SECURITY_KEY_STORE_PATH, DMAAP_SECURITY_KEY_STORE_PASS_PATH, DMAAP_SECURITY_TRUST_STORE_PATH,
+        DMAAP_SECURITY_TRUST_STORE_PASS_PATH};
 
     private static final Logger logger = LoggerFactory.getLogger(CloudConfigParser.class);
 
@@ -114,6 +117,7 @@ public class CloudConfigParser {
                 .enableDmaapCertAuth(get(jsonObject, DMAAP_SECURITY_ENABLE_DMAAP_CERT_AUTH).getAsBoolean()) //
                 .changeIdentifier(changeIdentifier) //
                 .logUrl(getAsString(feedConfig, "log_url")) //
+                .bundleFiles(getAsBooleanOrDefault(producerCfg, "bundle_files", Boolean.TRUE)) //
                 .build();
 
             result.put(cfg.changeIdentifier(), cfg);
@@ -128,16 +132,45 @@ public class CloudConfigParser {
      * @throws DatafileTaskException if the configuration is invalid.
      */
     public @NotNull ConsumerConfiguration getConsumerConfiguration() throws DatafileTaskException {
+        return getConsumerConfiguration(null);
+    }
+
+    /**
+     * Get the consumer configuration. The subscriber of the previous configuration is kept if it is created from the
+     * same settings.
+     *
+     * @param previous the consumer configuration in use, null if there is none.
+     * @return the consumer configuration.
+     * @throws DatafileTaskException if the configuration is invalid.
+     */
+    public @NotNull ConsumerConfiguration getConsumerConfiguration(ConsumerConfiguration previous)
+        throws DatafileTaskException {
         try {
+            Map<String, MessageRouterSubscribeRequest> messageRouterSubscribeRequests =
+                getMessageRouterSubscribeRequests();
+            Map<String, String> subscriberSettings = getSubscriberSettings();
+            if (previous != null && previous.getSubscriberSettings().equals(subscriberSettings)) {
+                return new ConsumerConfiguration(previous.getMessageRouterSubscriberConfig(),
+                    previous.getMessageRouterSubscriber(), messageRouterSubscribeRequests, subscriberSettings);
+            }
             MessageRouterSubscriberConfig messageRouterSubscriberConfig = getMessageRouterSubscriberConfig();
-            MessageRouterSubscribeRequest messageRouterSubscribeRequest = getMessageRouterSubscribeRequest();
             MessageRouterSubscriber messageRouterSubscriber = DmaapClientFactory.createMessageRouterSubscriber(messageRouterSubscriberConfig);
-            return new ConsumerConfiguration(messageRouterSubscriberConfig, messageRouterSubscriber, messageRouterSubscribeRequest);
+            return new ConsumerConfiguration(messageRouterSubscriberConfig, messageRouterSubscriber,
+                messageRouterSubscribeRequests, subscriberSettings);
         } catch (Exception e) {
             throw new DatafileTaskException("Could not parse message router consumer configuration", e);
         }
     }
 
+    private Map<String, String> getSubscriberSettings() {
+        Map<String, String> settings = new LinkedHashMap<>();
+        for (String key : SUBSCRIBER_SETTING_KEYS) {
+            JsonElement value = jsonObject.get(key);
+            settings.put(key, value == null ? null : value.toString());
+        }
+        return settings;
+    }
+
     private MessageRouterSubscriberConfig getMessageRouterSubscriberConfig() throws DatafileTaskException {
         return ImmutableMessageRouterSubscriberConfig.builder()
             .securityKeys(isDmaapCertAuthEnabled(jsonObject) ? createSecurityKeys() : null)
@@ -157,20 +190,24 @@ public class CloudConfigParser {
         return config.get(DMAAP_SECURITY_ENABLE_DMAAP_CERT_AUTH).getAsBoolean();
     }
 
-    private MessageRouterSubscribeRequest getMessageRouterSubscribeRequest() throws DatafileTaskException {
+    private Map<String, MessageRouterSubscribeRequest> getMessageRouterSubscribeRequests()
+        throws DatafileTaskException {
         Stream<RawDataStream<JsonObject>> sources = DataStreams.namedSources(jsonObject);
-        if (sources.size() != EXPECTED_NUMBER_OF_SOURCE_TOPICS) {
-            throw new DatafileTaskException("Invalid configuration, number of topic must be one, config: " + sources);
+        if (sources.isEmpty()) {
+            throw new DatafileTaskException("Invalid configuration, at least one topic is required, config: "
+                + sources);
         }
-        RawDataStream<JsonObject> source = sources.get(FIRST_SOURCE_INDEX);
-        MessageRouterSource parsedSource = StreamFromGsonParsers.messageRouterSourceParser().unsafeParse(source);
-
-        return ImmutableMessageRouterSubscribeRequest.builder()
-            .consumerGroup(getAsString(jsonObject, DMAAP_CONSUMER_CONFIGURATION_CONSUMER_GROUP))
-            .sourceDefinition(parsedSource)
-            .consumerId(getAsString(jsonObject, DMAAP_CONSUMER_CONFIGURATION_CONSUMER_ID))
-            .timeout(Duration.ofMillis(get(jsonObject, DMAAP_CONSUMER_CONFIGURATION_TIMEOUT_MS).getAsLong()))
-            .build();
+        Map<String, MessageRouterSubscribeRequest> result = new LinkedHashMap<>();
+        for (RawDataStream<JsonObject> source : sources) {
+            MessageRouterSource parsedSource = StreamFromGsonParsers.messageRouterSourceParser().unsafeParse(source);
+            result.put(source.name(), ImmutableMessageRouterSubscribeRequest.builder()
+                .consumerGroup(getAsString(jsonObject, DMAAP_CONSUMER_CONFIGURATION_CONSUMER_GROUP))
+                .sourceDefinition(parsedSource)
+                .consumerId(getAsString(jsonObject, DMAAP_CONSUMER_CONFIGURATION_CONSUMER_ID))
+                .timeout(Duration.ofMillis(get(jsonObject, DMAAP_CONSUMER_CONFIGURATION_TIMEOUT_MS).getAsLong()))
+                .build());
+        }
+        return result;
     }
 
     /**
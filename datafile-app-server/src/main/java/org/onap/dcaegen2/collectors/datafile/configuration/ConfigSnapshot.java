@@ -0,0 +1,196 @@
+/*-
+ * ============LICENSE_START======================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * ============LICENSE_END========================================================================
+ */
+
+
+package org.onap.dcaegen2.collectors.datafile.configuration;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.onap.dcaegen2.collectors.datafile.commons.ContentDigest;
+import org.onap.dcaegen2.collectors.datafile.commons.TlsProfile;
+import org.onap.dcaegen2.collectors.datafile.exceptions.DatafileTaskException;
+
+/**
+ * An immutable snapshot of the configuration read from CBS, together with the application settings used for each
+ * file. A new snapshot is published each time the configuration changes, so a file that captures the snapshot when it
+ * is admitted sees one consistent configuration all the way, from the collection to the publishing.
+ */
+public final class ConfigSnapshot {
+
+    /**
+     * The snapshot before any configuration is loaded.
+     */
+    public static final ConfigSnapshot EMPTY = new ConfigSnapshot(null, null, null, null);
+
+    private final ConsumerConfiguration dmaapConsumerConfiguration;
+    private final Map<String, PublisherConfiguration> publishingConfigurations;
+    private final CertificateConfig certificateConfiguration;
+    private final SftpConfig sftpConfiguration;
+    private final ProcessingSettings settings;
+    private final boolean bundlingConfigured;
+
+    /**
+     * Constructor, with the default application settings.
+     *
+     * @param dmaapConsumerConfiguration the consumer configuration.
+     * @param publishingConfigurations the feed configurations keyed by change identifier.
+     * @param certificateConfiguration the configuration for communication with the xNFs.
+     * @param sftpConfiguration the sFTP configuration.
+     */
+    public ConfigSnapshot(ConsumerConfiguration dmaapConsumerConfiguration,
+        Map<String, PublisherConfiguration> publishingConfigurations, CertificateConfig certificateConfiguration,
+        SftpConfig sftpConfiguration) {
+        this(dmaapConsumerConfiguration, publishingConfigurations, certificateConfiguration, sftpConfiguration,
+            ProcessingSettings.DEFAULT);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param dmaapConsumerConfiguration the consumer configuration.
+     * @param publishingConfigurations the feed configurations keyed by change identifier.
+     * @param certificateConfiguration the configuration for communication with the xNFs.
+     * @param sftpConfiguration the sFTP configuration.
+     * @param settings the application settings used for each file.
+     */
+    public ConfigSnapshot(ConsumerConfiguration dmaapConsumerConfiguration,
+        Map<String, PublisherConfiguration> publishingConfigurations, CertificateConfig certificateConfiguration,
+        SftpConfig sftpConfiguration, ProcessingSettings settings) {
+        this.dmaapConsumerConfiguration = dmaapConsumerConfiguration;
+        this.publishingConfigurations = publishingConfigurations == null ? null
+            : Collections.unmodifiableMap(new HashMap<>(publishingConfigurations));
+        this.certificateConfiguration = certificateConfiguration;
+        this.sftpConfiguration = sftpConfiguration;
+        this.settings = settings;
+        this.bundlingConfigured = settings.isBundlingEnabled() && this.publishingConfigurations != null
+            && this.publishingConfigurations.values().stream().anyMatch(PublisherConfiguration::bundleFiles);
+    }
+
+    /**
+     * Creates a copy of this snapshot with other application settings.
+     *
+     * @param settings the application settings.
+     * @return the new snapshot.
+     */
+    public ConfigSnapshot withSettings(ProcessingSettings settings) {
+        return new ConfigSnapshot(dmaapConsumerConfiguration, publishingConfigurations, certificateConfiguration,
+            sftpConfiguration, settings);
+    }
+
+    public ConsumerConfiguration getDmaapConsumerConfiguration() {
+        return dmaapConsumerConfiguration;
+    }
+
+    /**
+     * Gets the feed configurations.
+     *
+     * @return the feed configurations keyed by change identifier, null if no configuration is loaded.
+     */
+    public Map<String, PublisherConfiguration> getPublishingConfigurations() {
+        return publishingConfigurations;
+    }
+
+    /**
+     * Checks if there is a configuration for the given feed.
+     *
+     * @param changeIdentifier the change identifier the feed is configured to belong to.
+     * @return true if a feed is configured for the given change identifier, false if not.
+     */
+    public boolean isFeedConfigured(String changeIdentifier) {
+        return publishingConfigurations != null && publishingConfigurations.containsKey(changeIdentifier);
+    }
+
+    /**
+     * Gets the feed configuration for the given change identifier.
+     *
+     * @param changeIdentifier the change identifier the feed is configured to belong to.
+     * @return the <code>PublisherConfiguration</code> for the feed belonging to the given change identifier.
+     * @throws DatafileTaskException if no configuration has been loaded or the configuration is missing for the given
+     *         change identifier.
+     */
+    public PublisherConfiguration getPublisherConfiguration(String changeIdentifier) throws DatafileTaskException {
+        if (publishingConfigurations == null) {
+            throw new DatafileTaskException("No PublishingConfiguration loaded, changeIdentifier: " + changeIdentifier);
+        }
+        PublisherConfiguration cfg = publishingConfigurations.get(changeIdentifier);
+        if (cfg == null) {
+            throw new DatafileTaskException(
+                "Cannot find getPublishingConfiguration for changeIdentifier: " + changeIdentifier);
+        }
+        return cfg;
+    }
+
+    public CertificateConfig getCertificateConfiguration() {
+        return certificateConfiguration;
+    }
+
+    public SftpConfig getSftpConfiguration() {
+        return sftpConfiguration;
+    }
+
+    public ProcessingSettings getSettings() {
+        return settings;
+    }
+
+    public ContentDigest.Algorithm getCollectingDigestAlgorithm() {
+        return settings.getCollectingDigestAlgorithm();
+    }
+
+    public ContentDigest.Algorithm getContentDedupeDigestAlgorithm() {
+        return settings.getContentDedupeDigestAlgorithm();
+    }
+
+    /**
+     * Checks if the digest computed while collecting is published as the checksum of the file. It is not when it is
+     * only computed for the content deduplication.
+     */
+    public boolean isChecksumPublished() {
+        return settings.getCollectedFileChecksum() != ContentDigest.Algorithm.NONE;
+    }
+
+    public boolean isContentDedupeEnabled() {
+        return settings.isContentDedupeEnabled();
+    }
+
+    /**
+     * Checks if a file should be published in a bundle. The feed must not have opted out from bundling.
+     *
+     * @param changeIdentifier the feed the file is published on.
+     * @param fileSize the size of the file in bytes.
+     * @return <code>true</code> if the file should be bundled.
+     */
+    public boolean shouldBeBundled(String changeIdentifier, long fileSize) {
+        if (!settings.isBundlingEnabled() || fileSize > settings.getBundleMaxFileSize()
+            || publishingConfigurations == null) {
+            return false;
+        }
+        PublisherConfiguration feed = publishingConfigurations.get(changeIdentifier);
+        return feed != null && feed.bundleFiles();
+    }
+
+    /**
+     * Checks if any feed has its files bundled. When none has, there are no bundled files to look up.
+     *
+     * @return <code>true</code> if bundling is enabled and at least one feed has not opted out from it.
+     */
+    public boolean isBundlingConfigured() {
+        return bundlingConfigured;
+    }
+
+    public TlsProfile getTlsProfile() {
+        return settings.getTlsProfile();
+    }
+}
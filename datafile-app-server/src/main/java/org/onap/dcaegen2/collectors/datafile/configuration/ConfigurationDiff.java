@@ -0,0 +1,94 @@
+/*-
+ * ============LICENSE_START======================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * ============LICENSE_END========================================================================
+ */
+
+
+package org.onap.dcaegen2.collectors.datafile.configuration;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+
+/**
+ * The differences between two parsed configurations. Used to log what has changed when the configuration is
+ * refreshed.
+ */
+class ConfigurationDiff {
+
+    private final List<String> changes = new ArrayList<>();
+
+    private ConfigurationDiff() {
+    }
+
+    /**
+     * Compares two configurations, the previous one may be empty if it has never been loaded.
+     *
+     * @param previous the configuration in use.
+     * @param next the new configuration.
+     * @return the differences.
+     */
+    static ConfigurationDiff between(ConfigSnapshot previous, ConfigSnapshot next) {
+        ConsumerConfiguration previousConsumer = previous.getDmaapConsumerConfiguration();
+        ConsumerConfiguration nextConsumer = next.getDmaapConsumerConfiguration();
+        ConfigurationDiff diff = new ConfigurationDiff();
+        if (previousConsumer == null
+            || previousConsumer.getMessageRouterSubscriber() != nextConsumer.getMessageRouterSubscriber()) {
+            diff.changes.add("message router subscriber");
+        }
+        if (previousConsumer == null || !previousConsumer.getMessageRouterSubscribeRequests()
+            .equals(nextConsumer.getMessageRouterSubscribeRequests())) {
+            diff.changes.add("source topics " + nextConsumer.getMessageRouterSubscribeRequests().keySet());
+        }
+        Map<String, PublisherConfiguration> previousFeeds = previous.getPublishingConfigurations();
+        diff.addFeedChanges(previousFeeds == null ? Collections.emptyMap() : previousFeeds,
+            next.getPublishingConfigurations());
+        if (!Objects.equals(previous.getCertificateConfiguration(), next.getCertificateConfiguration())) {
+            diff.changes.add("xNF certificates");
+        }
+        if (!Objects.equals(previous.getSftpConfiguration(), next.getSftpConfiguration())) {
+            diff.changes.add("sFTP settings");
+        }
+        return diff;
+    }
+
+    private void addFeedChanges(Map<String, PublisherConfiguration> previous,
+        Map<String, PublisherConfiguration> next) {
+        TreeSet<String> feeds = new TreeSet<>(previous.keySet());
+        feeds.addAll(next.keySet());
+        for (String feed : feeds) {
+            if (!previous.containsKey(feed)) {
+                changes.add("feed " + feed + " added");
+            } else if (!next.containsKey(feed)) {
+                changes.add("feed " + feed + " removed");
+            } else if (!previous.get(feed).equals(next.get(feed))) {
+                changes.add("feed " + feed + " changed");
+            }
+        }
+    }
+
+    boolean isEmpty() {
+        return changes.isEmpty();
+    }
+
+    List<String> getChanges() {
+        return Collections.unmodifiableList(changes);
+    }
+
+    @Override
+    public String toString() {
+        return isEmpty() ? "no changes" : String.join(", ", changes);
+    }
+}
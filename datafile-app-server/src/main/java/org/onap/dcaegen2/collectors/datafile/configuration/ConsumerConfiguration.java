@@ -18,29 +18,90 @@
 
 package org.onap.dcaegen2.collectors.datafile.configuration;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import org.onap.dcaegen2.services.sdk.rest.services.dmaap.client.api.MessageRouterSubscriber;
 import org.onap.dcaegen2.services.sdk.rest.services.dmaap.client.model.MessageRouterSubscribeRequest;
 import org.onap.dcaegen2.services.sdk.rest.services.dmaap.client.model.config.MessageRouterSubscriberConfig;
 
+/**
+ * The configuration for consuming file ready messages. There is one subscribe request per source topic, keyed by the
+ * name of its streams_subscribes entry. The subscriber is shared by all the topics.
+ *
+ * <p>
+ * The subscriber settings are the configuration values the subscriber is created from. When they are unchanged after
+ * a configuration refresh, the subscriber is kept.
+ */
 public class ConsumerConfiguration {
 
+    public static final String DEFAULT_SOURCE_NAME = "default";
+
     private final MessageRouterSubscriberConfig messageRouterSubscriberConfig;
     private final MessageRouterSubscriber messageRouterSubscriber;
-    private final MessageRouterSubscribeRequest messageRouterSubscribeRequest;
+    private final Map<String, MessageRouterSubscribeRequest> messageRouterSubscribeRequests;
+    private final Map<String, String> subscriberSettings;
 
     public ConsumerConfiguration(MessageRouterSubscriberConfig messageRouterSubscriberConfig,
         MessageRouterSubscriber messageRouterSubscriber, MessageRouterSubscribeRequest messageRouterSubscribeRequest) {
+        this(messageRouterSubscriberConfig, messageRouterSubscriber,
+            Collections.singletonMap(DEFAULT_SOURCE_NAME, messageRouterSubscribeRequest));
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param messageRouterSubscriberConfig the subscriber configuration.
+     * @param messageRouterSubscriber the subscriber used for all the topics.
+     * @param messageRouterSubscribeRequests the subscribe requests keyed by source name, at least one.
+     */
+    public ConsumerConfiguration(MessageRouterSubscriberConfig messageRouterSubscriberConfig,
+        MessageRouterSubscriber messageRouterSubscriber,
+        Map<String, MessageRouterSubscribeRequest> messageRouterSubscribeRequests) {
+        this(messageRouterSubscriberConfig, messageRouterSubscriber, messageRouterSubscribeRequests,
+            Collections.emptyMap());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param messageRouterSubscriberConfig the subscriber configuration.
+     * @param messageRouterSubscriber the subscriber used for all the topics.
+     * @param messageRouterSubscribeRequests the subscribe requests keyed by source name, at least one.
+     * @param subscriberSettings the configuration values the subscriber is created from.
+     */
+    public ConsumerConfiguration(MessageRouterSubscriberConfig messageRouterSubscriberConfig,
+        MessageRouterSubscriber messageRouterSubscriber,
+        Map<String, MessageRouterSubscribeRequest> messageRouterSubscribeRequests,
+        Map<String, String> subscriberSettings) {
+        if (messageRouterSubscribeRequests.isEmpty()) {
+            throw new IllegalArgumentException("At least one subscribe request is required");
+        }
         this.messageRouterSubscriberConfig = messageRouterSubscriberConfig;
         this.messageRouterSubscriber = messageRouterSubscriber;
-        this.messageRouterSubscribeRequest = messageRouterSubscribeRequest;
+        this.messageRouterSubscribeRequests =
+            Collections.unmodifiableMap(new LinkedHashMap<>(messageRouterSubscribeRequests));
+        this.subscriberSettings = Collections.unmodifiableMap(new LinkedHashMap<>(subscriberSettings));
     }
 
     public MessageRouterSubscriber getMessageRouterSubscriber() {
         return messageRouterSubscriber;
     }
 
+    /**
+     * Gets the subscribe request of the first source topic.
+     */
     public MessageRouterSubscribeRequest getMessageRouterSubscribeRequest() {
-        return messageRouterSubscribeRequest;
+        return messageRouterSubscribeRequests.values().iterator().next();
+    }
+
+    public Map<String, MessageRouterSubscribeRequest> getMessageRouterSubscribeRequests() {
+        return messageRouterSubscribeRequests;
+    }
+
+    public Map<String, String> getSubscriberSettings() {
+        return subscriberSettings;
     }
 
     public MessageRouterSubscriberConfig getMessageRouterSubscriberConfig() {
@@ -49,8 +110,13 @@ public class ConsumerConfiguration {
 
     @Override
     public String toString() {
+        StringBuilder sources = new StringBuilder();
+        for (Map.Entry<String, MessageRouterSubscribeRequest> entry : messageRouterSubscribeRequests.entrySet()) {
+            MessageRouterSubscribeRequest request = entry.getValue();
+            sources.append(sources.length() == 0 ? "" : ", ").append(entry.getKey()).append("={consumerGroup=")
+                .append(request.consumerGroup()).append(", consumerID=").append(request.consumerId()).append('}');
+        }
         return "ConsumerConfiguration{" + "securityKeys=" + messageRouterSubscriberConfig.securityKeys()
-            + ", consumerGroup=" + messageRouterSubscribeRequest.consumerGroup() + ", consumerID="
-            + messageRouterSubscribeRequest.consumerId() + '}';
+            + ", sources={" + sources + "}}";
     }
 }
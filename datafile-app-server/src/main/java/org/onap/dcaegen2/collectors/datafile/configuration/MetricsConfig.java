@@ -0,0 +1,71 @@
+/*-
+ * ============LICENSE_START======================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * ============LICENSE_END========================================================================
+ */
+
+package org.onap.dcaegen2.collectors.datafile.configuration;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import org.onap.dcaegen2.collectors.datafile.commons.CachingDnsResolver;
+import org.onap.dcaegen2.collectors.datafile.commons.CredentialStore;
+import org.onap.dcaegen2.collectors.datafile.commons.TlsHandshakeMetrics;
+import org.onap.dcaegen2.collectors.datafile.tasks.ScheduledTasks;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Exposes the DFC counters to Micrometer, and thereby to the actuator metrics and prometheus endpoints.
+ */
+@Configuration
+public class MetricsConfig {
+    /**
+     * Creates the binder registering the DFC counters in the meter registry.
+     *
+     * @param scheduledTasks the owner of the counters.
+     * @return a meter binder.
+     */
+    @Bean
+    public MeterBinder datafileCounters(ScheduledTasks scheduledTasks) {
+        return scheduledTasks.getCounters();
+    }
+
+    /**
+     * Creates the binder registering the DNS cache metrics in the meter registry.
+     *
+     * @return a meter binder.
+     */
+    @Bean
+    public MeterBinder datafileDnsResolver() {
+        return CachingDnsResolver.getInstance();
+    }
+
+    /**
+     * Creates the binder registering the credential store metrics in the meter registry.
+     *
+     * @return a meter binder.
+     */
+    @Bean
+    public MeterBinder datafileCredentialStore() {
+        return CredentialStore.getInstance();
+    }
+
+    /**
+     * Creates the binder registering the TLS handshake counters in the meter registry.
+     *
+     * @return a meter binder.
+     */
+    @Bean
+    public MeterBinder datafileTlsHandshakes() {
+        return TlsHandshakeMetrics.getInstance();
+    }
+}
@@ -0,0 +1,146 @@
+/*-
+ * ============LICENSE_START======================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * ============LICENSE_END========================================================================
+ */
+
+
+package org.onap.dcaegen2.collectors.datafile.configuration;
+
+import java.time.Duration;
+
+import org.onap.dcaegen2.collectors.datafile.commons.ContentDigest;
+import org.onap.dcaegen2.collectors.datafile.commons.TlsProfile;
+
+/**
+ * The application settings used for each file, taken from the <code>app</code> properties. They are part of the
+ * {@link ConfigSnapshot} captured when a file is admitted, so they are read without locking.
+ */
+public final class ProcessingSettings {
+
+    public static final int DEFAULT_CONTENT_DEDUPE_MAX_ENTRIES = 100000;
+    public static final Duration DEFAULT_BUNDLED_FILES_RETENTION = Duration.ofDays(7);
+    public static final int DEFAULT_BUNDLED_FILES_MAX_ENTRIES = 100000;
+
+    /**
+     * The settings before the application properties are bound.
+     */
+    public static final ProcessingSettings DEFAULT =
+        new ProcessingSettings(ContentDigest.Algorithm.NONE, Duration.ZERO, 0, 0, TlsProfile.DEFAULT);
+
+    private final ContentDigest.Algorithm collectedFileChecksum;
+    private final Duration contentDedupeWindow;
+    private final int contentDedupeMaxEntries;
+    private final long bundleMaxSize;
+    private final long bundleMaxFileSize;
+    private final Duration bundledFilesRetention;
+    private final int bundledFilesMaxEntries;
+    private final TlsProfile tlsProfile;
+
+    /**
+     * Constructor, with the default limits of the content deduplication and bundled file indexes.
+     *
+     * @param collectedFileChecksum the digest published to the DataRouter, <code>NONE</code> for no digest.
+     * @param contentDedupeWindow the time to remember published file contents, zero to not deduplicate.
+     * @param bundleMaxSize the maximum size of a bundle in bytes, zero to not bundle.
+     * @param bundleMaxFileSize the size of the largest file that is bundled.
+     * @param tlsProfile the TLS settings used towards the xNFs.
+     */
+    public ProcessingSettings(ContentDigest.Algorithm collectedFileChecksum, Duration contentDedupeWindow,
+        long bundleMaxSize, long bundleMaxFileSize, TlsProfile tlsProfile) {
+        this(collectedFileChecksum, contentDedupeWindow, DEFAULT_CONTENT_DEDUPE_MAX_ENTRIES, bundleMaxSize,
+            bundleMaxFileSize, DEFAULT_BUNDLED_FILES_RETENTION, DEFAULT_BUNDLED_FILES_MAX_ENTRIES, tlsProfile);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param collectedFileChecksum the digest published to the DataRouter, <code>NONE</code> for no digest.
+     * @param contentDedupeWindow the time to remember published file contents, zero to not deduplicate.
+     * @param contentDedupeMaxEntries the maximum number of remembered file contents.
+     * @param bundleMaxSize the maximum size of a bundle in bytes, zero to not bundle.
+     * @param bundleMaxFileSize the size of the largest file that is bundled.
+     * @param bundledFilesRetention the time to remember the names of the bundled files.
+     * @param bundledFilesMaxEntries the maximum number of remembered bundled files.
+     * @param tlsProfile the TLS settings used towards the xNFs.
+     */
+    public ProcessingSettings(ContentDigest.Algorithm collectedFileChecksum, Duration contentDedupeWindow,
+        int contentDedupeMaxEntries, long bundleMaxSize, long bundleMaxFileSize, Duration bundledFilesRetention,
+        int bundledFilesMaxEntries, TlsProfile tlsProfile) {
+        this.collectedFileChecksum = collectedFileChecksum;
+        this.contentDedupeWindow = contentDedupeWindow;
+        this.contentDedupeMaxEntries = contentDedupeMaxEntries;
+        this.bundleMaxSize = bundleMaxSize;
+        this.bundleMaxFileSize = bundleMaxFileSize;
+        this.bundledFilesRetention = bundledFilesRetention;
+        this.bundledFilesMaxEntries = bundledFilesMaxEntries;
+        this.tlsProfile = tlsProfile;
+    }
+
+    public ContentDigest.Algorithm getCollectedFileChecksum() {
+        return collectedFileChecksum;
+    }
+
+    /**
+     * Gets the digest to compute while files are collected. The content deduplication needs a digest, so SHA-256 is
+     * used when deduplication is enabled but no checksum is selected.
+     *
+     * @return the digest algorithm.
+     */
+    public ContentDigest.Algorithm getCollectingDigestAlgorithm() {
+        if (collectedFileChecksum == ContentDigest.Algorithm.NONE && isContentDedupeEnabled()) {
+            return ContentDigest.Algorithm.SHA_256;
+        }
+        return collectedFileChecksum;
+    }
+
+    /**
+     * Gets the digest that identifies the contents for the deduplication. It is always SHA-256, whatever checksum is
+     * published, since a 32 bits checksum would let different files of the same size be taken as duplicates.
+     *
+     * @return the digest algorithm, <code>NONE</code> if the deduplication is disabled.
+     */
+    public ContentDigest.Algorithm getContentDedupeDigestAlgorithm() {
+        return isContentDedupeEnabled() ? ContentDigest.Algorithm.SHA_256 : ContentDigest.Algorithm.NONE;
+    }
+
+    public Duration getContentDedupeWindow() {
+        return contentDedupeWindow;
+    }
+
+    public int getContentDedupeMaxEntries() {
+        return contentDedupeMaxEntries;
+    }
+
+    public boolean isContentDedupeEnabled() {
+        return !contentDedupeWindow.isZero() && !contentDedupeWindow.isNegative();
+    }
+
+    public boolean isBundlingEnabled() {
+        return bundleMaxSize > 0;
+    }
+
+    public long getBundleMaxFileSize() {
+        return bundleMaxFileSize;
+    }
+
+    public Duration getBundledFilesRetention() {
+        return bundledFilesRetention;
+    }
+
+    public int getBundledFilesMaxEntries() {
+        return bundledFilesMaxEntries;
+    }
+
+    public TlsProfile getTlsProfile() {
+        return tlsProfile;
+    }
+}
@@ -48,4 +48,13 @@ public interface PublisherConfiguration {
 
     String changeIdentifier();
 
+    /**
+     * Whether small files may be published in bundles on this feed. Feeds whose consumers cannot unpack bundles opt
+     * out.
+     */
+    @Value.Default
+    default Boolean bundleFiles() {
+        return Boolean.TRUE;
+    }
+
 }
@@ -27,7 +27,9 @@ import java.util.Map;
 import java.util.concurrent.ScheduledFuture;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 
+import org.onap.dcaegen2.collectors.datafile.model.DrainStatus;
 import org.onap.dcaegen2.collectors.datafile.model.logging.MappedDiagnosticContext;
 import org.onap.dcaegen2.collectors.datafile.tasks.ScheduledTasks;
 import org.slf4j.Logger;
@@ -82,13 +84,44 @@ public class SchedulerConfig {
      */
     @ApiOperation(value = "Get response on stopping task execution")
     public synchronized Mono<ResponseEntity<String>> getResponseFromCancellationOfTasks() {
+        cancelTasks();
+        return Mono.just(new ResponseEntity<>("Datafile Service has already been stopped!", HttpStatus.CREATED));
+    }
+
+    /**
+     * Function which stops tasks execution and waits for the files in progress to be published.
+     *
+     * @return response entity with the status of the drain, when it is finished
+     */
+    @ApiOperation(value = "Get response on draining task execution")
+    public synchronized Mono<ResponseEntity<String>> getResponseFromDrainingOfTasks() {
+        cancelTasks();
+        return scheduledTask.drain(configuration.getDrainTimeout()) //
+            .map(status -> new ResponseEntity<>("Datafile Service has been drained, " + status, HttpStatus.OK));
+    }
+
+    /**
+     * Drains DFC before it is shut down, so that the files in progress are not collected again by the next instance.
+     */
+    @PreDestroy
+    public void drainOnShutdown() {
+        synchronized (this) {
+            cancelTasks();
+        }
+        DrainStatus status = scheduledTask.drain(configuration.getDrainTimeout()).block();
+        scheduledTask.shutdown();
+        MDC.setContextMap(contextMap);
+        logger.info("Drained Datafile workflow before shutdown, {}", status);
+        MDC.clear();
+    }
+
+    private void cancelTasks() {
         scheduledFutureList.forEach(x -> x.cancel(false));
         scheduledFutureList.clear();
         configuration.stop();
         MDC.setContextMap(contextMap);
         logger.info("Stopped Datafile workflow");
         MDC.clear();
-        return Mono.just(new ResponseEntity<>("Datafile Service has already been stopped!", HttpStatus.CREATED));
     }
 
     /**
@@ -104,6 +137,7 @@ public class SchedulerConfig {
         configuration.initialize();
 
         if (scheduledFutureList.isEmpty()) {
+            scheduledTask.resumeIntake();
             scheduledFutureList.add(taskScheduler.scheduleWithFixedDelay(scheduledTask::executeDatafileMainTask,
                 SCHEDULING_DELAY_FOR_DATAFILE_COLLECTOR_TASKS));
             scheduledFutureList.add(taskScheduler.scheduleWithFixedDelay(
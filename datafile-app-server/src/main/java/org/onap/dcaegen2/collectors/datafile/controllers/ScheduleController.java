@@ -90,6 +90,21 @@ public class ScheduleController {
         return response;
     }
 
+    /**
+     * Stop the DFC and wait for the files in progress to be published.
+     *
+     * @return the response, when the drain is finished.
+     */
+    @GetMapping("/drainDatafile")
+    @Operation(summary = "Receiving drain request, stops scheduling and finishes the files in progress")
+    public Mono<ResponseEntity<String>> drainTask(@RequestHeader HttpHeaders headers) {
+        MappedDiagnosticContext.initializeTraceContext(headers);
+        logger.info(MappedDiagnosticContext.ENTRY, "Drain request");
+        Mono<ResponseEntity<String>> response = schedulerConfig.getResponseFromDrainingOfTasks();
+        logger.info(MappedDiagnosticContext.EXIT, "Drain request");
+        return response;
+    }
+
     @Operation(summary = "Sends success or error response on starting task execution")
     private static ResponseEntity<String> createStartTaskResponse(boolean wasScheduled) {
         if (wasScheduled) {
@@ -24,7 +24,10 @@ import io.swagger.annotations.ApiResponse;
 import io.swagger.annotations.ApiResponses;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import java.util.List;
+import org.onap.dcaegen2.collectors.datafile.model.CircuitBreakerSnapshot;
 import org.onap.dcaegen2.collectors.datafile.model.Counters;
+import org.onap.dcaegen2.collectors.datafile.model.DrainStatus;
 import org.onap.dcaegen2.collectors.datafile.model.logging.MappedDiagnosticContext;
 import org.onap.dcaegen2.collectors.datafile.tasks.ScheduledTasks;
 import org.slf4j.Logger;
@@ -97,8 +100,39 @@ public class StatusController {
         logger.info(ENTRY, "Status request");
 
         Counters counters = scheduledTasks.getCounters();
-        Mono<ResponseEntity<String>> response = Mono.just(new ResponseEntity<>(counters.toString(), HttpStatus.OK));
+        String status = counters.toString() + "\n" + scheduledTasks.getCircuitBreakers().toString();
+        Mono<ResponseEntity<String>> response = Mono.just(new ResponseEntity<>(status, HttpStatus.OK));
         logger.info(EXIT, "Status request");
         return response;
     }
+
+    /**
+     * Returns the state of the circuit breakers of the file servers, the ones that are not closed first.
+     *
+     * @return the circuit breaker states.
+     */
+    @GetMapping("/status/circuitbreakers")
+    @Operation(summary = "Returns the circuit breaker state per file server")
+    public Mono<ResponseEntity<List<CircuitBreakerSnapshot>>> circuitBreakers(@RequestHeader HttpHeaders headers) {
+        MappedDiagnosticContext.initializeTraceContext(headers);
+        logger.info(ENTRY, "Circuit breakers request");
+        List<CircuitBreakerSnapshot> result = scheduledTasks.getCircuitBreakers().snapshots();
+        logger.info(EXIT, "Circuit breakers request");
+        return Mono.just(new ResponseEntity<>(result, HttpStatus.OK));
+    }
+
+    /**
+     * Returns the progress of draining DFC.
+     *
+     * @return the drain status.
+     */
+    @GetMapping("/status/drain")
+    @Operation(summary = "Returns the progress of draining the DATAFILE service")
+    public Mono<ResponseEntity<DrainStatus>> drainStatus(@RequestHeader HttpHeaders headers) {
+        MappedDiagnosticContext.initializeTraceContext(headers);
+        logger.info(ENTRY, "Drain status request");
+        DrainStatus result = scheduledTasks.getDrainStatus();
+        logger.info(EXIT, "Drain status request");
+        return Mono.just(new ResponseEntity<>(result, HttpStatus.OK));
+    }
 }
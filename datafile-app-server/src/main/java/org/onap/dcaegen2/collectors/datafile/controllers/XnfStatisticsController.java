@@ -0,0 +1,118 @@
+/*-
+ * ============LICENSE_START======================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * ============LICENSE_END========================================================================
+ */
+
+package org.onap.dcaegen2.collectors.datafile.controllers;
+
+import static org.onap.dcaegen2.collectors.datafile.model.logging.MappedDiagnosticContext.ENTRY;
+import static org.onap.dcaegen2.collectors.datafile.model.logging.MappedDiagnosticContext.EXIT;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+import java.util.List;
+
+import org.onap.dcaegen2.collectors.datafile.model.XnfStatistics;
+import org.onap.dcaegen2.collectors.datafile.model.XnfTransferSnapshot;
+import org.onap.dcaegen2.collectors.datafile.model.logging.MappedDiagnosticContext;
+import org.onap.dcaegen2.collectors.datafile.tasks.ScheduledTasks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+/**
+ * REST Controller giving the transfer statistics per xNF. It is intended for trouble shooting.
+ */
+@RestController
+@Tag(name = "XnfStatisticsController")
+public class XnfStatisticsController {
+
+    static final int MAX_PAGE_SIZE = 1000;
+
+    private static final Logger logger = LoggerFactory.getLogger(XnfStatisticsController.class);
+
+    private final ScheduledTasks scheduledTasks;
+
+    @Autowired
+    public XnfStatisticsController(ScheduledTasks scheduledTasks) {
+        this.scheduledTasks = scheduledTasks;
+    }
+
+    /**
+     * Returns the transfer statistics of all xNFs, one page at a time, ordered by source name.
+     *
+     * @param page the page number, starting at 0.
+     * @param size the number of xNFs per page, at most {@value #MAX_PAGE_SIZE}.
+     * @return the statistics.
+     */
+    @GetMapping("/status/xnf")
+    @Operation(summary = "Returns transfer statistics per xNF")
+    public Mono<ResponseEntity<List<XnfTransferSnapshot>>> xnfStatistics(@RequestHeader HttpHeaders headers,
+        @RequestParam(defaultValue = "0") int page, @RequestParam(defaultValue = "100") int size) {
+        MappedDiagnosticContext.initializeTraceContext(headers);
+        logger.info(ENTRY, "xNF statistics request");
+        List<XnfTransferSnapshot> result = statistics().page(Math.max(page, 0), limit(size));
+        logger.info(EXIT, "xNF statistics request");
+        return Mono.just(new ResponseEntity<>(result, HttpStatus.OK));
+    }
+
+    /**
+     * Returns the xNFs with the highest 99th percentile fetch time.
+     *
+     * @param limit the maximum number of xNFs to return, at most {@value #MAX_PAGE_SIZE}.
+     * @return the statistics.
+     */
+    @GetMapping("/status/xnf/slowest")
+    @Operation(summary = "Returns transfer statistics of the slowest xNFs")
+    public Mono<ResponseEntity<List<XnfTransferSnapshot>>> slowest(@RequestHeader HttpHeaders headers,
+        @RequestParam(defaultValue = "10") int limit) {
+        MappedDiagnosticContext.initializeTraceContext(headers);
+        logger.info(ENTRY, "Slowest xNFs request");
+        List<XnfTransferSnapshot> result = statistics().slowest(limit(limit));
+        logger.info(EXIT, "Slowest xNFs request");
+        return Mono.just(new ResponseEntity<>(result, HttpStatus.OK));
+    }
+
+    /**
+     * Returns the xNFs with the highest number of failed transfer attempts.
+     *
+     * @param limit the maximum number of xNFs to return, at most {@value #MAX_PAGE_SIZE}.
+     * @return the statistics.
+     */
+    @GetMapping("/status/xnf/failing")
+    @Operation(summary = "Returns transfer statistics of the most failing xNFs")
+    public Mono<ResponseEntity<List<XnfTransferSnapshot>>> mostFailing(@RequestHeader HttpHeaders headers,
+        @RequestParam(defaultValue = "10") int limit) {
+        MappedDiagnosticContext.initializeTraceContext(headers);
+        logger.info(ENTRY, "Most failing xNFs request");
+        List<XnfTransferSnapshot> result = statistics().mostFailing(limit(limit));
+        logger.info(EXIT, "Most failing xNFs request");
+        return Mono.just(new ResponseEntity<>(result, HttpStatus.OK));
+    }
+
+    private static int limit(int requested) {
+        return Math.min(Math.max(requested, 0), MAX_PAGE_SIZE);
+    }
+
+    private XnfStatistics statistics() {
+        return scheduledTasks.getCounters().getXnfStatistics();
+    }
+}
@@ -0,0 +1,42 @@
+/*-
+ * ============LICENSE_START======================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * ============LICENSE_END========================================================================
+ */
+
+package org.onap.dcaegen2.collectors.datafile.exceptions;
+
+import java.time.Duration;
+
+/**
+ * An attempt that was not made, since the circuit breaker of the file server is open. The file is worth trying again
+ * when the breaker lets attempts through, the failure does not use up any of its retries.
+ */
+public class CircuitBreakerOpenException extends DatafileTaskException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient Duration retryAfter;
+
+    public CircuitBreakerOpenException(String host, Duration retryAfter) {
+        super("Circuit breaker is open for " + host);
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * Gets the time until the circuit breaker lets an attempt through.
+     *
+     * @return the time to wait before trying again.
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -22,26 +22,27 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.net.InetAddress;
 import java.nio.file.Path;
 import java.security.GeneralSecurityException;
-import java.security.KeyStore;
-import java.security.KeyStoreException;
-import java.security.NoSuchAlgorithmException;
-import java.security.UnrecoverableKeyException;
-import java.security.cert.CertificateException;
 import java.util.Optional;
 
 import javax.net.ssl.KeyManager;
-import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocket;
 import javax.net.ssl.TrustManager;
-import javax.net.ssl.TrustManagerFactory;
 
 import org.apache.commons.net.ftp.FTP;
 import org.apache.commons.net.ftp.FTPReply;
 import org.apache.commons.net.ftp.FTPSClient;
+import org.onap.dcaegen2.collectors.datafile.commons.CachingDnsResolver;
+import org.onap.dcaegen2.collectors.datafile.commons.ContentDigest;
+import org.onap.dcaegen2.collectors.datafile.commons.CredentialStore;
 import org.onap.dcaegen2.collectors.datafile.commons.FileCollectClient;
 import org.onap.dcaegen2.collectors.datafile.commons.FileServerData;
-import org.onap.dcaegen2.collectors.datafile.commons.SecurityUtil;
+import org.onap.dcaegen2.collectors.datafile.commons.PartialTransfer;
+import org.onap.dcaegen2.collectors.datafile.commons.TlsHandshakeMetrics;
+import org.onap.dcaegen2.collectors.datafile.commons.TlsProfile;
 import org.onap.dcaegen2.collectors.datafile.exceptions.DatafileTaskException;
 import org.onap.dcaegen2.collectors.datafile.exceptions.NonRetryableDatafileTaskException;
 import org.slf4j.Logger;
@@ -51,17 +52,22 @@ import org.springframework.core.io.FileSystemResource;
 /**
  * Gets file from PNF with FTPS protocol.
  *
+ * <p>
+ * The TLS handshakes of the control connections are counted in {@link TlsHandshakeMetrics}.
+ *
  * @author <a href="mailto:martin.c.yan@est.tech">Martin Yan</a>
  */
 public class FtpesClient implements FileCollectClient {
     private static final Logger logger = LoggerFactory.getLogger(FtpesClient.class);
 
     private static final int DEFAULT_PORT = 21;
+    private static final String KEY_STORE_TYPE = "JKS";
+    private static final String MANAGER_ALGORITHM = "SunX509";
 
-    FTPSClient realFtpsClient = new FTPSClient();
+    // Created when the connection is opened, unless already set
+    FTPSClient realFtpsClient = null;
     private final FileServerData fileServerData;
-    private static TrustManager theTrustManager = null;
-    private static KeyManager theKeyManager = null;
+    private final TlsProfile tlsProfile;
 
     private final Path keyCertPath;
     private final String keyCertPasswordPath;
@@ -79,7 +85,24 @@ public class FtpesClient implements FileCollectClient {
      */
     public FtpesClient(FileServerData fileServerData, Path keyCertPath, String keyCertPasswordPath, Path trustedCaPath,
         String trustedCaPasswordPath) {
+        this(fileServerData, keyCertPath, keyCertPasswordPath, trustedCaPath, trustedCaPasswordPath,
+            TlsProfile.DEFAULT);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param fileServerData info needed to connect to the PNF.
+     * @param keyCertPath path to DFC's key cert.
+     * @param keyCertPasswordPath path of file containing password for DFC's key cert.
+     * @param trustedCaPath path to the PNF's trusted keystore.
+     * @param trustedCaPasswordPath path of file containing password for the PNF's trusted keystore.
+     * @param tlsProfile the TLS settings.
+     */
+    public FtpesClient(FileServerData fileServerData, Path keyCertPath, String keyCertPasswordPath, Path trustedCaPath,
+        String trustedCaPasswordPath, TlsProfile tlsProfile) {
         this.fileServerData = fileServerData;
+        this.tlsProfile = tlsProfile;
         this.keyCertPath = keyCertPath;
         this.keyCertPasswordPath = keyCertPasswordPath;
         this.trustedCaPath = trustedCaPath;
@@ -89,9 +112,19 @@ public class FtpesClient implements FileCollectClient {
     @Override
     public void open() throws DatafileTaskException {
         try {
+            // The TLS context is shared by all clients using the same managers, so that sessions can be resumed
+            SSLContext sslContext = CredentialStore.getInstance().getSslContext(
+                getKeyManager(keyCertPath, keyCertPasswordPath), getTrustManager(trustedCaPath, trustedCaPasswordPath));
+            tlsProfile.configure(sslContext);
+            if (realFtpsClient == null) {
+                realFtpsClient = createFtpsClient(sslContext);
+            }
             realFtpsClient.setNeedClientAuth(true);
-            realFtpsClient.setKeyManager(getKeyManager(keyCertPath, keyCertPasswordPath));
-            realFtpsClient.setTrustManager(getTrustManager(trustedCaPath, trustedCaPasswordPath));
+            realFtpsClient.setEnabledProtocols(tlsProfile.getProtocols());
+            String[] cipherSuites = tlsProfile.getCipherSuites(sslContext);
+            if (cipherSuites != null) {
+                realFtpsClient.setEnabledCipherSuites(cipherSuites);
+            }
             setUpConnection();
         } catch (DatafileTaskException e) {
             throw e;
@@ -103,7 +136,7 @@ public class FtpesClient implements FileCollectClient {
     @Override
     public void close() {
         logger.trace("starting to closeDownConnection");
-        if (realFtpsClient.isConnected()) {
+        if (realFtpsClient != null && realFtpsClient.isConnected()) {
             try {
                 boolean logOut = realFtpsClient.logout();
                 logger.trace("logOut: {}", logOut);
@@ -121,13 +154,31 @@ public class FtpesClient implements FileCollectClient {
 
     @Override
     public void collectFile(String remoteFileName, Path localFileName) throws DatafileTaskException {
-        logger.trace("collectFile called");
+        collectFile(remoteFileName, localFileName, 0, ContentDigest.none());
+    }
 
-        try (OutputStream output = createOutputStream(localFileName)) {
-            logger.trace("begin to retrieve from xNF.");
-            if (!realFtpsClient.retrieveFile(remoteFileName, output)) {
-                throw new NonRetryableDatafileTaskException(
-                    "Could not retrieve file. No retry attempts will be done, file :" + remoteFileName);
+    @Override
+    public void collectFile(String remoteFileName, Path localFileName, long offset) throws DatafileTaskException {
+        collectFile(remoteFileName, localFileName, offset, ContentDigest.none());
+    }
+
+    @Override
+    public void collectFile(String remoteFileName, Path localFileName, long offset, ContentDigest digest)
+        throws DatafileTaskException {
+        logger.trace("collectFile called, offset {}", offset);
+        try {
+            long remoteFileSize = offset > 0 ? getRemoteFileSize(remoteFileName) : -1;
+            if (offset > 0 && offset < remoteFileSize) {
+                resumeFile(remoteFileName, localFileName, offset, digest);
+                PartialTransfer.checkLength(localFileName, remoteFileSize);
+            } else {
+                if (offset > 0) {
+                    logger.debug("Local file {} does not match the remote file, fetching the whole file",
+                        localFileName);
+                }
+                try (OutputStream output = digest.wrap(createOutputStream(localFileName))) {
+                    retrieveFile(remoteFileName, output);
+                }
             }
         } catch (IOException e) {
             throw new DatafileTaskException("Could not fetch file: " + e, e);
@@ -135,13 +186,63 @@ public class FtpesClient implements FileCollectClient {
         logger.trace("collectFile fetched: {}", localFileName);
     }
 
+    private void resumeFile(String remoteFileName, Path localFileName, long offset, ContentDigest digest)
+        throws IOException, DatafileTaskException {
+        digest.updateFrom(localFileName); // The part fetched by an earlier attempt
+        realFtpsClient.setRestartOffset(offset);
+        try (OutputStream output = digest.wrap(new FileOutputStream(localFileName.toFile(), true))) {
+            retrieveFile(remoteFileName, output);
+        } finally {
+            realFtpsClient.setRestartOffset(0);
+        }
+    }
+
+    private void retrieveFile(String remoteFileName, OutputStream output) throws IOException, DatafileTaskException {
+        logger.trace("begin to retrieve from xNF.");
+        if (!realFtpsClient.retrieveFile(remoteFileName, output)) {
+            throw new NonRetryableDatafileTaskException(
+                "Could not retrieve file. No retry attempts will be done, file :" + remoteFileName);
+        }
+    }
+
+    /**
+     * Gets the modification time of a remote file with the MDTM command.
+     */
+    @Override
+    public Optional<String> getRemoteModificationTime(String remoteFileName) throws DatafileTaskException {
+        try {
+            // Null if the server does not tell
+            return Optional.ofNullable(realFtpsClient.getModificationTime(remoteFileName));
+        } catch (IOException e) {
+            throw new DatafileTaskException("Could not fetch file: " + e, e);
+        }
+    }
+
+    /**
+     * Gets the size of a remote file with the SIZE command.
+     *
+     * @return the size in bytes, or -1 if the server does not tell.
+     */
+    private long getRemoteFileSize(String remoteFileName) throws IOException {
+        if (realFtpsClient.sendCommand("SIZE", remoteFileName) != FTPReply.FILE_STATUS) {
+            return -1;
+        }
+        String[] reply = realFtpsClient.getReplyString().trim().split("\\s+");
+        try {
+            return Long.parseLong(reply[reply.length - 1]);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
     private static int getPort(Optional<Integer> port) {
         return port.isPresent() ? port.get() : DEFAULT_PORT;
     }
 
     private void setUpConnection() throws DatafileTaskException, IOException {
 
-        realFtpsClient.connect(fileServerData.serverAddress(), getPort(fileServerData.port()));
+        InetAddress address = CachingDnsResolver.getInstance().resolve(fileServerData.serverAddress())[0];
+        realFtpsClient.connect(address, getPort(fileServerData.port()));
         logger.trace("after ftp connect");
 
         if (!realFtpsClient.login(fileServerData.userId(), fileServerData.password())) {
@@ -164,16 +265,8 @@ public class FtpesClient implements FileCollectClient {
         logger.trace("setUpConnection successfully!");
     }
 
-    private TrustManager createTrustManager(Path trustedCaPath, String trustedCaPassword)
-        throws IOException, KeyStoreException, NoSuchAlgorithmException, CertificateException {
-        logger.trace("Creating trust manager from file: {}", trustedCaPath);
-        try (InputStream fis = createInputStream(trustedCaPath)) {
-            KeyStore keyStore = KeyStore.getInstance("JKS");
-            keyStore.load(fis, trustedCaPassword.toCharArray());
-            TrustManagerFactory factory = TrustManagerFactory.getInstance("SunX509");
-            factory.init(keyStore);
-            return factory.getTrustManagers()[0];
-        }
+    protected FTPSClient createFtpsClient(SSLContext sslContext) {
+        return new MeteredFtpsClient(sslContext);
     }
 
     protected InputStream createInputStream(Path localFileName) throws IOException {
@@ -192,36 +285,37 @@ public class FtpesClient implements FileCollectClient {
     }
 
     protected TrustManager getTrustManager(Path trustedCaPath, String trustedCaPasswordPath)
-        throws KeyStoreException, NoSuchAlgorithmException, IOException, CertificateException {
-        String trustedCaPassword = SecurityUtil.getTruststorePasswordFromFile(trustedCaPasswordPath);
-        synchronized (FtpesClient.class) {
-            if (theTrustManager == null) {
-                theTrustManager = createTrustManager(trustedCaPath, trustedCaPassword);
-            }
-            return theTrustManager;
-        }
+        throws IOException, GeneralSecurityException {
+        return CredentialStore.getInstance()
+            .getTrustManagerFactory(CredentialStore.Location.of(trustedCaPath, trustedCaPasswordPath, KEY_STORE_TYPE,
+                MANAGER_ALGORITHM), this::createInputStream)
+            .getTrustManagers()[0];
     }
 
     protected KeyManager getKeyManager(Path keyCertPath, String keyCertPasswordPath)
         throws IOException, GeneralSecurityException {
-        String keyCertPassword = SecurityUtil.getKeystorePasswordFromFile(keyCertPasswordPath);
-        synchronized (FtpesClient.class) {
-            if (theKeyManager == null) {
-                theKeyManager = createKeyManager(keyCertPath, keyCertPassword);
-            }
-            return theKeyManager;
-        }
+        return CredentialStore.getInstance()
+            .getKeyManagerFactory(CredentialStore.Location.of(keyCertPath, keyCertPasswordPath, KEY_STORE_TYPE,
+                MANAGER_ALGORITHM), this::createInputStream)
+            .getKeyManagers()[0];
     }
 
-    private KeyManager createKeyManager(Path keyCertPath, String keyCertPassword) throws IOException, KeyStoreException,
-        NoSuchAlgorithmException, CertificateException, UnrecoverableKeyException {
-        logger.trace("Creating key manager from file: {}", keyCertPath);
-        try (InputStream fis = createInputStream(keyCertPath)) {
-            KeyStore keyStore = KeyStore.getInstance("JKS");
-            keyStore.load(fis, keyCertPassword.toCharArray());
-            KeyManagerFactory factory = KeyManagerFactory.getInstance("SunX509");
-            factory.init(keyStore, keyCertPassword.toCharArray());
-            return factory.getKeyManagers()[0];
+    /**
+     * Records the handshake of the control connection, which is made while connecting.
+     */
+    private static class MeteredFtpsClient extends FTPSClient {
+        MeteredFtpsClient(SSLContext sslContext) {
+            super(sslContext);
+        }
+
+        @Override
+        protected void _connectAction_() throws IOException {
+            long startMillis = System.currentTimeMillis();
+            super._connectAction_();
+            if (_socket_ instanceof SSLSocket) {
+                TlsHandshakeMetrics.getInstance().record(TlsHandshakeMetrics.Client.FTPES,
+                    ((SSLSocket) _socket_).getSession(), startMillis);
+            }
         }
     }
 }
@@ -22,13 +22,22 @@ import com.jcraft.jsch.JSch;
 import com.jcraft.jsch.JSchException;
 import com.jcraft.jsch.Session;
 import com.jcraft.jsch.SftpException;
+import com.jcraft.jsch.SocketFactory;
 
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
 import java.nio.file.Path;
 import java.util.Optional;
 
 import org.jetbrains.annotations.NotNull;
+import org.onap.dcaegen2.collectors.datafile.commons.CachingDnsResolver;
+import org.onap.dcaegen2.collectors.datafile.commons.ContentDigest;
 import org.onap.dcaegen2.collectors.datafile.commons.FileCollectClient;
 import org.onap.dcaegen2.collectors.datafile.commons.FileServerData;
+import org.onap.dcaegen2.collectors.datafile.commons.PartialTransfer;
 import org.onap.dcaegen2.collectors.datafile.exceptions.DatafileTaskException;
 import org.onap.dcaegen2.collectors.datafile.exceptions.NonRetryableDatafileTaskException;
 import org.slf4j.Logger;
@@ -64,19 +73,81 @@ public class SftpClient implements FileCollectClient {
             sftpChannel.get(remoteFile, localFile.toString());
             logger.trace("File {} Download successful from xNF", localFile.getFileName());
         } catch (SftpException e) {
-            boolean retry = e.id != ChannelSftp.SSH_FX_NO_SUCH_FILE && e.id != ChannelSftp.SSH_FX_PERMISSION_DENIED
-                && e.id != ChannelSftp.SSH_FX_OP_UNSUPPORTED;
-            if (retry) {
-                throw new DatafileTaskException("Unable to get file from xNF. Data: " + fileServerData, e);
-            } else {
-                throw new NonRetryableDatafileTaskException(
-                    "Unable to get file from xNF. No retry attempts will be done. Data: " + fileServerData, e);
+            throw createException(e);
+        }
+
+        logger.trace("collectFile OK");
+    }
+
+    @Override
+    public void collectFile(String remoteFile, Path localFile, long offset) throws DatafileTaskException {
+        logger.trace("collectFile {}, offset {}", localFile, offset);
+
+        try {
+            long remoteFileSize = sftpChannel.stat(remoteFile).getSize();
+            if (offset >= remoteFileSize) {
+                logger.debug("Local file {} does not match the remote file, fetching the whole file", localFile);
+                collectFile(remoteFile, localFile);
+                return;
+            }
+            sftpChannel.get(remoteFile, localFile.toString(), null, ChannelSftp.RESUME);
+            PartialTransfer.checkLength(localFile, remoteFileSize);
+            logger.trace("File {} Download resumed from xNF", localFile.getFileName());
+        } catch (SftpException e) {
+            throw createException(e);
+        }
+
+        logger.trace("collectFile OK");
+    }
+
+    @Override
+    public void collectFile(String remoteFile, Path localFile, long offset, ContentDigest digest)
+        throws DatafileTaskException {
+        logger.trace("collectFile {}, offset {}", localFile, offset);
+
+        try {
+            long remoteFileSize = offset > 0 ? sftpChannel.stat(remoteFile).getSize() : -1;
+            boolean resume = offset > 0 && offset < remoteFileSize;
+            if (resume) {
+                digest.updateFrom(localFile); // The part fetched by an earlier attempt
+            }
+            try (OutputStream output = digest.wrap(new FileOutputStream(localFile.toFile(), resume))) {
+                sftpChannel.get(remoteFile, output, null, resume ? ChannelSftp.RESUME : ChannelSftp.OVERWRITE,
+                    resume ? offset : 0);
+            }
+            if (resume) {
+                PartialTransfer.checkLength(localFile, remoteFileSize);
             }
+            logger.trace("File {} Download successful from xNF", localFile.getFileName());
+        } catch (SftpException e) {
+            throw createException(e);
+        } catch (IOException e) {
+            throw new DatafileTaskException("Could not write file: " + e, e);
         }
 
         logger.trace("collectFile OK");
     }
 
+    @Override
+    public Optional<String> getRemoteModificationTime(String remoteFile) throws DatafileTaskException {
+        try {
+            return Optional.of(String.valueOf(sftpChannel.stat(remoteFile).getMTime()));
+        } catch (SftpException e) {
+            throw createException(e);
+        }
+    }
+
+    private DatafileTaskException createException(SftpException e) {
+        boolean retry = e.id != ChannelSftp.SSH_FX_NO_SUCH_FILE && e.id != ChannelSftp.SSH_FX_PERMISSION_DENIED
+            && e.id != ChannelSftp.SSH_FX_OP_UNSUPPORTED;
+        if (retry) {
+            return new DatafileTaskException("Unable to get file from xNF. Data: " + fileServerData, e);
+        } else {
+            return new NonRetryableDatafileTaskException(
+                "Unable to get file from xNF. No retry attempts will be done. Data: " + fileServerData, e);
+        }
+    }
+
     @Override
     public void close() {
         logger.trace("closing sftp session");
@@ -100,7 +171,7 @@ public class SftpClient implements FileCollectClient {
         } catch (JSchException e) {
             boolean retry = !e.getMessage().contains("Auth fail");
             if (retry) {
-                throw new DatafileTaskException("Could not open Sftp client. " + e);
+                throw new DatafileTaskException("Could not open Sftp client. " + e, e);
             } else {
                 throw new NonRetryableDatafileTaskException(
                     "Could not open Sftp client, no retry attempts will be done. " + e);
@@ -135,6 +206,7 @@ public class SftpClient implements FileCollectClient {
             jsch.getSession(fileServerData.userId(), fileServerData.serverAddress(), getPort(fileServerData.port()));
         newSession.setConfig(STRICT_HOST_KEY_CHECKING, toYesNo(useStrictHostKeyChecking));
         newSession.setPassword(fileServerData.password());
+        newSession.setSocketFactory(new CachedDnsSocketFactory());
         newSession.connect();
         return newSession;
     }
@@ -150,4 +222,23 @@ public class SftpClient implements FileCollectClient {
         return (ChannelSftp) channel;
     }
 
+    /**
+     * Resolves the xNF host name via the shared DNS cache instead of a blocking lookup in JSch.
+     */
+    private static class CachedDnsSocketFactory implements SocketFactory {
+        @Override
+        public Socket createSocket(String host, int port) throws IOException {
+            return new Socket(CachingDnsResolver.getInstance().resolve(host)[0], port);
+        }
+
+        @Override
+        public InputStream getInputStream(Socket socket) throws IOException {
+            return socket.getInputStream();
+        }
+
+        @Override
+        public OutputStream getOutputStream(Socket socket) throws IOException {
+            return socket.getOutputStream();
+        }
+    }
 }
@@ -0,0 +1,84 @@
+/*-
+ * ============LICENSE_START======================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * ============LICENSE_END========================================================================
+ */
+
+
+package org.onap.dcaegen2.collectors.datafile.http;
+
+import io.netty.resolver.AddressResolver;
+import io.netty.resolver.AddressResolverGroup;
+import io.netty.resolver.InetNameResolver;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.Promise;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+
+import org.onap.dcaegen2.collectors.datafile.commons.CachingDnsResolver;
+
+/**
+ * Lets the reactor netty HTTP client resolve host names via the shared {@link CachingDnsResolver}, without blocking
+ * the event loop.
+ */
+class CachingAddressResolverGroup extends AddressResolverGroup<InetSocketAddress> {
+
+    private final CachingDnsResolver resolver;
+
+    CachingAddressResolverGroup(CachingDnsResolver resolver) {
+        this.resolver = resolver;
+    }
+
+    @Override
+    protected AddressResolver<InetSocketAddress> newResolver(EventExecutor executor) {
+        return new CachingInetNameResolver(executor, resolver).asAddressResolver();
+    }
+
+    private static class CachingInetNameResolver extends InetNameResolver {
+        private final CachingDnsResolver resolver;
+
+        CachingInetNameResolver(EventExecutor executor, CachingDnsResolver resolver) {
+            super(executor);
+            this.resolver = resolver;
+        }
+
+        @Override
+        protected void doResolve(String host, Promise<InetAddress> promise) {
+            resolver.resolveAsync(host).whenComplete((addresses, throwable) -> {
+                if (throwable != null) {
+                    promise.tryFailure(unwrap(throwable));
+                } else {
+                    promise.trySuccess(addresses[0]);
+                }
+            });
+        }
+
+        @Override
+        protected void doResolveAll(String host, Promise<List<InetAddress>> promise) {
+            resolver.resolveAsync(host).whenComplete((addresses, throwable) -> {
+                if (throwable != null) {
+                    promise.tryFailure(unwrap(throwable));
+                } else {
+                    promise.trySuccess(Arrays.asList(addresses));
+                }
+            });
+        }
+
+        private static Throwable unwrap(Throwable throwable) {
+            return throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause()
+                : throwable;
+        }
+    }
+}
@@ -15,43 +15,65 @@
  */
 package org.onap.dcaegen2.collectors.datafile.http;
 
-import org.jetbrains.annotations.NotNull;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaders;
 import org.onap.dcaegen2.collectors.datafile.exceptions.DatafileTaskException;
+import org.onap.dcaegen2.collectors.datafile.commons.BlockingFileCollectClientAdapter;
+import org.onap.dcaegen2.collectors.datafile.commons.CachingDnsResolver;
+import org.onap.dcaegen2.collectors.datafile.commons.ContentDigest;
 import org.onap.dcaegen2.collectors.datafile.commons.FileCollectClient;
 import org.onap.dcaegen2.collectors.datafile.commons.FileServerData;
+import org.onap.dcaegen2.collectors.datafile.commons.PartialTransfer;
+import org.onap.dcaegen2.collectors.datafile.commons.ReactiveFileCollectClient;
 import org.onap.dcaegen2.collectors.datafile.exceptions.NonRetryableDatafileTaskException;
+import org.onap.dcaegen2.collectors.datafile.model.CollectedFile;
+import org.onap.dcaegen2.collectors.datafile.model.FileData;
 import org.onap.dcaegen2.collectors.datafile.service.HttpUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import reactor.core.Disposable;
+import reactor.core.Exceptions;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.ByteBufFlux;
 import reactor.netty.http.client.HttpClient;
 import reactor.netty.http.client.HttpClientResponse;
 import reactor.netty.resources.ConnectionProvider;
 
+import javax.net.ssl.SSLHandshakeException;
+import javax.net.ssl.SSLPeerUnverifiedException;
 import java.io.IOException;
-import java.io.InputStream;
-import java.nio.file.Files;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Path;
-import java.util.concurrent.CountDownLatch;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
-import java.util.function.Consumer;
 
 /**
  * Gets file from PNF with HTTP protocol.
  *
  * @author <a href="mailto:krzysztof.gajewski@nokia.com">Krzysztof Gajewski</a>
  */
-public class DfcHttpClient implements FileCollectClient {
+public class DfcHttpClient implements FileCollectClient, ReactiveFileCollectClient {
 
     //Be aware to be less than ScheduledTasks.NUMBER_OF_WORKER_THREADS
     private static final int MAX_NUMBER_OF_CONNECTIONS = 200;
     private static final Logger logger = LoggerFactory.getLogger(DfcHttpClient.class);
     private static final ConnectionProvider pool = ConnectionProvider.create("default", MAX_NUMBER_OF_CONNECTIONS);
+    private static final CachingAddressResolverGroup resolverGroup =
+        new CachingAddressResolverGroup(CachingDnsResolver.getInstance());
+    // The local files are written on these threads, not on the event loops of the connections
+    private static final Scheduler FILE_WRITES = Schedulers.boundedElastic();
+    private static final int WRITE_QUEUE_SIZE = 16;
 
     private final FileServerData fileServerData;
-    private Disposable disposableClient;
+    private volatile SegmentedDownload.ContentRange firstSegment = null;
+    // What is known about the transfer, recorded as a PartialTransfer if it fails
+    private final AtomicLong contiguousLength = new AtomicLong();
+    private volatile long remoteLength = PartialTransfer.UNKNOWN_LENGTH;
+    private volatile String validator = null;
 
     protected HttpClient client;
 
@@ -63,12 +85,31 @@ public class DfcHttpClient implements FileCollectClient {
         logger.trace("Setting httpClient for file download.");
 
         String authorizationContent = getAuthorizationContent();
-        this.client = HttpClient.create(pool).keepAlive(true).headers(
-            h -> h.add("Authorization", authorizationContent));
+        HttpClient httpClient = NettyTransport.configure(HttpClient.create(pool));
+        this.client = configure(httpClient.resolver(resolverGroup).keepAlive(true)).headers(h -> {
+            if (!authorizationContent.isEmpty()) {
+                h.add("Authorization", authorizationContent);
+            }
+        });
 
         logger.trace("httpClient, auth header was set.");
     }
 
+    /**
+     * Adds protocol specific configuration to the client.
+     */
+    protected HttpClient configure(HttpClient httpClient) {
+        return httpClient;
+    }
+
+    protected String prepareUri(String remoteFile) {
+        return HttpUtils.prepareHttpUri(fileServerData, remoteFile);
+    }
+
+    protected FileServerData getFileServerData() {
+        return fileServerData;
+    }
+
     protected String getAuthorizationContent() throws DatafileTaskException {
         String jwtToken = HttpUtils.getJWTToken(fileServerData);
         if (!jwtToken.isEmpty()) {
@@ -82,82 +123,387 @@ public class DfcHttpClient implements FileCollectClient {
 
     @Override public void collectFile(String remoteFile, Path localFile) throws DatafileTaskException {
         logger.trace("Prepare to collectFile {}", localFile);
-        CountDownLatch latch = new CountDownLatch(1);
-        final AtomicReference<Exception> errorMessage = new AtomicReference<>();
+        waitFor(download(remoteFile, localFile, ContentDigest.none(), true));
+        logger.trace("HTTP collectFile OK");
+    }
+
+    /**
+     * Waits for a transfer, for the blocking {@link FileCollectClient} methods.
+     */
+    private void waitFor(Mono<Void> transfer) throws DatafileTaskException {
+        try {
+            transfer.block();
+        } catch (RuntimeException e) {
+            throw createDownloadException(Exceptions.unwrap(e));
+        }
+    }
+
+    @Override public Mono<CollectedFile> collect(FileData fileData, ContentDigest digest) {
+        String remoteFile = fileData.remoteFilePath();
+        Path localFile = fileData.getLocalFilePath();
+        return Mono.fromCallable(() -> {
+            open();
+            return PartialTransfer.load(localFile);
+        }).flatMap(partial -> partial.length() > 0 //
+            ? resumeFile(remoteFile, localFile, partial.length(), partial.remoteLength(),
+                partial.validator().orElse(null), digest) //
+            : download(remoteFile, localFile, digest, true))
+            .doOnError(e -> savePartialTransfer(localFile)) //
+            .doOnCancel(() -> savePartialTransfer(localFile)) //
+            .then(Mono.fromCallable(() -> {
+                PartialTransfer.completed(localFile);
+                return CollectedFile.of(localFile, digest);
+            }));
+    }
+
+    /**
+     * Records the prefix of the local file that was written without gaps. Segments fetched after it are cut off.
+     */
+    private void savePartialTransfer(Path localFile) {
+        PartialTransfer.save(localFile, contiguousLength.get(), remoteLength, validator);
+    }
+
+    /**
+     * Fetches the whole file.
+     *
+     * @param segmented if a large file may be fetched in segments.
+     */
+    private Mono<Void> download(String remoteFile, Path localFile, ContentDigest digest, boolean segmented) {
+        firstSegment = null;
+        return downloadToFile(remoteFile, localFile, digest, segmented) //
+            .onErrorMap(e -> createDownloadException(Exceptions.unwrap(e))) //
+            .flatMap(numBytes -> {
+                logger.trace("Transmission was successful - {} bytes downloaded.", numBytes);
+                return downloadRemainderIfAny(remoteFile, localFile, digest);
+            });
+    }
 
-        Consumer<Throwable> onError = processFailedConnectionWithServer(latch, errorMessage);
-        Consumer<InputStream> onSuccess = processDataFromServer(localFile, latch, errorMessage);
+    private Mono<Void> downloadRemainderIfAny(String remoteFile, Path localFile, ContentDigest digest) {
+        if (!hasRemainder() && !digest.isEnabled()) {
+            return Mono.fromRunnable(() -> checkLength(localFile));
+        }
+        Mono<Void> remainder = hasRemainder() //
+            ? downloadRemainder(prepareUri(remoteFile), localFile, firstSegment) //
+            : Mono.empty();
+        return remainder.then(completeFile(localFile, digest));
+    }
 
-        Flux<InputStream> responseContent = getServerResponse(remoteFile);
-        disposableClient = responseContent.subscribe(onSuccess, onError);
+    /**
+     * Checks the length of the downloaded file and hashes the part of it that was not hashed while it was streamed.
+     */
+    private Mono<Void> completeFile(Path localFile, ContentDigest digest) {
+        return runBlocking(() -> {
+            PartialTransfer.checkLength(localFile, remoteLength);
+            updateDigest(digest, localFile);
+        });
+    }
 
+    private void checkLength(Path localFile) {
         try {
-            latch.await();
-        } catch (InterruptedException e) {
-            throw new DatafileTaskException("Interrupted exception after datafile download - ", e);
+            PartialTransfer.checkLength(localFile, remoteLength);
+        } catch (DatafileTaskException e) {
+            throw Exceptions.propagate(e);
         }
+    }
 
-        if (isDownloadFailed(errorMessage)) {
-            if (errorMessage.get() instanceof NonRetryableDatafileTaskException) {
-                throw (NonRetryableDatafileTaskException) errorMessage.get();
+    /**
+     * Hashes the part of the file that was not hashed while it was streamed.
+     */
+    private static void updateDigest(ContentDigest digest, Path localFile) throws DatafileTaskException {
+        try {
+            digest.updateFrom(localFile);
+        } catch (IOException e) {
+            throw new DatafileTaskException("Could not compute digest of file: " + e, e);
+        }
+    }
+
+    private interface BlockingFileOperation {
+        void run() throws DatafileTaskException;
+    }
+
+    /**
+     * Runs file operations that read the whole local file, off the event loops.
+     */
+    private static Mono<Void> runBlocking(BlockingFileOperation operation) {
+        return Mono.<Void>fromRunnable(() -> {
+            try {
+                operation.run();
+            } catch (DatafileTaskException e) {
+                throw Exceptions.propagate(e);
             }
-            throw (DatafileTaskException) errorMessage.get();
+        }).onErrorMap(Exceptions::unwrap).subscribeOn(BlockingFileCollectClientAdapter.scheduler());
+    }
+
+    private boolean hasRemainder() {
+        return firstSegment != null && firstSegment.hasRemainder();
+    }
+
+    private Mono<Void> downloadRemainder(String uri, Path localFile, SegmentedDownload.ContentRange segment) {
+        return SegmentedDownload.downloadRemainder(fileServerData.serverAddress(), localFile, segment,
+            (first, last, channel) -> fetchRange(uri, first, last, channel));
+    }
+
+    /**
+     * Streams the response body to the local file. Each chunk is written as soon as it arrives, so the memory used
+     * is bounded by the receive buffers of the connection regardless of the size of the file.
+     *
+     * @return the number of bytes written.
+     */
+    Mono<Long> downloadToFile(String remoteFile, Path localFile, ContentDigest digest, boolean segmented) {
+        return Mono.using(
+            () -> FileChannel.open(localFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE),
+            channel -> {
+                contiguousLength.set(0);
+                Flux<ByteBuffer> body =
+                    segmented ? getServerResponse(remoteFile) : getServerResponse(remoteFile, false);
+                return writeToFile(body, channel, contiguousLength, digest);
+            },
+            DfcHttpClient::closeChannel) //
+            .subscribeOn(FILE_WRITES);
+    }
+
+    /**
+     * Writes the received buffers to the local file, and hashes them, off the event loops. Only a few buffers are
+     * queued for writing, so a slow disk slows down the reading from the connection instead of filling the memory.
+     *
+     * @return the number of bytes written.
+     */
+    private static Mono<Long> writeToFile(Flux<ByteBuffer> buffers, FileChannel channel, AtomicLong position,
+        ContentDigest digest) {
+        return buffers.publishOn(FILE_WRITES, WRITE_QUEUE_SIZE) //
+            .map(buffer -> writeSegment(channel, buffer, position, digest)) //
+            .reduce(0L, Long::sum);
+    }
+
+    /**
+     * Copies the received buffers. The buffers of the connection are released as soon as they are handed over, so
+     * they cannot be written on another thread.
+     */
+    private static Flux<ByteBuffer> copyOf(ByteBufFlux body) {
+        return body.asByteArray().map(ByteBuffer::wrap);
+    }
+
+    private static void closeChannel(FileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.warn("Could not close local file: {}", e.toString());
         }
+    }
 
-        logger.trace("HTTP collectFile OK");
+    private DatafileTaskException createDownloadException(Throwable cause) {
+        if (cause instanceof DatafileTaskException) {
+            return (DatafileTaskException) cause;
+        }
+        if (isNonRetryable(cause)) {
+            return new NonRetryableDatafileTaskException(
+                "Unable to get file from xNF. No retry attempts will be done.", cause);
+        }
+        if (cause instanceof IOException) {
+            return new DatafileTaskException("Error fetching file: " + cause, cause);
+        }
+        Exception e = new Exception("Error in connection has occurred during file download", cause);
+        return new DatafileTaskException(cause.getMessage(), e);
     }
 
-    protected boolean isDownloadFailed(AtomicReference<Exception> errorMessage) {
-        return (errorMessage.get() != null);
+    /**
+     * Checks if a failure to get a file is permanent, so that the file is not retried.
+     */
+    protected boolean isNonRetryable(Throwable cause) {
+        return cause instanceof SSLHandshakeException || cause instanceof SSLPeerUnverifiedException;
     }
 
-    @NotNull protected Consumer<Throwable> processFailedConnectionWithServer(CountDownLatch latch, AtomicReference<Exception> errorMessages) {
-        return (Throwable response) -> {
-            Exception e = new Exception("Error in connection has occurred during file download", response);
-            errorMessages.set(new DatafileTaskException(response.getMessage(), e));
-            if (response instanceof NonRetryableDatafileTaskException) {
-                errorMessages.set(new NonRetryableDatafileTaskException(response.getMessage(), e));
-            }
-            latch.countDown();
-        };
+    @Override public void collectFile(String remoteFile, Path localFile, long offset) throws DatafileTaskException {
+        collectFile(remoteFile, localFile, offset, ContentDigest.none());
     }
 
-    @NotNull protected Consumer<InputStream> processDataFromServer(Path localFile, CountDownLatch latch,
-            AtomicReference<Exception> errorMessages) {
-        return (InputStream response) -> {
-            logger.trace("Starting to process response.");
-            try {
-                long numBytes = Files.copy(response, localFile);
-                logger.trace("Transmission was successful - {} bytes downloaded.", numBytes);
-                logger.trace("CollectFile fetched: {}", localFile);
-                response.close();
-            } catch (IOException e) {
-                errorMessages.set(new DatafileTaskException("Error fetching file with", e));
-            } finally {
-                latch.countDown();
-            }
-        };
+    @Override public void collectFile(String remoteFile, Path localFile, long offset, ContentDigest digest)
+        throws DatafileTaskException {
+        waitFor(resumeFile(remoteFile, localFile, offset, PartialTransfer.UNKNOWN_LENGTH, null, digest));
+    }
+
+    /**
+     * Resumes a transfer. The If-Range header makes the server send the whole file if it has changed since the
+     * partial file was fetched, the whole file is also fetched if the length of the remote file has changed.
+     *
+     * @param recordedRemoteLength the length of the remote file when the partial file was fetched.
+     * @param recordedValidator the ETag or Last-Modified of the remote file when the partial file was fetched.
+     */
+    private Mono<Void> resumeFile(String remoteFile, Path localFile, long offset, long recordedRemoteLength,
+        String recordedValidator, ContentDigest digest) {
+        if (offset == 0) {
+            return download(remoteFile, localFile, digest, true);
+        }
+        logger.trace("Prepare to resume collectFile {}, offset {}", localFile, offset);
+        String uri = prepareUri(remoteFile);
+        return runBlocking(() -> updateDigest(digest, localFile)) // The part fetched by an earlier attempt
+            .then(fetchFirstRange(uri, localFile, offset, recordedValidator, digest)) //
+            .filter(resumedSegment -> recordedRemoteLength == PartialTransfer.UNKNOWN_LENGTH
+                || recordedRemoteLength == resumedSegment.totalLength) //
+            .flatMap(resumedSegment -> {
+                remoteLength = resumedSegment.totalLength;
+                Mono<Void> remainder = resumedSegment.hasRemainder() //
+                    ? downloadRemainder(uri, localFile, resumedSegment) //
+                    : Mono.empty();
+                return remainder.then(completeFile(localFile, digest)).thenReturn(resumedSegment);
+            }) //
+            .switchIfEmpty(Mono.defer(() -> {
+                logger.debug("Local file {} does not match the remote file, fetching the whole file", localFile);
+                digest.reset();
+                // The server may ignore ranges, then a segmented download would fail again
+                return download(remoteFile, localFile, digest, false)
+                    .then(Mono.<SegmentedDownload.ContentRange>empty());
+            })) //
+            .doOnSuccess(resumedSegment -> logger.trace("HTTP collectFile resumed OK")) //
+            .then();
+    }
+
+    /**
+     * Fetches the first range after the part of the file that is already fetched.
+     *
+     * @return the fetched range, or empty if the server cannot resume the transfer.
+     */
+    private Mono<SegmentedDownload.ContentRange> fetchFirstRange(String uri, Path localFile, long offset,
+        String recordedValidator, ContentDigest digest) {
+        AtomicReference<SegmentedDownload.ContentRange> resumedSegment = new AtomicReference<>();
+        return Mono.using(() -> FileChannel.open(localFile, StandardOpenOption.WRITE), channel -> {
+            contiguousLength.set(offset);
+            validator = recordedValidator;
+            Flux<ByteBuffer> body = client.headers(h -> {
+                h.set(HttpHeaderNames.RANGE, SegmentedDownload.firstRange(offset));
+                if (recordedValidator != null) {
+                    h.set(HttpHeaderNames.IF_RANGE, recordedValidator);
+                }
+            })
+                .get()
+                .uri(uri)
+                .<ByteBuffer>response((responseReceiver, byteBufFlux) -> {
+                    if (getResponseCode(responseReceiver) == SegmentedDownload.RANGE_NOT_SATISFIABLE) {
+                        // The local file is not shorter than the remote file
+                        return Mono.empty();
+                    }
+                    if (!isResponseOk(responseReceiver)) {
+                        return createErrorResponse(responseReceiver);
+                    }
+                    SegmentedDownload.ContentRange range = SegmentedDownload.ContentRange
+                        .parse(responseReceiver.responseHeaders().get(HttpHeaderNames.CONTENT_RANGE)).orElse(null);
+                    if (range == null || range.first != offset) {
+                        // The server does not support ranges
+                        return Mono.empty();
+                    }
+                    resumedSegment.set(range);
+                    return copyOf(byteBufFlux);
+                });
+            return writeToFile(body, channel, contiguousLength, digest).then(Mono.fromSupplier(resumedSegment::get));
+        }, DfcHttpClient::closeChannel) //
+            .subscribeOn(FILE_WRITES) //
+            .onErrorMap(e -> createResumeException(Exceptions.unwrap(e)));
+    }
+
+    private DatafileTaskException createResumeException(Throwable cause) {
+        if (cause instanceof DatafileTaskException || isNonRetryable(cause)) {
+            return createDownloadException(cause);
+        }
+        return new DatafileTaskException("Error resuming file download: " + cause, cause);
     }
 
-    protected Flux<InputStream> getServerResponse(String remoteFile) {
+    /**
+     * Gets the response body as a stream of buffers. The buffers are copies, so they may be consumed on another
+     * thread. Only the first segment is streamed if the rest of the file is fetched in segments.
+     */
+    protected Flux<ByteBuffer> getServerResponse(String remoteFile) {
+        return getServerResponse(remoteFile, true);
+    }
+
+    private Flux<ByteBuffer> getServerResponse(String remoteFile, boolean segmented) {
         return client.get()
-            .uri(HttpUtils.prepareHttpUri(fileServerData, remoteFile))
-            .response((responseReceiver, byteBufFlux) -> {
+            .uri(prepareUri(remoteFile))
+            .<ByteBuffer>response((responseReceiver, byteBufFlux) -> {
                 logger.trace("HTTP response status - {}", responseReceiver.status());
-                if(isResponseOk(responseReceiver)){
-                    return byteBufFlux.aggregate().asInputStream();
+                if (getResponseCode(responseReceiver) == SegmentedDownload.PARTIAL_CONTENT) {
+                    // No range was asked for
+                    return Mono.error(new DatafileTaskException("Unexpected partial content, Content-Range: "
+                        + responseReceiver.responseHeaders().get(HttpHeaderNames.CONTENT_RANGE)));
                 }
-                if (isErrorInConnection(responseReceiver)) {
-                    return Mono.error(new NonRetryableDatafileTaskException(
-                        HttpUtils.nonRetryableResponse(getResponseCode(responseReceiver))));
+                if(isResponseOk(responseReceiver)){
+                    saveRemoteFileInfo(responseReceiver);
+                    if (segmented) {
+                        firstSegment = SegmentedDownload.firstSegment(remoteLength,
+                            responseReceiver.responseHeaders().get(HttpHeaderNames.ACCEPT_RANGES)).orElse(null);
+                    }
+                    if (firstSegment != null) {
+                        // The connection is closed after the first segment
+                        return SegmentedDownload.firstBytes(copyOf(byteBufFlux), firstSegment.last + 1);
+                    }
+                    return copyOf(byteBufFlux);
                 }
-                return Mono.error(new DatafileTaskException(
-                    HttpUtils.retryableResponse(getResponseCode(responseReceiver))));
+                return createErrorResponse(responseReceiver);
             });
     }
 
+    /**
+     * Keeps the length and the validator of the remote file, so that a failed transfer can be resumed safely.
+     */
+    private void saveRemoteFileInfo(HttpClientResponse responseReceiver) {
+        HttpHeaders headers = responseReceiver.responseHeaders();
+        remoteLength = parseLength(headers.get(HttpHeaderNames.CONTENT_LENGTH));
+        String etag = headers.get(HttpHeaderNames.ETAG);
+        // A weak ETag cannot be used in If-Range
+        validator = etag != null && !etag.startsWith("W/") ? etag : headers.get(HttpHeaderNames.LAST_MODIFIED);
+    }
+
+    private static long parseLength(String contentLength) {
+        try {
+            return contentLength == null ? PartialTransfer.UNKNOWN_LENGTH : Long.parseLong(contentLength.trim());
+        } catch (NumberFormatException e) {
+            return PartialTransfer.UNKNOWN_LENGTH;
+        }
+    }
+
+    private <T> Mono<T> createErrorResponse(HttpClientResponse responseReceiver) {
+        if (isErrorInConnection(responseReceiver)) {
+            return Mono.error(new NonRetryableDatafileTaskException(
+                HttpUtils.nonRetryableResponse(getResponseCode(responseReceiver))));
+        }
+        return Mono.error(new DatafileTaskException(
+            HttpUtils.retryableResponse(getResponseCode(responseReceiver))));
+    }
+
     protected boolean isResponseOk(HttpClientResponse httpClientResponse) {
-        return getResponseCode(httpClientResponse) == 200;
+        int responseCode = getResponseCode(httpClientResponse);
+        return responseCode == 200 || responseCode == SegmentedDownload.PARTIAL_CONTENT;
+    }
+
+    private Mono<Long> fetchRange(String uri, long first, long last, FileChannel channel) {
+        AtomicLong position = new AtomicLong(first);
+        Flux<ByteBuffer> body = client.headers(h -> h.set(HttpHeaderNames.RANGE, SegmentedDownload.range(first, last)))
+            .get()
+            .uri(uri)
+            .<ByteBuffer>response((responseReceiver, byteBufFlux) -> {
+                if (getResponseCode(responseReceiver) != SegmentedDownload.PARTIAL_CONTENT) {
+                    return Mono.error(new DatafileTaskException("Unexpected response for file segment "
+                        + SegmentedDownload.range(first, last) + ", response code: "
+                        + getResponseCode(responseReceiver)));
+                }
+                return copyOf(byteBufFlux);
+            });
+        return writeToFile(body, channel, position, ContentDigest.none()) //
+            .onErrorMap(e -> !(Exceptions.unwrap(e) instanceof DatafileTaskException),
+                e -> new DatafileTaskException("Error downloading file segment from server. " + e,
+                    Exceptions.unwrap(e)));
+    }
+
+    private static long writeSegment(FileChannel channel, ByteBuffer buffer, AtomicLong position,
+        ContentDigest digest) {
+        digest.update(buffer);
+        try {
+            long numBytes = SegmentedDownload.write(channel, buffer, position.get());
+            position.addAndGet(numBytes);
+            return numBytes;
+        } catch (IOException e) {
+            throw Exceptions.propagate(e);
+        }
     }
 
     private int getResponseCode(HttpClientResponse responseReceiver) {
@@ -169,8 +515,6 @@ public class DfcHttpClient implements FileCollectClient {
     }
 
     @Override public void close() {
-        logger.trace("Starting http client disposal.");
-        disposableClient.dispose();
-        logger.trace("Http client disposed.");
+        logger.trace("Http client closed.");
     }
 }
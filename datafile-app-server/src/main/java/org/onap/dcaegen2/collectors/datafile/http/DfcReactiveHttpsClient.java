@@ -0,0 +1,99 @@
+/*-
+ * ============LICENSE_START======================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * ============LICENSE_END========================================================================
+ */
+
+package org.onap.dcaegen2.collectors.datafile.http;
+
+import io.netty.channel.ChannelOption;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslHandler;
+import org.onap.dcaegen2.collectors.datafile.commons.FileServerData;
+import org.onap.dcaegen2.collectors.datafile.commons.TlsHandshakeMetrics;
+import org.onap.dcaegen2.collectors.datafile.exceptions.DatafileTaskException;
+import org.onap.dcaegen2.collectors.datafile.service.HttpUtils;
+import reactor.netty.http.client.HttpClient;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLParameters;
+import java.net.ConnectException;
+import java.net.UnknownHostException;
+
+/**
+ * Gets file from PNF with HTTPS protocol, without blocking a thread during the transfer.
+ */
+public class DfcReactiveHttpsClient extends DfcHttpClient {
+
+    private static final String HOSTNAME_VERIFICATION_ALGORITHM = "HTTPS";
+    private static final int FIFTEEN_SECONDS = 15 * 1000;
+
+    private final SslContext sslContext;
+    private final boolean hostnameVerification;
+
+    public DfcReactiveHttpsClient(FileServerData fileServerData, SslContext sslContext,
+        boolean hostnameVerification) {
+        super(fileServerData);
+        this.sslContext = sslContext;
+        this.hostnameVerification = hostnameVerification;
+    }
+
+    @Override protected HttpClient configure(HttpClient httpClient) {
+        return httpClient.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, FIFTEEN_SECONDS)
+            .secure(spec -> spec.sslContext(sslContext).handlerConfigurator(this::configureHandler));
+    }
+
+    private void configureHandler(SslHandler handler) {
+        SSLEngine engine = handler.engine();
+        SSLParameters parameters = engine.getSSLParameters();
+        parameters.setEndpointIdentificationAlgorithm(hostnameVerification ? HOSTNAME_VERIFICATION_ALGORITHM : null);
+        engine.setSSLParameters(parameters);
+        long startMillis = System.currentTimeMillis();
+        handler.handshakeFuture().addListener(future -> {
+            if (future.isSuccess()) {
+                TlsHandshakeMetrics.getInstance().record(TlsHandshakeMetrics.Client.HTTPS, engine.getSession(),
+                    startMillis);
+            }
+        });
+    }
+
+    /**
+     * An xNF that cannot be reached over HTTPS is not retried, the connection failures are not retryable.
+     */
+    @Override protected boolean isNonRetryable(Throwable cause) {
+        // A connect timeout is a ConnectException
+        return super.isNonRetryable(cause) || cause instanceof ConnectException
+            || cause instanceof UnknownHostException;
+    }
+
+    @Override protected String prepareUri(String remoteFile) {
+        return HttpUtils.prepareHttpsUri(getFileServerData(), remoteFile);
+    }
+
+    /**
+     * Gets the authorization header. With HTTPS the xNF may authenticate the client by its certificate only, in which
+     * case no header is sent.
+     */
+    @Override protected String getAuthorizationContent() throws DatafileTaskException {
+        FileServerData fileServerData = getFileServerData();
+        String jwtToken = HttpUtils.getJWTToken(fileServerData);
+        if (!jwtToken.isEmpty()) {
+            return HttpUtils.jwtAuthContent(jwtToken);
+        }
+        if (fileServerData.userId().isEmpty() && fileServerData.password().isEmpty()) {
+            return "";
+        }
+        if (!HttpUtils.isBasicAuthDataFilled(fileServerData)) {
+            throw new DatafileTaskException("Not sufficient basic auth data for file.");
+        }
+        return HttpUtils.basicAuthContent(fileServerData.userId(), fileServerData.password());
+    }
+}
@@ -15,35 +15,25 @@
  */
 package org.onap.dcaegen2.collectors.datafile.http;
 
-import org.apache.http.config.Registry;
-import org.apache.http.config.RegistryBuilder;
-import org.apache.http.conn.socket.ConnectionSocketFactory;
-import org.apache.http.conn.ssl.DefaultHostnameVerifier;
-import org.apache.http.conn.ssl.NoopHostnameVerifier;
-import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
-import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
-import org.apache.http.ssl.SSLContextBuilder;
-import org.apache.http.ssl.SSLContexts;
-import org.onap.dcaegen2.collectors.datafile.commons.SecurityUtil;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import org.onap.dcaegen2.collectors.datafile.commons.CredentialStore;
+import org.onap.dcaegen2.collectors.datafile.commons.TlsProfile;
 import org.onap.dcaegen2.collectors.datafile.exceptions.DatafileTaskException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.core.io.FileSystemResource;
 
-import javax.net.ssl.HostnameVerifier;
-import javax.net.ssl.SSLContext;
-import java.io.File;
-import java.io.IOException;
-import java.io.InputStream;
-import java.nio.file.Paths;
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.TrustManagerFactory;
+import java.nio.file.Path;
 import java.security.KeyStore;
-import java.security.KeyStoreException;
-import java.security.NoSuchAlgorithmException;
-import java.security.UnrecoverableKeyException;
-import java.security.cert.CertificateException;
 
 /**
- * Utility class supplying connection manager for HTTPS protocol.
+ * Utility class supplying the TLS context of the HTTPS client.
+ *
+ * <p>
+ * The key and trust material is taken from the {@link CredentialStore}. When it is rotated on disk the TLS context is
+ * rebuilt with the new material. The TLS settings are taken from a {@link TlsProfile}.
  *
  * @author <a href="mailto:krzysztof.gajewski@nokia.com">Krzysztof Gajewski</a>
  */
@@ -53,86 +43,94 @@ public class HttpsClientConnectionManagerUtil {
     }
 
     private static final Logger logger = LoggerFactory.getLogger(HttpsClientConnectionManagerUtil.class);
-    //Be aware to be less than ScheduledTasks.NUMBER_OF_WORKER_THREADS
-    private static final int MAX_NUMBER_OF_CONNECTIONS = 200;
-    private static PoolingHttpClientConnectionManager connectionManager;
+    private static SslContext nettySslContext;
+    private static boolean hostnameVerification;
+    private static CredentialStore.Location keyLocation;
+    private static CredentialStore.Location trustLocation;
+    private static TlsProfile tlsProfile = TlsProfile.DEFAULT;
+
+    static {
+        CredentialStore.getInstance().addRotationListener(HttpsClientConnectionManagerUtil::credentialsRotated);
+    }
 
-    public static PoolingHttpClientConnectionManager instance() throws DatafileTaskException {
-        if (connectionManager == null) {
-            throw new DatafileTaskException("ConnectionManager has to be set or update first");
+    /**
+     * Gets the TLS context for the HTTPS client.
+     *
+     * @return the TLS context.
+     * @throws DatafileTaskException if the TLS context has not been set up.
+     */
+    public static synchronized SslContext nettySslContext() throws DatafileTaskException {
+        if (nettySslContext == null) {
+            throw new DatafileTaskException("TLS context has to be set or update first");
         }
-        return connectionManager;
+        return nettySslContext;
+    }
+
+    public static synchronized boolean isHostnameVerificationEnabled() {
+        return hostnameVerification;
     }
 
     public static void setupOrUpdate(String keyCertPath, String keyCertPasswordPath, String trustedCaPath,
             String trustedCaPasswordPath, Boolean useHostnameVerifier) throws DatafileTaskException {
+        setupOrUpdate(keyCertPath, keyCertPasswordPath, trustedCaPath, trustedCaPasswordPath, useHostnameVerifier,
+                TlsProfile.DEFAULT);
+    }
+
+    /**
+     * Sets up the TLS context for the HTTPS client, replacing the current one.
+     *
+     * @param keyCertPath path to DFC's key cert.
+     * @param keyCertPasswordPath path of file containing password for DFC's key cert.
+     * @param trustedCaPath path to the trusted keystore.
+     * @param trustedCaPasswordPath path of file containing password for the trusted keystore.
+     * @param useHostnameVerifier if the host names of the xNFs are verified.
+     * @param profile the TLS settings.
+     * @throws DatafileTaskException if the key or trust material cannot be loaded.
+     */
+    public static void setupOrUpdate(String keyCertPath, String keyCertPasswordPath, String trustedCaPath,
+            String trustedCaPasswordPath, Boolean useHostnameVerifier, TlsProfile profile)
+            throws DatafileTaskException {
         synchronized (HttpsClientConnectionManagerUtil.class) {
-            if (connectionManager != null) {
-                connectionManager.close();
-                connectionManager = null;
-            }
-            setup(keyCertPath, keyCertPasswordPath, trustedCaPath, trustedCaPasswordPath, useHostnameVerifier);
+            nettySslContext = null;
+            keyLocation = CredentialStore.Location.of(keyCertPath, keyCertPasswordPath, "PKCS12",
+                    KeyManagerFactory.getDefaultAlgorithm());
+            trustLocation = CredentialStore.Location.of(trustedCaPath, trustedCaPasswordPath, KeyStore.getDefaultType(),
+                    TrustManagerFactory.getDefaultAlgorithm());
+            tlsProfile = profile;
+            setup(Boolean.TRUE.equals(useHostnameVerifier));
         }
-        logger.trace("HttpsConnectionManager setup or updated");
+        logger.trace("HTTPS TLS context setup or updated");
     }
 
-    private static void setup(String keyCertPath, String keyCertPasswordPath, String trustedCaPath,
-          String trustedCaPasswordPath, Boolean useHostnameVerifier) throws DatafileTaskException {
+    /**
+     * Rebuilds the TLS context when its key or trust material has changed. The old TLS context is kept if the new
+     * material cannot be loaded.
+     */
+    private static synchronized void credentialsRotated(Path directory) {
+        if (nettySslContext == null || !(keyLocation.isIn(directory) || trustLocation.isIn(directory))) {
+            return;
+        }
+        SslContext oldNettySslContext = nettySslContext;
         try {
-            SSLContextBuilder sslBuilder = SSLContexts.custom();
-            sslBuilder = supplyKeyInfo(keyCertPath, keyCertPasswordPath, sslBuilder);
-            sslBuilder = supplyTrustInfo(trustedCaPath, trustedCaPasswordPath, sslBuilder);
-
-            SSLContext sslContext = sslBuilder.build();
-
-            HostnameVerifier hostnameVerifier = (Boolean.TRUE.equals(useHostnameVerifier)) ? new DefaultHostnameVerifier() :
-                    NoopHostnameVerifier.INSTANCE;
-
-            SSLConnectionSocketFactory sslConnectionSocketFactory =
-                new SSLConnectionSocketFactory(sslContext, new String[] {"TLSv1.2"}, null,
-                        hostnameVerifier);
-
-            Registry<ConnectionSocketFactory> socketFactoryRegistry =
-                RegistryBuilder.<ConnectionSocketFactory>create().register("https", sslConnectionSocketFactory)
-                    .build();
-
-            connectionManager = new PoolingHttpClientConnectionManager(socketFactoryRegistry);
-            connectionManager.setMaxTotal(MAX_NUMBER_OF_CONNECTIONS);
-
-        } catch (Exception e) {
-            throw new DatafileTaskException("Unable to prepare HttpsConnectionManager  : ", e);
+            setup(hostnameVerification);
+            logger.info("HTTPS TLS context rebuilt with rotated credentials");
+        } catch (DatafileTaskException e) {
+            nettySslContext = oldNettySslContext;
+            logger.error("Could not rebuild HTTPS TLS context with rotated credentials, keeping the old one", e);
         }
     }
 
-    private static SSLContextBuilder supplyKeyInfo(String keyCertPath, String keyCertPasswordPath,
-            SSLContextBuilder sslBuilder)
-            throws IOException, KeyStoreException, NoSuchAlgorithmException, CertificateException,
-            UnrecoverableKeyException {
-        String keyPass = SecurityUtil.getKeystorePasswordFromFile(keyCertPasswordPath);
-        KeyStore keyFile = createKeyStore(keyCertPath, keyPass);
-        return sslBuilder.loadKeyMaterial(keyFile, keyPass.toCharArray());
-    }
-
-    private static KeyStore createKeyStore(String trustedCaPath, String trustedCaPassword)
-            throws IOException, KeyStoreException, NoSuchAlgorithmException, CertificateException {
-        logger.trace("Creating trust manager from file: {}", trustedCaPath);
-        try (InputStream fis = createInputStream(trustedCaPath)) {
-            KeyStore keyStore = KeyStore.getInstance("PKCS12");
-            keyStore.load(fis, trustedCaPassword.toCharArray());
-            return keyStore;
+    private static void setup(boolean useHostnameVerifier) throws DatafileTaskException {
+        try {
+            CredentialStore credentialStore = CredentialStore.getInstance();
+            SslContextBuilder builder = SslContextBuilder.forClient() //
+                .sslProvider(NettyTransport.sslProvider()) //
+                .keyManager(credentialStore.getKeyManagerFactory(keyLocation)) //
+                .trustManager(credentialStore.getTrustManagerFactory(trustLocation));
+            nettySslContext = tlsProfile.configure(builder).build();
+            hostnameVerification = useHostnameVerifier;
+        } catch (Exception e) {
+            throw new DatafileTaskException("Unable to prepare HTTPS TLS context  : ", e);
         }
     }
-
-    private static InputStream createInputStream(String localFileName) throws IOException {
-        FileSystemResource realResource = new FileSystemResource(Paths.get(localFileName));
-        return realResource.getInputStream();
-    }
-
-    private static SSLContextBuilder supplyTrustInfo(String trustedCaPath, String trustedCaPasswordPath,
-            SSLContextBuilder sslBuilder)
-            throws NoSuchAlgorithmException, KeyStoreException, CertificateException, IOException {
-        String trustPass = SecurityUtil.getTruststorePasswordFromFile(trustedCaPasswordPath);
-        File trustStoreFile = new File(trustedCaPath);
-        return sslBuilder.loadTrustMaterial(trustStoreFile, trustPass.toCharArray());
-    }
 }
@@ -0,0 +1,88 @@
+/*-
+ * ============LICENSE_START======================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * ============LICENSE_END========================================================================
+ */
+
+
+package org.onap.dcaegen2.collectors.datafile.http;
+
+import io.netty.handler.ssl.OpenSsl;
+import io.netty.handler.ssl.SslProvider;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.netty.http.HttpResources;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.LoopResources;
+
+/**
+ * Selects the transport and the TLS engine of the reactor netty clients used for file collection.
+ *
+ * <p>
+ * By default the NIO transport and the JDK TLS engine are used. With native transport enabled, the epoll transport
+ * and the OpenSSL engine are used instead when netty-transport-native-epoll and netty-tcnative-boringssl-static can be
+ * loaded on this platform. If they cannot, the defaults are used and the reason is logged.
+ */
+public final class NettyTransport {
+
+    private static final Logger logger = LoggerFactory.getLogger(NettyTransport.class);
+
+    private static boolean nativeTransport = false;
+    private static boolean openSsl = false;
+
+    private NettyTransport() {
+    }
+
+    /**
+     * Enables or disables the native transport and TLS engine. Clients and TLS contexts created afterwards are
+     * affected.
+     *
+     * @param enabled if the native transport should be used when available.
+     */
+    public static synchronized void setNativeTransport(boolean enabled) {
+        nativeTransport = enabled && LoopResources.hasNativeSupport();
+        openSsl = enabled && OpenSsl.isAvailable() && OpenSsl.supportsKeyManagerFactory();
+        if (!enabled) {
+            logger.debug("Using NIO transport and JDK TLS");
+            return;
+        }
+        if (nativeTransport) {
+            logger.info("Using native epoll transport");
+        } else {
+            logger.warn("Native transport is not available, falling back to NIO");
+        }
+        if (openSsl) {
+            logger.info("Using OpenSSL TLS engine {}", OpenSsl.versionString());
+        } else {
+            logger.warn("OpenSSL TLS engine is not available, falling back to JDK TLS: {}",
+                OpenSsl.isAvailable() ? "no key manager factory support" : OpenSsl.unavailabilityCause());
+        }
+    }
+
+    public static synchronized boolean isNativeTransport() {
+        return nativeTransport;
+    }
+
+    /**
+     * Gets the TLS engine to build the netty TLS contexts with.
+     */
+    public static synchronized SslProvider sslProvider() {
+        return openSsl ? SslProvider.OPENSSL : SslProvider.JDK;
+    }
+
+    /**
+     * Lets a client run on the shared event loops with the selected transport.
+     */
+    public static HttpClient configure(HttpClient httpClient) {
+        return httpClient.runOn(HttpResources.get(), isNativeTransport());
+    }
+}
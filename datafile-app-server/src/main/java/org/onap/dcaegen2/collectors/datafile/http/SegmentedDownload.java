@@ -0,0 +1,304 @@
+/*-
+ * ============LICENSE_START======================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * ============LICENSE_END========================================================================
+ */
+
+
+package org.onap.dcaegen2.collectors.datafile.http;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.onap.dcaegen2.collectors.datafile.exceptions.DatafileTaskException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Segmented download of large files over HTTP and HTTPS.
+ *
+ * <p>
+ * The first GET of a file asks for the whole file, so small files are fetched as before. If the server accepts
+ * ranges, as told by its Accept-Ranges header, and the file is longer than {@link #SEGMENTED_DOWNLOAD_THRESHOLD},
+ * only the first segment is read from that response and the connection is closed. The rest of the file is then
+ * fetched as concurrent byte ranges, written at their positions in the local file. A resumed transfer asks for the
+ * first segment after the part of the file that an earlier attempt has fetched. A server that ignores the range
+ * answers with the whole file, which is then fetched without segments.
+ *
+ * <p>
+ * Each download fetches its remainder with at least one connection, like a download that is not segmented. The extra
+ * concurrent segments are capped per xNF and in total, a download that finds no free permit uses fewer segments
+ * instead of waiting. The segments are fetched without blocking any thread while they are transferred.
+ */
+class SegmentedDownload {
+
+    static final long SEGMENTED_DOWNLOAD_THRESHOLD = 32L * 1024 * 1024;
+    static final long MIN_SEGMENT_SIZE = 8L * 1024 * 1024;
+    static final int MAX_SEGMENTS_PER_HOST = 4;
+    static final int MAX_EXTRA_SEGMENTS = 32;
+    static final int PARTIAL_CONTENT = 206;
+    static final int RANGE_NOT_SATISFIABLE = 416;
+
+    private static final Pattern CONTENT_RANGE = Pattern.compile("bytes (\\d+)-(\\d+)/(\\d+)");
+    private static final Logger logger = LoggerFactory.getLogger(SegmentedDownload.class);
+
+    private static final Map<String, HostPermits> hostPermits = new ConcurrentHashMap<>();
+    private static final Semaphore extraSegmentPermits = new Semaphore(MAX_EXTRA_SEGMENTS);
+
+    private SegmentedDownload() {
+    }
+
+    /**
+     * The permits for extra segments towards one xNF. An entry is removed when no download uses it, so only the xNFs
+     * with segmented downloads in progress are kept.
+     */
+    private static class HostPermits {
+        final Semaphore permits = new Semaphore(MAX_SEGMENTS_PER_HOST - 1);
+        int users = 0; // Only updated within the atomic map operations
+    }
+
+    /**
+     * Fetches one byte range of the file and writes it to the given channel, at the position of the range.
+     */
+    @FunctionalInterface
+    interface RangeFetcher {
+        /**
+         * Fetches the range.
+         *
+         * @return the number of bytes written.
+         */
+        Mono<Long> fetch(long first, long last, FileChannel channel);
+    }
+
+    /**
+     * A parsed Content-Range header.
+     */
+    static class ContentRange {
+        final long first;
+        final long last;
+        final long totalLength;
+
+        ContentRange(long first, long last, long totalLength) {
+            this.first = first;
+            this.last = last;
+            this.totalLength = totalLength;
+        }
+
+        static Optional<ContentRange> parse(String headerValue) {
+            if (headerValue == null) {
+                return Optional.empty();
+            }
+            Matcher matcher = CONTENT_RANGE.matcher(headerValue.trim());
+            if (!matcher.matches()) {
+                return Optional.empty();
+            }
+            try {
+                ContentRange range = new ContentRange(Long.parseLong(matcher.group(1)),
+                    Long.parseLong(matcher.group(2)), Long.parseLong(matcher.group(3)));
+                return range.first <= range.last && range.last < range.totalLength ? Optional.of(range)
+                    : Optional.empty();
+            } catch (NumberFormatException e) {
+                return Optional.empty();
+            }
+        }
+
+        boolean hasRemainder() {
+            return last + 1 < totalLength;
+        }
+    }
+
+    /**
+     * Gets the first segment of a file that is fetched in segments.
+     *
+     * @param totalLength the Content-Length of the whole file.
+     * @param acceptRanges the Accept-Ranges header of the response, null if there is none.
+     * @return the first segment, or empty if the file is fetched as a whole.
+     */
+    static Optional<ContentRange> firstSegment(long totalLength, String acceptRanges) {
+        if (acceptRanges == null || !"bytes".equalsIgnoreCase(acceptRanges.trim())
+            || totalLength <= SEGMENTED_DOWNLOAD_THRESHOLD) {
+            return Optional.empty();
+        }
+        return Optional.of(new ContentRange(0, SEGMENTED_DOWNLOAD_THRESHOLD - 1, totalLength));
+    }
+
+    /**
+     * Takes the first bytes of a response body. The rest of the body is cancelled.
+     */
+    static Flux<ByteBuffer> firstBytes(Flux<ByteBuffer> body, long numberOfBytes) {
+        AtomicLong remaining = new AtomicLong(numberOfBytes);
+        return body.map(buffer -> {
+            long wanted = remaining.getAndAdd(-buffer.remaining());
+            if (buffer.remaining() > wanted) {
+                buffer.limit(buffer.position() + (int) wanted);
+            }
+            return buffer;
+        }).takeUntil(buffer -> remaining.get() <= 0);
+    }
+
+    /**
+     * Gets the range of the GET that resumes a transfer.
+     *
+     * @param offset the number of bytes already fetched by an earlier attempt.
+     */
+    static String firstRange(long offset) {
+        return range(offset, offset + SEGMENTED_DOWNLOAD_THRESHOLD - 1);
+    }
+
+    static String range(long first, long last) {
+        return "bytes=" + first + "-" + last;
+    }
+
+    /**
+     * Fetches the rest of a file, after the first segment, as concurrent byte ranges.
+     *
+     * @param host the xNF, used for capping the number of concurrent segments.
+     * @param localFile the local file, which already contains everything up to the end of the first segment.
+     * @param firstSegment the Content-Range of the first segment.
+     * @param fetcher fetches one byte range.
+     * @return completes when all ranges are fetched, or fails with a {@link DatafileTaskException} if any of them
+     *         could not be fetched. The other ranges are then cancelled.
+     */
+    static Mono<Void> downloadRemainder(String host, Path localFile, ContentRange firstSegment,
+        RangeFetcher fetcher) {
+        long offset = firstSegment.last + 1;
+        long remainder = firstSegment.totalLength - offset;
+        int wanted = (int) Math.max(1, Math.min(MAX_SEGMENTS_PER_HOST, remainder / MIN_SEGMENT_SIZE));
+        return Mono.using(() -> Reservation.acquire(host, wanted - 1), //
+            reservation -> Mono.using(() -> openForWriting(localFile), //
+                channel -> fetchSegments(fetcher, channel, offset, firstSegment.totalLength,
+                    1 + reservation.extra), //
+                SegmentedDownload::closeChannel), //
+            Reservation::release);
+    }
+
+    private static Mono<Void> fetchSegments(RangeFetcher fetcher, FileChannel channel, long offset, long totalLength,
+        int numberOfSegments) {
+        logger.trace("Fetching {} remaining bytes in {} segments", totalLength - offset, numberOfSegments);
+        long segmentSize = (totalLength - offset + numberOfSegments - 1) / numberOfSegments;
+        List<Mono<Void>> segments = new ArrayList<>();
+        for (long start = offset; start < totalLength; start += segmentSize) {
+            final long first = start;
+            final long last = Math.min(first + segmentSize, totalLength) - 1;
+            segments.add(fetchSegment(fetcher, first, last, channel));
+        }
+        return Mono.when(segments);
+    }
+
+    /**
+     * The extra segments granted to one download.
+     */
+    private static final class Reservation {
+        final String host;
+        final Semaphore permits;
+        final int extra;
+
+        private Reservation(String host, Semaphore permits, int extra) {
+            this.host = host;
+            this.permits = permits;
+            this.extra = extra;
+        }
+
+        static Reservation acquire(String host, int wanted) {
+            Semaphore permits = retainPermits(host);
+            return new Reservation(host, permits, acquireExtra(permits, wanted));
+        }
+
+        void release() {
+            permits.release(extra);
+            extraSegmentPermits.release(extra);
+            releasePermits(host);
+        }
+    }
+
+    private static FileChannel openForWriting(Path localFile) throws DatafileTaskException {
+        try {
+            return FileChannel.open(localFile, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            throw new DatafileTaskException("Could not open file for segmented download: " + e, e);
+        }
+    }
+
+    private static void closeChannel(FileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.warn("Could not close local file: {}", e.toString());
+        }
+    }
+
+    private static Semaphore retainPermits(String host) {
+        return hostPermits.compute(host, (h, entry) -> {
+            HostPermits hostEntry = entry == null ? new HostPermits() : entry;
+            ++hostEntry.users;
+            return hostEntry;
+        }).permits;
+    }
+
+    private static void releasePermits(String host) {
+        hostPermits.computeIfPresent(host, (h, entry) -> --entry.users == 0 ? null : entry);
+    }
+
+    static int numberOfHostsWithPermits() {
+        return hostPermits.size();
+    }
+
+    private static Mono<Void> fetchSegment(RangeFetcher fetcher, long first, long last, FileChannel channel) {
+        return Mono.defer(() -> fetcher.fetch(first, last, channel)) //
+            .defaultIfEmpty(0L) //
+            .flatMap(numBytes -> numBytes == last - first + 1 ? Mono.<Void>empty()
+                : Mono.<Void>error(new DatafileTaskException(
+                    "Incomplete file segment " + range(first, last) + ", received " + numBytes + " bytes")));
+    }
+
+    private static int acquireExtra(Semaphore permits, int wanted) {
+        int granted = 0;
+        while (granted < wanted && permits.tryAcquire()) {
+            if (!extraSegmentPermits.tryAcquire()) {
+                permits.release();
+                break;
+            }
+            ++granted;
+        }
+        return granted;
+    }
+
+    static int availableExtraSegments() {
+        return extraSegmentPermits.availablePermits();
+    }
+
+    /**
+     * Writes a buffer to the channel, starting at the given position.
+     *
+     * @return the number of bytes written.
+     */
+    static long write(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long written = 0;
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer, position + written);
+        }
+        return written;
+    }
+}
@@ -0,0 +1,166 @@
+/*-
+ * ============LICENSE_START======================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * ============LICENSE_END========================================================================
+ */
+
+package org.onap.dcaegen2.collectors.datafile.model;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A circuit breaker for one file server. It opens after a number of consecutive attempts that could not connect to
+ * the server, after which attempts fail fast without connecting. When the open period has passed, one probe attempt
+ * is let through (half open); if it succeeds the breaker closes, otherwise it opens again.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    private final String host;
+    private final int failureThreshold;
+    private final long openNanos;
+    private final LongSupplier nanoClock;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures = 0;
+    private long openedAtNanos = 0;
+    private Instant openedAt = null;
+    private boolean probeInFlight = false;
+    private long probeStartNanos = 0;
+    private long rejectedAttempts = 0;
+    private long lastUsedNanos;
+
+    CircuitBreaker(String host, int failureThreshold, Duration openDuration, LongSupplier nanoClock) {
+        this.host = host;
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openDuration.toNanos();
+        this.nanoClock = nanoClock;
+        this.lastUsedNanos = nanoClock.getAsLong();
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Checks if a transfer attempt may be done. The outcome of a permitted attempt shall be reported with
+     * {@link #onSuccess()}, {@link #onFailure()} or {@link #releasePermission()}.
+     *
+     * @return true if the attempt may be done, false if it shall fail fast.
+     */
+    public synchronized boolean tryAcquirePermission() {
+        long now = nanoClock.getAsLong();
+        lastUsedNanos = now;
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.OPEN && now - openedAtNanos >= openNanos) {
+            logger.info("Circuit breaker for {} is half open, probing", host);
+            state = State.HALF_OPEN;
+        }
+        // A probe that never reported back is replaced after the open period
+        if (state == State.HALF_OPEN && (!probeInFlight || now - probeStartNanos >= openNanos)) {
+            probeInFlight = true;
+            probeStartNanos = now;
+            return true;
+        }
+        rejectedAttempts++;
+        return false;
+    }
+
+    /**
+     * Reports that the file server could be reached.
+     */
+    public synchronized void onSuccess() {
+        if (state != State.CLOSED) {
+            logger.info("Circuit breaker for {} is closed", host);
+        }
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        probeInFlight = false;
+        openedAt = null;
+    }
+
+    /**
+     * Reports that the file server could not be reached.
+     */
+    public synchronized void onFailure() {
+        consecutiveFailures++;
+        probeInFlight = false;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            if (state != State.OPEN) {
+                logger.warn("Circuit breaker for {} is open after {} consecutive failures", host,
+                    consecutiveFailures);
+            }
+            state = State.OPEN;
+            openedAtNanos = nanoClock.getAsLong();
+            openedAt = Instant.now();
+        }
+    }
+
+    /**
+     * Reports that a permitted attempt ended without telling whether the file server can be reached, for instance when
+     * it was cancelled or failed after connecting. A probe in the half open state is then let through again.
+     */
+    public synchronized void releasePermission() {
+        probeInFlight = false;
+    }
+
+    /**
+     * Gets the time until the breaker lets an attempt through.
+     *
+     * @return the remaining open period, or the remaining time of the probe in flight. Zero if an attempt may be done.
+     */
+    public synchronized Duration getTimeUntilPermitted() {
+        long now = nanoClock.getAsLong();
+        long sinceNanos;
+        if (state == State.OPEN) {
+            sinceNanos = now - openedAtNanos;
+        } else if (state == State.HALF_OPEN && probeInFlight) {
+            sinceNanos = now - probeStartNanos;
+        } else {
+            return Duration.ZERO;
+        }
+        return Duration.ofNanos(Math.max(0, openNanos - sinceNanos));
+    }
+
+    synchronized void markUsed() {
+        lastUsedNanos = nanoClock.getAsLong();
+    }
+
+    synchronized boolean isIdleAndClosed(long idleNanos) {
+        return state == State.CLOSED && nanoClock.getAsLong() - lastUsedNanos >= idleNanos;
+    }
+
+    /**
+     * Gets a point in time copy of the breaker.
+     *
+     * @return the snapshot.
+     */
+    public synchronized CircuitBreakerSnapshot snapshot() {
+        return new CircuitBreakerSnapshot(host, state.name(), consecutiveFailures, rejectedAttempts,
+            openedAt == null ? "" : openedAt.toString());
+    }
+}
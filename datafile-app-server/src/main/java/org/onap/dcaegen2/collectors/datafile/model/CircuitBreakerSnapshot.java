@@ -0,0 +1,64 @@
+/*-
+ * ============LICENSE_START======================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * ============LICENSE_END========================================================================
+ */
+
+package org.onap.dcaegen2.collectors.datafile.model;
+
+/**
+ * A point in time copy of the state of one circuit breaker, as returned by the REST API.
+ */
+public class CircuitBreakerSnapshot {
+    private final String host;
+    private final String state;
+    private final int consecutiveFailures;
+    private final long rejectedAttempts;
+    private final String openedAt;
+
+    /**
+     * Constructor.
+     *
+     * @param host the file server, scheme, address and port.
+     * @param state the state of the breaker.
+     * @param consecutiveFailures number of failed attempts since the last successful one.
+     * @param rejectedAttempts number of attempts that failed fast.
+     * @param openedAt time when the breaker was last opened, empty if it is closed.
+     */
+    public CircuitBreakerSnapshot(String host, String state, int consecutiveFailures, long rejectedAttempts,
+        String openedAt) {
+        this.host = host;
+        this.state = state;
+        this.consecutiveFailures = consecutiveFailures;
+        this.rejectedAttempts = rejectedAttempts;
+        this.openedAt = openedAt;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public String getState() {
+        return state;
+    }
+
+    public int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    public long getRejectedAttempts() {
+        return rejectedAttempts;
+    }
+
+    public String getOpenedAt() {
+        return openedAt;
+    }
+}
@@ -0,0 +1,116 @@
+/*-
+ * ============LICENSE_START======================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * ============LICENSE_END========================================================================
+ */
+
+package org.onap.dcaegen2.collectors.datafile.model;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+import org.onap.dcaegen2.collectors.datafile.commons.FileServerData;
+import org.onap.dcaegen2.collectors.datafile.model.CircuitBreaker.State;
+
+/**
+ * The circuit breakers of all file servers. A file server is identified by scheme, address and port, so all files
+ * from one xNF share a breaker regardless of credentials and query parameters.
+ */
+public class CircuitBreakers {
+
+    public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+    public static final Duration DEFAULT_OPEN_DURATION = Duration.ofSeconds(30);
+    private static final Duration IDLE_TIME_BEFORE_PURGE = Duration.ofHours(1);
+
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+    private final int failureThreshold;
+    private final Duration openDuration;
+    private final LongSupplier nanoClock;
+
+    public CircuitBreakers() {
+        this(DEFAULT_FAILURE_THRESHOLD, DEFAULT_OPEN_DURATION, System::nanoTime);
+    }
+
+    CircuitBreakers(int failureThreshold, Duration openDuration, LongSupplier nanoClock) {
+        this.failureThreshold = failureThreshold;
+        this.openDuration = openDuration;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Gets the breaker for a file server, it is created if needed. The breaker is marked as used in the same atomic
+     * step, so that it is not purged before the caller uses it.
+     *
+     * @param fileData a file to collect.
+     * @return the breaker of the server holding the file.
+     */
+    public CircuitBreaker get(FileData fileData) {
+        String host = hostOf(fileData);
+        return breakers.compute(host, (key, breaker) -> {
+            if (breaker == null) {
+                return new CircuitBreaker(key, failureThreshold, openDuration, nanoClock);
+            }
+            breaker.markUsed();
+            return breaker;
+        });
+    }
+
+    static String hostOf(FileData fileData) {
+        FileServerData server = fileData.fileServerData();
+        return fileData.scheme().name().toLowerCase() + "://" + server.serverAddress()
+            + server.port().map(port -> ":" + port).orElse("");
+    }
+
+    /**
+     * Removes closed breakers that have not been used for a long time.
+     */
+    public void purge() {
+        long idleNanos = IDLE_TIME_BEFORE_PURGE.toNanos();
+        for (String host : breakers.keySet()) {
+            // Checked and removed atomically, a breaker that is got meanwhile is not idle
+            breakers.computeIfPresent(host, (key, breaker) -> breaker.isIdleAndClosed(idleNanos) ? null : breaker);
+        }
+    }
+
+    /**
+     * Gets the state of all breakers, the ones that are not closed first.
+     *
+     * @return the snapshots ordered by state and host.
+     */
+    public List<CircuitBreakerSnapshot> snapshots() {
+        return breakers.values().stream() //
+            .map(CircuitBreaker::snapshot) //
+            .sorted(Comparator.comparing((CircuitBreakerSnapshot s) -> State.CLOSED.name().equals(s.getState())) //
+                .thenComparing(CircuitBreakerSnapshot::getHost)) //
+            .collect(Collectors.toList());
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder str = new StringBuilder();
+        List<CircuitBreakerSnapshot> notClosed = snapshots().stream() //
+            .filter(s -> !State.CLOSED.name().equals(s.getState())) //
+            .collect(Collectors.toList());
+        str.append("Circuit breakers not closed: ").append(notClosed.size()).append(" of ").append(breakers.size());
+        for (CircuitBreakerSnapshot s : notClosed) {
+            str.append("\n  ").append(s.getHost()).append(' ').append(s.getState()) //
+                .append(", consecutive failures: ").append(s.getConsecutiveFailures()) //
+                .append(", rejected attempts: ").append(s.getRejectedAttempts()) //
+                .append(", opened at: ").append(s.getOpenedAt());
+        }
+        return str.toString();
+    }
+}
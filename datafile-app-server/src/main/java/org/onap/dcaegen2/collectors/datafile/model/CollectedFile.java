@@ -0,0 +1,60 @@
+/*-
+ * ============LICENSE_START======================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * ============LICENSE_END========================================================================
+ */
+
+
+package org.onap.dcaegen2.collectors.datafile.model;
+
+import java.nio.file.Path;
+import java.util.Optional;
+
+import org.immutables.value.Value;
+import org.onap.dcaegen2.collectors.datafile.commons.ContentDigest;
+
+/**
+ * A file that has been collected from an xNF and stored in the local file system.
+ */
+@Value.Immutable
+public interface CollectedFile {
+
+    Path localFile();
+
+    long size();
+
+    /**
+     * The digest of the file, as <code>algorithm:hex</code>. Empty if no digest is computed.
+     */
+    Optional<String> checksum();
+
+    /**
+     * The SHA-256 digest of the file, as <code>sha-256:hex</code>, used for the content deduplication. Empty if it is
+     * not computed.
+     */
+    Optional<String> contentDigest();
+
+    /**
+     * Creates a <code>CollectedFile</code> for a local file that has been fully written.
+     *
+     * @param localFile the local file.
+     * @param digest the digest that has been fed with the content of the file.
+     * @return the collected file.
+     */
+    static CollectedFile of(Path localFile, ContentDigest digest) {
+        return ImmutableCollectedFile.builder() //
+            .localFile(localFile) //
+            .size(localFile.toFile().length()) //
+            .checksum(digest.getValue()) //
+            .contentDigest(digest.getValue(ContentDigest.Algorithm.SHA_256)) //
+            .build();
+    }
+}
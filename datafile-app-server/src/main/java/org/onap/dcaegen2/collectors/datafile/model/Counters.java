@@ -20,28 +20,46 @@
 
 package org.onap.dcaegen2.collectors.datafile.model;
 
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
 import java.time.Instant;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
- * Various counters that can be shown via a REST API.
+ * Various counters that can be shown via a REST API. The counters are updated without locking and are also
+ * exported to Micrometer when bound to a {@link MeterRegistry}.
  *
  */
-public class Counters {
+public class Counters implements MeterBinder {
+
+    private static final String METRIC_PREFIX = "datafile.";
 
     private final AtomicInteger numberOfTasks = new AtomicInteger();
     private final AtomicInteger numberOfSubscriptions = new AtomicInteger();
-    private int noOfCollectedFiles = 0;
-    private int noOfFailedFtpAttempts = 0;
-    private int noOfFailedHttpAttempts = 0;
-    private int noOfFailedFtp = 0;
-    private int noOfFailedHttp = 0;
-    private int noOfFailedPublishAttempts = 0;
-    private int totalPublishedFiles = 0;
-    private int noOfFailedPublish = 0;
-    private Instant lastPublishedTime = Instant.MIN;
-    private int totalReceivedEvents = 0;
-    private Instant lastEventTime = Instant.MIN;
+    private final LongAdder noOfCollectedFiles = new LongAdder();
+    private final LongAdder noOfFailedFtpAttempts = new LongAdder();
+    private final LongAdder noOfFailedHttpAttempts = new LongAdder();
+    private final LongAdder noOfFailedFtp = new LongAdder();
+    private final LongAdder noOfFailedHttp = new LongAdder();
+    private final LongAdder noOfFailedPublishAttempts = new LongAdder();
+    private final LongAdder totalPublishedFiles = new LongAdder();
+    private final LongAdder noOfFailedPublish = new LongAdder();
+    private final LongAdder noOfScheduledRetries = new LongAdder();
+    private final LongAdder noOfRejectedRetries = new LongAdder();
+    private final LongAdder noOfDuplicateFiles = new LongAdder();
+    private final LongAdder duplicateBytesSaved = new LongAdder();
+    private final LongAdder noOfBundles = new LongAdder();
+    private final LongAdder noOfBundledFiles = new LongAdder();
+    private final LongAdder noOfForeignFiles = new LongAdder();
+    private volatile Instant lastPublishedTime = Instant.MIN;
+    private final LongAdder totalReceivedEvents = new LongAdder();
+    private volatile Instant lastEventTime = Instant.MIN;
+    private final StageTimers stageTimers = new StageTimers();
+    private final XnfStatistics xnfStatistics = new XnfStatistics();
 
     public AtomicInteger getCurrentNumberOfTasks() {
         return numberOfTasks;
@@ -51,46 +69,137 @@ public class Counters {
         return numberOfSubscriptions;
     }
 
-    public synchronized void incNoOfReceivedEvents() {
-        totalReceivedEvents++;
+    public StageTimers getStageTimers() {
+        return stageTimers;
+    }
+
+    public XnfStatistics getXnfStatistics() {
+        return xnfStatistics;
+    }
+
+    public void incNoOfReceivedEvents() {
+        totalReceivedEvents.increment();
         lastEventTime = Instant.now();
     }
 
-    public synchronized void incNoOfCollectedFiles() {
-        noOfCollectedFiles++;
+    public void incNoOfCollectedFiles() {
+        noOfCollectedFiles.increment();
     }
 
-    public synchronized void incNoOfFailedFtpAttempts() {
-        noOfFailedFtpAttempts++;
+    public void incNoOfFailedFtpAttempts() {
+        noOfFailedFtpAttempts.increment();
     }
 
-    public synchronized void incNoOfFailedHttpAttempts() {
-        noOfFailedHttpAttempts++;
+    public void incNoOfFailedHttpAttempts() {
+        noOfFailedHttpAttempts.increment();
     }
 
-    public synchronized void incNoOfFailedFtp() {
-        noOfFailedFtp++;
+    public void incNoOfFailedFtp() {
+        noOfFailedFtp.increment();
     }
 
-    public synchronized void incNoOfFailedHttp() {
-        noOfFailedHttp++;
+    public void incNoOfFailedHttp() {
+        noOfFailedHttp.increment();
     }
 
-    public synchronized void incNoOfFailedPublishAttempts() {
-        noOfFailedPublishAttempts++;
+    public void incNoOfFailedPublishAttempts() {
+        noOfFailedPublishAttempts.increment();
     }
 
-    public synchronized void incTotalPublishedFiles() {
-        totalPublishedFiles++;
+    public void incTotalPublishedFiles() {
+        totalPublishedFiles.increment();
         lastPublishedTime = Instant.now();
     }
 
-    public synchronized void incNoOfFailedPublish() {
-        noOfFailedPublish++;
+    public void incNoOfFailedPublish() {
+        noOfFailedPublish.increment();
+    }
+
+    public void incNoOfScheduledRetries() {
+        noOfScheduledRetries.increment();
+    }
+
+    public void incNoOfRejectedRetries() {
+        noOfRejectedRetries.increment();
+    }
+
+    /**
+     * Counts a file that was not published, because an identical file was published recently.
+     *
+     * @param size the size of the file in bytes.
+     */
+    public void incNoOfDuplicateFiles(long size) {
+        noOfDuplicateFiles.increment();
+        duplicateBytesSaved.add(size);
+    }
+
+    /**
+     * Counts a bundle of files that is about to be published.
+     *
+     * @param numberOfFiles the number of files in the bundle.
+     */
+    public void incNoOfBundles(int numberOfFiles) {
+        noOfBundles.increment();
+        noOfBundledFiles.add(numberOfFiles);
+    }
+
+    public void incNoOfForeignFiles() {
+        noOfForeignFiles.increment();
+    }
+
+    /**
+     * Registers the counters in the given registry, so that they are available via the actuator metrics endpoints.
+     *
+     * @param registry the registry to bind to.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        bindCounter(registry, "events.received", "Number of received file ready events", totalReceivedEvents);
+        bindCounter(registry, "files.collected", "Number of files collected from xNFs", noOfCollectedFiles);
+        bindCounter(registry, "files.failed.ftp.attempts", "Number of failed FTP transfer attempts",
+            noOfFailedFtpAttempts);
+        bindCounter(registry, "files.failed.http.attempts", "Number of failed HTTP transfer attempts",
+            noOfFailedHttpAttempts);
+        bindCounter(registry, "files.failed.ftp", "Number of files that could not be fetched with FTP",
+            noOfFailedFtp);
+        bindCounter(registry, "files.failed.http", "Number of files that could not be fetched with HTTP",
+            noOfFailedHttp);
+        bindCounter(registry, "files.published", "Number of files published to the data router",
+            totalPublishedFiles);
+        bindCounter(registry, "publish.failed.attempts", "Number of failed data router publish attempts",
+            noOfFailedPublishAttempts);
+        bindCounter(registry, "publish.failed", "Number of files that could not be published", noOfFailedPublish);
+        bindCounter(registry, "retries.scheduled", "Number of retries parked in the retry queue",
+            noOfScheduledRetries);
+        bindCounter(registry, "retries.rejected", "Number of retries refused because the retry budget was used up",
+            noOfRejectedRetries);
+        bindCounter(registry, "files.duplicate", "Number of files not published because the content was a duplicate",
+            noOfDuplicateFiles);
+        bindCounter(registry, "files.duplicate.bytes", "Number of bytes not published because of duplicate contents",
+            duplicateBytesSaved);
+        bindCounter(registry, "bundles", "Number of bundles of small files created for publishing", noOfBundles);
+        bindCounter(registry, "files.bundled", "Number of files published in bundles", noOfBundledFiles);
+        bindCounter(registry, "files.foreign", "Number of files skipped because another replica owns the xNF",
+            noOfForeignFiles);
+
+        Gauge.builder(METRIC_PREFIX + "tasks.current", numberOfTasks, AtomicInteger::get) //
+            .description("Number of files currently being processed") //
+            .register(registry);
+        Gauge.builder(METRIC_PREFIX + "subscriptions.current", numberOfSubscriptions, AtomicInteger::get) //
+            .description("Number of ongoing message router subscriptions") //
+            .register(registry);
+
+        stageTimers.bindTo(registry);
+    }
+
+    private static void bindCounter(MeterRegistry registry, String name, String description, LongAdder adder) {
+        FunctionCounter.builder(METRIC_PREFIX + name, adder, LongAdder::sum) //
+            .description(description) //
+            .register(registry);
     }
 
     @Override
-    public synchronized String toString() {
+    public String toString() {
         StringBuilder str = new StringBuilder();
         str.append(format("totalReceivedEvents", totalReceivedEvents));
         str.append(format("lastEventTime", lastEventTime));
@@ -108,6 +217,17 @@ public class Counters {
 
         str.append(format("failedPublishAttempts", noOfFailedPublishAttempts));
         str.append(format("noOfFailedPublish", noOfFailedPublish));
+        str.append("\n");
+        str.append(format("scheduledRetries", noOfScheduledRetries));
+        str.append(format("rejectedRetries", noOfRejectedRetries));
+        str.append("\n");
+        str.append(format("duplicateFiles", noOfDuplicateFiles));
+        str.append(format("duplicateBytesSaved", duplicateBytesSaved));
+        str.append(format("bundles", noOfBundles));
+        str.append(format("bundledFiles", noOfBundledFiles));
+        str.append(format("foreignFiles", noOfForeignFiles));
+        str.append("\n");
+        str.append(stageTimers);
 
         return str.toString();
     }
@@ -118,38 +238,66 @@ public class Counters {
     }
 
     public int getNoOfCollectedFiles() {
-        return noOfCollectedFiles;
+        return noOfCollectedFiles.intValue();
     }
 
     public int getNoOfFailedFtpAttempts() {
-        return noOfFailedFtpAttempts;
+        return noOfFailedFtpAttempts.intValue();
     }
 
     public int getNoOfFailedHttpAttempts() {
-        return noOfFailedHttpAttempts;
+        return noOfFailedHttpAttempts.intValue();
     }
 
     public int getNoOfFailedFtp() {
-        return noOfFailedFtp;
+        return noOfFailedFtp.intValue();
     }
 
     public int getNoOfFailedHttp() {
-        return noOfFailedHttp;
+        return noOfFailedHttp.intValue();
     }
 
     public int getNoOfFailedPublishAttempts() {
-        return noOfFailedPublishAttempts;
+        return noOfFailedPublishAttempts.intValue();
     }
 
     public int getTotalPublishedFiles() {
-        return totalPublishedFiles;
+        return totalPublishedFiles.intValue();
     }
 
     public int getNoOfFailedPublish() {
-        return noOfFailedPublish;
+        return noOfFailedPublish.intValue();
+    }
+
+    public int getNoOfScheduledRetries() {
+        return noOfScheduledRetries.intValue();
+    }
+
+    public int getNoOfRejectedRetries() {
+        return noOfRejectedRetries.intValue();
+    }
+
+    public int getNoOfDuplicateFiles() {
+        return noOfDuplicateFiles.intValue();
+    }
+
+    public long getDuplicateBytesSaved() {
+        return duplicateBytesSaved.sum();
+    }
+
+    public int getNoOfBundles() {
+        return noOfBundles.intValue();
+    }
+
+    public int getNoOfBundledFiles() {
+        return noOfBundledFiles.intValue();
+    }
+
+    public int getNoOfForeignFiles() {
+        return noOfForeignFiles.intValue();
     }
 
     public int getTotalReceivedEvents() {
-        return totalReceivedEvents;
+        return totalReceivedEvents.intValue();
     }
 }
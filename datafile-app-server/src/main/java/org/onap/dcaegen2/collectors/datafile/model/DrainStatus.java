@@ -0,0 +1,94 @@
+/*-
+ * ============LICENSE_START======================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * ============LICENSE_END========================================================================
+ */
+
+
+package org.onap.dcaegen2.collectors.datafile.model;
+
+/**
+ * A point in time copy of the progress of draining DFC, as returned by the REST API.
+ */
+public class DrainStatus {
+
+    /**
+     * The drain states.
+     */
+    public enum State {
+        /** New files are consumed. */
+        RUNNING,
+        /** No new files are consumed, the files in progress are finished. */
+        DRAINING,
+        /** All files in progress are finished. */
+        DRAINED,
+        /** The deadline passed before all files were finished, the remaining local files are deleted. */
+        DEADLINE_EXCEEDED
+    }
+
+    private final State state;
+    private final int numberOfTasks;
+    private final int numberOfSubscriptions;
+    private final int numberOfPendingRetries;
+    private final int numberOfPendingBundledFiles;
+    private final int numberOfDeletedFiles;
+
+    /**
+     * Constructor.
+     *
+     * @param state the drain state.
+     * @param numberOfTasks number of files in progress, including the ones waiting for a retry.
+     * @param numberOfSubscriptions number of ongoing message router polls.
+     * @param numberOfPendingRetries number of retries waiting in the retry queue.
+     * @param numberOfPendingBundledFiles number of files waiting for their bundle to be published.
+     * @param numberOfDeletedFiles number of local files deleted when the deadline passed.
+     */
+    public DrainStatus(State state, int numberOfTasks, int numberOfSubscriptions, int numberOfPendingRetries,
+        int numberOfPendingBundledFiles, int numberOfDeletedFiles) {
+        this.state = state;
+        this.numberOfTasks = numberOfTasks;
+        this.numberOfSubscriptions = numberOfSubscriptions;
+        this.numberOfPendingRetries = numberOfPendingRetries;
+        this.numberOfPendingBundledFiles = numberOfPendingBundledFiles;
+        this.numberOfDeletedFiles = numberOfDeletedFiles;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public int getNumberOfTasks() {
+        return numberOfTasks;
+    }
+
+    public int getNumberOfSubscriptions() {
+        return numberOfSubscriptions;
+    }
+
+    public int getNumberOfPendingRetries() {
+        return numberOfPendingRetries;
+    }
+
+    public int getNumberOfPendingBundledFiles() {
+        return numberOfPendingBundledFiles;
+    }
+
+    public int getNumberOfDeletedFiles() {
+        return numberOfDeletedFiles;
+    }
+
+    @Override
+    public String toString() {
+        return "state: " + state + ", tasks: " + numberOfTasks + ", subscriptions: " + numberOfSubscriptions
+            + ", pending retries: " + numberOfPendingRetries + ", pending bundled files: "
+            + numberOfPendingBundledFiles + ", deleted files: " + numberOfDeletedFiles;
+    }
+}
@@ -20,9 +20,11 @@ import com.google.gson.annotations.SerializedName;
 
 import java.nio.file.Path;
 import java.util.Map;
+import java.util.Optional;
 
 import org.immutables.gson.Gson;
 import org.immutables.value.Value;
+import org.onap.dcaegen2.collectors.datafile.configuration.ConfigSnapshot;
 
 /**
  * Information needed to publish a file to DataRouter.
@@ -74,4 +76,34 @@ public interface FilePublishInformation {
     Map<String, String> getContext();
 
     String getChangeIdentifier();
+
+    /**
+     * The configuration captured when the file was admitted, used all the way to the publishing.
+     */
+    @Value.Default
+    @Value.Auxiliary
+    @Gson.Ignore
+    default ConfigSnapshot getConfig() {
+        return ConfigSnapshot.EMPTY;
+    }
+
+    /**
+     * The digest of the collected file, as <code>algorithm:hex</code>. Empty if no digest is computed.
+     */
+    @SerializedName("checksum")
+    Optional<String> getChecksum();
+
+    /**
+     * The SHA-256 digest used for the content deduplication, as <code>sha-256:hex</code>. It is computed also when no
+     * checksum or another checksum is published. Empty if no digest is computed.
+     */
+    Optional<String> getContentDigest();
+
+    /**
+     * The size of the collected file in bytes.
+     */
+    @Value.Default
+    default long getFileSize() {
+        return 0;
+    }
 }
@@ -23,6 +23,7 @@ import com.google.gson.ExclusionStrategy;
 import com.google.gson.FieldAttributes;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
 
 import java.util.Set;
 
@@ -31,6 +32,8 @@ import java.util.Set;
  */
 public abstract class JsonSerializer {
 
+    private static final String CHECKSUM = "checksum";
+
     private static Gson gson = new GsonBuilder() //
         .serializeNulls() //
         .addSerializationExclusionStrategy(new FilePublishInformationExclusionStrategy()) //
@@ -40,14 +43,16 @@ public abstract class JsonSerializer {
     }
 
     /**
-     * Serializes a <code>filePublishInformation</code>.
+     * Serializes a <code>filePublishInformation</code>. The checksum is only included if there is one.
      *
      * @param filePublishInformation info to serialize.
      *
      * @return a string with the serialized info.
      */
     public static String createJsonBodyForDataRouter(FilePublishInformation filePublishInformation) {
-        return gson.toJson(filePublishInformation);
+        JsonObject body = gson.toJsonTree(filePublishInformation).getAsJsonObject();
+        filePublishInformation.getChecksum().ifPresent(checksum -> body.addProperty(CHECKSUM, checksum));
+        return gson.toJson(body);
     }
 
     private static class FilePublishInformationExclusionStrategy implements ExclusionStrategy {
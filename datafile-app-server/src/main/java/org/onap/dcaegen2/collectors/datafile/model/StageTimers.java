@@ -0,0 +1,179 @@
+/*-
+ * ============LICENSE_START======================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * ============LICENSE_END========================================================================
+ */
+
+package org.onap.dcaegen2.collectors.datafile.model;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Latency timers for each stage of the file collection pipeline. The timers are tagged with stage, scheme and
+ * change identifier and publish the 50th, 99th and 99.9th percentiles.
+ *
+ * <p>
+ * The timers are always kept in a local registry, which is used for the text rendering in the status REST API. When
+ * bound to a {@link MeterRegistry} the same timers are also exported there.
+ *
+ * <p>
+ * The meters are registered once for each set of tags and kept, since there is only one instance, which is shared by
+ * the whole pipeline.
+ */
+public class StageTimers implements MeterBinder {
+
+    public static final String METER_NAME = "datafile.stage.duration";
+    public static final String POLL_METER_NAME = "datafile.poll.duration";
+    public static final String POLLED_MESSAGES_METER_NAME = "datafile.poll.messages";
+    public static final String NO_TAG = "none";
+
+    private static final double[] PERCENTILES = {0.5, 0.99, 0.999};
+
+    /**
+     * The stages of the file collection pipeline.
+     */
+    public enum Stage {
+        POLL("poll"), PARSE("parse"), PUBLISHED_CHECK("publishedCheck"), FETCH("fetch"), PUBLISH("publish"),
+        DELETE("delete");
+
+        private final String tagValue;
+
+        Stage(String tagValue) {
+            this.tagValue = tagValue;
+        }
+    }
+
+    private final SimpleMeterRegistry localRegistry = new SimpleMeterRegistry();
+    private final CompositeMeterRegistry registry = new CompositeMeterRegistry();
+    private final Map<List<Object>, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, Timer> pollTimers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> polledMessageCounters = new ConcurrentHashMap<>();
+
+    public StageTimers() {
+        registry.add(localRegistry);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry meterRegistry) {
+        registry.add(meterRegistry);
+    }
+
+    /**
+     * Records the time elapsed since the given start time.
+     *
+     * @param stage the pipeline stage.
+     * @param scheme the scheme tag, {@link #NO_TAG} if not applicable.
+     * @param changeIdentifier the change identifier tag, {@link #NO_TAG} if not applicable.
+     * @param startNanos the start time, as given by {@link System#nanoTime()}.
+     */
+    public void record(Stage stage, String scheme, String changeIdentifier, long startNanos) {
+        timer(stage, scheme, changeIdentifier).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records a poll of a source topic. Besides the poll stage timer, each source has a timer and a counter of the
+     * received messages of its own.
+     *
+     * @param sourceName the name of the source topic.
+     * @param numberOfMessages the number of messages received.
+     * @param startNanos the start time, as given by {@link System#nanoTime()}.
+     */
+    public void recordPoll(String sourceName, int numberOfMessages, long startNanos) {
+        long elapsedNanos = System.nanoTime() - startNanos;
+        timer(Stage.POLL, NO_TAG, NO_TAG).record(elapsedNanos, TimeUnit.NANOSECONDS);
+        pollTimers.computeIfAbsent(sourceName, source -> Timer.builder(POLL_METER_NAME) //
+            .description("Time spent polling a source topic") //
+            .tag("source", source) //
+            .register(registry)) //
+            .record(elapsedNanos, TimeUnit.NANOSECONDS);
+        polledMessageCounters.computeIfAbsent(sourceName, source -> Counter.builder(POLLED_MESSAGES_METER_NAME) //
+            .description("Number of file ready messages received from a source topic") //
+            .tag("source", source) //
+            .register(registry)) //
+            .increment(numberOfMessages);
+    }
+
+    /**
+     * Times a <code>Mono</code> from subscription until it terminates or is cancelled.
+     *
+     * @param stage the pipeline stage.
+     * @param scheme the scheme tag, {@link #NO_TAG} if not applicable.
+     * @param changeIdentifier the change identifier tag, {@link #NO_TAG} if not applicable.
+     * @param mono the <code>Mono</code> to time.
+     * @return the timed <code>Mono</code>.
+     */
+    public <T> Mono<T> time(Stage stage, String scheme, String changeIdentifier, Mono<T> mono) {
+        return Mono.defer(() -> {
+            long startNanos = System.nanoTime();
+            return mono.doFinally(signal -> record(stage, scheme, changeIdentifier, startNanos));
+        });
+    }
+
+    /**
+     * Gets the scheme tag from a file location, without parsing the whole URI.
+     *
+     * @param location the location of a file on the xNF.
+     * @return the scheme tag.
+     */
+    public static String schemeOf(String location) {
+        int index = location.indexOf(':');
+        return index > 0 ? location.substring(0, index).toUpperCase(Locale.ROOT) : NO_TAG;
+    }
+
+    private Timer timer(Stage stage, String scheme, String changeIdentifier) {
+        return timers.computeIfAbsent(List.of(stage, scheme, changeIdentifier), key -> Timer.builder(METER_NAME) //
+            .description("Time spent in a stage of the file collection pipeline") //
+            .tag("stage", stage.tagValue) //
+            .tag("scheme", scheme) //
+            .tag("changeIdentifier", changeIdentifier) //
+            .publishPercentiles(PERCENTILES) //
+            .register(registry));
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder str = new StringBuilder();
+        str.append(String.format("%-16s%-8s%-24s%10s%12s%12s%12s%12s%n", "stage", "scheme", "changeIdentifier",
+            "count", "mean[ms]", "p50[ms]", "p99[ms]", "p999[ms]"));
+        for (Timer timer : localRegistry.find(METER_NAME).timers()) {
+            HistogramSnapshot snapshot = timer.takeSnapshot();
+            str.append(String.format("%-16s%-8s%-24s%10d%12.1f", timer.getId().getTag("stage"),
+                timer.getId().getTag("scheme"), timer.getId().getTag("changeIdentifier"), snapshot.count(),
+                snapshot.mean(TimeUnit.MILLISECONDS)));
+            for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+                str.append(String.format("%12.1f", percentile.value(TimeUnit.MILLISECONDS)));
+            }
+            str.append(String.format("%n"));
+        }
+        for (Timer timer : localRegistry.find(POLL_METER_NAME).timers()) {
+            String sourceName = timer.getId().getTag("source");
+            Counter messages = localRegistry.find(POLLED_MESSAGES_METER_NAME).tag("source", sourceName).counter();
+            str.append(String.format("source %-24s polls: %d, mean[ms]: %.1f, messages: %.0f%n", sourceName,
+                timer.count(), timer.mean(TimeUnit.MILLISECONDS), messages == null ? 0 : messages.count()));
+        }
+        return str.toString();
+    }
+}
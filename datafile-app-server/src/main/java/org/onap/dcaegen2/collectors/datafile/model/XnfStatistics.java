@@ -0,0 +1,186 @@
+/*-
+ * ============LICENSE_START======================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * ============LICENSE_END========================================================================
+ */
+
+package org.onap.dcaegen2.collectors.datafile.model;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Transfer statistics per xNF, keyed by source name. The table is bounded; when it is full the xNF that was least
+ * recently updated is evicted. The table is kept in access order, so finding the xNF to evict is a constant time
+ * operation. Only the lookup of the entry is synchronized, the entry itself is updated without a lock.
+ */
+public class XnfStatistics {
+
+    public static final int DEFAULT_MAX_NUMBER_OF_XNFS = 10000;
+
+    private final Map<String, Entry> table;
+
+    public XnfStatistics() {
+        this(DEFAULT_MAX_NUMBER_OF_XNFS);
+    }
+
+    public XnfStatistics(int maxNumberOfXnfs) {
+        this.table = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxNumberOfXnfs;
+            }
+        };
+    }
+
+    /**
+     * Records a successfully collected file.
+     *
+     * @param sourceName the name of the xNF.
+     * @param bytes the size of the file.
+     * @param fetchNanos the time it took to fetch the file.
+     */
+    public void fileCollected(String sourceName, long bytes, long fetchNanos) {
+        entry(sourceName).fileCollected(bytes, fetchNanos);
+    }
+
+    /**
+     * Records a failed attempt to collect a file.
+     *
+     * @param sourceName the name of the xNF.
+     */
+    public void fileFailed(String sourceName) {
+        entry(sourceName).fileFailed();
+    }
+
+    public synchronized int size() {
+        return table.size();
+    }
+
+    /**
+     * Gets a page of the statistics, ordered by source name.
+     *
+     * @param page the page number, starting at 0.
+     * @param pageSize the number of xNFs per page.
+     * @return the statistics for the xNFs on the page.
+     */
+    public List<XnfTransferSnapshot> page(int page, int pageSize) {
+        return snapshots(Comparator.comparing(XnfTransferSnapshot::getSourceName), (long) page * pageSize, pageSize);
+    }
+
+    /**
+     * Gets the xNFs with the highest 99th percentile fetch time.
+     *
+     * @param limit the maximum number of xNFs to return.
+     * @return the statistics of the slowest xNFs.
+     */
+    public List<XnfTransferSnapshot> slowest(int limit) {
+        return snapshots(Comparator.comparingDouble(XnfTransferSnapshot::getP99FetchTimeMs).reversed(), 0, limit);
+    }
+
+    /**
+     * Gets the xNFs with the highest number of failed attempts.
+     *
+     * @param limit the maximum number of xNFs to return.
+     * @return the statistics of the most failing xNFs.
+     */
+    public List<XnfTransferSnapshot> mostFailing(int limit) {
+        return snapshots(Comparator.comparingLong(XnfTransferSnapshot::getFailures).reversed(), 0, limit);
+    }
+
+    private List<XnfTransferSnapshot> snapshots(Comparator<XnfTransferSnapshot> order, long skip, int limit) {
+        return entries().stream() //
+            .map(e -> e.getValue().snapshot(e.getKey())) //
+            .sorted(order) //
+            .skip(skip) //
+            .limit(limit) //
+            .collect(Collectors.toList());
+    }
+
+    private synchronized List<Map.Entry<String, Entry>> entries() {
+        return new ArrayList<>(table.entrySet());
+    }
+
+    /**
+     * Gets the entry of an xNF and marks it as the most recently updated one. Adding an xNF to a full table evicts the
+     * least recently updated one.
+     */
+    private synchronized Entry entry(String sourceName) {
+        return table.computeIfAbsent(sourceName, name -> new Entry());
+    }
+
+    /**
+     * The statistics of one xNF. The fetch time distribution is kept in buckets with power of two millisecond
+     * bounds, which makes the percentile an approximation.
+     */
+    private static class Entry {
+        private static final int NUMBER_OF_BUCKETS = 32;
+
+        private final LongAdder bytes = new LongAdder();
+        private final LongAdder files = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder totalFetchNanos = new LongAdder();
+        private final AtomicLongArray fetchTimeBuckets = new AtomicLongArray(NUMBER_OF_BUCKETS);
+        private volatile Instant lastSuccess = null;
+
+        void fileCollected(long numberOfBytes, long fetchNanos) {
+            bytes.add(numberOfBytes);
+            files.increment();
+            totalFetchNanos.add(fetchNanos);
+            fetchTimeBuckets.incrementAndGet(bucketOf(fetchNanos));
+            lastSuccess = Instant.now();
+        }
+
+        void fileFailed() {
+            failures.increment();
+        }
+
+        private static int bucketOf(long fetchNanos) {
+            long millis = TimeUnit.NANOSECONDS.toMillis(fetchNanos);
+            int bucket = 64 - Long.numberOfLeadingZeros(millis);
+            return Math.min(bucket, NUMBER_OF_BUCKETS - 1);
+        }
+
+        private double percentileMs(double percentile) {
+            long total = 0;
+            for (int i = 0; i < NUMBER_OF_BUCKETS; ++i) {
+                total += fetchTimeBuckets.get(i);
+            }
+            long rank = (long) Math.ceil(total * percentile);
+            long accumulated = 0;
+            for (int i = 0; i < NUMBER_OF_BUCKETS; ++i) {
+                accumulated += fetchTimeBuckets.get(i);
+                if (accumulated >= rank && accumulated > 0) {
+                    return i == 0 ? 0 : (1L << i) - 1.0;
+                }
+            }
+            return 0;
+        }
+
+        XnfTransferSnapshot snapshot(String sourceName) {
+            long noOfFiles = files.sum();
+            double meanMs = noOfFiles == 0 ? 0 : totalFetchNanos.sum() / 1e6 / noOfFiles;
+            Instant last = lastSuccess;
+            return new XnfTransferSnapshot(sourceName, bytes.sum(), noOfFiles, failures.sum(), meanMs,
+                percentileMs(0.99), last == null ? "" : last.toString());
+        }
+    }
+}
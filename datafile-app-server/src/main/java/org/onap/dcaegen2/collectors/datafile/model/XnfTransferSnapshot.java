@@ -0,0 +1,78 @@
+/*-
+ * ============LICENSE_START======================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * ============LICENSE_END========================================================================
+ */
+
+package org.onap.dcaegen2.collectors.datafile.model;
+
+/**
+ * A point in time copy of the transfer statistics of one xNF, as returned by the REST API.
+ */
+public class XnfTransferSnapshot {
+    private final String sourceName;
+    private final long bytes;
+    private final long files;
+    private final long failures;
+    private final double meanFetchTimeMs;
+    private final double p99FetchTimeMs;
+    private final String lastSuccess;
+
+    /**
+     * Constructor.
+     *
+     * @param sourceName the name of the xNF.
+     * @param bytes number of bytes collected.
+     * @param files number of files collected.
+     * @param failures number of failed collection attempts.
+     * @param meanFetchTimeMs mean fetch time in milliseconds.
+     * @param p99FetchTimeMs approximate 99th percentile fetch time in milliseconds.
+     * @param lastSuccess time of the last successful collection, empty if none.
+     */
+    public XnfTransferSnapshot(String sourceName, long bytes, long files, long failures, double meanFetchTimeMs,
+        double p99FetchTimeMs, String lastSuccess) {
+        this.sourceName = sourceName;
+        this.bytes = bytes;
+        this.files = files;
+        this.failures = failures;
+        this.meanFetchTimeMs = meanFetchTimeMs;
+        this.p99FetchTimeMs = p99FetchTimeMs;
+        this.lastSuccess = lastSuccess;
+    }
+
+    public String getSourceName() {
+        return sourceName;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public long getFiles() {
+        return files;
+    }
+
+    public long getFailures() {
+        return failures;
+    }
+
+    public double getMeanFetchTimeMs() {
+        return meanFetchTimeMs;
+    }
+
+    public double getP99FetchTimeMs() {
+        return p99FetchTimeMs;
+    }
+
+    public String getLastSuccess() {
+        return lastSuccess;
+    }
+}
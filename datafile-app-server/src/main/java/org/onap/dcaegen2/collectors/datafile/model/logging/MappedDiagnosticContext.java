@@ -16,8 +16,11 @@
 
 package org.onap.dcaegen2.collectors.datafile.model.logging;
 
+import java.util.Collections;
 import java.util.Map;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.client.methods.HttpRequestBase;
@@ -28,9 +31,17 @@ import org.slf4j.MDC;
 import org.slf4j.Marker;
 import org.slf4j.MarkerFactory;
 import org.springframework.http.HttpHeaders;
+import reactor.core.publisher.Signal;
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
 
 /**
  * Support functions for MDC.
+ *
+ * <p>
+ * The trace context of a file is kept with the file and in the Reactor {@link Context} of its chain, not in the MDC of
+ * the worker threads. It is put in the MDC only around the statements that log, see
+ * {@link #withContext(Map, Runnable)}, {@link #restore(Map)} and {@link #logOnError(Consumer)}.
  */
 public final class MappedDiagnosticContext {
 
@@ -38,6 +49,8 @@ public final class MappedDiagnosticContext {
     public static final Marker EXIT = MarkerFactory.getMarker("EXIT");
     private static final Marker INVOKE = MarkerFactory.getMarker("INVOKE");
 
+    private static final String CONTEXT_KEY = MappedDiagnosticContext.class.getName();
+
     private static final Logger logger = LoggerFactory.getLogger(MappedDiagnosticContext.class);
 
     private MappedDiagnosticContext() {
@@ -87,16 +100,126 @@ public final class MappedDiagnosticContext {
     }
 
     /**
-     * Updates the request ID in the current context.
-     * 
-     * @param newRequestId the new value of the request ID
-     * @return a copy the updated context
+     * Creates the trace context of one file. Only the request ID is held, so no copy of the MDC is made per file.
+     *
+     * @param requestId the request ID of the file
+     * @return an immutable trace context
+     */
+    public static Map<String, String> createFileContext(String requestId) {
+        return Collections.singletonMap(MdcVariables.REQUEST_ID, requestId);
+    }
+
+    /**
+     * Puts the request ID of a trace context in the MDC until the returned scope is closed, the previous value is
+     * then put back. A context without a request ID leaves the MDC as it is.
+     *
+     * @param context a trace context, may be null
+     * @return the scope to close when done logging
+     */
+    public static Scope restore(Map<String, String> context) {
+        String requestId = context == null ? null : context.get(MdcVariables.REQUEST_ID);
+        if (requestId == null) {
+            return Scope.NONE;
+        }
+        Scope scope = new Scope(MDC.get(MdcVariables.REQUEST_ID));
+        MDC.put(MdcVariables.REQUEST_ID, requestId);
+        return scope;
+    }
+
+    /**
+     * Runs a log statement with the request ID of a trace context in the MDC.
+     *
+     * @param context a trace context, may be null
+     * @param logStatement the log statement
+     */
+    public static void withContext(Map<String, String> context, Runnable logStatement) {
+        try (Scope scope = restore(context)) {
+            logStatement.run();
+        }
+    }
+
+    /**
+     * Gives the function that stores a trace context in the Reactor context, to be used with {@code contextWrite}.
+     *
+     * @param context a trace context, may be null
+     * @return the function for {@code contextWrite}
      */
-    public static Map<String, String> setRequestId(String newRequestId) {
-        Map<String, String> context = MDC.getCopyOfContextMap();
-        context.put(MdcVariables.REQUEST_ID, newRequestId);
-        MDC.setContextMap(context);
-        return context;
+    public static Function<Context, Context> write(Map<String, String> context) {
+        if (context == null) {
+            return Function.identity();
+        }
+        return reactorContext -> reactorContext.put(CONTEXT_KEY, context);
+    }
+
+    /**
+     * Gets the trace context stored in a Reactor context.
+     *
+     * @param reactorContext the Reactor context
+     * @return the trace context, empty if there is none
+     */
+    public static Map<String, String> contextOf(ContextView reactorContext) {
+        return reactorContext.getOrDefault(CONTEXT_KEY, Collections.emptyMap());
+    }
+
+    /**
+     * Decorates a log statement for {@code doOnEach}, it is run for each element with the trace context of the chain
+     * restored.
+     *
+     * @param <T> the type of the elements
+     * @param logStatement the log statement
+     * @return the consumer for {@code doOnEach}
+     */
+    public static <T> Consumer<Signal<T>> logOnNext(Consumer<T> logStatement) {
+        return signal -> {
+            if (signal.isOnNext()) {
+                try (Scope scope = restore(contextOf(signal.getContext()))) {
+                    logStatement.accept(signal.get());
+                }
+            }
+        };
+    }
+
+    /**
+     * Decorates a log statement for {@code doOnEach}, it is run for an error with the trace context of the chain
+     * restored.
+     *
+     * @param <T> the type of the elements
+     * @param logStatement the log statement
+     * @return the consumer for {@code doOnEach}
+     */
+    public static <T> Consumer<Signal<T>> logOnError(Consumer<Throwable> logStatement) {
+        return signal -> {
+            if (signal.isOnError()) {
+                try (Scope scope = restore(contextOf(signal.getContext()))) {
+                    logStatement.accept(signal.getThrowable());
+                }
+            }
+        };
+    }
+
+    /**
+     * A trace context put in the MDC, closing it puts the previous request ID back.
+     */
+    public static final class Scope implements AutoCloseable {
+        private static final Scope NONE = new Scope(null);
+
+        private final String previousRequestId;
+
+        private Scope(String previousRequestId) {
+            this.previousRequestId = previousRequestId;
+        }
+
+        @Override
+        public void close() {
+            if (this == NONE) {
+                return;
+            }
+            if (previousRequestId == null) {
+                MDC.remove(MdcVariables.REQUEST_ID);
+            } else {
+                MDC.put(MdcVariables.REQUEST_ID, previousRequestId);
+            }
+        }
     }
 
 }
@@ -0,0 +1,93 @@
+/*-
+ * ============LICENSE_START======================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * ============LICENSE_END========================================================================
+ */
+
+package org.onap.dcaegen2.collectors.datafile.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The names of the files recently published in bundles. A bundled file is only known to the DataRouter by the name
+ * of its bundle, so its own name cannot be looked up in the DataRouter log. This index is used instead, for files
+ * that are announced again after the {@link PublishedFileCache} has forgotten them. The key is the feed (change
+ * identifier) and the name of the file, the value is the time when the bundle was published.
+ *
+ * <p>
+ * The index is only kept in memory. A bundled file that is announced again after a restart is published again. The
+ * limits are given by the caller, from the configuration snapshot of the file.
+ */
+public class BundledFileIndex {
+    // Kept in insertion order, so the oldest entry is always first
+    private final Map<List<String>, Instant> bundledFiles = new LinkedHashMap<>();
+
+    /**
+     * Adds a file that has been published in a bundle.
+     *
+     * @param feed the change identifier of the feed the bundle is published on.
+     * @param fileName the name of the bundled file.
+     * @param now the current time.
+     * @param maxEntries the maximum number of remembered files.
+     */
+    public synchronized void add(String feed, String fileName, Instant now, int maxEntries) {
+        List<String> key = List.of(feed, fileName);
+        bundledFiles.remove(key); // Re-inserted last, to keep the order
+        bundledFiles.put(key, now);
+        Iterator<Instant> it = bundledFiles.values().iterator();
+        while (bundledFiles.size() > maxEntries && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    /**
+     * Checks if a file has been published in a bundle, within the retention time.
+     *
+     * @param feed the change identifier of the feed.
+     * @param fileName the name of the file.
+     * @param now the current time.
+     * @param retention for how long a bundled file is remembered.
+     * @return <code>true</code> if the file has been published in a bundle.
+     */
+    public synchronized boolean contains(String feed, String fileName, Instant now, Duration retention) {
+        Instant published = bundledFiles.get(List.of(feed, fileName));
+        return published != null && !isOutdated(now, published, retention);
+    }
+
+    /**
+     * Removes the files that are older than the retention time.
+     *
+     * @param now the instant will determine which files that will be purged.
+     * @param retention for how long a bundled file is remembered.
+     */
+    public synchronized void purge(Instant now, Duration retention) {
+        for (Iterator<Instant> it = bundledFiles.values().iterator(); it.hasNext();) {
+            if (!isOutdated(now, it.next(), retention)) {
+                break;
+            }
+            it.remove();
+        }
+    }
+
+    public synchronized int size() {
+        return bundledFiles.size();
+    }
+
+    private static boolean isOutdated(Instant now, Instant then, Duration retention) {
+        return !then.plus(retention).isAfter(now);
+    }
+}
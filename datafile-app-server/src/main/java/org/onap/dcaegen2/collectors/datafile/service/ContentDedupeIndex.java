@@ -0,0 +1,112 @@
+/*-
+ * ============LICENSE_START======================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * ============LICENSE_END========================================================================
+ */
+
+
+package org.onap.dcaegen2.collectors.datafile.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An index of the contents of recently published files, used to suppress publication of byte identical files that
+ * are announced again under another name or location. The key is the feed (change identifier), the SHA-256 digest
+ * and the size of the file. The value is the time when the content was first published.
+ *
+ * <p>
+ * A content is only added when its file has been published, so a file that could not be published does not suppress
+ * its copies. Copies that are being published at the same time are all published.
+ *
+ * <p>
+ * Entries older than the time window are ignored and purged. The number of entries is bounded, the oldest entry is
+ * evicted when the limit is reached. The limits are given by the caller, from the configuration snapshot of the file,
+ * so that they follow configuration updates without reading the application configuration.
+ */
+public class ContentDedupeIndex {
+    // Kept in insertion order, so the oldest entry is always first
+    private final Map<List<Object>, Instant> publishedContents = new LinkedHashMap<>();
+
+    /**
+     * Checks if an identical content has been published on the feed within the time window.
+     *
+     * @param feed the change identifier of the feed the file is published on.
+     * @param checksum the digest of the file, as <code>algorithm:hex</code>.
+     * @param size the size of the file in bytes.
+     * @param now the current time.
+     * @param window for how long a content is remembered.
+     * @return <code>true</code> if the content is a duplicate.
+     */
+    public synchronized boolean contains(String feed, String checksum, long size, Instant now, Duration window) {
+        Instant published = publishedContents.get(List.of(feed, checksum, size));
+        return published != null && !isOutdated(now, published, window);
+    }
+
+    /**
+     * Adds the content of a published file to the index, unless an identical content is already indexed for the feed.
+     *
+     * @param feed the change identifier of the feed the file is published on.
+     * @param checksum the digest of the file, as <code>algorithm:hex</code>.
+     * @param size the size of the file in bytes.
+     * @param now the current time.
+     * @param window for how long a content is remembered.
+     * @param maxEntries the maximum number of remembered contents.
+     * @return <code>true</code> if the content was added, <code>false</code> if it is a duplicate.
+     */
+    public synchronized boolean add(String feed, String checksum, long size, Instant now, Duration window,
+        int maxEntries) {
+        List<Object> key = List.of(feed, checksum, size);
+        Instant published = publishedContents.get(key);
+        if (published != null && !isOutdated(now, published, window)) {
+            return false;
+        }
+        publishedContents.remove(key); // Re-inserted last, to keep the order
+        publishedContents.put(key, now);
+        evictOldest(maxEntries);
+        return true;
+    }
+
+    /**
+     * Removes the contents that are older than the time window.
+     *
+     * @param now the instant will determine which contents that will be purged.
+     * @param window for how long a content is remembered.
+     */
+    public synchronized void purge(Instant now, Duration window) {
+        for (Iterator<Instant> it = publishedContents.values().iterator(); it.hasNext();) {
+            if (!isOutdated(now, it.next(), window)) {
+                break;
+            }
+            it.remove();
+        }
+    }
+
+    public synchronized int size() {
+        return publishedContents.size();
+    }
+
+    private void evictOldest(int limit) {
+        Iterator<Instant> it = publishedContents.values().iterator();
+        while (publishedContents.size() > limit && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    private static boolean isOutdated(Instant now, Instant then, Duration window) {
+        return !then.plus(window).isAfter(now);
+    }
+}
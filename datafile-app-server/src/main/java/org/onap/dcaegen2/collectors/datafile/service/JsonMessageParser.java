@@ -36,6 +36,8 @@ import org.onap.dcaegen2.collectors.datafile.model.ImmutableFileData;
 import org.onap.dcaegen2.collectors.datafile.model.ImmutableFileReadyMessage;
 import org.onap.dcaegen2.collectors.datafile.model.ImmutableMessageMetaData;
 import org.onap.dcaegen2.collectors.datafile.model.MessageMetaData;
+import org.onap.dcaegen2.collectors.datafile.model.StageTimers;
+import org.onap.dcaegen2.collectors.datafile.model.StageTimers.Stage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.util.StringUtils;
@@ -76,6 +78,8 @@ public class JsonMessageParser {
 
     private static final String FILE_READY_CHANGE_TYPE = "FileReady";
 
+    private final StageTimers stageTimers;
+
     /**
      * The data types available in the event name.
      */
@@ -89,6 +93,15 @@ public class JsonMessageParser {
         }
     }
 
+    /**
+     * Constructor.
+     *
+     * @param stageTimers timers where the time spent parsing each fileReady event is recorded.
+     */
+    public JsonMessageParser(StageTimers stageTimers) {
+        this.stageTimers = stageTimers;
+    }
+
     /**
      * Parses the Json message and returns a stream of messages.
      *
@@ -126,11 +139,18 @@ public class JsonMessageParser {
             : getMessagesFromJsonArray(jsonElement);
     }
 
-    private static Flux<FileReadyMessage> createMessages(Flux<JsonObject> jsonObject) {
-        return jsonObject.flatMap(monoJsonP -> containsNotificationFields(monoJsonP) ? transformMessages(monoJsonP)
+    private Flux<FileReadyMessage> createMessages(Flux<JsonObject> jsonObject) {
+        return jsonObject.flatMap(monoJsonP -> containsNotificationFields(monoJsonP) ? timedTransform(monoJsonP)
             : logErrorAndReturnEmptyMessageFlux("Incorrect JsonObject - missing header. " + jsonObject));
     }
 
+    private Mono<FileReadyMessage> timedTransform(JsonObject message) {
+        long startNanos = System.nanoTime();
+        Mono<FileReadyMessage> result = transformMessages(message);
+        stageTimers.record(Stage.PARSE, StageTimers.NO_TAG, StageTimers.NO_TAG, startNanos);
+        return result;
+    }
+
     private static Mono<FileReadyMessage> transformMessages(JsonObject message) {
         Optional<MessageMetaData> optionalMessageMetaData = getMessageMetaData(message);
         if (optionalMessageMetaData.isPresent()) {
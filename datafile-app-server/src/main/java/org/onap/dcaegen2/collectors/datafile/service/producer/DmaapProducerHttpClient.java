@@ -21,9 +21,7 @@
 package org.onap.dcaegen2.collectors.datafile.service.producer;
 
 import java.nio.charset.StandardCharsets;
-import java.security.KeyManagementException;
-import java.security.KeyStoreException;
-import java.security.NoSuchAlgorithmException;
+import java.security.GeneralSecurityException;
 import java.time.Duration;
 import java.util.Map;
 import java.util.concurrent.Future;
@@ -36,14 +34,15 @@ import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.http.conn.ssl.NoopHostnameVerifier;
 import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
-import org.apache.http.ssl.SSLContextBuilder;
+import org.onap.dcaegen2.collectors.datafile.commons.CredentialStore;
 import org.onap.dcaegen2.collectors.datafile.configuration.PublisherConfiguration;
 import org.onap.dcaegen2.collectors.datafile.exceptions.DatafileTaskException;
 import org.onap.dcaegen2.collectors.datafile.http.HttpAsyncClientBuilderWrapper;
+import org.onap.dcaegen2.collectors.datafile.model.logging.MappedDiagnosticContext;
+import org.onap.dcaegen2.collectors.datafile.model.logging.MappedDiagnosticContext.Scope;
 import org.onap.dcaegen2.collectors.datafile.web.PublishRedirectStrategy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.slf4j.MDC;
 import org.slf4j.Marker;
 import org.slf4j.MarkerFactory;
 
@@ -84,8 +83,8 @@ public class DmaapProducerHttpClient {
      */
     public HttpResponse getDmaapProducerResponseWithRedirect(HttpUriRequest request, Map<String, String> contextMap)
         throws DatafileTaskException {
-        MDC.setContextMap(contextMap);
-        try (CloseableHttpAsyncClient webClient = createWebClient(true, DEFAULT_REQUEST_TIMEOUT, contextMap)) {
+        try (Scope scope = MappedDiagnosticContext.restore(contextMap);
+            CloseableHttpAsyncClient webClient = createWebClient(true, DEFAULT_REQUEST_TIMEOUT, contextMap)) {
             webClient.start();
 
             logger.trace(INVOKE, "Starting to produce to DR {}", request);
@@ -111,8 +110,8 @@ public class DmaapProducerHttpClient {
      */
     public HttpResponse getDmaapProducerResponseWithCustomTimeout(HttpUriRequest request, Duration requestTimeout,
         Map<String, String> contextMap) throws DatafileTaskException {
-        MDC.setContextMap(contextMap);
-        try (CloseableHttpAsyncClient webClient = createWebClient(false, requestTimeout, contextMap)) {
+        try (Scope scope = MappedDiagnosticContext.restore(contextMap);
+            CloseableHttpAsyncClient webClient = createWebClient(false, requestTimeout, contextMap)) {
             webClient.start();
 
             logger.trace(INVOKE, "Starting to produce to DR {}", request);
@@ -140,9 +139,8 @@ public class DmaapProducerHttpClient {
     }
 
     private CloseableHttpAsyncClient createWebClient(boolean expectRedirect, Duration requestTimeout,
-        Map<String, String> contextMap) throws KeyManagementException, NoSuchAlgorithmException, KeyStoreException {
-        SSLContext sslContext =
-            new SSLContextBuilder().loadTrustMaterial(null, (certificate, authType) -> true).build();
+        Map<String, String> contextMap) throws GeneralSecurityException {
+        SSLContext sslContext = CredentialStore.getInstance().getTrustAllSslContext();
 
         HttpAsyncClientBuilderWrapper clientBuilder = getHttpClientBuilder();
         clientBuilder.setSslContext(sslContext) //
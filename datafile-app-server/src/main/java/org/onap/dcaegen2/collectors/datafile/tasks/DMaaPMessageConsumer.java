@@ -22,36 +22,86 @@
 package org.onap.dcaegen2.collectors.datafile.tasks;
 
 import com.google.gson.JsonElement;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+
 import org.onap.dcaegen2.collectors.datafile.configuration.AppConfig;
 import org.onap.dcaegen2.collectors.datafile.configuration.ConsumerConfiguration;
 import org.onap.dcaegen2.collectors.datafile.model.FileReadyMessage;
+import org.onap.dcaegen2.collectors.datafile.model.StageTimers;
 import org.onap.dcaegen2.collectors.datafile.service.JsonMessageParser;
 import org.onap.dcaegen2.services.sdk.rest.services.dmaap.client.api.MessageRouterSubscriber;
+import org.onap.dcaegen2.services.sdk.rest.services.dmaap.client.model.ImmutableMessageRouterSubscribeRequest;
+import org.onap.dcaegen2.services.sdk.rest.services.dmaap.client.model.MessageRouterSubscribeRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 /**
  * Component used to get messages from the MessageRouter.
  *
+ * <p>
+ * The number of messages fetched by each poll is limited by the free capacity of the pipeline, shared equally between
+ * the source topics. When a poll of a topic returns a full batch, the next poll of that topic is started right away,
+ * while the batch is parsed and processed. Polling goes on like that as long as the batches are full and there is
+ * capacity left. The polled messages that are not yet handed over to the pipeline are not counted in its capacity,
+ * so they are subtracted. No poll is made when there is no capacity left.
+ *
  * @author <a href="mailto:henrik.b.andersson@est.tech">Henrik Andersson</a>
  */
 public class DMaaPMessageConsumer {
+    public static final int NO_LIMIT = -1;
+
     private static final Logger logger = LoggerFactory.getLogger(DMaaPMessageConsumer.class);
     private final AppConfig datafileAppConfig;
     private final JsonMessageParser jsonMessageParser;
+    private final StageTimers stageTimers;
+    private final IntSupplier pollCapacity;
+
+    private static class Batch {
+        final List<JsonElement> messages;
+        final int limit;
+
+        Batch(List<JsonElement> messages, int limit) {
+            this.messages = messages;
+            this.limit = limit;
+        }
+
+        boolean isFull() {
+            return limit != NO_LIMIT && messages.size() >= limit;
+        }
+    }
+
+    public DMaaPMessageConsumer(AppConfig datafileAppConfig, StageTimers stageTimers) {
+        this(datafileAppConfig, stageTimers, () -> NO_LIMIT);
+    }
 
-    public DMaaPMessageConsumer(AppConfig datafileAppConfig) {
-        this(datafileAppConfig, new JsonMessageParser());
+    /**
+     * Constructor.
+     *
+     * @param datafileAppConfig the application configuration.
+     * @param stageTimers the timers to record the polls in.
+     * @param pollCapacity gives the number of messages the pipeline can take, {@link #NO_LIMIT} for no limit.
+     */
+    public DMaaPMessageConsumer(AppConfig datafileAppConfig, StageTimers stageTimers, IntSupplier pollCapacity) {
+        this(datafileAppConfig, new JsonMessageParser(stageTimers), stageTimers, pollCapacity);
     }
 
-    protected DMaaPMessageConsumer(AppConfig datafileAppConfig, JsonMessageParser jsonMessageParser) {
+    protected DMaaPMessageConsumer(AppConfig datafileAppConfig, JsonMessageParser jsonMessageParser,
+        StageTimers stageTimers, IntSupplier pollCapacity) {
         this.datafileAppConfig = datafileAppConfig;
         this.jsonMessageParser = jsonMessageParser;
+        this.stageTimers = stageTimers;
+        this.pollCapacity = pollCapacity;
     }
 
     /**
-     * Gets the response from the MessageRouter and turns it into a stream of fileReady messages.
+     * Gets the response from the MessageRouter and turns it into a stream of fileReady messages. Each source topic is
+     * polled in a loop of its own and the loops are merged.
      *
      * @return a stream of fileReady messages.
      */
@@ -59,17 +109,75 @@ public class DMaaPMessageConsumer {
         logger.trace("getMessageRouterResponse called");
         try {
             ConsumerConfiguration dmaapConsumerConfiguration = datafileAppConfig.getDmaapConsumerConfiguration();
-            MessageRouterSubscriber messageRouterSubscriber =
-                dmaapConsumerConfiguration.getMessageRouterSubscriber();
-            Flux<JsonElement> responseElements =
-                messageRouterSubscriber.getElements(dmaapConsumerConfiguration.getMessageRouterSubscribeRequest());
-            return consume(responseElements);
+            Map<String, MessageRouterSubscribeRequest> requests =
+                dmaapConsumerConfiguration.getMessageRouterSubscribeRequests();
+            IntSupplier capacityShare = () -> shareOf(pollCapacity.getAsInt(), requests.size());
+            return Flux.fromIterable(requests.entrySet()) //
+                .flatMap(entry -> consumeSource(dmaapConsumerConfiguration.getMessageRouterSubscriber(),
+                    entry.getKey(), entry.getValue(), capacityShare), requests.size());
         } catch (Exception e) {
             logger.warn("Unable to get response from message router", e);
             return Flux.empty();
         }
     }
 
+    /**
+     * The capacity is shared equally between the source topics, so a busy topic cannot starve the others.
+     */
+    private static int shareOf(int capacity, int numberOfSources) {
+        if (capacity == NO_LIMIT) {
+            return NO_LIMIT;
+        }
+        return (capacity + numberOfSources - 1) / numberOfSources;
+    }
+
+    private Flux<FileReadyMessage> consumeSource(MessageRouterSubscriber messageRouterSubscriber, String sourceName,
+        MessageRouterSubscribeRequest request, IntSupplier capacity) {
+        AtomicInteger outstanding = new AtomicInteger(); // Polled, but not yet handed over to the pipeline
+        IntSupplier freeCapacity = () -> freeOf(capacity.getAsInt(), outstanding.get());
+        return poll(messageRouterSubscriber, sourceName, request, freeCapacity, outstanding) //
+            .expand(batch -> batch.isFull()
+                ? poll(messageRouterSubscriber, sourceName, request, freeCapacity, outstanding)
+                : Mono.empty()) //
+            .concatMap(batch -> consume(Flux.fromIterable(batch.messages) //
+                .doOnNext(message -> outstanding.decrementAndGet())));
+    }
+
+    private static int freeOf(int capacity, int outstanding) {
+        return capacity == NO_LIMIT ? NO_LIMIT : Math.max(0, capacity - outstanding);
+    }
+
+    /**
+     * Polls a batch of messages, limited by the free capacity at the time of the poll.
+     *
+     * @return the batch, or nothing if there is no free capacity.
+     */
+    private Mono<Batch> poll(MessageRouterSubscriber messageRouterSubscriber, String sourceName,
+        MessageRouterSubscribeRequest request, IntSupplier freeCapacity, AtomicInteger outstanding) {
+        return Mono.defer(() -> {
+            int limit = freeCapacity.getAsInt();
+            if (limit == 0) {
+                logger.trace("No capacity left for polling {}", sourceName);
+                return Mono.empty();
+            }
+            MessageRouterSubscribeRequest limitedRequest = withLimit(request, limit);
+            long startNanos = System.nanoTime();
+            return messageRouterSubscriber.getElements(limitedRequest) //
+                .collectList() //
+                .doOnNext(messages -> stageTimers.recordPoll(sourceName, messages.size(), startNanos)) //
+                .doOnError(throwable -> stageTimers.recordPoll(sourceName, 0, startNanos)) //
+                .doOnNext(messages -> outstanding.addAndGet(messages.size())) //
+                .map(messages -> new Batch(messages, limit));
+        });
+    }
+
+    private static MessageRouterSubscribeRequest withLimit(MessageRouterSubscribeRequest request, int limit) {
+        if (limit == NO_LIMIT) {
+            return request;
+        }
+        return ImmutableMessageRouterSubscribeRequest.copyOf(request).withLimit(limit);
+    }
+
     private Flux<FileReadyMessage> consume(Flux<JsonElement> messages) {
         return jsonMessageParser.getMessagesFromJson(messages);
     }
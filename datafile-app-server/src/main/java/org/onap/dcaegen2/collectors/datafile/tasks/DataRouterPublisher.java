@@ -33,7 +33,6 @@ import org.apache.http.HttpResponse;
 import org.apache.http.client.methods.HttpPut;
 import org.apache.http.entity.ContentType;
 import org.apache.http.entity.FileEntity;
-import org.onap.dcaegen2.collectors.datafile.configuration.AppConfig;
 import org.onap.dcaegen2.collectors.datafile.configuration.PublisherConfiguration;
 import org.onap.dcaegen2.collectors.datafile.exceptions.DatafileTaskException;
 import org.onap.dcaegen2.collectors.datafile.model.Counters;
@@ -44,7 +43,6 @@ import org.onap.dcaegen2.collectors.datafile.service.HttpUtils;
 import org.onap.dcaegen2.collectors.datafile.service.producer.DmaapProducerHttpClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.slf4j.MDC;
 import org.springframework.core.io.FileSystemResource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -63,66 +61,73 @@ public class DataRouterPublisher {
     private static final String CONTENT_TYPE = "application/octet-stream";
 
     private static final Logger logger = LoggerFactory.getLogger(DataRouterPublisher.class);
-    private final AppConfig datafileAppConfig;
     private final Counters counters;
 
-    public DataRouterPublisher(AppConfig datafileAppConfig, Counters counters) {
-        this.datafileAppConfig = datafileAppConfig;
+    public DataRouterPublisher(Counters counters) {
         this.counters = counters;
     }
 
     /**
-     * Publish one file.
+     * Publish one file, to the feed in the configuration captured when the file was admitted.
      *
      * @param publishInfo information about the file to publish
-     * @param numRetries the maximal number of retries if the publishing fails
+     * @param numRetries the maximal number of retries if the publishing fails, 0 to make a single attempt. The error
+     *        of a single attempt is passed on as it is, so that the caller can tell if it is worth retrying.
      * @param firstBackoff the time to delay the first retry
      * @return the (same) filePublishInformation
      */
     public Mono<FilePublishInformation> publishFile(FilePublishInformation publishInfo, long numRetries,
         Duration firstBackoff) {
-        MDC.setContextMap(publishInfo.getContext());
-        return Mono.just(publishInfo) //
+        Mono<FilePublishInformation> publishedFile = Mono.just(publishInfo) //
             .cache() //
             .flatMap(this::publishFile) //
-            .flatMap(httpStatus -> handleHttpResponse(httpStatus, publishInfo)) //
-            .retryWhen(Retry.backoff(numRetries,firstBackoff));
+            .flatMap(httpStatus -> handleHttpResponse(httpStatus, publishInfo));
+        return numRetries > 0 ? publishedFile.retryWhen(Retry.backoff(numRetries, firstBackoff)) : publishedFile;
     }
 
     private Mono<HttpStatus> publishFile(FilePublishInformation publishInfo) {
-        MDC.setContextMap(publishInfo.getContext());
-        logger.trace("Entering publishFile with {}", publishInfo);
+        MappedDiagnosticContext.withContext(publishInfo.getContext(),
+            () -> logger.trace("Entering publishFile with {}", publishInfo));
         try {
-            DmaapProducerHttpClient dmaapProducerHttpClient = resolveClient(publishInfo.getChangeIdentifier());
-            HttpPut put = new HttpPut();
-            prepareHead(publishInfo, put);
-            prepareBody(publishInfo, put);
+            PublisherConfiguration publisherConfiguration = resolveConfiguration(publishInfo);
+            DmaapProducerHttpClient dmaapProducerHttpClient = resolveClient(publisherConfiguration);
+            HttpPut put = createPutRequest(publishInfo, publisherConfiguration);
             dmaapProducerHttpClient.addUserCredentialsToHead(put);
 
             HttpResponse response =
                 dmaapProducerHttpClient.getDmaapProducerResponseWithRedirect(put, publishInfo.getContext());
-            logger.trace("{}", response);
+            MappedDiagnosticContext.withContext(publishInfo.getContext(), () -> logger.trace("{}", response));
             return Mono.just(HttpStatus.valueOf(response.getStatusLine().getStatusCode()));
         } catch (Exception e) {
             counters.incNoOfFailedPublishAttempts();
-            logger.warn("Publishing file {} to DR unsuccessful.", publishInfo.getName(), e);
-            return Mono.error(e);
+            MappedDiagnosticContext.withContext(publishInfo.getContext(),
+                () -> logger.warn("Publishing file {} to DR unsuccessful.", publishInfo.getName(), e));
+            return Mono.error(e instanceof DatafileTaskException ? e
+                : new DatafileTaskException("Publishing file " + publishInfo.getName() + " unsuccessful: " + e, e));
         }
     }
 
-    private void prepareHead(FilePublishInformation publishInfo, HttpPut put) throws DatafileTaskException {
+    HttpPut createPutRequest(FilePublishInformation publishInfo, PublisherConfiguration publisherConfiguration) {
+        HttpPut put = new HttpPut();
+        prepareHead(publishInfo, publisherConfiguration, put);
+        prepareBody(publishInfo, put);
+        return put;
+    }
+
+    private void prepareHead(FilePublishInformation publishInfo, PublisherConfiguration publisherConfiguration,
+        HttpPut put) {
 
         put.addHeader(HttpHeaders.CONTENT_TYPE, CONTENT_TYPE);
         JsonElement metaData = JsonParser.parseString(JsonSerializer.createJsonBodyForDataRouter(publishInfo));
         put.addHeader(X_DMAAP_DR_META, metaData.toString());
-        URI uri = new DefaultUriBuilderFactory(
-            datafileAppConfig.getPublisherConfiguration(publishInfo.getChangeIdentifier()).publishUrl()) //
+        URI uri = new DefaultUriBuilderFactory(publisherConfiguration.publishUrl()) //
                 .builder() //
                 .pathSegment(publishInfo.getName()) //
                 .build();
         put.setURI(uri);
 
-        MappedDiagnosticContext.appendTraceInfo(put);
+        MappedDiagnosticContext.withContext(publishInfo.getContext(),
+            () -> MappedDiagnosticContext.appendTraceInfo(put));
     }
 
     private void prepareBody(FilePublishInformation publishInfo, HttpPut put) {
@@ -132,15 +137,16 @@ public class DataRouterPublisher {
     }
 
     private Mono<FilePublishInformation> handleHttpResponse(HttpStatus response, FilePublishInformation publishInfo) {
-        MDC.setContextMap(publishInfo.getContext());
         if (HttpUtils.isSuccessfulResponseCodeWithDataRouter(response.value())) {
             counters.incTotalPublishedFiles();
-            logger.trace("Publishing file {} to DR successful!", publishInfo.getName());
+            MappedDiagnosticContext.withContext(publishInfo.getContext(), () -> logger.trace(
+                "Publishing file {} to DR successful!", publishInfo.getName()));
             return Mono.just(publishInfo);
         } else {
             counters.incNoOfFailedPublishAttempts();
-            logger.warn("Publishing file {} to DR unsuccessful. Response code: {}", publishInfo.getName(), response);
-            return Mono.error(new Exception(
+            MappedDiagnosticContext.withContext(publishInfo.getContext(), () -> logger.warn(
+                "Publishing file {} to DR unsuccessful. Response code: {}", publishInfo.getName(), response));
+            return Mono.error(new DatafileTaskException(
                 "Publishing file " + publishInfo.getName() + " to DR unsuccessful. Response code: " + response));
         }
     }
@@ -150,13 +156,11 @@ public class DataRouterPublisher {
         return realResource.getFile();
     }
 
-    PublisherConfiguration resolveConfiguration(String changeIdentifer) throws DatafileTaskException {
-        return datafileAppConfig.getPublisherConfiguration(changeIdentifer);
+    PublisherConfiguration resolveConfiguration(FilePublishInformation publishInfo) throws DatafileTaskException {
+        return publishInfo.getConfig().getPublisherConfiguration(publishInfo.getChangeIdentifier());
     }
 
-    DmaapProducerHttpClient resolveClient(String changeIdentifier) throws DatafileTaskException {
-        PublisherConfiguration publisherConfiguration = resolveConfiguration(changeIdentifier);
+    DmaapProducerHttpClient resolveClient(PublisherConfiguration publisherConfiguration) {
         return new DmaapProducerHttpClient(publisherConfiguration);
-
     }
 }
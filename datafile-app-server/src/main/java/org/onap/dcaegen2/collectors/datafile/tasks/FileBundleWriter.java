@@ -0,0 +1,151 @@
+/*-
+ * ============LICENSE_START======================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * ============LICENSE_END========================================================================
+ */
+
+
+package org.onap.dcaegen2.collectors.datafile.tasks;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.onap.dcaegen2.collectors.datafile.model.FilePublishInformation;
+import org.onap.dcaegen2.collectors.datafile.model.ImmutableFilePublishInformation;
+import org.onap.dcaegen2.collectors.datafile.model.JsonSerializer;
+
+/**
+ * Writes a bundle of collected files as one zip file. The first entry of the zip file is a manifest, which holds the
+ * DataRouter metadata of each bundled file together with the name of its entry.
+ *
+ * <p>
+ * The metadata of the bundle itself is aggregated from the bundled files. Attributes that differ between the files
+ * are left empty and the time span covers all files.
+ */
+public class FileBundleWriter {
+
+    public static final String MANIFEST_ENTRY_NAME = "MANIFEST.json";
+    public static final String ENTRY_NAME = "entryName";
+    public static final String BUNDLE_COMPRESSION = "zip";
+    public static final String BUNDLE_FILE_FORMAT_TYPE = "org.onap.dcaegen2.collectors.datafile.bundle";
+    public static final String BUNDLE_FILE_FORMAT_VERSION = "1";
+    public static final String BUNDLE_LOCATION_SCHEME = "bundle:";
+
+    // Numeric order of the epoch strings, values that are not numbers are sorted first
+    private static final Comparator<String> EPOCH_ORDER =
+        Comparator.comparingLong(FileBundleWriter::parseEpoch).thenComparing(Comparator.naturalOrder());
+
+    private FileBundleWriter() {
+    }
+
+    /**
+     * Writes a bundle.
+     *
+     * @param changeIdentifier the feed the bundle is published on.
+     * @param files the files to bundle, at least one.
+     * @param bundleFile the local file to write the bundle to.
+     * @return information for publishing the bundle.
+     * @throws IOException if a file could not be read or the bundle could not be written.
+     */
+    public static FilePublishInformation write(String changeIdentifier, List<FilePublishInformation> files,
+        Path bundleFile) throws IOException {
+        List<String> entryNames = entryNames(files);
+        JsonArray manifest = new JsonArray();
+        for (int i = 0; i < files.size(); ++i) {
+            manifest.add(manifestEntry(files.get(i), entryNames.get(i)));
+        }
+
+        try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(bundleFile))) {
+            zip.putNextEntry(new ZipEntry(MANIFEST_ENTRY_NAME));
+            zip.write(manifest.toString().getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+            for (int i = 0; i < files.size(); ++i) {
+                zip.putNextEntry(new ZipEntry(entryNames.get(i)));
+                Files.copy(files.get(i).getInternalLocation(), zip);
+                zip.closeEntry();
+            }
+        }
+
+        String bundleName = bundleFile.getFileName().toString();
+        return ImmutableFilePublishInformation.builder() //
+            .productName(common(files, FilePublishInformation::getProductName)) //
+            .vendorName(common(files, FilePublishInformation::getVendorName)) //
+            .sourceName(common(files, FilePublishInformation::getSourceName)) //
+            .timeZoneOffset(common(files, FilePublishInformation::getTimeZoneOffset)) //
+            .startEpochMicrosec(
+                files.stream().map(FilePublishInformation::getStartEpochMicrosec).min(EPOCH_ORDER).orElse("")) //
+            .lastEpochMicrosec(
+                files.stream().map(FilePublishInformation::getLastEpochMicrosec).max(EPOCH_ORDER).orElse("")) //
+            .name(bundleName) //
+            .location(BUNDLE_LOCATION_SCHEME + bundleName) //
+            .internalLocation(bundleFile) //
+            .compression(BUNDLE_COMPRESSION) //
+            .fileFormatType(BUNDLE_FILE_FORMAT_TYPE) //
+            .fileFormatVersion(BUNDLE_FILE_FORMAT_VERSION) //
+            .changeIdentifier(changeIdentifier) //
+            .context(files.get(0).getContext()) //
+            .config(files.get(0).getConfig()) // The bundle is published with the configuration of its oldest file
+            .fileSize(Files.size(bundleFile)) //
+            .build();
+    }
+
+    private static List<String> entryNames(List<FilePublishInformation> files) {
+        Set<String> usedNames = new HashSet<>();
+        usedNames.add(MANIFEST_ENTRY_NAME);
+        List<String> entryNames = new ArrayList<>(files.size());
+        for (FilePublishInformation file : files) {
+            String entryName = file.getName();
+            for (int i = 1; !usedNames.add(entryName); ++i) {
+                entryName = i + "/" + file.getName();
+            }
+            entryNames.add(entryName);
+        }
+        return entryNames;
+    }
+
+    private static JsonObject manifestEntry(FilePublishInformation file, String entryName) {
+        JsonObject entry = JsonParser.parseString(JsonSerializer.createJsonBodyForDataRouter(file)).getAsJsonObject();
+        entry.addProperty(ENTRY_NAME, entryName);
+        return entry;
+    }
+
+    private static String common(List<FilePublishInformation> files, Function<FilePublishInformation, String> attr) {
+        String value = attr.apply(files.get(0));
+        for (FilePublishInformation file : files) {
+            if (!value.equals(attr.apply(file))) {
+                return "";
+            }
+        }
+        return value;
+    }
+
+    private static long parseEpoch(String epoch) {
+        try {
+            return Long.parseLong(epoch);
+        } catch (NumberFormatException e) {
+            return Long.MIN_VALUE;
+        }
+    }
+}
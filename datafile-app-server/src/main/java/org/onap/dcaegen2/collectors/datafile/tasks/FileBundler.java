@@ -0,0 +1,145 @@
+/*-
+ * ============LICENSE_START======================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * ============LICENSE_END========================================================================
+ */
+
+
+package org.onap.dcaegen2.collectors.datafile.tasks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.onap.dcaegen2.collectors.datafile.configuration.AppConfig;
+import org.onap.dcaegen2.collectors.datafile.model.FilePublishInformation;
+
+import reactor.core.Disposable;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * Accumulates small collected files per feed (change identifier) into bundles. A bundle is handed over for
+ * publishing when it has reached the maximum size or number of files, or when its first file has waited for the
+ * maximum delay.
+ */
+public class FileBundler {
+
+    /**
+     * Takes care of a full bundle.
+     */
+    @FunctionalInterface
+    public interface BundleHandler {
+        void handleBundle(String changeIdentifier, List<FilePublishInformation> files);
+    }
+
+    private final AppConfig applicationConfiguration;
+    private final Scheduler scheduler;
+    private final BundleHandler handler;
+    private final Map<String, PendingBundle> pendingBundles = new HashMap<>();
+
+    private static class PendingBundle {
+        final List<FilePublishInformation> files = new ArrayList<>();
+        long size = 0;
+        Disposable timer;
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param applicationConfiguration the limits of the bundles are read from this on each use.
+     * @param scheduler the scheduler for the maximum delay of the bundles.
+     * @param handler takes care of the bundles.
+     */
+    public FileBundler(AppConfig applicationConfiguration, Scheduler scheduler, BundleHandler handler) {
+        this.applicationConfiguration = applicationConfiguration;
+        this.scheduler = scheduler;
+        this.handler = handler;
+    }
+
+    /**
+     * Adds a file to the pending bundle of its feed. If the bundle gets full, it is handed over in the calling thread.
+     *
+     * @param file the collected file.
+     */
+    public void add(FilePublishInformation file) {
+        String changeIdentifier = file.getChangeIdentifier();
+        List<FilePublishInformation> fullBundle = null;
+        synchronized (this) {
+            PendingBundle bundle = pendingBundles.computeIfAbsent(changeIdentifier, this::createBundle);
+            bundle.files.add(file);
+            bundle.size += file.getFileSize();
+            if (bundle.size >= applicationConfiguration.getBundleMaxSize()
+                || bundle.files.size() >= applicationConfiguration.getBundleMaxFiles()) {
+                fullBundle = take(changeIdentifier, bundle);
+            }
+        }
+        if (fullBundle != null) {
+            handler.handleBundle(changeIdentifier, fullBundle);
+        }
+    }
+
+    /**
+     * Hands over all pending bundles, full or not.
+     */
+    public void flushAll() {
+        Map<String, List<FilePublishInformation>> bundles = new HashMap<>();
+        synchronized (this) {
+            for (Map.Entry<String, PendingBundle> entry : new ArrayList<>(pendingBundles.entrySet())) {
+                bundles.put(entry.getKey(), take(entry.getKey(), entry.getValue()));
+            }
+        }
+        bundles.forEach(handler::handleBundle);
+    }
+
+    /**
+     * Drops all pending bundles, without handing them over. The local files of the bundled files are left as they are.
+     *
+     * @return the dropped files.
+     */
+    public synchronized List<FilePublishInformation> discardAll() {
+        List<FilePublishInformation> files = new ArrayList<>();
+        new ArrayList<>(pendingBundles.entrySet())
+            .forEach(entry -> files.addAll(take(entry.getKey(), entry.getValue())));
+        return files;
+    }
+
+    public synchronized int getNumberOfPendingFiles() {
+        return pendingBundles.values().stream().mapToInt(bundle -> bundle.files.size()).sum();
+    }
+
+    private PendingBundle createBundle(String changeIdentifier) {
+        PendingBundle bundle = new PendingBundle();
+        Duration maxDelay = applicationConfiguration.getBundleMaxDelay();
+        bundle.timer = scheduler.schedule(() -> flush(changeIdentifier, bundle), maxDelay.toMillis(),
+            TimeUnit.MILLISECONDS);
+        return bundle;
+    }
+
+    private void flush(String changeIdentifier, PendingBundle bundle) {
+        List<FilePublishInformation> files;
+        synchronized (this) {
+            if (pendingBundles.get(changeIdentifier) != bundle) {
+                return; // Already handed over
+            }
+            files = take(changeIdentifier, bundle);
+        }
+        handler.handleBundle(changeIdentifier, files);
+    }
+
+    private List<FilePublishInformation> take(String changeIdentifier, PendingBundle bundle) {
+        pendingBundles.remove(changeIdentifier);
+        bundle.timer.dispose();
+        return bundle.files;
+    }
+}
@@ -17,32 +17,44 @@
 
 package org.onap.dcaegen2.collectors.datafile.tasks;
 
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.Duration;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.TimeoutException;
 
+import javax.net.ssl.SSLHandshakeException;
+
+import org.onap.dcaegen2.collectors.datafile.commons.BlockingFileCollectClientAdapter;
+import org.onap.dcaegen2.collectors.datafile.commons.ContentDigest;
+import org.onap.dcaegen2.collectors.datafile.commons.ReactiveFileCollectClient;
 import org.onap.dcaegen2.collectors.datafile.commons.Scheme;
-import org.onap.dcaegen2.collectors.datafile.configuration.AppConfig;
 import org.onap.dcaegen2.collectors.datafile.configuration.CertificateConfig;
+import org.onap.dcaegen2.collectors.datafile.configuration.ConfigSnapshot;
+import org.onap.dcaegen2.collectors.datafile.exceptions.CircuitBreakerOpenException;
 import org.onap.dcaegen2.collectors.datafile.exceptions.DatafileTaskException;
 import org.onap.dcaegen2.collectors.datafile.exceptions.NonRetryableDatafileTaskException;
-import org.onap.dcaegen2.collectors.datafile.commons.FileCollectClient;
 import org.onap.dcaegen2.collectors.datafile.ftp.FtpesClient;
 import org.onap.dcaegen2.collectors.datafile.ftp.SftpClient;
 import org.onap.dcaegen2.collectors.datafile.ftp.SftpClientSettings;
 import org.onap.dcaegen2.collectors.datafile.http.DfcHttpClient;
-import org.onap.dcaegen2.collectors.datafile.http.DfcHttpsClient;
+import org.onap.dcaegen2.collectors.datafile.http.DfcReactiveHttpsClient;
 import org.onap.dcaegen2.collectors.datafile.http.HttpsClientConnectionManagerUtil;
+import org.onap.dcaegen2.collectors.datafile.model.CircuitBreaker;
+import org.onap.dcaegen2.collectors.datafile.model.CircuitBreakers;
+import org.onap.dcaegen2.collectors.datafile.model.CollectedFile;
 import org.onap.dcaegen2.collectors.datafile.model.Counters;
 import org.onap.dcaegen2.collectors.datafile.model.FileData;
 import org.onap.dcaegen2.collectors.datafile.model.FilePublishInformation;
 import org.onap.dcaegen2.collectors.datafile.model.ImmutableFilePublishInformation;
 import org.onap.dcaegen2.collectors.datafile.model.MessageMetaData;
+import org.onap.dcaegen2.collectors.datafile.model.logging.MappedDiagnosticContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.slf4j.MDC;
 import reactor.core.publisher.Mono;
 import reactor.util.retry.Retry;
 
@@ -53,39 +65,70 @@ import reactor.util.retry.Retry;
  */
 public class FileCollector {
 
+    public static final Duration DEFAULT_COLLECT_TIMEOUT = Duration.ofMinutes(15);
+
     private static final Logger logger = LoggerFactory.getLogger(FileCollector.class);
-    private final AppConfig datafileAppConfig;
     private final Counters counters;
+    private final CircuitBreakers circuitBreakers;
+    private final Duration collectTimeout;
+
+    /**
+     * Constructor.
+     *
+     * @param counters statistics
+     */
+    public FileCollector(Counters counters) {
+        this(counters, new CircuitBreakers());
+    }
 
     /**
      * Constructor.
      *
-     * @param datafileAppConfig application configuration
+     * @param counters statistics
+     * @param circuitBreakers the circuit breakers of the file servers, shared by all collectors
      */
-    public FileCollector(AppConfig datafileAppConfig, Counters counters) {
-        this.datafileAppConfig = datafileAppConfig;
+    public FileCollector(Counters counters, CircuitBreakers circuitBreakers) {
+        this(counters, circuitBreakers, DEFAULT_COLLECT_TIMEOUT);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param counters statistics
+     * @param circuitBreakers the circuit breakers of the file servers, shared by all collectors
+     * @param collectTimeout the maximum time for one attempt to collect a file, the transfer is aborted after that
+     */
+    public FileCollector(Counters counters, CircuitBreakers circuitBreakers, Duration collectTimeout) {
         this.counters = counters;
+        this.circuitBreakers = circuitBreakers;
+        this.collectTimeout = collectTimeout;
     }
 
     /**
      * Collects a file from the PNF and stores it in the local file system.
      *
      * @param fileData data about the file to collect.
-     * @param numRetries the number of retries if the publishing fails
+     * @param config the configuration captured when the file was admitted.
+     * @param numRetries the number of retries if the publishing fails, 0 to make a single attempt. The error of a
+     *        single attempt is passed on as it is, so that the caller can tell if it is worth retrying.
      * @param firstBackoff the time to delay the first retry
      * @param contextMap context for logging.
      * @return the data needed to publish the file.
      */
-    public Mono<FilePublishInformation> collectFile(FileData fileData, long numRetries, Duration firstBackoff,
-        Map<String, String> contextMap) {
-        MDC.setContextMap(contextMap);
-        logger.trace("Entering collectFile with {}", fileData);
+    public Mono<FilePublishInformation> collectFile(FileData fileData, ConfigSnapshot config, long numRetries,
+        Duration firstBackoff, Map<String, String> contextMap) {
+        MappedDiagnosticContext.withContext(contextMap, () -> logger.trace("Entering collectFile with {}", fileData));
 
-        return Mono.just(fileData) //
+        Mono<Optional<FilePublishInformation>> collectedFile = Mono.just(fileData) //
             .cache() //
-            .flatMap(fd -> tryCollectFile(fileData, contextMap)) //
-            .retryWhen(Retry.backoff(numRetries,firstBackoff))
-            .flatMap(FileCollector::checkCollectedFile);
+            .flatMap(fd -> tryCollectFile(fileData, config, contextMap));
+        if (numRetries > 0) {
+            collectedFile = collectedFile.retryWhen(Retry.backoff(numRetries, firstBackoff) //
+                .filter(e -> !(e instanceof CircuitBreakerOpenException)));
+        }
+        return collectedFile //
+            .flatMap(FileCollector::checkCollectedFile) //
+            .contextWrite(MappedDiagnosticContext.write(contextMap));
     }
 
     private static Mono<FilePublishInformation> checkCollectedFile(Optional<FilePublishInformation> info) {
@@ -93,39 +136,94 @@ public class FileCollector {
             return Mono.just(info.get());
         } else {
             // If there is no info, the file is not retrievable
-            return Mono.error(new DatafileTaskException("Non retryable file transfer failure"));
+            return Mono.error(new NonRetryableDatafileTaskException("Non retryable file transfer failure"));
         }
     }
 
-    private Mono<Optional<FilePublishInformation>> tryCollectFile(FileData fileData, Map<String, String> context) {
-        MDC.setContextMap(context);
-        logger.trace("starting to collectFile {}", fileData.name());
+    private Mono<Optional<FilePublishInformation>> tryCollectFile(FileData fileData, ConfigSnapshot config,
+        Map<String, String> context) {
+        MappedDiagnosticContext.withContext(context, () -> logger.trace("starting to collectFile {}", fileData.name()));
 
-        final String remoteFile = fileData.remoteFilePath();
         final Path localFile = fileData.getLocalFilePath();
+        final long startNanos = System.nanoTime();
+
+        CircuitBreaker circuitBreaker = circuitBreakers.get(fileData);
+        if (!circuitBreaker.tryAcquirePermission()) {
+            MappedDiagnosticContext.withContext(context, () -> logger.debug(
+                "Circuit breaker is open for {}, deferring file: {}", circuitBreaker.getHost(), fileData.name()));
+            return Mono.error(
+                new CircuitBreakerOpenException(circuitBreaker.getHost(), circuitBreaker.getTimeUntilPermitted()));
+        }
+
+        return Mono.defer(() -> {
+            try {
+                localFile.getParent().toFile().mkdir(); // Create parent directories
+                ContentDigest digest = ContentDigest.create(config.getCollectingDigestAlgorithm(),
+                    config.getContentDedupeDigestAlgorithm());
+                return createClient(fileData, config).collect(fileData, digest);
+            } catch (DatafileTaskException e) {
+                return Mono.error(e);
+            }
+        }) //
+            .timeout(collectTimeout) //
+            .onErrorMap(TimeoutException.class,
+                e -> new DatafileTaskException("Timeout after " + collectTimeout + " collecting file: " + e, e)) //
+            .doOnCancel(circuitBreaker::releasePermission) //
+            .doOnError(e -> reportFailure(circuitBreaker, e)) //
+            .map(collectedFile -> {
+                circuitBreaker.onSuccess();
+                counters.incNoOfCollectedFiles();
+                counters.getXnfStatistics().fileCollected(fileData.sourceName(), collectedFile.size(),
+                    System.nanoTime() - startNanos);
+                return Optional.of(getFilePublishInformation(fileData, collectedFile, config, context));
+            }) //
+            .doOnEach(MappedDiagnosticContext.logOnError(e -> {
+                if (e instanceof DatafileTaskException) {
+                    logger.warn("Failed to download file: {} {}, reason: ", fileData.sourceName(), fileData.name(), e);
+                }
+            })) //
+            .onErrorResume(NonRetryableDatafileTaskException.class, nre -> {
+                incFailedAttemptsCounter(fileData);
+                return Mono.just(Optional.empty()); // Give up
+            }) //
+            .onErrorResume(DatafileTaskException.class, e -> {
+                incFailedAttemptsCounter(fileData);
+                return Mono.error(e);
+            });
+    }
+
+    /**
+     * Reports a failed attempt to the circuit breaker. Only the failures to connect count against the breaker, a
+     * transfer that fails after connecting, or times out, neither opens nor closes it.
+     */
+    private static void reportFailure(CircuitBreaker circuitBreaker, Throwable throwable) {
+        if (isConnectFailure(throwable)) {
+            circuitBreaker.onFailure();
+        } else if (throwable instanceof NonRetryableDatafileTaskException) {
+            circuitBreaker.onSuccess(); // The server could be reached
+        } else {
+            circuitBreaker.releasePermission();
+        }
+    }
 
-        try (FileCollectClient currentClient = createClient(fileData)) {
-            currentClient.open();
-            localFile.getParent().toFile().mkdir(); // Create parent directories
-            currentClient.collectFile(remoteFile, localFile);
-            counters.incNoOfCollectedFiles();
-            return Mono.just(Optional.of(getFilePublishInformation(fileData, localFile, context)));
-        } catch (NonRetryableDatafileTaskException nre) {
-            logger.warn("Failed to download file: {} {}, reason: ", fileData.sourceName(), fileData.name(), nre);
-            incFailedAttemptsCounter(fileData);
-            return Mono.just(Optional.empty()); // Give up
-        } catch (DatafileTaskException e) {
-            logger.warn("Failed to download file: {} {}, reason: ", fileData.sourceName(), fileData.name(), e);
-            incFailedAttemptsCounter(fileData);
-            return Mono.error(e);
-        } catch (Exception throwable) {
-            logger.warn("Failed to close client: {} {}, reason: {}", fileData.sourceName(), fileData.name(),
-                throwable.toString(), throwable);
-            return Mono.just(Optional.of(getFilePublishInformation(fileData, localFile, context)));
+    /**
+     * Checks if the file server could not be reached, or if the TLS handshake failed, at any level of the causes.
+     */
+    static boolean isConnectFailure(Throwable throwable) {
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConnectException || cause instanceof NoRouteToHostException
+                || cause instanceof UnknownHostException || cause instanceof SSLHandshakeException) {
+                return true;
+            }
+            if (cause.getCause() == cause) {
+                break;
+            }
         }
+        return false;
     }
 
     private void incFailedAttemptsCounter(FileData fileData) {
+        counters.getXnfStatistics().fileFailed(fileData.sourceName());
         if (Scheme.isFtpScheme(fileData.scheme())) {
             counters.incNoOfFailedFtpAttempts();
         } else {
@@ -133,23 +231,24 @@ public class FileCollector {
         }
     }
 
-    private FileCollectClient createClient(FileData fileData) throws DatafileTaskException {
+    private ReactiveFileCollectClient createClient(FileData fileData, ConfigSnapshot config)
+        throws DatafileTaskException {
         switch (fileData.scheme()) {
             case SFTP:
-                return createSftpClient(fileData);
+                return new BlockingFileCollectClientAdapter(() -> createSftpClient(fileData, config));
             case FTPES:
-                return createFtpesClient(fileData);
+                return new BlockingFileCollectClientAdapter(() -> createFtpesClient(fileData, config));
             case HTTP:
                 return createHttpClient(fileData);
             case HTTPS:
-                return createHttpsClient(fileData);
+                return createHttpsClient(fileData, config);
             default:
                 throw new DatafileTaskException("Unhandled protocol: " + fileData.scheme());
         }
     }
 
-    private static FilePublishInformation getFilePublishInformation(FileData fileData, Path localFile,
-        Map<String, String> context) {
+    private static FilePublishInformation getFilePublishInformation(FileData fileData, CollectedFile collectedFile,
+        ConfigSnapshot config, Map<String, String> context) {
         String location = fileData.location();
         MessageMetaData metaData = fileData.messageMetaData();
         return ImmutableFilePublishInformation.builder() //
@@ -161,37 +260,43 @@ public class FileCollector {
             .timeZoneOffset(metaData.timeZoneOffset()) //
             .name(fileData.name()) //
             .location(location) //
-            .internalLocation(localFile) //
+            .internalLocation(collectedFile.localFile()) //
+            .checksum(config.isChecksumPublished() ? collectedFile.checksum() : Optional.empty()) //
+            .contentDigest(collectedFile.contentDigest()) //
+            .fileSize(collectedFile.size()) //
             .compression(fileData.compression()) //
             .fileFormatType(fileData.fileFormatType()) //
             .fileFormatVersion(fileData.fileFormatVersion()) //
             .changeIdentifier(fileData.messageMetaData().changeIdentifier()) //
             .context(context) //
+            .config(config) //
             .build();
     }
 
-    protected SftpClient createSftpClient(FileData fileData) {
-        return new SftpClient(fileData.fileServerData(),
-            new SftpClientSettings(datafileAppConfig.getSftpConfiguration()));
+    protected SftpClient createSftpClient(FileData fileData, ConfigSnapshot config) {
+        return new SftpClient(fileData.fileServerData(), new SftpClientSettings(config.getSftpConfiguration()));
     }
 
-    protected FtpesClient createFtpesClient(FileData fileData) throws DatafileTaskException {
-        CertificateConfig config = datafileAppConfig.getCertificateConfiguration();
-        if (!config.enableCertAuth()) {
+    protected FtpesClient createFtpesClient(FileData fileData, ConfigSnapshot config) throws DatafileTaskException {
+        CertificateConfig certificateConfig = config.getCertificateConfiguration();
+        if (!certificateConfig.enableCertAuth()) {
             throw new DatafileTaskException("FTPES error: TLS connection is disabled");
         }
-        return new FtpesClient(fileData.fileServerData(), Paths.get(config.keyCert()), config.keyPasswordPath(),
-            Paths.get(config.trustedCa()), config.trustedCaPasswordPath());
+        return new FtpesClient(fileData.fileServerData(), Paths.get(certificateConfig.keyCert()),
+            certificateConfig.keyPasswordPath(), Paths.get(certificateConfig.trustedCa()),
+            certificateConfig.trustedCaPasswordPath(), config.getTlsProfile());
     }
 
-    protected FileCollectClient createHttpClient(FileData fileData) {
+    protected ReactiveFileCollectClient createHttpClient(FileData fileData) {
         return new DfcHttpClient(fileData.fileServerData());
     }
 
-    protected FileCollectClient createHttpsClient(FileData fileData) throws DatafileTaskException {
-        if (!datafileAppConfig.getCertificateConfiguration().enableCertAuth()) {
+    protected ReactiveFileCollectClient createHttpsClient(FileData fileData, ConfigSnapshot config)
+        throws DatafileTaskException {
+        if (!config.getCertificateConfiguration().enableCertAuth()) {
             throw new DatafileTaskException("HTTPS error: TLS connection is disabled");
         }
-        return new DfcHttpsClient(fileData.fileServerData(), HttpsClientConnectionManagerUtil.instance());
+        return new DfcReactiveHttpsClient(fileData.fileServerData(), HttpsClientConnectionManagerUtil.nettySslContext(),
+            HttpsClientConnectionManagerUtil.isHostnameVerificationEnabled());
     }
 }
@@ -40,7 +40,6 @@ import org.onap.dcaegen2.collectors.datafile.model.logging.MappedDiagnosticConte
 import org.onap.dcaegen2.collectors.datafile.service.producer.DmaapProducerHttpClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.slf4j.MDC;
 
 /**
  * Bean used to check with DataRouter if a file has been published.
@@ -74,13 +73,12 @@ public class PublishedChecker {
      */
     public boolean isFilePublished(String fileName, String changeIdentifier, Map<String, String> contextMap)
         throws DatafileTaskException {
-        MDC.setContextMap(contextMap);
         PublisherConfiguration publisherConfig = resolveConfiguration(changeIdentifier);
 
         DmaapProducerHttpClient producerClient = resolveClient(publisherConfig);
 
         HttpGet getRequest = new HttpGet();
-        MappedDiagnosticContext.appendTraceInfo(getRequest);
+        MappedDiagnosticContext.withContext(contextMap, () -> MappedDiagnosticContext.appendTraceInfo(getRequest));
 
         try {
             getRequest.setURI(getPublishedQueryUri(fileName, publisherConfig));
@@ -89,7 +87,7 @@ public class PublishedChecker {
             HttpResponse response =
                 producerClient.getDmaapProducerResponseWithCustomTimeout(getRequest, WEB_CLIENT_TIMEOUT, contextMap);
 
-            logger.trace("{}", response);
+            MappedDiagnosticContext.withContext(contextMap, () -> logger.trace("{}", response));
             int status = response.getStatusLine().getStatusCode();
             HttpEntity entity = response.getEntity();
             try (InputStream content = entity.getContent()) {
@@ -97,7 +95,8 @@ public class PublishedChecker {
                 return HttpStatus.SC_OK == status && !"[]".equals(body);
             }
         } catch (Exception e) {
-            logger.warn("Unable to check if file has been published, file: {}", fileName, e);
+            MappedDiagnosticContext.withContext(contextMap,
+                () -> logger.warn("Unable to check if file has been published, file: {}", fileName, e));
             return false;
         }
     }
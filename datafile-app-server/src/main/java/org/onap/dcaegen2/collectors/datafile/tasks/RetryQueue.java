@@ -0,0 +1,234 @@
+/*-
+ * ============LICENSE_START======================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * ============LICENSE_END========================================================================
+ */
+
+
+package org.onap.dcaegen2.collectors.datafile.tasks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * A queue of delayed retries, implemented as a hashed timer wheel. A failed attempt is parked here during its backoff
+ * instead of occupying a worker, and is handed back to the worker scheduler when it is due.
+ *
+ * <p>
+ * The number of parked retries is limited by a retry budget, which is separate from the number of workers. When the
+ * budget is used up, further retries are refused and the caller has to give the file up.
+ */
+public class RetryQueue {
+
+    public static final int DEFAULT_MAX_PENDING_RETRIES = 1000;
+    static final Duration DEFAULT_TICK = Duration.ofMillis(100);
+    static final int DEFAULT_WHEEL_SIZE = 512;
+    private static final double JITTER_FACTOR = 0.5;
+    private static final int MAX_BACKOFF_EXPONENT = 16;
+
+    private static final Logger logger = LoggerFactory.getLogger(RetryQueue.class);
+
+    private static class Entry {
+        final Runnable task;
+        final Runnable onDropped;
+        final long deadlineTick;
+
+        Entry(Runnable task, Runnable onDropped, long deadlineTick) {
+            this.task = task;
+            this.onDropped = onDropped;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+
+    private final Consumer<Runnable> dispatcher;
+    private final long tickNanos;
+    private final int maxPendingRetries;
+    private final LongSupplier nanoClock;
+    private final long startNanos;
+    private final List<List<Entry>> wheel;
+    private final Queue<Entry> incoming = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingRetries = new AtomicInteger();
+    private long currentTick = 0;
+    // Read without the lock by schedule(), which only needs to take the lock when there is no ticker
+    private volatile ScheduledExecutorService ticker = null;
+
+    /**
+     * Creates a retry queue that dispatches due retries to the given scheduler.
+     *
+     * @param workers the scheduler that runs the retries.
+     * @param maxPendingRetries the retry budget, the maximum number of retries that can wait at the same time.
+     */
+    public RetryQueue(Scheduler workers, int maxPendingRetries) {
+        this(workers::schedule, DEFAULT_TICK, DEFAULT_WHEEL_SIZE, maxPendingRetries, System::nanoTime);
+    }
+
+    RetryQueue(Consumer<Runnable> dispatcher, Duration tick, int wheelSize, int maxPendingRetries,
+        LongSupplier nanoClock) {
+        this.dispatcher = dispatcher;
+        this.tickNanos = tick.toNanos();
+        this.maxPendingRetries = maxPendingRetries;
+        this.nanoClock = nanoClock;
+        this.startNanos = nanoClock.getAsLong();
+        this.wheel = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; ++i) {
+            wheel.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * Calculates an exponential backoff with jitter, in the same way as the reactor retry backoff.
+     *
+     * @param firstBackoff the backoff of the first retry.
+     * @param retry the number of retries done so far.
+     * @return the delay until the next attempt, +/- 50% of <code>firstBackoff * 2^retry</code>.
+     */
+    public static Duration backoff(Duration firstBackoff, int retry) {
+        long baseMillis = firstBackoff.toMillis() << Math.min(retry, MAX_BACKOFF_EXPONENT);
+        double jitter = JITTER_FACTOR * (2 * ThreadLocalRandom.current().nextDouble() - 1);
+        return Duration.ofMillis(baseMillis + (long) (baseMillis * jitter));
+    }
+
+    /**
+     * Parks a retry until it is due.
+     *
+     * @param task the retry to run.
+     * @param delay the time to wait before the retry is run.
+     * @return false if the retry budget is used up, in which case the retry is not scheduled.
+     */
+    public boolean schedule(Runnable task, Duration delay) {
+        return schedule(task, () -> {
+        }, delay);
+    }
+
+    /**
+     * Parks a retry until it is due.
+     *
+     * @param task the retry to run.
+     * @param onDropped run instead of the retry if the retry is dropped by {@link #clear()}.
+     * @param delay the time to wait before the retry is run.
+     * @return false if the retry budget is used up, in which case the retry is not scheduled.
+     */
+    public boolean schedule(Runnable task, Runnable onDropped, Duration delay) {
+        if (pendingRetries.incrementAndGet() > maxPendingRetries) {
+            pendingRetries.decrementAndGet();
+            return false;
+        }
+        long deadlineTick = (nanoClock.getAsLong() - startNanos + delay.toNanos() + tickNanos - 1) / tickNanos;
+        incoming.add(new Entry(task, onDropped, deadlineTick));
+        startTicker();
+        return true;
+    }
+
+    /**
+     * Gets the number of retries that are waiting to be run.
+     */
+    public int size() {
+        return pendingRetries.get();
+    }
+
+    /**
+     * Drops all parked retries and stops the ticker thread. A retry that is scheduled later starts a new ticker.
+     *
+     * @return the number of retries that were dropped.
+     */
+    public synchronized int clear() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+            ticker = null;
+        }
+        List<Entry> dropped = new ArrayList<>();
+        for (Entry entry = incoming.poll(); entry != null; entry = incoming.poll()) {
+            dropped.add(entry);
+        }
+        wheel.forEach(bucket -> {
+            dropped.addAll(bucket);
+            bucket.clear();
+        });
+        pendingRetries.addAndGet(-dropped.size());
+        dropped.forEach(entry -> drop(entry.onDropped));
+        return dropped.size();
+    }
+
+    private static void drop(Runnable onDropped) {
+        try {
+            onDropped.run();
+        } catch (Exception e) {
+            logger.error("Could not drop retry {}", e.toString());
+        }
+    }
+
+    /**
+     * Moves the wheel forward to the current time and dispatches all retries that are due.
+     */
+    synchronized void advance() {
+        long nowTick = (nanoClock.getAsLong() - startNanos) / tickNanos;
+        for (Entry entry = incoming.poll(); entry != null; entry = incoming.poll()) {
+            long tick = Math.max(entry.deadlineTick, currentTick);
+            wheel.get((int) (tick % wheel.size())).add(entry);
+        }
+        while (currentTick <= nowTick) {
+            expire(wheel.get((int) (currentTick % wheel.size())));
+            ++currentTick;
+        }
+    }
+
+    private void expire(List<Entry> bucket) {
+        for (Iterator<Entry> it = bucket.iterator(); it.hasNext();) {
+            Entry entry = it.next();
+            if (entry.deadlineTick <= currentTick) {
+                it.remove();
+                pendingRetries.decrementAndGet();
+                dispatch(entry.task);
+            }
+        }
+    }
+
+    private void dispatch(Runnable task) {
+        try {
+            dispatcher.accept(task);
+        } catch (Exception e) {
+            logger.error("Could not dispatch retry {}", e.toString());
+        }
+    }
+
+    private void startTicker() {
+        if (ticker != null) {
+            return;
+        }
+        synchronized (this) {
+            if (ticker == null) {
+                ScheduledExecutorService newTicker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "RetryQueueTicker");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                newTicker.scheduleAtFixedRate(this::advance, tickNanos, tickNanos, TimeUnit.NANOSECONDS);
+                ticker = newTicker;
+            }
+        }
+    }
+}
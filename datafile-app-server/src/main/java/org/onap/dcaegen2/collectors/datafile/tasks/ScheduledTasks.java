@@ -16,30 +16,54 @@
 
 package org.onap.dcaegen2.collectors.datafile.tasks;
 
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
+import org.onap.dcaegen2.collectors.datafile.commons.PartialTransfer;
+import org.onap.dcaegen2.collectors.datafile.commons.ReplicaPartitioner;
 import org.onap.dcaegen2.collectors.datafile.commons.Scheme;
 import org.onap.dcaegen2.collectors.datafile.configuration.AppConfig;
+import org.onap.dcaegen2.collectors.datafile.configuration.ConfigSnapshot;
+import org.onap.dcaegen2.collectors.datafile.configuration.ProcessingSettings;
+import org.onap.dcaegen2.collectors.datafile.exceptions.CircuitBreakerOpenException;
 import org.onap.dcaegen2.collectors.datafile.exceptions.DatafileTaskException;
+import org.onap.dcaegen2.collectors.datafile.exceptions.NonRetryableDatafileTaskException;
+import org.onap.dcaegen2.collectors.datafile.model.CircuitBreakers;
 import org.onap.dcaegen2.collectors.datafile.model.Counters;
+import org.onap.dcaegen2.collectors.datafile.model.DrainStatus;
 import org.onap.dcaegen2.collectors.datafile.model.FileData;
 import org.onap.dcaegen2.collectors.datafile.model.FilePublishInformation;
 import org.onap.dcaegen2.collectors.datafile.model.FileReadyMessage;
+import org.onap.dcaegen2.collectors.datafile.model.StageTimers;
+import org.onap.dcaegen2.collectors.datafile.model.StageTimers.Stage;
 import org.onap.dcaegen2.collectors.datafile.model.logging.MappedDiagnosticContext;
+import org.onap.dcaegen2.collectors.datafile.service.BundledFileIndex;
+import org.onap.dcaegen2.collectors.datafile.service.ContentDedupeIndex;
 import org.onap.dcaegen2.collectors.datafile.service.PublishedFileCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import reactor.core.Disposable;
+import reactor.core.Disposables;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
 import reactor.core.scheduler.Scheduler;
 import reactor.core.scheduler.Schedulers;
 
@@ -56,6 +80,7 @@ public class ScheduledTasks {
     private static final Duration DATA_ROUTER_INITIAL_RETRY_TIMEOUT = Duration.ofSeconds(2);
     private static final long FILE_TRANSFER_MAX_RETRIES = 3;
     private static final Duration FILE_TRANSFER_INITIAL_RETRY_TIMEOUT = Duration.ofSeconds(5);
+    private static final Duration DRAIN_POLL_INTERVAL = Duration.ofMillis(500);
 
     private static final Logger logger = LoggerFactory.getLogger(ScheduledTasks.class);
 
@@ -66,6 +91,18 @@ public class ScheduledTasks {
     private final Scheduler scheduler = Schedulers.newParallel("FileCollectorWorker", NUMBER_OF_WORKER_THREADS);
     PublishedFileCache publishedFilesCache = new PublishedFileCache();
     private Counters counters = new Counters();
+    private final CircuitBreakers circuitBreakers = new CircuitBreakers();
+    private final RetryQueue retryQueue = new RetryQueue(scheduler, RetryQueue.DEFAULT_MAX_PENDING_RETRIES);
+    // The subscriptions of the work in progress: the main tasks, the retries and the bundles
+    private volatile Disposable.Composite workInProgress = Disposables.composite();
+    final ContentDedupeIndex contentDedupeIndex;
+    final BundledFileIndex bundledFileIndex;
+    private final FileBundler fileBundler;
+    private final AtomicLong bundleSequenceNumber = new AtomicLong();
+    private volatile DrainStatus.State drainState = DrainStatus.State.RUNNING;
+    private volatile int numberOfDrainDeletedFiles = 0;
+    // The local files of the cancelled work, until the cancellation is finished
+    private final Queue<Path> cancelledTasks = new ConcurrentLinkedQueue<>();
 
     /**
      * Constructor for task registration in Datafile Workflow.
@@ -77,6 +114,9 @@ public class ScheduledTasks {
         this.applicationConfiguration = applicationConfiguration;
         this.currentNumberOfTasks = counters.getCurrentNumberOfTasks();
         this.currentNumberOfSubscriptions = counters.getCurrentNumberOfSubscriptions();
+        this.contentDedupeIndex = new ContentDedupeIndex();
+        this.bundledFileIndex = new BundledFileIndex();
+        this.fileBundler = new FileBundler(applicationConfiguration, scheduler, this::publishBundle);
     }
 
     /**
@@ -84,6 +124,10 @@ public class ScheduledTasks {
      */
     public void executeDatafileMainTask() {
         try {
+            if (drainState != DrainStatus.State.RUNNING) {
+                logger.info("Skipping consuming new files, drain state: {}", drainState);
+                return;
+            }
             if (getCurrentNumberOfTasks() > MAX_TASKS_FOR_POLLING || this.threadPoolQueueSize.get() > 0) {
                 logger.info(
                     "Skipping consuming new files; current number of tasks: {}, number of subscriptions: {}, "
@@ -97,50 +141,82 @@ public class ScheduledTasks {
                 return;
             }
 
-            currentNumberOfSubscriptions.incrementAndGet();
             Map<String, String> context = MappedDiagnosticContext.initializeTraceContext();
+            Flux<FilePublishInformation> mainTask = createMainTask(context);
+            currentNumberOfSubscriptions.incrementAndGet();
             logger.trace("Execution of tasks was registered");
-            createMainTask(context) //
-                .subscribe(ScheduledTasks::onSuccess, //
-                    throwable -> {
-                        onError(throwable, context);
-                        currentNumberOfSubscriptions.decrementAndGet();
-                    }, //
-                    () -> {
-                        onComplete(context);
-                        currentNumberOfSubscriptions.decrementAndGet();
-                    });
+            subscribeTracked(mainTask //
+                .doFinally(signal -> currentNumberOfSubscriptions.decrementAndGet()), //
+                throwable -> onError(throwable, context), //
+                () -> onComplete(context));
         } catch (Exception e) {
             logger.error("Unexpected exception: {}", e.toString(), e);
         }
     }
 
     Flux<FilePublishInformation> createMainTask(Map<String, String> context) {
+        ReplicaPartitioner partitioner = applicationConfiguration.getReplicaPartitioner();
+        // The events of this task that are counted in threadPoolQueueSize
+        AtomicInteger queuedEvents = new AtomicInteger();
         return fetchMoreFileReadyMessages() //
-            .doOnNext(fileReadyMessage -> threadPoolQueueSize.incrementAndGet()) //
+            .doOnNext(fileReadyMessage -> {
+                queuedEvents.incrementAndGet();
+                threadPoolQueueSize.incrementAndGet();
+            }) //
             .doOnNext(fileReadyMessage -> counters.incNoOfReceivedEvents()) //
             .parallel(NUMBER_OF_WORKER_THREADS) // Each FileReadyMessage in a separate thread
             .runOn(scheduler) //
-            .doOnNext(fileReadyMessage -> threadPoolQueueSize.decrementAndGet()) //
+            .doOnNext(fileReadyMessage -> {
+                if (queuedEvents.getAndUpdate(n -> n > 0 ? n - 1 : n) > 0) {
+                    threadPoolQueueSize.decrementAndGet();
+                }
+            }) //
             .flatMap(fileReadyMessage -> Flux.fromIterable(fileReadyMessage.files())) //
-            .flatMap(fileData -> createMdcContext(fileData, context)) //
+            .map(this::createFileContext) //
+            .filter(fileData -> isOwnedByThisReplica(fileData, partitioner)) //
             .filter(this::isFeedConfigured) //
-            .filter(this::shouldBePublished) //
-            .doOnNext(fileData -> currentNumberOfTasks.incrementAndGet()) //
-            .flatMap(this::fetchFile, false, 1, 1) //
-            .flatMap(this::publishToDataRouter, false, 1, 1) //
-            .doOnNext(publishInfo -> deleteFile(publishInfo.getInternalLocation(), publishInfo.getContext())) //
-            .doOnNext(publishInfo -> currentNumberOfTasks.decrementAndGet()) //
-            .sequential();
+            .flatMap(this::processFile, false, 1, 1) //
+            .sequential() //
+            .doFinally(signal -> {
+                if (signal == SignalType.CANCEL) {
+                    // The queued events are dropped
+                    threadPoolQueueSize.addAndGet(-queuedEvents.getAndSet(0));
+                }
+            }) //
+            .contextWrite(MappedDiagnosticContext.write(context));
+    }
+
+    /**
+     * Collects and publishes a file. The file is counted as a task from when it is admitted until it is done or
+     * handed over to a retry or a bundle. If this is cancelled, the file is counted down.
+     */
+    private Mono<FilePublishInformation> processFile(FileDataWithContext fileData) {
+        return Mono.defer(() -> {
+            if (!shouldBePublished(fileData)) {
+                return Mono.empty();
+            }
+            currentNumberOfTasks.incrementAndGet();
+            Path localFile = fileData.fileData.getLocalFilePath();
+            return fetchFile(fileData, 0) //
+                .flatMap(this::publishUnlessDuplicate) //
+                .doOnNext(this::deletePublishedFile) //
+                .doOnNext(publishInfo -> currentNumberOfTasks.decrementAndGet()) //
+                .doFinally(signal -> onCancel(signal, () -> cancelTask(localFile)));
+        });
     }
 
+    /**
+     * A file with its logging context and the configuration captured when it was admitted.
+     */
     private class FileDataWithContext {
         public final FileData fileData;
         public final Map<String, String> context;
+        public final ConfigSnapshot config;
 
-        public FileDataWithContext(FileData fileData, Map<String, String> context) {
+        public FileDataWithContext(FileData fileData, Map<String, String> context, ConfigSnapshot config) {
             this.fileData = fileData;
             this.context = context;
+            this.config = config;
         }
     }
 
@@ -148,7 +224,123 @@ public class ScheduledTasks {
      * called in regular intervals to remove out-dated cached information.
      */
     public void purgeCachedInformation(Instant now) {
+        ProcessingSettings settings = applicationConfiguration.getConfigSnapshot().getSettings();
         publishedFilesCache.purge(now);
+        contentDedupeIndex.purge(now, settings.getContentDedupeWindow());
+        bundledFileIndex.purge(now, settings.getBundledFilesRetention());
+        circuitBreakers.purge();
+    }
+
+    /**
+     * Stops consuming new files and waits for the files in progress to be published. Pending bundles are published
+     * without waiting for them to get full. If the deadline passes first, the work in progress is cancelled, the
+     * parked retries are dropped and then the remaining local files are deleted.
+     *
+     * @param deadline the maximum time to wait.
+     * @return the status when the drain is finished.
+     */
+    public Mono<DrainStatus> drain(Duration deadline) {
+        drainState = DrainStatus.State.DRAINING;
+        numberOfDrainDeletedFiles = 0;
+        logger.info("Draining, {}", getDrainStatus());
+        return Flux.interval(Duration.ZERO, DRAIN_POLL_INTERVAL) //
+            .doOnNext(tick -> fileBundler.flushAll()) //
+            .filter(tick -> isDrained()) //
+            .next() //
+            .map(tick -> finishDrain(DrainStatus.State.DRAINED)) //
+            .timeout(deadline, Mono.fromSupplier(() -> {
+                logger.warn("Drain deadline exceeded, cancelling the work in progress, {}", getDrainStatus());
+                numberOfDrainDeletedFiles = deleteCancelledFiles(cancelWorkInProgress());
+                return finishDrain(DrainStatus.State.DEADLINE_EXCEEDED);
+            }));
+    }
+
+    /**
+     * Cancels the work in progress, drops the parked retries and stops the retry queue. Called at shutdown, after the
+     * drain.
+     */
+    public void shutdown() {
+        List<Path> cancelledFiles = cancelWorkInProgress();
+        logger.info("Stopped the work in progress, cancelled {} files", cancelledFiles.size());
+    }
+
+    /**
+     * Cancels the main tasks, the retries and the bundles in progress, drops the pending bundles and the parked
+     * retries. Each cancelled file is counted down and removed from the published files cache.
+     *
+     * @return the local files of the cancelled work.
+     */
+    private List<Path> cancelWorkInProgress() {
+        Disposable.Composite tracked = workInProgress;
+        workInProgress = Disposables.composite();
+        tracked.dispose();
+        fileBundler.discardAll().forEach(file -> cancelTask(file.getInternalLocation()));
+        int numberOfDroppedRetries = retryQueue.clear();
+        logger.info("Dropped {} pending retries", numberOfDroppedRetries);
+        List<Path> cancelledFiles = new ArrayList<>();
+        for (Path file = cancelledTasks.poll(); file != null; file = cancelledTasks.poll()) {
+            cancelledFiles.add(file);
+        }
+        return cancelledFiles;
+    }
+
+    private static void onCancel(SignalType signal, Runnable cancelAction) {
+        if (signal == SignalType.CANCEL) {
+            cancelAction.run();
+        }
+    }
+
+    /**
+     * Counts down a file whose work is cancelled. It is removed from the published files cache, so that it is
+     * collected again if its event comes again.
+     */
+    private void cancelTask(Path localFile) {
+        publishedFilesCache.remove(localFile);
+        currentNumberOfTasks.decrementAndGet();
+        cancelledTasks.add(localFile);
+    }
+
+    /**
+     * Resumes consuming new files after a drain.
+     */
+    public void resumeIntake() {
+        drainState = DrainStatus.State.RUNNING;
+    }
+
+    public DrainStatus getDrainStatus() {
+        return new DrainStatus(drainState, getCurrentNumberOfTasks(), getCurrentNumberOfSubscriptions(),
+            getNumberOfPendingRetries(), fileBundler.getNumberOfPendingFiles(), numberOfDrainDeletedFiles);
+    }
+
+    private boolean isDrained() {
+        return getCurrentNumberOfTasks() == 0 && getCurrentNumberOfSubscriptions() == 0
+            && getThreadPoolQueueSize() == 0 && fileBundler.getNumberOfPendingFiles() == 0;
+    }
+
+    private DrainStatus finishDrain(DrainStatus.State state) {
+        drainState = state;
+        DrainStatus status = getDrainStatus();
+        logger.info("Drain finished, {}", status);
+        return status;
+    }
+
+    /**
+     * Deletes the local files of the cancelled work, partially collected files included. The records of the partial
+     * transfers and the other files in the directory are left.
+     */
+    private static int deleteCancelledFiles(List<Path> cancelledFiles) {
+        int numberOfDeletedFiles = 0;
+        for (Path file : cancelledFiles) {
+            try {
+                if (Files.deleteIfExists(file)) {
+                    logger.warn("Deleted unfinished file: {}", file);
+                    ++numberOfDeletedFiles;
+                }
+            } catch (IOException e) {
+                logger.warn("Could not delete unfinished file: {}, {}", file, e.toString());
+            }
+        }
+        return numberOfDeletedFiles;
     }
 
     protected PublishedChecker createPublishedChecker() {
@@ -159,21 +351,25 @@ public class ScheduledTasks {
         return this.counters;
     }
 
+    public CircuitBreakers getCircuitBreakers() {
+        return this.circuitBreakers;
+    }
+
     protected DMaaPMessageConsumer createConsumerTask() {
-        return new DMaaPMessageConsumer(this.applicationConfiguration);
+        return new DMaaPMessageConsumer(this.applicationConfiguration, counters.getStageTimers(),
+            this::getFreePollCapacity);
     }
 
     protected FileCollector createFileCollector() {
-        return new FileCollector(applicationConfiguration, counters);
+        return new FileCollector(counters, circuitBreakers);
     }
 
     protected DataRouterPublisher createDataRouterPublisher() {
-        return new DataRouterPublisher(applicationConfiguration, counters);
+        return new DataRouterPublisher(counters);
     }
 
     private static void onComplete(Map<String, String> contextMap) {
-        MDC.setContextMap(contextMap);
-        logger.trace("Datafile tasks have been completed");
+        MappedDiagnosticContext.withContext(contextMap, () -> logger.trace("Datafile tasks have been completed"));
     }
 
     int publishedFilesCacheSize() {
@@ -188,33 +384,56 @@ public class ScheduledTasks {
         return this.currentNumberOfSubscriptions.get();
     }
 
+    /**
+     * The number of messages that can be fetched without exceeding the limit for polling. Each message is assumed to
+     * hold one file.
+     */
+    int getFreePollCapacity() {
+        return Math.max(0, MAX_TASKS_FOR_POLLING - getCurrentNumberOfTasks() - getThreadPoolQueueSize());
+    }
+
     int getThreadPoolQueueSize() {
         return this.threadPoolQueueSize.get();
     }
 
+    int getNumberOfPendingRetries() {
+        return this.retryQueue.size();
+    }
+
     private static synchronized void onSuccess(FilePublishInformation publishInfo) {
-        MDC.setContextMap(publishInfo.getContext());
-        logger.info("Datafile file published {}", publishInfo.getInternalLocation());
+        MappedDiagnosticContext.withContext(publishInfo.getContext(), () -> logger.info("Datafile file published {}",
+            publishInfo.getInternalLocation()));
     }
 
     private static void onError(Throwable throwable, Map<String, String> context) {
-        MDC.setContextMap(context);
-        logger.error("Chain of tasks have been aborted due to errors in Datafile workflow {}", throwable.toString());
+        MappedDiagnosticContext.withContext(context, () -> logger.error(
+            "Chain of tasks have been aborted due to errors in Datafile workflow {}", throwable.toString()));
     }
 
-    private Mono<FileDataWithContext> createMdcContext(FileData fileData, Map<String, String> context) {
-        MDC.setContextMap(context);
-        context = MappedDiagnosticContext.setRequestId(fileData.name());
-        FileDataWithContext pair = new FileDataWithContext(fileData, context);
-        return Mono.just(pair);
+    private FileDataWithContext createFileContext(FileData fileData) {
+        return new FileDataWithContext(fileData, MappedDiagnosticContext.createFileContext(fileData.name()),
+            applicationConfiguration.getConfigSnapshot());
+    }
+
+    private boolean isOwnedByThisReplica(FileDataWithContext fileData, ReplicaPartitioner partitioner) {
+        String sourceName = fileData.fileData.sourceName();
+        if (partitioner.isOwnedByThisReplica(sourceName)) {
+            return true;
+        }
+        MappedDiagnosticContext.withContext(fileData.context, () -> logger.trace(
+            "xNF: {} is owned by replica {}, file ignored: {}", sourceName, partitioner.ownerOf(sourceName),
+            fileData.fileData.name()));
+        counters.incNoOfForeignFiles();
+        return false;
     }
 
     private boolean isFeedConfigured(FileDataWithContext fileData) {
-        if (applicationConfiguration.isFeedConfigured(fileData.fileData.messageMetaData().changeIdentifier())) {
+        if (fileData.config.isFeedConfigured(fileData.fileData.messageMetaData().changeIdentifier())) {
             return true;
         } else {
-            logger.info("No feed is configured for: {}, file ignored: {}",
-                fileData.fileData.messageMetaData().changeIdentifier(), fileData.fileData.name());
+            MappedDiagnosticContext.withContext(fileData.context, () -> logger.info(
+                "No feed is configured for: {}, file ignored: {}",
+                fileData.fileData.messageMetaData().changeIdentifier(), fileData.fileData.name()));
             return false;
         }
     }
@@ -223,39 +442,93 @@ public class ScheduledTasks {
         Path localFilePath = fileData.fileData.getLocalFilePath();
         boolean shouldBePublished = (publishedFilesCache.put(localFilePath) == null);
         if (shouldBePublished) {
-            shouldBePublished = checkIfFileIsNotPublishedInDataRouter(fileData);
+            shouldBePublished = !isPublishedInBundle(fileData) && checkIfFileIsNotPublishedInDataRouter(fileData);
         }
 
         if (!shouldBePublished) {
-            logger.debug("File: {} is being processed or was already published. Skipping.", fileData.fileData.name());
+            MappedDiagnosticContext.withContext(fileData.context, () -> logger.debug(
+                "File: {} is being processed or was already published. Skipping.", fileData.fileData.name()));
         }
         return shouldBePublished;
     }
 
+    /**
+     * A bundled file is published under the name of its bundle, so the DataRouter cannot tell if it is published. The
+     * index is not looked up when no feed is bundled.
+     */
+    private boolean isPublishedInBundle(FileDataWithContext fileData) {
+        return fileData.config.isBundlingConfigured()
+            && bundledFileIndex.contains(fileData.fileData.messageMetaData().changeIdentifier(),
+                fileData.fileData.name(), Instant.now(), fileData.config.getSettings().getBundledFilesRetention());
+    }
+
     private boolean checkIfFileIsNotPublishedInDataRouter(FileDataWithContext fileData) {
         boolean isNotPublished = true;
+        long startNanos = System.nanoTime();
         try {
             isNotPublished = !createPublishedChecker().isFilePublished(fileData.fileData.name(),
                     fileData.fileData.messageMetaData().changeIdentifier(), fileData.context);
         } catch (DatafileTaskException e) {
-            logger.error("Cannot check if a file {} is published", fileData.fileData.name(), e);
+            MappedDiagnosticContext.withContext(fileData.context, () -> logger.error(
+                "Cannot check if a file {} is published", fileData.fileData.name(), e));
         }
+        stageTimers().record(Stage.PUBLISHED_CHECK, fileData.fileData.scheme().name(),
+            fileData.fileData.messageMetaData().changeIdentifier(), startNanos);
         return isNotPublished;
     }
 
-    private Mono<FilePublishInformation> fetchFile(FileDataWithContext fileData) {
-        MDC.setContextMap(fileData.context);
-        return createFileCollector() //
-            .collectFile(fileData.fileData, FILE_TRANSFER_MAX_RETRIES, FILE_TRANSFER_INITIAL_RETRY_TIMEOUT,
-                fileData.context) //
-            .onErrorResume(exception -> handleFetchFileFailure(fileData));
+    /**
+     * Makes one attempt to fetch the file. A retry is parked in the retry queue, so the worker is not blocked during
+     * the backoff. When the retry is due, the rest of the chain is run in a separate subscription.
+     */
+    private Mono<FilePublishInformation> fetchFile(FileDataWithContext fileData, int retry) {
+        Mono<FilePublishInformation> collectedFile = createFileCollector() //
+            .collectFile(fileData.fileData, fileData.config, 0, Duration.ZERO, fileData.context);
+        return stageTimers() //
+            .time(Stage.FETCH, fileData.fileData.scheme().name(),
+                fileData.fileData.messageMetaData().changeIdentifier(), collectedFile) //
+            .onErrorResume(exception -> retryOrHandleFetchFileFailure(fileData, retry, exception));
+    }
+
+    private Mono<FilePublishInformation> retryOrHandleFetchFileFailure(FileDataWithContext fileData, int retry,
+        Throwable exception) {
+        if (exception instanceof CircuitBreakerOpenException) {
+            return deferFetchFile(fileData, retry, (CircuitBreakerOpenException) exception);
+        }
+        Path localFile = fileData.fileData.getLocalFilePath();
+        if (retry < FILE_TRANSFER_MAX_RETRIES && isRetryable(exception)
+            && scheduleRetry(() -> runRetry(fetchFile(fileData, retry + 1) //
+                .flatMap(this::publishUnlessDuplicate), localFile, //
+                error -> handleFetchFileFailure(fileData)), localFile, //
+                RetryQueue.backoff(FILE_TRANSFER_INITIAL_RETRY_TIMEOUT, retry))) {
+            return Mono.empty();
+        }
+        return handleFetchFileFailure(fileData);
+    }
+
+    /**
+     * Parks a file from a file server with an open circuit breaker until the breaker lets attempts through again. The
+     * file keeps the retries it has left. The number of deferred files is bounded by the retry budget.
+     */
+    private Mono<FilePublishInformation> deferFetchFile(FileDataWithContext fileData, int retry,
+        CircuitBreakerOpenException exception) {
+        // Spread out, so that the deferred files do not all come back at the same time
+        Duration delay = exception.getRetryAfter().plus(RetryQueue.backoff(FILE_TRANSFER_INITIAL_RETRY_TIMEOUT, 0));
+        Path localFile = fileData.fileData.getLocalFilePath();
+        if (scheduleRetry(() -> runRetry(fetchFile(fileData, retry) //
+            .flatMap(this::publishUnlessDuplicate), localFile, //
+            error -> handleFetchFileFailure(fileData)), localFile, delay)) {
+            return Mono.empty();
+        }
+        return handleFetchFileFailure(fileData);
     }
 
     private Mono<FilePublishInformation> handleFetchFileFailure(FileDataWithContext fileData) {
-        MDC.setContextMap(fileData.context);
         Path localFilePath = fileData.fileData.getLocalFilePath();
-        logger.error("File fetching failed, fileData {}", fileData.fileData);
+        MappedDiagnosticContext.withContext(fileData.context, () -> logger.error("File fetching failed, fileData {}",
+            fileData.fileData));
         deleteFile(localFilePath, fileData.context);
+        PartialTransfer.discard(localFilePath);
         publishedFilesCache.remove(localFilePath);
         currentNumberOfTasks.decrementAndGet();
         if (Scheme.isFtpScheme(fileData.fileData.scheme())) {
@@ -266,17 +539,205 @@ public class ScheduledTasks {
         return Mono.empty();
     }
 
-    private Mono<FilePublishInformation> publishToDataRouter(FilePublishInformation publishInfo) {
-        MDC.setContextMap(publishInfo.getContext());
+    private Mono<FilePublishInformation> publishUnlessDuplicate(FilePublishInformation publishInfo) {
+        if (isDuplicate(publishInfo)) {
+            return handleDuplicate(publishInfo);
+        }
+        if (publishInfo.getConfig().shouldBeBundled(publishInfo.getChangeIdentifier(), publishInfo.getFileSize())) {
+            fileBundler.add(publishInfo);
+            return Mono.empty();
+        }
+        return publishToDataRouter(publishInfo, 0);
+    }
+
+    /**
+     * Writes a bundle and publishes it in a separate subscription. The bundled files are done when the bundle is
+     * written, from then on the bundle is processed as one file.
+     */
+    private void publishBundle(String changeIdentifier, List<FilePublishInformation> files) {
+        AtomicReference<FilePublishInformation> writtenBundle = new AtomicReference<>();
+        runDetached(Mono.fromCallable(() -> {
+            FilePublishInformation bundle = writeBundle(changeIdentifier, files);
+            writtenBundle.set(bundle);
+            return bundle;
+        }).subscribeOn(scheduler) //
+            .onErrorResume(exception -> handleBundleFailure(files, exception)) //
+            .flatMap(bundle -> publishToDataRouter(bundle, 0)) //
+            .doOnNext(bundle -> registerBundledFiles(files)), //
+            "Publishing of bundle", () -> {
+                // Once written, the bundle is one task instead of the bundled files
+                FilePublishInformation bundle = writtenBundle.get();
+                if (bundle != null) {
+                    cancelTask(bundle.getInternalLocation());
+                } else {
+                    files.forEach(file -> cancelTask(file.getInternalLocation()));
+                }
+            });
+    }
 
-        return createDataRouterPublisher()
-            .publishFile(publishInfo, DATA_ROUTER_MAX_RETRIES, DATA_ROUTER_INITIAL_RETRY_TIMEOUT)
-            .onErrorResume(exception -> handlePublishFailure(publishInfo));
+    private void registerBundledFiles(List<FilePublishInformation> files) {
+        Instant now = Instant.now();
+        for (FilePublishInformation file : files) {
+            bundledFileIndex.add(file.getChangeIdentifier(), file.getName(), now,
+                file.getConfig().getSettings().getBundledFilesMaxEntries());
+            registerPublishedContent(file);
+        }
+    }
+
+    private FilePublishInformation writeBundle(String changeIdentifier, List<FilePublishInformation> files)
+        throws IOException {
+        Path bundleFile = Paths.get(FileData.DATAFILE_TMPDIR,
+            "bundle-" + System.currentTimeMillis() + "-" + bundleSequenceNumber.incrementAndGet() + ".zip");
+        Files.createDirectories(bundleFile.getParent());
+        FilePublishInformation bundle = FileBundleWriter.write(changeIdentifier, files, bundleFile);
+        MappedDiagnosticContext.withContext(bundle.getContext(), () -> logger.debug("Bundled {} files into {}",
+            files.size(), bundle.getName()));
+        for (FilePublishInformation file : files) {
+            deleteFile(file.getInternalLocation(), file.getContext());
+        }
+        currentNumberOfTasks.addAndGet(1 - files.size());
+        counters.incNoOfBundles(files.size());
+        return bundle;
+    }
+
+    private Mono<FilePublishInformation> handleBundleFailure(List<FilePublishInformation> files,
+        Throwable exception) {
+        for (FilePublishInformation file : files) {
+            MappedDiagnosticContext.withContext(file.getContext(), () -> logger.error("File bundling failed: {}, {}",
+                file, exception.toString()));
+            deleteFile(file.getInternalLocation(), file.getContext());
+            publishedFilesCache.remove(file.getInternalLocation());
+            currentNumberOfTasks.decrementAndGet();
+            counters.incNoOfFailedPublish();
+        }
+        return Mono.empty();
+    }
+
+    /**
+     * A file is a duplicate if a file with the same digest and size was recently published on the same feed. Only
+     * files that have a digest can be checked, the index is not used at all for the others.
+     */
+    private boolean isDuplicate(FilePublishInformation publishInfo) {
+        ProcessingSettings settings = publishInfo.getConfig().getSettings();
+        return publishInfo.getContentDigest().isPresent() && settings.isContentDedupeEnabled()
+            && contentDedupeIndex.contains(publishInfo.getChangeIdentifier(), publishInfo.getContentDigest().get(),
+                publishInfo.getFileSize(), Instant.now(), settings.getContentDedupeWindow());
+    }
+
+    /**
+     * Adds the content of a file to the deduplication index, once the file has been published.
+     */
+    private void registerPublishedContent(FilePublishInformation publishInfo) {
+        ProcessingSettings settings = publishInfo.getConfig().getSettings();
+        if (publishInfo.getContentDigest().isPresent() && settings.isContentDedupeEnabled()) {
+            contentDedupeIndex.add(publishInfo.getChangeIdentifier(), publishInfo.getContentDigest().get(),
+                publishInfo.getFileSize(), Instant.now(), settings.getContentDedupeWindow(),
+                settings.getContentDedupeMaxEntries());
+        }
+    }
+
+    private Mono<FilePublishInformation> handleDuplicate(FilePublishInformation publishInfo) {
+        MappedDiagnosticContext.withContext(publishInfo.getContext(), () -> logger.info(
+            "File: {} has the same content as a file recently published on feed {}. Skipping.", publishInfo.getName(),
+            publishInfo.getChangeIdentifier()));
+        deleteFile(publishInfo.getInternalLocation(), publishInfo.getContext());
+        currentNumberOfTasks.decrementAndGet();
+        counters.incNoOfDuplicateFiles(publishInfo.getFileSize());
+        return Mono.empty();
+    }
+
+    private Mono<FilePublishInformation> publishToDataRouter(FilePublishInformation publishInfo, int retry) {
+        Mono<FilePublishInformation> publishedFile = createDataRouterPublisher() //
+            .publishFile(publishInfo, 0, Duration.ZERO);
+        return stageTimers() //
+            .time(Stage.PUBLISH, StageTimers.schemeOf(publishInfo.getLocation()), publishInfo.getChangeIdentifier(),
+                publishedFile) //
+            .doOnNext(published -> registerPublishedContent(publishInfo)) //
+            .onErrorResume(exception -> retryOrHandlePublishFailure(publishInfo, retry, exception));
+    }
+
+    private Mono<FilePublishInformation> retryOrHandlePublishFailure(FilePublishInformation publishInfo, int retry,
+        Throwable exception) {
+        Path localFile = publishInfo.getInternalLocation();
+        if (retry < DATA_ROUTER_MAX_RETRIES && isRetryable(exception)
+            && scheduleRetry(() -> runRetry(publishToDataRouter(publishInfo, retry + 1), localFile,
+                error -> handlePublishFailure(publishInfo)), localFile, //
+                RetryQueue.backoff(DATA_ROUTER_INITIAL_RETRY_TIMEOUT, retry))) {
+            return Mono.empty();
+        }
+        return handlePublishFailure(publishInfo);
+    }
+
+    /**
+     * The collector and the publisher are invoked without retries of their own and report a failed attempt that is
+     * worth retrying as a {@link DatafileTaskException}. A {@link NonRetryableDatafileTaskException}, for instance for
+     * a missing file on the xNF, and unexpected errors are final.
+     */
+    static boolean isRetryable(Throwable exception) {
+        return exception instanceof DatafileTaskException && !(exception instanceof NonRetryableDatafileTaskException);
+    }
+
+    /**
+     * Parks a retry. If the retry is dropped, its file is counted down as cancelled.
+     */
+    private boolean scheduleRetry(Runnable retryTask, Path localFile, Duration delay) {
+        if (retryQueue.schedule(retryTask, () -> cancelTask(localFile), delay)) {
+            counters.incNoOfScheduledRetries();
+            return true;
+        }
+        counters.incNoOfRejectedRetries();
+        logger.warn("Retry budget used up, {} retries pending", retryQueue.size());
+        return false;
+    }
+
+    /**
+     * Runs a retry. The failures of the retry are handled within the task, an unexpected error gives the file up.
+     */
+    private void runRetry(Mono<FilePublishInformation> retryTask, Path localFile,
+        Function<Throwable, Mono<FilePublishInformation>> onUnexpectedError) {
+        runDetached(retryTask.onErrorResume(error -> {
+            logger.error("Retry of task failed {}", error.toString());
+            return onUnexpectedError.apply(error);
+        }), "Retry of task", () -> cancelTask(localFile));
+    }
+
+    /**
+     * Runs the rest of the chain for a file in a subscription of its own.
+     *
+     * @param cancelAction counts down the work if the subscription is cancelled.
+     */
+    private void runDetached(Mono<FilePublishInformation> task, String description, Runnable cancelAction) {
+        subscribeTracked(task //
+            .doOnNext(this::deletePublishedFile) //
+            .doOnNext(publishInfo -> currentNumberOfTasks.decrementAndGet()) //
+            .doFinally(signal -> onCancel(signal, cancelAction)) //
+            .flux(), //
+            throwable -> logger.error("{} failed {}", description, throwable.toString()), //
+            () -> {
+            });
+    }
+
+    /**
+     * Subscribes to work that is cancelled by {@link #cancelWorkInProgress()}. The subscription is forgotten when the
+     * work is done.
+     */
+    private void subscribeTracked(Flux<FilePublishInformation> work, Consumer<Throwable> errorConsumer,
+        Runnable completeConsumer) {
+        Disposable.Composite tracked = workInProgress;
+        Disposable.Swap subscription = Disposables.swap();
+        tracked.add(subscription); // If it is already cancelled, the subscription is cancelled at once
+        subscription.update(work //
+            .doFinally(signal -> tracked.remove(subscription)) //
+            .subscribe(ScheduledTasks::onSuccess, errorConsumer, completeConsumer));
+    }
+
+    int getNumberOfTrackedSubscriptions() {
+        return workInProgress.size();
     }
 
     private Mono<FilePublishInformation> handlePublishFailure(FilePublishInformation publishInfo) {
-        MDC.setContextMap(publishInfo.getContext());
-        logger.error("File publishing failed: {}", publishInfo);
+        MappedDiagnosticContext.withContext(publishInfo.getContext(), () -> logger.error("File publishing failed: {}",
+            publishInfo));
         Path internalFileName = publishInfo.getInternalLocation();
         deleteFile(internalFileName, publishInfo.getContext());
         publishedFilesCache.remove(internalFileName);
@@ -294,30 +755,35 @@ public class ScheduledTasks {
                 + "number of subscriptions: {}",
             getCurrentNumberOfTasks(), publishedFilesCache.size(), this.currentNumberOfSubscriptions.get());
 
-        Map<String, String> context = MDC.getCopyOfContextMap();
         try {
             return createConsumerTask() //
                 .getMessageRouterResponse() //
-                .onErrorResume(exception -> handleConsumeMessageFailure(exception, context));
+                .doOnEach(MappedDiagnosticContext.logOnError(exception -> logger
+                    .error("Polling for file ready message failed, exception: {}", exception.toString()))) //
+                .onErrorResume(exception -> Flux.empty());
         } catch (Exception e) {
             logger.error("Could not create message consumer task", e);
             return Flux.empty();
         }
     }
 
-    private Flux<FileReadyMessage> handleConsumeMessageFailure(Throwable exception, Map<String, String> context) {
-        MDC.setContextMap(context);
-        logger.error("Polling for file ready message failed, exception: {}", exception.toString());
-        return Flux.empty();
+    private void deletePublishedFile(FilePublishInformation publishInfo) {
+        long startNanos = System.nanoTime();
+        deleteFile(publishInfo.getInternalLocation(), publishInfo.getContext());
+        stageTimers().record(Stage.DELETE, StageTimers.schemeOf(publishInfo.getLocation()),
+            publishInfo.getChangeIdentifier(), startNanos);
+    }
+
+    private StageTimers stageTimers() {
+        return counters.getStageTimers();
     }
 
     private static void deleteFile(Path localFile, Map<String, String> context) {
-        MDC.setContextMap(context);
-        logger.trace("Deleting file: {}", localFile);
+        MappedDiagnosticContext.withContext(context, () -> logger.trace("Deleting file: {}", localFile));
         try {
             Files.delete(localFile);
         } catch (Exception e) {
-            logger.trace("Could not delete file: {}", localFile, e);
+            MappedDiagnosticContext.withContext(context, () -> logger.trace("Could not delete file: {}", localFile, e));
         }
     }
 }
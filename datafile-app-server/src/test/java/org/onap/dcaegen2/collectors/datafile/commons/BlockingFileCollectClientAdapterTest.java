@@ -0,0 +1,209 @@
+/*-
+ * ============LICENSE_START======================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * ============LICENSE_END========================================================================
+ */
+
+
+package org.onap.dcaegen2.collectors.datafile.commons;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.onap.dcaegen2.collectors.datafile.exceptions.DatafileTaskException;
+import org.onap.dcaegen2.collectors.datafile.exceptions.NonRetryableDatafileTaskException;
+import org.onap.dcaegen2.collectors.datafile.model.FileData;
+
+import reactor.test.StepVerifier;
+
+public class BlockingFileCollectClientAdapterTest {
+
+    private static final String REMOTE_FILE = "/rop/A20161224.1030-1045.bin.gz";
+    private static final String MODIFICATION_TIME = "20161224103000";
+
+    @TempDir
+    Path tempDir;
+
+    private final FileCollectClient clientMock = mock(FileCollectClient.class);
+    private final FileData fileDataMock = mock(FileData.class);
+    private Path localFile;
+    private BlockingFileCollectClientAdapter adapter;
+
+    @BeforeEach
+    public void setUp() {
+        localFile = tempDir.resolve("A20161224.1030-1045.bin.gz");
+        when(fileDataMock.remoteFilePath()).thenReturn(REMOTE_FILE);
+        when(fileDataMock.getLocalFilePath()).thenReturn(localFile);
+        adapter = new BlockingFileCollectClientAdapter(() -> clientMock);
+    }
+
+    @Test
+    public void collect_opensCollectsAndCloses() throws Exception {
+        doAnswer(invocation -> Files.write(localFile, new byte[] {1, 2, 3})).when(clientMock)
+            .collectFile(REMOTE_FILE, localFile);
+
+        StepVerifier.create(adapter.collect(fileDataMock, ContentDigest.none())) //
+            .assertNext(collectedFile -> {
+                assertEquals(localFile, collectedFile.localFile());
+                assertEquals(3, collectedFile.size());
+            }) //
+            .verifyComplete();
+
+        verify(clientMock).open();
+        verify(clientMock).collectFile(REMOTE_FILE, localFile);
+        verify(clientMock).close();
+    }
+
+    @Test
+    public void collect_partialLocalFileIsResumed() throws Exception {
+        Files.write(localFile, new byte[] {1, 2});
+        PartialTransfer.saveSequential(localFile, MODIFICATION_TIME);
+        when(clientMock.getRemoteModificationTime(REMOTE_FILE)).thenReturn(Optional.of(MODIFICATION_TIME));
+
+        StepVerifier.create(adapter.collect(fileDataMock, ContentDigest.none())) //
+            .expectNextCount(1) //
+            .verifyComplete();
+
+        verify(clientMock).collectFile(REMOTE_FILE, localFile, 2);
+        assertFalse(Files.exists(PartialTransfer.recordOf(localFile)));
+    }
+
+    @Test
+    public void collect_modifiedRemoteFileIsNotResumed() throws Exception {
+        Files.write(localFile, new byte[] {1, 2});
+        PartialTransfer.saveSequential(localFile, MODIFICATION_TIME);
+        when(clientMock.getRemoteModificationTime(REMOTE_FILE)).thenReturn(Optional.of("20161224104500"));
+        doAnswer(invocation -> Files.write(localFile, new byte[] {1, 2, 3})).when(clientMock)
+            .collectFile(REMOTE_FILE, localFile);
+
+        StepVerifier.create(adapter.collect(fileDataMock, ContentDigest.none())) //
+            .expectNextCount(1) //
+            .verifyComplete();
+
+        verify(clientMock).collectFile(REMOTE_FILE, localFile);
+        verify(clientMock, never()).collectFile(REMOTE_FILE, localFile, 2);
+    }
+
+    @Test
+    public void collect_remoteFileWithoutModificationTimeIsNotResumed() throws Exception {
+        Files.write(localFile, new byte[] {1, 2});
+        PartialTransfer.saveSequential(localFile, MODIFICATION_TIME);
+
+        StepVerifier.create(adapter.collect(fileDataMock, ContentDigest.none())) //
+            .expectNextCount(1) //
+            .verifyComplete();
+
+        verify(clientMock).collectFile(REMOTE_FILE, localFile);
+    }
+
+    @Test
+    public void collect_unrecordedLocalFileIsNotResumed() throws Exception {
+        // For instance left by a crash, it may have gaps
+        Files.write(localFile, new byte[] {1, 2});
+        doAnswer(invocation -> Files.write(localFile, new byte[] {1, 2, 3})).when(clientMock)
+            .collectFile(REMOTE_FILE, localFile);
+
+        StepVerifier.create(adapter.collect(fileDataMock, ContentDigest.none())) //
+            .expectNextCount(1) //
+            .verifyComplete();
+
+        verify(clientMock).collectFile(REMOTE_FILE, localFile);
+    }
+
+    @Test
+    public void collect_failedTransferIsRecordedForResume() throws Exception {
+        doAnswer(invocation -> {
+            Files.write(localFile, new byte[] {1, 2});
+            throw new DatafileTaskException("Connection reset");
+        }).when(clientMock).collectFile(REMOTE_FILE, localFile);
+
+        when(clientMock.getRemoteModificationTime(REMOTE_FILE)).thenReturn(Optional.of(MODIFICATION_TIME));
+
+        StepVerifier.create(adapter.collect(fileDataMock, ContentDigest.none())) //
+            .expectError(DatafileTaskException.class) //
+            .verify();
+
+        PartialTransfer partial = PartialTransfer.load(localFile);
+        assertEquals(2, partial.length());
+        assertEquals(Optional.of(MODIFICATION_TIME), partial.validator());
+    }
+
+    @Test
+    public void collect_withDigest_digestIsPassedToClient() throws Exception {
+        ContentDigest digest = ContentDigest.create(ContentDigest.Algorithm.CRC32C);
+
+        StepVerifier.create(adapter.collect(fileDataMock, digest)) //
+            .assertNext(collectedFile -> assertEquals(digest.getValue(), collectedFile.checksum())) //
+            .verifyComplete();
+
+        verify(clientMock).collectFile(REMOTE_FILE, localFile, 0, digest);
+    }
+
+    @Test
+    public void collect_failureIsPropagatedAndClientClosed() throws Exception {
+        doThrow(new NonRetryableDatafileTaskException("No such file")).when(clientMock).collectFile(REMOTE_FILE,
+            localFile);
+
+        StepVerifier.create(adapter.collect(fileDataMock, ContentDigest.none())) //
+            .expectError(NonRetryableDatafileTaskException.class) //
+            .verify();
+
+        verify(clientMock).close();
+    }
+
+    @Test
+    public void collect_clientCreationFailureIsPropagated() {
+        adapter = new BlockingFileCollectClientAdapter(() -> {
+            throw new DatafileTaskException("TLS connection is disabled");
+        });
+
+        StepVerifier.create(adapter.collect(fileDataMock, ContentDigest.none())) //
+            .expectErrorMessage("TLS connection is disabled") //
+            .verify();
+    }
+
+    @Test
+    public void timeout_closesClientToAbortTransfer() throws Exception {
+        CountDownLatch closed = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            closed.await();
+            return null;
+        }).when(clientMock).collectFile(REMOTE_FILE, localFile);
+        doAnswer(invocation -> {
+            closed.countDown();
+            return null;
+        }).when(clientMock).close();
+
+        StepVerifier.create(adapter.collect(fileDataMock, ContentDigest.none()).timeout(Duration.ofMillis(100))) //
+            .expectError(TimeoutException.class) //
+            .verify();
+
+        verify(clientMock, timeout(1000)).close();
+        assertEquals(0, closed.getCount());
+    }
+}
@@ -0,0 +1,135 @@
+/*-
+ * ============LICENSE_START======================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * ============LICENSE_END========================================================================
+ */
+
+
+package org.onap.dcaegen2.collectors.datafile.commons;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class CachingDnsResolverTest {
+
+    private static final String HOST = "xnf.example.com";
+    private static final Duration TTL = Duration.ofSeconds(60);
+    private static final Duration NEGATIVE_TTL = Duration.ofSeconds(5);
+
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicInteger numberOfLookups = new AtomicInteger();
+    private final List<Runnable> pendingLookups = new ArrayList<>();
+    private InetAddress[] addresses;
+    private boolean unknownHost = false;
+    private boolean deferLookups = false;
+    private CachingDnsResolver resolver;
+
+    @BeforeEach
+    public void setUp() throws UnknownHostException {
+        addresses = new InetAddress[] {InetAddress.getByAddress(HOST, new byte[] {10, 0, 0, 1})};
+        resolver = new CachingDnsResolver(this::lookup, TTL, NEGATIVE_TTL, 2, this::execute, clock::get);
+    }
+
+    private InetAddress[] lookup(String host) throws UnknownHostException {
+        numberOfLookups.incrementAndGet();
+        if (unknownHost) {
+            throw new UnknownHostException(host);
+        }
+        return addresses;
+    }
+
+    private void execute(Runnable runnable) {
+        if (deferLookups) {
+            pendingLookups.add(runnable);
+        } else {
+            runnable.run();
+        }
+    }
+
+    private void elapse(Duration duration) {
+        clock.addAndGet(duration.toNanos());
+    }
+
+    @Test
+    public void cachedUntilExpiry() throws UnknownHostException {
+        assertArrayEquals(addresses, resolver.resolve(HOST));
+        elapse(Duration.ofSeconds(30));
+        assertArrayEquals(addresses, resolver.resolve(HOST));
+        assertEquals(1, numberOfLookups.get());
+        assertEquals(1, resolver.getMisses());
+        assertEquals(1, resolver.getHits());
+
+        elapse(Duration.ofSeconds(31));
+        resolver.resolve(HOST);
+        assertEquals(2, numberOfLookups.get());
+        assertEquals(2, resolver.getMisses());
+    }
+
+    @Test
+    public void failuresAreCachedForAShorterTime() {
+        unknownHost = true;
+        assertThrows(UnknownHostException.class, () -> resolver.resolve(HOST));
+        assertThrows(UnknownHostException.class, () -> resolver.resolve(HOST));
+        assertEquals(1, numberOfLookups.get());
+        assertEquals(1, resolver.getFailures());
+
+        unknownHost = false;
+        elapse(NEGATIVE_TTL);
+        assertArrayEquals(addresses, resolver.resolve(HOST));
+        assertEquals(2, numberOfLookups.get());
+    }
+
+    @Test
+    public void refreshedAheadOfExpiry() throws UnknownHostException {
+        resolver.resolve(HOST);
+
+        deferLookups = true;
+        elapse(Duration.ofSeconds(50));
+        assertArrayEquals(addresses, resolver.resolve(HOST), "the cached addresses should be returned meanwhile");
+        resolver.resolve(HOST);
+        assertEquals(1, pendingLookups.size(), "only one refresh should be started");
+        assertEquals(1, resolver.getRefreshes());
+
+        pendingLookups.get(0).run();
+        elapse(Duration.ofSeconds(50));
+        resolver.resolve(HOST);
+        assertEquals(2, numberOfLookups.get());
+        assertEquals(1, resolver.getMisses(), "the refreshed entry should not have expired");
+    }
+
+    @Test
+    public void concurrentMissesShareOneLookup() {
+        deferLookups = true;
+        resolver.resolveAsync(HOST);
+        resolver.resolveAsync(HOST);
+        assertEquals(1, pendingLookups.size());
+    }
+
+    @Test
+    public void numberOfEntriesIsBounded() throws UnknownHostException {
+        resolver.resolve("host1");
+        resolver.resolve("host2");
+        resolver.resolve("host3");
+        assertEquals(2, resolver.size());
+    }
+}
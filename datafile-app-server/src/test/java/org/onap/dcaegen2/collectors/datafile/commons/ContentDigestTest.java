@@ -0,0 +1,139 @@
+/*-
+ * ============LICENSE_START======================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * ============LICENSE_END========================================================================
+ */
+
+
+package org.onap.dcaegen2.collectors.datafile.commons;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ContentDigestTest {
+
+    private static final byte[] CONTENT = "123456789".getBytes(StandardCharsets.US_ASCII);
+    private static final String SHA_256 = "sha-256:15e2b0d3c33891ebb0f1ef609ec419420c20e320ce94c65fbc8c3312448eb225";
+    private static final String CRC32C = "crc32c:e3069283";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void update_knownValues() {
+        ContentDigest sha256 = ContentDigest.create(ContentDigest.Algorithm.SHA_256);
+        sha256.update(CONTENT, 0, CONTENT.length);
+        assertEquals(Optional.of(SHA_256), sha256.getValue());
+
+        ContentDigest crc32c = ContentDigest.create(ContentDigest.Algorithm.CRC32C);
+        crc32c.update(ByteBuffer.wrap(CONTENT));
+        assertEquals(Optional.of(CRC32C), crc32c.getValue());
+        assertEquals(CONTENT.length, crc32c.length());
+    }
+
+    @Test
+    public void update_bufferPositionIsKept() {
+        ByteBuffer buffer = ByteBuffer.wrap(CONTENT);
+        ContentDigest.create(ContentDigest.Algorithm.SHA_256).update(buffer);
+        assertEquals(0, buffer.position());
+    }
+
+    @Test
+    public void wrappedStreams_hashWhatPassesThrough() throws Exception {
+        ContentDigest outDigest = ContentDigest.create(ContentDigest.Algorithm.SHA_256);
+        try (OutputStream out = outDigest.wrap(new ByteArrayOutputStream())) {
+            out.write(CONTENT[0]);
+            out.write(CONTENT, 1, CONTENT.length - 1);
+        }
+        assertEquals(Optional.of(SHA_256), outDigest.getValue());
+
+        ContentDigest inDigest = ContentDigest.create(ContentDigest.Algorithm.SHA_256);
+        try (InputStream in = inDigest.wrap(new ByteArrayInputStream(CONTENT))) {
+            in.transferTo(new ByteArrayOutputStream());
+        }
+        assertEquals(Optional.of(SHA_256), inDigest.getValue());
+    }
+
+    @Test
+    public void updateFrom_hashesOnlyTheRestOfTheFile() throws Exception {
+        Path file = tempDir.resolve("file");
+        Files.write(file, CONTENT);
+
+        ContentDigest digest = ContentDigest.create(ContentDigest.Algorithm.SHA_256);
+        digest.update(CONTENT, 0, 4);
+        digest.updateFrom(file);
+
+        assertEquals(Optional.of(SHA_256), digest.getValue());
+    }
+
+    @Test
+    public void reset_startsOver() {
+        ContentDigest digest = ContentDigest.create(ContentDigest.Algorithm.CRC32C);
+        digest.update(new byte[] {1, 2, 3}, 0, 3);
+        digest.reset();
+        digest.update(CONTENT, 0, CONTENT.length);
+
+        assertEquals(Optional.of(CRC32C), digest.getValue());
+    }
+
+    @Test
+    public void severalAlgorithms_computedInOnePass() {
+        ContentDigest digest = ContentDigest.create(ContentDigest.Algorithm.CRC32C, ContentDigest.Algorithm.SHA_256);
+        digest.update(CONTENT, 0, 4);
+        digest.update(ByteBuffer.wrap(CONTENT, 4, CONTENT.length - 4));
+
+        assertEquals(Optional.of(CRC32C), digest.getValue());
+        assertEquals(Optional.of(CRC32C), digest.getValue(ContentDigest.Algorithm.CRC32C));
+        assertEquals(Optional.of(SHA_256), digest.getValue(ContentDigest.Algorithm.SHA_256));
+        assertEquals(Optional.of(SHA_256), digest.getValue(ContentDigest.Algorithm.SHA_256));
+        assertEquals(CONTENT.length, digest.length());
+    }
+
+    @Test
+    public void sameCrc32cAndSize_sha256Differs() {
+        ContentDigest first = ContentDigest.create(ContentDigest.Algorithm.CRC32C, ContentDigest.Algorithm.SHA_256);
+        ContentDigest second = ContentDigest.create(ContentDigest.Algorithm.CRC32C, ContentDigest.Algorithm.SHA_256);
+        byte[] firstContent = "3wTtDxfWxU".getBytes(StandardCharsets.US_ASCII);
+        byte[] secondContent = "jUpglI3WPi".getBytes(StandardCharsets.US_ASCII);
+        first.update(firstContent, 0, firstContent.length);
+        second.update(secondContent, 0, secondContent.length);
+
+        assertEquals(Optional.of("crc32c:875e7efe"), first.getValue());
+        assertEquals(first.getValue(), second.getValue());
+        assertNotEquals(first.getValue(ContentDigest.Algorithm.SHA_256),
+            second.getValue(ContentDigest.Algorithm.SHA_256));
+    }
+
+    @Test
+    public void none_doesNothing() throws Exception {
+        ContentDigest digest = ContentDigest.create(ContentDigest.Algorithm.NONE, null);
+        digest.update(CONTENT, 0, CONTENT.length);
+        digest.updateFrom(tempDir.resolve("does-not-exist"));
+
+        assertFalse(digest.isEnabled());
+        assertEquals(0, digest.length());
+        assertEquals(Optional.empty(), digest.getValue());
+    }
+}
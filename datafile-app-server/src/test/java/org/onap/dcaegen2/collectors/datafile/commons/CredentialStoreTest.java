@@ -0,0 +1,94 @@
+/*-
+ * ============LICENSE_START======================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * ============LICENSE_END========================================================================
+ */
+
+
+package org.onap.dcaegen2.collectors.datafile.commons;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.net.ssl.TrustManagerFactory;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class CredentialStoreTest {
+
+    private static final Path TRUST_STORE = Paths.get("src/test/resources/trust.jks");
+    private static final Path TRUST_STORE_PASSWORD = Paths.get("src/test/resources/trust.pass");
+
+    @TempDir
+    Path directory;
+
+    private CredentialStore credentialStore;
+    private CredentialStore.Location location;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        Files.copy(TRUST_STORE, directory.resolve("trust.jks"));
+        Files.copy(TRUST_STORE_PASSWORD, directory.resolve("trust.pass"));
+        credentialStore = new CredentialStore(Duration.ofMillis(10));
+        location = CredentialStore.Location.of(directory.resolve("trust.jks"),
+            directory.resolve("trust.pass").toString(), "JKS", TrustManagerFactory.getDefaultAlgorithm());
+    }
+
+    @Test
+    public void whenTheStoreIsUsedAgain_itIsNotLoadedAgain() throws Exception {
+        TrustManagerFactory first = credentialStore.getTrustManagerFactory(location);
+        TrustManagerFactory second = credentialStore.getTrustManagerFactory(location);
+
+        assertSame(first, second);
+        assertEquals(1, credentialStore.getLoads());
+    }
+
+    @Test
+    public void whenTheStoreIsRotated_itIsLoadedAgainAndTheListenersAreCalled() throws Exception {
+        List<Path> rotatedDirectories = new CopyOnWriteArrayList<>();
+        credentialStore.addRotationListener(rotatedDirectories::add);
+        TrustManagerFactory before = credentialStore.getTrustManagerFactory(location);
+
+        Files.copy(TRUST_STORE, directory.resolve("trust.jks"), StandardCopyOption.REPLACE_EXISTING);
+
+        await().untilAsserted(() -> assertEquals(1, credentialStore.getRotations()));
+        assertEquals(List.of(directory.toAbsolutePath().normalize()), rotatedDirectories);
+        TrustManagerFactory after = credentialStore.getTrustManagerFactory(location);
+        assertNotSame(before, after);
+        assertEquals(2, credentialStore.getLoads());
+    }
+
+    @Test
+    public void whenTheStoreCannotBeLoaded_itIsTriedAgainOnNextUse() throws Exception {
+        CredentialStore.Location wrongPassword = CredentialStore.Location.of(directory.resolve("trust.jks"),
+            "src/test/resources/keystore.pass", "JKS", TrustManagerFactory.getDefaultAlgorithm());
+
+        assertThrows(IOException.class, () -> credentialStore.getTrustManagerFactory(wrongPassword));
+        assertThrows(IOException.class, () -> credentialStore.getTrustManagerFactory(wrongPassword));
+
+        assertEquals(2, credentialStore.getLoadFailures());
+        assertEquals(0, credentialStore.getLoads());
+    }
+}
@@ -0,0 +1,112 @@
+/*-
+ * ============LICENSE_START======================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * ============LICENSE_END========================================================================
+ */
+
+
+package org.onap.dcaegen2.collectors.datafile.commons;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.onap.dcaegen2.collectors.datafile.exceptions.DatafileTaskException;
+
+public class PartialTransferTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path localFile;
+
+    @BeforeEach
+    public void setUp() {
+        localFile = tempDir.resolve("A20161224.1030-1045.bin.gz");
+    }
+
+    @Test
+    public void load_unrecordedFileIsDeleted() throws Exception {
+        Files.write(localFile, new byte[] {1, 2, 3});
+
+        assertEquals(0, PartialTransfer.load(localFile).length());
+        assertFalse(Files.exists(localFile));
+    }
+
+    @Test
+    public void save_cutsFileAfterPrefixAndLoadResumesIt() throws Exception {
+        // A segment was written after a gap
+        Files.write(localFile, new byte[] {1, 2, 0, 0, 5, 6});
+
+        PartialTransfer.save(localFile, 2, 6, "\"etag\"");
+        assertArrayEquals(new byte[] {1, 2}, Files.readAllBytes(localFile));
+
+        PartialTransfer partial = PartialTransfer.load(localFile);
+        assertEquals(2, partial.length());
+        assertEquals(6, partial.remoteLength());
+        assertEquals("\"etag\"", partial.validator().get());
+        assertTrue(partial.isSameRemoteLength(6));
+        assertFalse(partial.isSameRemoteLength(7));
+        assertTrue(partial.isSameRemoteLength(PartialTransfer.UNKNOWN_LENGTH));
+    }
+
+    @Test
+    public void load_fileShorterThanRecordIsDeleted() throws Exception {
+        Files.write(localFile, new byte[] {1, 2, 3});
+        PartialTransfer.save(localFile, 3, PartialTransfer.UNKNOWN_LENGTH, null);
+        Files.write(localFile, new byte[] {1});
+
+        assertEquals(0, PartialTransfer.load(localFile).length());
+        assertFalse(Files.exists(localFile));
+        assertFalse(Files.exists(PartialTransfer.recordOf(localFile)));
+    }
+
+    @Test
+    public void save_nothingWrittenDiscardsFile() throws Exception {
+        Files.write(localFile, new byte[] {0, 0});
+
+        PartialTransfer.save(localFile, 0, 2, null);
+
+        assertFalse(Files.exists(localFile));
+        assertFalse(Files.exists(PartialTransfer.recordOf(localFile)));
+    }
+
+    @Test
+    public void completed_removesRecordOnly() throws Exception {
+        Files.write(localFile, new byte[] {1, 2});
+        PartialTransfer.saveSequential(localFile, null);
+
+        PartialTransfer.completed(localFile);
+
+        assertTrue(Files.exists(localFile));
+        assertFalse(Files.exists(PartialTransfer.recordOf(localFile)));
+    }
+
+    @Test
+    public void checkLength_wrongLengthDeletesFile() throws Exception {
+        Files.write(localFile, new byte[] {1, 2});
+        PartialTransfer.checkLength(localFile, 2);
+        PartialTransfer.checkLength(localFile, PartialTransfer.UNKNOWN_LENGTH);
+
+        assertThatThrownBy(() -> PartialTransfer.checkLength(localFile, 3)) //
+            .isInstanceOf(DatafileTaskException.class) //
+            .hasMessageContaining("expected 3");
+        assertFalse(Files.exists(localFile));
+    }
+}
@@ -0,0 +1,94 @@
+/*-
+ * ============LICENSE_START======================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * ============LICENSE_END========================================================================
+ */
+
+
+package org.onap.dcaegen2.collectors.datafile.commons;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalInt;
+
+import org.junit.jupiter.api.Test;
+
+public class ReplicaPartitionerTest {
+
+    private static final int NUMBER_OF_XNFS = 10000;
+
+    private static List<ReplicaPartitioner> replicas(int numberOfReplicas) {
+        List<ReplicaPartitioner> replicas = new ArrayList<>();
+        for (int i = 0; i < numberOfReplicas; ++i) {
+            replicas.add(ReplicaPartitioner.of(i, numberOfReplicas));
+        }
+        return replicas;
+    }
+
+    @Test
+    public void eachXnfIsOwnedByExactlyOneReplica() {
+        List<ReplicaPartitioner> replicas = replicas(3);
+        int[] numberOfOwnedXnfs = new int[3];
+        for (int xnf = 0; xnf < NUMBER_OF_XNFS; ++xnf) {
+            int numberOfOwners = 0;
+            for (ReplicaPartitioner replica : replicas) {
+                if (replica.isOwnedByThisReplica("pnf" + xnf)) {
+                    ++numberOfOwners;
+                    ++numberOfOwnedXnfs[replica.getOrdinal()];
+                }
+            }
+            assertEquals(1, numberOfOwners);
+        }
+        for (int owned : numberOfOwnedXnfs) {
+            assertTrue(Math.abs(owned - NUMBER_OF_XNFS / 3) < NUMBER_OF_XNFS / 20, "uneven partitioning: " + owned);
+        }
+    }
+
+    @Test
+    public void addingAReplicaOnlyMovesXnfsToIt() {
+        List<ReplicaPartitioner> before = replicas(3);
+        List<ReplicaPartitioner> after = replicas(4);
+        int moved = 0;
+        for (int xnf = 0; xnf < NUMBER_OF_XNFS; ++xnf) {
+            int ownerBefore = before.get(0).ownerOf("pnf" + xnf);
+            int ownerAfter = after.get(0).ownerOf("pnf" + xnf);
+            if (ownerBefore != ownerAfter) {
+                assertEquals(3, ownerAfter);
+                ++moved;
+            }
+        }
+        assertTrue(moved < NUMBER_OF_XNFS / 3, "too many xNFs moved: " + moved);
+    }
+
+    @Test
+    public void singleReplicaOwnsAll() {
+        assertFalse(ReplicaPartitioner.SINGLE_REPLICA.isPartitioned());
+        assertTrue(ReplicaPartitioner.SINGLE_REPLICA.isOwnedByThisReplica("pnf1"));
+    }
+
+    @Test
+    public void ordinalFromPodName() {
+        assertEquals(OptionalInt.of(2), ReplicaPartitioner.ordinalFromPodName("dcae-datafile-collector-2"));
+        assertEquals(OptionalInt.empty(), ReplicaPartitioner.ordinalFromPodName("dcae-datafile-collector"));
+        assertEquals(OptionalInt.empty(), ReplicaPartitioner.ordinalFromPodName(null));
+    }
+
+    @Test
+    public void invalidOrdinal_throws() {
+        assertThrows(IllegalArgumentException.class, () -> ReplicaPartitioner.of(3, 3));
+        assertThrows(IllegalArgumentException.class, () -> ReplicaPartitioner.of(-1, 3));
+    }
+}
@@ -0,0 +1,225 @@
+/*-
+ * ============LICENSE_START======================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * ============LICENSE_END========================================================================
+ */
+
+
+package org.onap.dcaegen2.collectors.datafile.commons;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.handler.ssl.OpenSsl;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.SslProvider;
+import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
+import io.netty.util.ReferenceCountUtil;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.KeyStore;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLSession;
+
+import org.junit.jupiter.api.Test;
+import org.onap.dcaegen2.collectors.datafile.commons.TlsHandshakeMetrics.Client;
+
+public class TlsHandshakeMetricsTest {
+
+    private static final long HANDSHAKE_START = 1_000_000L;
+    private static final String KEY_PATH = "src/test/resources/keystore.p12";
+    private static final String KEY_PASSWORD = "src/test/resources/keystore.pass";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final TlsHandshakeMetrics metrics = new TlsHandshakeMetrics();
+
+    @Test
+    public void sessionsCreatedBeforeTheHandshakeAreCountedAsResumed() {
+        metrics.record(Client.FTPES, sessionCreatedAt(HANDSHAKE_START + 5), HANDSHAKE_START);
+        metrics.record(Client.FTPES, sessionCreatedAt(HANDSHAKE_START - 60_000), HANDSHAKE_START);
+        metrics.record(Client.FTPES, sessionCreatedAt(HANDSHAKE_START - 1), HANDSHAKE_START);
+
+        assertEquals(1, metrics.getFullHandshakes(Client.FTPES));
+        assertEquals(2, metrics.getResumedHandshakes(Client.FTPES));
+        assertEquals(0, metrics.getFullHandshakes(Client.HTTPS));
+    }
+
+    @Test
+    public void theCountersAreTaggedByClientAndHandshake() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        metrics.bindTo(registry);
+        metrics.record(Client.HTTPS, sessionCreatedAt(HANDSHAKE_START), HANDSHAKE_START);
+
+        assertEquals(1.0, registry.get(TlsHandshakeMetrics.METRIC_NAME).tag("client", "https")
+            .tag("handshake", "full").functionCounter().count());
+        assertEquals(0.0, registry.get(TlsHandshakeMetrics.METRIC_NAME).tag("client", "https")
+            .tag("handshake", "resumed").functionCounter().count());
+    }
+
+    @Test
+    public void creationTimeInWholeSeconds_comparedInWholeSeconds() {
+        // OpenSSL truncates the creation time of a new session to the second
+        metrics.record(Client.HTTPS, sessionCreatedAt(2_000_000L), 2_000_700L);
+        metrics.record(Client.HTTPS, sessionCreatedAt(1_000_000L), 2_000_700L);
+
+        assertEquals(1, metrics.getFullHandshakes(Client.HTTPS));
+        assertEquals(1, metrics.getResumedHandshakes(Client.HTTPS));
+    }
+
+    @Test
+    public void jdkTls13_resumedHandshakeCounted() throws Exception {
+        SslContext server = serverContext(SslProvider.JDK);
+        SslContext client = clientContext(SslProvider.JDK, "TLSv1.3");
+
+        recordHandshake(client, server, "TLSv1.3");
+        awaitNextSecond();
+        recordHandshake(client, server, "TLSv1.3");
+
+        assertEquals(1, metrics.getFullHandshakes(Client.HTTPS));
+        assertEquals(1, metrics.getResumedHandshakes(Client.HTTPS));
+    }
+
+    @Test
+    public void jdkTls12_resumedHandshakeCounted() throws Exception {
+        SslContext server = serverContext(SslProvider.JDK);
+        SslContext client = clientContext(SslProvider.JDK, "TLSv1.2");
+
+        recordHandshake(client, server, "TLSv1.2");
+        awaitNextSecond();
+        recordHandshake(client, server, "TLSv1.2");
+
+        assertEquals(1, metrics.getFullHandshakes(Client.HTTPS));
+        assertEquals(1, metrics.getResumedHandshakes(Client.HTTPS));
+    }
+
+    @Test
+    public void openSslTls13_fullHandshakesNotCountedAsResumed() throws Exception {
+        assumeTrue(OpenSsl.isAvailable() && OpenSsl.isTlsv13Supported(), "OpenSSL with TLS 1.3 is not available");
+        SslContext server = serverContext(SslProvider.OPENSSL);
+
+        for (int i = 0; i < 3; ++i) {
+            // A new client context each time, so that there is no session to resume
+            awaitMidSecond();
+            recordHandshake(clientContext(SslProvider.OPENSSL, "TLSv1.3"), server, "TLSv1.3");
+        }
+
+        assertEquals(3, metrics.getFullHandshakes(Client.HTTPS));
+        assertEquals(0, metrics.getResumedHandshakes(Client.HTTPS));
+    }
+
+    private static SslContext serverContext(SslProvider provider) throws Exception {
+        char[] password = Files.readString(Paths.get(KEY_PASSWORD)).trim().toCharArray();
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        try (InputStream input = Files.newInputStream(Paths.get(KEY_PATH))) {
+            keyStore.load(input, password);
+        }
+        KeyManagerFactory keyManagerFactory = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        keyManagerFactory.init(keyStore, password);
+        return SslContextBuilder.forServer(keyManagerFactory).sslProvider(provider).build();
+    }
+
+    private static SslContext clientContext(SslProvider provider, String protocol) throws SSLException {
+        return SslContextBuilder.forClient() //
+            .sslProvider(provider) //
+            .trustManager(InsecureTrustManagerFactory.INSTANCE) //
+            .protocols(protocol) //
+            .build();
+    }
+
+    /**
+     * Makes a handshake between two engines in memory and records the session of the client.
+     */
+    private void recordHandshake(SslContext clientContext, SslContext serverContext, String protocol)
+        throws SSLException {
+        // The client sessions are cached per peer
+        SSLEngine client = clientContext.newEngine(ByteBufAllocator.DEFAULT, "localhost", 4433);
+        SSLEngine server = serverContext.newEngine(ByteBufAllocator.DEFAULT);
+        try {
+            long startMillis = System.currentTimeMillis();
+            handshake(client, server);
+            SSLSession session = client.getSession();
+            assertEquals(protocol, session.getProtocol());
+            metrics.record(Client.HTTPS, session, startMillis);
+        } finally {
+            ReferenceCountUtil.release(client);
+            ReferenceCountUtil.release(server);
+        }
+    }
+
+    private static void handshake(SSLEngine client, SSLEngine server) throws SSLException {
+        ByteBuffer toServer = ByteBuffer.allocate(BUFFER_SIZE);
+        ByteBuffer toClient = ByteBuffer.allocate(BUFFER_SIZE);
+        ByteBuffer applicationData = ByteBuffer.allocate(BUFFER_SIZE);
+        ByteBuffer empty = ByteBuffer.allocate(0);
+        client.beginHandshake();
+        server.beginHandshake();
+        // Some more rounds after the handshake, for the TLS 1.3 session tickets
+        for (int round = 0; round < 20; ++round) {
+            client.wrap(empty, toServer);
+            runDelegatedTasks(client);
+            toServer.flip();
+            server.unwrap(toServer, applicationData);
+            toServer.compact();
+            runDelegatedTasks(server);
+            server.wrap(empty, toClient);
+            runDelegatedTasks(server);
+            toClient.flip();
+            client.unwrap(toClient, applicationData);
+            toClient.compact();
+            runDelegatedTasks(client);
+        }
+    }
+
+    private static void runDelegatedTasks(SSLEngine engine) {
+        for (Runnable task = engine.getDelegatedTask(); task != null; task = engine.getDelegatedTask()) {
+            task.run();
+        }
+    }
+
+    /**
+     * Waits until the handshake can start well into a second, so that a creation time truncated to the second would
+     * be before the start.
+     */
+    private static void awaitMidSecond() throws InterruptedException {
+        while (System.currentTimeMillis() % 1000 < 300) {
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Waits until the next second, so that a resumed session is counted regardless of the precision of its creation
+     * time.
+     */
+    private static void awaitNextSecond() throws InterruptedException {
+        long second = System.currentTimeMillis() / 1000;
+        while (System.currentTimeMillis() / 1000 == second) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static SSLSession sessionCreatedAt(long creationTime) {
+        SSLSession session = mock(SSLSession.class);
+        when(session.getCreationTime()).thenReturn(creationTime);
+        return session;
+    }
+}
@@ -0,0 +1,73 @@
+/*-
+ * ============LICENSE_START======================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * ============LICENSE_END========================================================================
+ */
+
+
+package org.onap.dcaegen2.collectors.datafile.commons;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.List;
+
+import javax.net.ssl.SSLContext;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class TlsProfileTest {
+
+    private SSLContext sslContext;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        sslContext = SSLContext.getInstance("TLS");
+        sslContext.init(null, null, null);
+    }
+
+    @Test
+    public void whenNoCipherSuitesAreConfigured_theDefaultsAreUsed() {
+        assertNull(TlsProfile.DEFAULT.getCipherSuites(sslContext));
+        assertArrayEquals(new String[] {"TLSv1.3", "TLSv1.2"}, TlsProfile.DEFAULT.getProtocols());
+    }
+
+    @Test
+    public void unsupportedCipherSuitesAreLeftOut_andTheOrderIsKept() {
+        TlsProfile profile = new TlsProfile(List.of("TLSv1.2"),
+            List.of("TLS_ECDHE_RSA_WITH_AES_256_GCM_SHA384", "NO_SUCH_CIPHER_SUITE", "TLS_AES_128_GCM_SHA256"), 10,
+            Duration.ofMinutes(5));
+
+        assertArrayEquals(new String[] {"TLS_ECDHE_RSA_WITH_AES_256_GCM_SHA384", "TLS_AES_128_GCM_SHA256"},
+            profile.getCipherSuites(sslContext));
+    }
+
+    @Test
+    public void theSessionCacheIsConfigured() {
+        new TlsProfile(List.of("TLSv1.3"), List.of(), 10, Duration.ofMinutes(5)).configure(sslContext);
+
+        assertEquals(10, sslContext.getClientSessionContext().getSessionCacheSize());
+        assertEquals(300, sslContext.getClientSessionContext().getSessionTimeout());
+    }
+
+    @Test
+    public void withoutProtocols_theProfileIsRejected() {
+        List<String> noProtocols = List.of();
+        List<String> noCipherSuites = List.of();
+        Duration timeout = Duration.ofMinutes(5);
+        assertThrows(IllegalArgumentException.class,
+            () -> new TlsProfile(noProtocols, noCipherSuites, 10, timeout));
+    }
+}
@@ -31,6 +31,7 @@ import com.google.gson.JsonSyntaxException;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.onap.dcaegen2.collectors.datafile.commons.ContentDigest;
 import org.onap.dcaegen2.collectors.datafile.exceptions.DatafileTaskException;
 import org.onap.dcaegen2.collectors.datafile.model.logging.MappedDiagnosticContext;
 import org.onap.dcaegen2.collectors.datafile.utils.LoggingUtils;
@@ -49,6 +50,7 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.Map;
 import java.util.Properties;
 
@@ -144,6 +146,66 @@ class AppConfigTest {
         assertThat(certificateConfig).isNotNull();
     }
 
+    @Test
+    void whenTheConfigurationIsReloaded_capturedSnapshotIsUnchanged() throws IOException, DatafileTaskException {
+        assertThat(appConfigUnderTest.getConfigSnapshot().getPublishingConfigurations()).isNull();
+        assertThat(appConfigUnderTest.isFeedConfigured(CHANGE_IDENTIFIER)).isFalse();
+        doReturn(getCorrectJson(), getCorrectJsonTwoProducers()).when(appConfigUnderTest).createInputStream(any());
+
+        appConfigUnderTest.loadConfigurationFromFile();
+        ConfigSnapshot captured = appConfigUnderTest.getConfigSnapshot();
+        appConfigUnderTest.loadConfigurationFromFile();
+
+        assertThat(captured.isFeedConfigured("XX_FILES")).isFalse();
+        assertThat(appConfigUnderTest.isFeedConfigured("XX_FILES")).isTrue();
+        assertThat(captured.getPublisherConfiguration(CHANGE_IDENTIFIER).publishUrl())
+            .isEqualTo("https://localhost:3907/publish/1");
+        assertThat(appConfigUnderTest.getPublisherConfiguration(CHANGE_IDENTIFIER).publishUrl())
+            .isEqualTo("https://dmaap-dr-prov/publish/4");
+        assertThatThrownBy(() -> captured.getPublisherConfiguration("XX_FILES"))
+            .isInstanceOf(DatafileTaskException.class);
+    }
+
+    @Test
+    void whenTheSettingsAreChanged_capturedSnapshotIsUnchanged() throws IOException {
+        doReturn(getCorrectJson()).when(appConfigUnderTest).createInputStream(any());
+        appConfigUnderTest.loadConfigurationFromFile();
+        appConfigUnderTest.setBundleMaxSize(1000);
+        appConfigUnderTest.setBundleMaxFileSize(100);
+
+        ConfigSnapshot captured = appConfigUnderTest.getConfigSnapshot();
+        assertThat(appConfigUnderTest.getConfigSnapshot()).isSameAs(captured);
+        assertThat(captured.getCollectingDigestAlgorithm()).isEqualTo(ContentDigest.Algorithm.NONE);
+        assertThat(captured.isBundlingConfigured()).isTrue();
+
+        appConfigUnderTest.setContentDedupeWindow(Duration.ofHours(1));
+        appConfigUnderTest.setContentDedupeMaxEntries(10);
+        ConfigSnapshot current = appConfigUnderTest.getConfigSnapshot();
+
+        assertThat(current.getCollectingDigestAlgorithm()).isEqualTo(ContentDigest.Algorithm.SHA_256);
+        assertThat(current.isContentDedupeEnabled()).isTrue();
+        assertThat(current.getContentDedupeDigestAlgorithm()).isEqualTo(ContentDigest.Algorithm.SHA_256);
+        assertThat(captured.isContentDedupeEnabled()).isFalse();
+        assertThat(current.getSettings().getContentDedupeMaxEntries()).isEqualTo(10);
+        assertThat(current.getPublisherConfiguration(CHANGE_IDENTIFIER))
+            .isSameAs(captured.getPublisherConfiguration(CHANGE_IDENTIFIER));
+        assertThat(current.shouldBeBundled(CHANGE_IDENTIFIER, 101)).isFalse();
+    }
+
+    @Test
+    void whenTheConfigurationIsReloaded_unchangedSubscriberIsKept() throws IOException {
+        doReturn(getCorrectJson(), getCorrectJsonTwoProducers()).when(appConfigUnderTest).createInputStream(any());
+
+        appConfigUnderTest.loadConfigurationFromFile();
+        ConsumerConfiguration first = appConfigUnderTest.getDmaapConsumerConfiguration();
+        appConfigUnderTest.loadConfigurationFromFile();
+        ConsumerConfiguration second = appConfigUnderTest.getDmaapConsumerConfiguration();
+
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.getMessageRouterSubscriber()).isSameAs(first.getMessageRouterSubscriber());
+        assertTrue(appConfigUnderTest.isFeedConfigured("XX_FILES"));
+    }
+
     @Test
     void whenTheConfigurationFits_twoProducers() throws IOException, DatafileTaskException {
         // When
@@ -163,6 +225,43 @@ class AppConfigTest {
             .isEqualTo("feed01::publish_url");
     }
 
+    @Test
+    void whenSeveralReplicas_OrdinalTakenFromPodName() {
+        appConfigUnderTest.setReplicaCount(3);
+        appConfigUnderTest.systemEnvironment.setProperty("HOSTNAME", "dcae-datafile-collector-2");
+
+        assertThat(appConfigUnderTest.getReplicaPartitioner().getOrdinal()).isEqualTo(2);
+        assertThat(appConfigUnderTest.getReplicaPartitioner().getNumberOfReplicas()).isEqualTo(3);
+    }
+
+    @Test
+    void whenSeveralReplicasAndOrdinalUnknown_DoesNotStart() throws IOException {
+        doReturn(getCorrectJson()).when(appConfigUnderTest).createInputStream(any());
+        appConfigUnderTest.setReplicaCount(3);
+        appConfigUnderTest.systemEnvironment.setProperty("HOSTNAME", "dcae-datafile-collector");
+
+        assertThatThrownBy(() -> appConfigUnderTest.initialize()) //
+            .isInstanceOf(IllegalStateException.class) //
+            .hasMessageContaining("The ordinal of this replica is unknown");
+        verify(appConfigUnderTest, times(0)).loadConfigurationFromFile();
+    }
+
+    @Test
+    void whenOrdinalOutOfRange_DoesNotStart() {
+        appConfigUnderTest.setReplicaCount(3);
+        appConfigUnderTest.setReplicaOrdinal(3);
+
+        assertThatThrownBy(() -> appConfigUnderTest.initialize()) //
+            .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void whenOneReplica_OrdinalNotNeeded() {
+        appConfigUnderTest.setReplicaCount(1);
+
+        assertThat(appConfigUnderTest.getReplicaPartitioner().isPartitioned()).isFalse();
+    }
+
     @Test
     void whenFileIsNotExist_ThrowException() throws DatafileTaskException {
         // Given
@@ -25,8 +25,11 @@ import com.google.gson.JsonParser;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
 import org.junit.jupiter.api.Test;
 import org.onap.dcaegen2.collectors.datafile.exceptions.DatafileTaskException;
+import org.onap.dcaegen2.services.sdk.rest.services.dmaap.client.model.MessageRouterSubscribeRequest;
 
 class CloudConfigParserTest {
 
@@ -69,10 +72,41 @@ class CloudConfigParserTest {
         assertTrue(exception.getMessage().contains(EXPECTED_EXCEPTION_MESSAGE));
     }
 
+    @Test
+    public void shouldReadOneSubscribeRequestPerSourceTopic() throws IOException, DatafileTaskException {
+        JsonObject jsonObject = getJsonObject(CONFIG_NO_TLS_JSON);
+        JsonObject subscribes = jsonObject.getAsJsonObject("config").getAsJsonObject("streams_subscribes");
+        subscribes.add("other_subscriber", JsonParser.parseString("{\"type\": \"message_router\", "
+            + "\"dmaap_info\": {\"topic_url\": \"http://localhost:2222/events/OTHER_TOPIC\"}}"));
+
+        ConsumerConfiguration consumerConfiguration =
+            new CloudConfigParser(jsonObject, null).getConsumerConfiguration();
+
+        Map<String, MessageRouterSubscribeRequest> requests =
+            consumerConfiguration.getMessageRouterSubscribeRequests();
+        assertEquals(List.of("dmaap_subscriber", "other_subscriber"), List.copyOf(requests.keySet()));
+        assertEquals("http://localhost:2222/events/OTHER_TOPIC",
+            requests.get("other_subscriber").sourceDefinition().topicUrl());
+        assertEquals("C12", requests.get("other_subscriber").consumerId());
+        assertEquals(requests.get("dmaap_subscriber"), consumerConfiguration.getMessageRouterSubscribeRequest());
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenThereIsNoSourceTopic() throws IOException {
+        JsonObject jsonObject = getJsonObject(CONFIG_NO_TLS_JSON);
+        jsonObject.getAsJsonObject("config").add("streams_subscribes", new JsonObject());
+
+        CloudConfigParser parser = new CloudConfigParser(jsonObject, null);
+
+        assertThrows(DatafileTaskException.class, parser::getConsumerConfiguration);
+    }
+
     private CloudConfigParser getCloudConfigParser(String configPath) throws IOException {
-        String jsonStr = Files.readString(Path.of(configPath));
-        JsonObject jsonObject = JsonParser.parseString(jsonStr).getAsJsonObject();
+        return new CloudConfigParser(getJsonObject(configPath), null);
+    }
 
-        return new CloudConfigParser(jsonObject,null);
+    private JsonObject getJsonObject(String configPath) throws IOException {
+        String jsonStr = Files.readString(Path.of(configPath));
+        return JsonParser.parseString(jsonStr).getAsJsonObject();
     }
 }
@@ -0,0 +1,105 @@
+/*-
+ * ============LICENSE_START======================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * ============LICENSE_END========================================================================
+ */
+
+
+package org.onap.dcaegen2.collectors.datafile.configuration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.onap.dcaegen2.services.sdk.rest.services.dmaap.client.api.MessageRouterSubscriber;
+import org.onap.dcaegen2.services.sdk.rest.services.dmaap.client.model.MessageRouterSubscribeRequest;
+import org.onap.dcaegen2.services.sdk.rest.services.dmaap.client.model.config.MessageRouterSubscriberConfig;
+
+public class ConfigurationDiffTest {
+
+    private final MessageRouterSubscriberConfig subscriberConfig = mock(MessageRouterSubscriberConfig.class);
+    private final MessageRouterSubscriber subscriber = mock(MessageRouterSubscriber.class);
+    private final MessageRouterSubscribeRequest request = mock(MessageRouterSubscribeRequest.class);
+    private final ConsumerConfiguration consumer = new ConsumerConfiguration(subscriberConfig, subscriber, request);
+    private final CertificateConfig certificate = createCertificateConfig("dfc.jks");
+    private final SftpConfig sftp = new ImmutableSftpConfig.Builder() //
+        .strictHostKeyChecking(false) //
+        .knownHostsFilePath("N/A") //
+        .build();
+
+    @Test
+    public void firstConfiguration_everythingIsNew() {
+        ConfigurationDiff diff = ConfigurationDiff.between(ConfigSnapshot.EMPTY,
+            snapshot(consumer, Map.of("PM_MEAS_FILES", createPublisherConfig("PM_MEAS_FILES", "pwd")), certificate));
+
+        assertEquals(List.of("message router subscriber", "source topics [default]", "feed PM_MEAS_FILES added",
+            "xNF certificates", "sFTP settings"), diff.getChanges());
+    }
+
+    @Test
+    public void sameConfiguration_noChanges() {
+        ConfigurationDiff diff = ConfigurationDiff.between(
+            snapshot(consumer, Map.of("PM_MEAS_FILES", createPublisherConfig("PM_MEAS_FILES", "pwd")), certificate),
+            snapshot(new ConsumerConfiguration(subscriberConfig, subscriber, request),
+                Map.of("PM_MEAS_FILES", createPublisherConfig("PM_MEAS_FILES", "pwd")),
+                createCertificateConfig("dfc.jks")));
+
+        assertTrue(diff.isEmpty());
+        assertEquals("no changes", diff.toString());
+    }
+
+    @Test
+    public void changedParts_onlyThoseAreReported() {
+        ConfigurationDiff diff = ConfigurationDiff.between(
+            snapshot(consumer, Map.of("PM_MEAS_FILES", createPublisherConfig("PM_MEAS_FILES", "pwd"), //
+                "XX_FILES", createPublisherConfig("XX_FILES", "pwd")), certificate),
+            snapshot(consumer, Map.of("PM_MEAS_FILES", createPublisherConfig("PM_MEAS_FILES", "newPwd"), //
+                "YY_FILES", createPublisherConfig("YY_FILES", "pwd")), createCertificateConfig("new.jks")));
+
+        assertEquals(List.of("feed PM_MEAS_FILES changed", "feed XX_FILES removed", "feed YY_FILES added",
+            "xNF certificates"), diff.getChanges());
+    }
+
+    private ConfigSnapshot snapshot(ConsumerConfiguration consumerConfiguration,
+        Map<String, PublisherConfiguration> publishers, CertificateConfig certificateConfig) {
+        return new ConfigSnapshot(consumerConfiguration, publishers, certificateConfig, sftp);
+    }
+
+    private static PublisherConfiguration createPublisherConfig(String changeIdentifier, String password) {
+        return ImmutablePublisherConfiguration.builder() //
+            .publishUrl("https://localhost:3907/publish/1") //
+            .logUrl("https://localhost:3907/feedlog/1") //
+            .trustStorePath("trust.jks") //
+            .trustStorePasswordPath("trust.pass") //
+            .keyStorePath("cert.jks") //
+            .keyStorePasswordPath("jks.pass") //
+            .enableDmaapCertAuth(true) //
+            .changeIdentifier(changeIdentifier) //
+            .userName("CYE9fl40") //
+            .password(password) //
+            .build();
+    }
+
+    private static CertificateConfig createCertificateConfig(String keyCert) {
+        return new ImmutableCertificateConfig.Builder() //
+            .keyCert(keyCert) //
+            .keyPasswordPath("dfc.jks.pass") //
+            .trustedCa("cert.jks") //
+            .trustedCaPasswordPath("cert.jks.pass") //
+            .httpsHostnameVerify(true) //
+            .enableCertAuth(true) //
+            .build();
+    }
+}
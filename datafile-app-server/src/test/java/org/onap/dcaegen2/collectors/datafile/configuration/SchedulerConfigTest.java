@@ -27,6 +27,7 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
@@ -41,10 +42,12 @@ import java.util.concurrent.ScheduledFuture;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
+import org.onap.dcaegen2.collectors.datafile.model.DrainStatus;
 import org.onap.dcaegen2.collectors.datafile.tasks.ScheduledTasks;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.scheduling.TaskScheduler;
+import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 public class SchedulerConfigTest {
@@ -81,6 +84,27 @@ public class SchedulerConfigTest {
         assertEquals(0, scheduledFutureList.size());
     }
 
+    @Test
+    public void getResponseFromDrainingOfTasks_success() {
+        List<ScheduledFuture<?>> scheduledFutureList = new ArrayList<>();
+        ScheduledFuture<?> scheduledFutureMock = mock(ScheduledFuture.class);
+        scheduledFutureList.add(scheduledFutureMock);
+        SchedulerConfig.setScheduledFutureList(scheduledFutureList);
+
+        Duration drainTimeout = Duration.ofSeconds(10);
+        DrainStatus status = new DrainStatus(DrainStatus.State.DRAINED, 0, 0, 0, 0, 0);
+        doReturn(drainTimeout).when(appConfigurationMock).getDrainTimeout();
+        doReturn(Mono.just(status)).when(scheduledTasksMock).drain(drainTimeout);
+
+        StepVerifier.create(schedulerUnderTest.getResponseFromDrainingOfTasks())
+            .expectNext(new ResponseEntity<String>("Datafile Service has been drained, " + status, HttpStatus.OK)) //
+            .verifyComplete();
+
+        verify(scheduledFutureMock).cancel(false);
+        verify(scheduledTasksMock).drain(drainTimeout);
+        assertEquals(0, scheduledFutureList.size());
+    }
+
     @Test
     public void tryToStartTaskWhenNotStarted_success() {
         List<ScheduledFuture<?>> scheduledFutureList = new ArrayList<>();
@@ -106,6 +130,7 @@ public class SchedulerConfigTest {
         purgeCachedInformationCaptor.getValue().run();
         verify(scheduledTasksMock).purgeCachedInformation(any(Instant.class));
         verify(scheduledTasksMock).executeDatafileMainTask();
+        verify(scheduledTasksMock).resumeIntake();
         verifyNoMoreInteractions(scheduledTasksMock);
 
         verify(appConfigurationMock).initialize();
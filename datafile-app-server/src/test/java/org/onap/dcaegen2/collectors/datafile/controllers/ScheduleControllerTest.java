@@ -115,6 +115,22 @@ public class ScheduleControllerTest {
         assertFalse(StringUtils.isBlank(MDC.get(MdcVariables.INVOCATION_ID)));
     }
 
+    @Test
+    public void drainTaskSuccess() {
+        when(schedulerConfigMock.getResponseFromDrainingOfTasks()).thenReturn(
+            Mono.just(new ResponseEntity<>("Datafile Service has been drained, state: DRAINED", HttpStatus.OK)));
+
+        HttpHeaders httpHeaders = new HttpHeaders();
+
+        final ListAppender<ILoggingEvent> logAppender = LoggingUtils.getLogListAppender(ScheduleController.class);
+        Mono<ResponseEntity<String>> actualResponse = scheduleControllerUnderTest.drainTask(httpHeaders);
+
+        validateLogging(logAppender, "Drain request");
+
+        String body = actualResponse.block().getBody();
+        assertTrue(body.startsWith("Datafile Service has been drained"));
+    }
+
     private void validateLogging(ListAppender<ILoggingEvent> logAppender, String infoMessage) {
         assertEquals("ENTRY", logAppender.list.get(0).getMarker().getName());
         assertNotNull(logAppender.list.get(0).getMDCPropertyMap().get("InvocationID"));
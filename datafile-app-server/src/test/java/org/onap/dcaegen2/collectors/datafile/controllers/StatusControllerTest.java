@@ -30,12 +30,16 @@ import static org.mockito.Mockito.doReturn;
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.core.read.ListAppender;
 
+import java.util.List;
+
 import org.apache.commons.lang3.StringUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.onap.dcaegen2.collectors.datafile.model.CircuitBreakerSnapshot;
+import org.onap.dcaegen2.collectors.datafile.model.CircuitBreakers;
 import org.onap.dcaegen2.collectors.datafile.model.Counters;
 import org.onap.dcaegen2.collectors.datafile.tasks.ScheduledTasks;
 import org.onap.dcaegen2.collectors.datafile.utils.LoggingUtils;
@@ -77,6 +81,7 @@ public class StatusControllerTest {
     public void status() {
         Counters counters = new Counters();
         doReturn(counters).when(scheduledTasksMock).getCounters();
+        doReturn(new CircuitBreakers()).when(scheduledTasksMock).getCircuitBreakers();
 
         HttpHeaders httpHeaders = new HttpHeaders();
 
@@ -89,6 +94,17 @@ public class StatusControllerTest {
         assertFalse(StringUtils.isBlank(MDC.get(MdcVariables.INVOCATION_ID)));
     }
 
+    @Test
+    public void circuitBreakers() {
+        CircuitBreakers circuitBreakers = new CircuitBreakers();
+        doReturn(circuitBreakers).when(scheduledTasksMock).getCircuitBreakers();
+
+        Mono<ResponseEntity<List<CircuitBreakerSnapshot>>> result =
+            controllerUnderTest.circuitBreakers(new HttpHeaders());
+
+        assertTrue(result.block().getBody().isEmpty());
+    }
+
     private void validateLogging(ListAppender<ILoggingEvent> logAppender) {
         assertEquals("ENTRY", logAppender.list.get(0).getMarker().getName());
         assertNotNull(logAppender.list.get(0).getMDCPropertyMap().get("InvocationID"));
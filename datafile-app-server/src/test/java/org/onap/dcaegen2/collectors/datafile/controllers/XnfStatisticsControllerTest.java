@@ -0,0 +1,90 @@
+/*-
+ * ============LICENSE_START======================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * ============LICENSE_END========================================================================
+ */
+
+package org.onap.dcaegen2.collectors.datafile.controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doReturn;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.onap.dcaegen2.collectors.datafile.model.Counters;
+import org.onap.dcaegen2.collectors.datafile.model.XnfStatistics;
+import org.onap.dcaegen2.collectors.datafile.model.XnfTransferSnapshot;
+import org.onap.dcaegen2.collectors.datafile.tasks.ScheduledTasks;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+@ExtendWith(MockitoExtension.class)
+public class XnfStatisticsControllerTest {
+    @Mock
+    ScheduledTasks scheduledTasksMock;
+
+    XnfStatisticsController controllerUnderTest;
+    XnfStatistics statistics;
+
+    @BeforeEach
+    public void setup() {
+        Counters counters = new Counters();
+        doReturn(counters).when(scheduledTasksMock).getCounters();
+        statistics = counters.getXnfStatistics();
+        controllerUnderTest = new XnfStatisticsController(scheduledTasksMock);
+    }
+
+    @Test
+    public void xnfStatistics_pageReturned() {
+        statistics.fileFailed("pnf2");
+        statistics.fileFailed("pnf1");
+        statistics.fileFailed("pnf3");
+
+        ResponseEntity<List<XnfTransferSnapshot>> response =
+            controllerUnderTest.xnfStatistics(new HttpHeaders(), 1, 2).block();
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(1, response.getBody().size());
+        assertEquals("pnf3", response.getBody().get(0).getSourceName());
+    }
+
+    @Test
+    public void xnfStatistics_pageSizeCapped() {
+        for (int i = 0; i < XnfStatisticsController.MAX_PAGE_SIZE + 10; ++i) {
+            statistics.fileFailed("pnf" + i);
+        }
+
+        assertEquals(XnfStatisticsController.MAX_PAGE_SIZE,
+            controllerUnderTest.xnfStatistics(new HttpHeaders(), 0, Integer.MAX_VALUE).block().getBody().size());
+        assertEquals(XnfStatisticsController.MAX_PAGE_SIZE,
+            controllerUnderTest.mostFailing(new HttpHeaders(), Integer.MAX_VALUE).block().getBody().size());
+        assertTrue(controllerUnderTest.xnfStatistics(new HttpHeaders(), -1, -1).block().getBody().isEmpty());
+    }
+
+    @Test
+    public void slowestAndMostFailing_ordered() {
+        statistics.fileCollected("fast", 1, 1_000_000L);
+        statistics.fileCollected("slow", 1, 1_000_000_000L);
+        statistics.fileFailed("failing");
+
+        assertEquals("slow",
+            controllerUnderTest.slowest(new HttpHeaders(), 1).block().getBody().get(0).getSourceName());
+        assertEquals("failing",
+            controllerUnderTest.mostFailing(new HttpHeaders(), 1).block().getBody().get(0).getSourceName());
+    }
+}
@@ -17,6 +17,7 @@
 
 package org.onap.dcaegen2.collectors.datafile.ftp;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doReturn;
@@ -31,18 +32,23 @@ import static org.mockito.Mockito.when;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.net.InetAddress;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 
 import javax.net.ssl.KeyManager;
+import javax.net.ssl.SSLContext;
 import javax.net.ssl.TrustManager;
 
 import org.apache.commons.net.ftp.FTP;
 import org.apache.commons.net.ftp.FTPSClient;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatchers;
+import org.onap.dcaegen2.collectors.datafile.commons.CredentialStore;
 import org.onap.dcaegen2.collectors.datafile.commons.ImmutableFileServerData;
+import org.onap.dcaegen2.collectors.datafile.commons.TlsProfile;
 import org.springframework.http.HttpStatus;
 
 public class FtpesClientTest {
@@ -88,9 +94,8 @@ public class FtpesClientTest {
         when(ftpsClientMock.retrieveFile(ArgumentMatchers.eq(REMOTE_FILE_PATH),
             ArgumentMatchers.any(OutputStream.class))).thenReturn(true);
         verify(ftpsClientMock).setNeedClientAuth(true);
-        verify(ftpsClientMock).setKeyManager(keyManagerMock);
-        verify(ftpsClientMock).setTrustManager(trustManagerMock);
-        verify(ftpsClientMock).connect(XNF_ADDRESS, PORT);
+        verify(ftpsClientMock).setEnabledProtocols(TlsProfile.DEFAULT.getProtocols());
+        verify(ftpsClientMock).connect(InetAddress.getByName(XNF_ADDRESS), PORT);
         verify(ftpsClientMock).login(USERNAME, PASSWORD);
         verify(ftpsClientMock).getReplyCode();
         verify(ftpsClientMock, times(1)).enterLocalPassiveMode();
@@ -125,6 +130,39 @@ public class FtpesClientTest {
         verifyNoMoreInteractions(ftpsClientMock);
     }
 
+    @Test
+    public void getRemoteModificationTime_isTheMdtmReply() throws Exception {
+        doReturn("20161224103000").when(ftpsClientMock).getModificationTime(REMOTE_FILE_PATH);
+
+        assertThat(clientUnderTestSpy.getRemoteModificationTime(REMOTE_FILE_PATH)).contains("20161224103000");
+    }
+
+    @Test
+    public void getRemoteModificationTime_serverWithoutMdtm_isEmpty() throws Exception {
+        doReturn(null).when(ftpsClientMock).getModificationTime(REMOTE_FILE_PATH);
+
+        assertThat(clientUnderTestSpy.getRemoteModificationTime(REMOTE_FILE_PATH)).isEmpty();
+    }
+
+    @Test
+    public void open_contextOfTheConfiguredManagersIsUsed() throws Exception {
+        clientUnderTestSpy.realFtpsClient = null;
+        doReturn(keyManagerMock).when(clientUnderTestSpy).getKeyManager(Paths.get(FTP_KEY_PATH), FTP_KEY_PASSWORD);
+        doReturn(trustManagerMock).when(clientUnderTestSpy).getTrustManager(TRUSTED_CA_PATH, TRUSTED_CA_PASSWORD);
+        doReturn(ftpsClientMock).when(clientUnderTestSpy).createFtpsClient(any());
+        doReturn(true).when(ftpsClientMock).login(USERNAME, PASSWORD);
+        doReturn(HttpStatus.OK.value()).when(ftpsClientMock).getReplyCode();
+
+        clientUnderTestSpy.open();
+
+        ArgumentCaptor<SSLContext> sslContext = ArgumentCaptor.forClass(SSLContext.class);
+        verify(clientUnderTestSpy).createFtpsClient(sslContext.capture());
+        assertThat(sslContext.getValue())
+            .isSameAs(CredentialStore.getInstance().getSslContext(keyManagerMock, trustManagerMock));
+        verify(ftpsClientMock).setNeedClientAuth(true);
+        verify(ftpsClientMock).connect(InetAddress.getByName(XNF_ADDRESS), PORT);
+    }
+
     @Test
     public void collectFileFaultyOwnKey_shouldFail() throws Exception {
 
@@ -132,8 +170,6 @@ public class FtpesClientTest {
         assertThatThrownBy(() -> clientUnderTestSpy.open())
             .hasMessageContaining("Could not open connection: java.io.FileNotFoundException:");
 
-        verify(ftpsClientMock).setNeedClientAuth(true);
-
         doReturn(false).when(ftpsClientMock).isConnected();
         clientUnderTestSpy.close();
         verify(ftpsClientMock).isConnected();
@@ -171,9 +207,8 @@ public class FtpesClientTest {
         assertThatThrownBy(() -> clientUnderTestSpy.open()).hasMessage("Unable to log in to xNF. 127.0.0.1");
 
         verify(ftpsClientMock).setNeedClientAuth(true);
-        verify(ftpsClientMock).setKeyManager(keyManagerMock);
-        verify(ftpsClientMock).setTrustManager(trustManagerMock);
-        verify(ftpsClientMock).connect(XNF_ADDRESS, PORT);
+        verify(ftpsClientMock).setEnabledProtocols(TlsProfile.DEFAULT.getProtocols());
+        verify(ftpsClientMock).connect(InetAddress.getByName(XNF_ADDRESS), PORT);
         verify(ftpsClientMock).login(USERNAME, PASSWORD);
     }
 
@@ -189,9 +224,8 @@ public class FtpesClientTest {
             .hasMessage("Unable to connect to xNF. 127.0.0.1 xNF reply code: 503");
 
         verify(ftpsClientMock).setNeedClientAuth(true);
-        verify(ftpsClientMock).setKeyManager(keyManagerMock);
-        verify(ftpsClientMock).setTrustManager(trustManagerMock);
-        verify(ftpsClientMock).connect(XNF_ADDRESS, PORT);
+        verify(ftpsClientMock).setEnabledProtocols(TlsProfile.DEFAULT.getProtocols());
+        verify(ftpsClientMock).connect(InetAddress.getByName(XNF_ADDRESS), PORT);
         verify(ftpsClientMock).login(USERNAME, PASSWORD);
         verify(ftpsClientMock, times(2)).getReplyCode();
         verifyNoMoreInteractions(ftpsClientMock);
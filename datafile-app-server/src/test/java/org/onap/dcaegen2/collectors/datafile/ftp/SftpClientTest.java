@@ -18,11 +18,15 @@ package org.onap.dcaegen2.collectors.datafile.ftp;
 
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.notNull;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -32,13 +36,17 @@ import com.jcraft.jsch.ChannelSftp;
 import com.jcraft.jsch.JSch;
 import com.jcraft.jsch.JSchException;
 import com.jcraft.jsch.Session;
+import com.jcraft.jsch.SftpATTRS;
 import com.jcraft.jsch.SftpException;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Optional;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.onap.dcaegen2.collectors.datafile.commons.FileServerData;
@@ -65,6 +73,9 @@ public class SftpClientTest {
     @Mock
     private ChannelSftp channelMock;
 
+    @TempDir
+    Path tempDir;
+
     @Test
     public void openWithPort_success() throws Exception {
         FileServerData expectedFileServerData = ImmutableFileServerData.builder() //
@@ -85,6 +96,7 @@ public class SftpClientTest {
         verify(jschMock).getSession(USERNAME, HOST, SFTP_PORT);
         verify(sessionMock).setConfig("StrictHostKeyChecking", "no");
         verify(sessionMock).setPassword(PASSWORD);
+        verify(sessionMock).setSocketFactory(notNull());
         verify(sessionMock).connect();
         verify(sessionMock).openChannel("sftp");
         verifyNoMoreInteractions(sessionMock);
@@ -171,6 +183,70 @@ public class SftpClientTest {
         verifyNoMoreInteractions(channelMock);
     }
 
+    @SuppressWarnings("resource")
+    @Test
+    public void collectFileWithOffset_resumes() throws Exception {
+        SftpClient sftpClient = new SftpClient(createSampleFileServerData(), createSampleSftpClientSettings());
+        sftpClient.sftpChannel = channelMock;
+        SftpATTRS attrsMock = mock(SftpATTRS.class);
+        when(channelMock.stat("remote.xml")).thenReturn(attrsMock);
+        when(attrsMock.getSize()).thenReturn(100L);
+        Path localFile = tempDir.resolve("local.xml");
+        doAnswer(invocation -> Files.write(localFile, new byte[100])).when(channelMock).get("remote.xml",
+            localFile.toString(), null, ChannelSftp.RESUME);
+
+        sftpClient.collectFile("remote.xml", localFile, 40);
+
+        verify(channelMock).stat("remote.xml");
+        verify(channelMock).get("remote.xml", localFile.toString(), null, ChannelSftp.RESUME);
+        verifyNoMoreInteractions(channelMock);
+    }
+
+    @SuppressWarnings("resource")
+    @Test
+    public void collectFileWithOffset_resumedFileWithWrongLengthIsDeleted() throws Exception {
+        SftpClient sftpClient = new SftpClient(createSampleFileServerData(), createSampleSftpClientSettings());
+        sftpClient.sftpChannel = channelMock;
+        SftpATTRS attrsMock = mock(SftpATTRS.class);
+        when(channelMock.stat("remote.xml")).thenReturn(attrsMock);
+        when(attrsMock.getSize()).thenReturn(100L);
+        Path localFile = tempDir.resolve("local.xml");
+        Files.write(localFile, new byte[90]);
+
+        assertThatThrownBy(() -> sftpClient.collectFile("remote.xml", localFile, 40)) //
+            .isInstanceOf(DatafileTaskException.class) //
+            .hasMessageContaining("expected 100");
+        assertFalse(Files.exists(localFile));
+    }
+
+    @SuppressWarnings("resource")
+    @Test
+    public void collectFileWithOffsetPastRemoteSize_fetchesWholeFile() throws DatafileTaskException, SftpException {
+        SftpClient sftpClient = new SftpClient(createSampleFileServerData(), createSampleSftpClientSettings());
+        sftpClient.sftpChannel = channelMock;
+        SftpATTRS attrsMock = mock(SftpATTRS.class);
+        when(channelMock.stat("remote.xml")).thenReturn(attrsMock);
+        when(attrsMock.getSize()).thenReturn(100L);
+
+        sftpClient.collectFile("remote.xml", Paths.get("local.xml"), 100);
+
+        verify(channelMock).stat("remote.xml");
+        verify(channelMock).get("remote.xml", "local.xml");
+        verifyNoMoreInteractions(channelMock);
+    }
+
+    @SuppressWarnings("resource")
+    @Test
+    public void getRemoteModificationTime_isTheModificationTimeOfTheRemoteFile() throws Exception {
+        SftpClient sftpClient = new SftpClient(createSampleFileServerData(), createSampleSftpClientSettings());
+        sftpClient.sftpChannel = channelMock;
+        SftpATTRS attrsMock = mock(SftpATTRS.class);
+        when(channelMock.stat("remote.xml")).thenReturn(attrsMock);
+        when(attrsMock.getMTime()).thenReturn(1482575400);
+
+        assertEquals(Optional.of("1482575400"), sftpClient.getRemoteModificationTime("remote.xml"));
+    }
+
     @Test
     public void collectFile_throwsExceptionWithRetry() throws SftpException {
         FileServerData expectedFileServerData = ImmutableFileServerData.builder() //
@@ -230,6 +306,15 @@ public class SftpClientTest {
         verifyNoMoreInteractions(channelMock);
     }
 
+    private FileServerData createSampleFileServerData() {
+        return ImmutableFileServerData.builder() //
+            .serverAddress(HOST) //
+            .userId(USERNAME) //
+            .password(PASSWORD) //
+            .port(SFTP_PORT) //
+            .build();
+    }
+
     private SftpClientSettings createSampleSftpClientSettings() {
         return new SftpClientSettings(createSampleSftpConfigNoStrictHostChecking());
     }
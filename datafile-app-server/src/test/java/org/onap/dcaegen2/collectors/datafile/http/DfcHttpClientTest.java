@@ -19,26 +19,43 @@ import org.apache.hc.core5.net.URIBuilder;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.ArgumentMatchers;
-import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.onap.dcaegen2.collectors.datafile.commons.ContentDigest;
 import org.onap.dcaegen2.collectors.datafile.commons.ImmutableFileServerData;
+import org.onap.dcaegen2.collectors.datafile.commons.PartialTransfer;
 import org.onap.dcaegen2.collectors.datafile.exceptions.DatafileTaskException;
+import org.onap.dcaegen2.collectors.datafile.exceptions.NonRetryableDatafileTaskException;
+import org.onap.dcaegen2.collectors.datafile.model.FileData;
 import org.onap.dcaegen2.collectors.datafile.service.HttpUtils;
+import io.netty.handler.codec.http.HttpHeaderNames;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
 import reactor.netty.http.client.HttpClientConfig;
+import reactor.netty.http.server.HttpServer;
 
-import java.io.ByteArrayInputStream;
-import java.io.InputStream;
 import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -53,9 +70,13 @@ class DfcHttpClientTest {
     private static final int PORT = 80;
     private static final String JWT_PASSWORD = "thisIsThePassword";
     private static String ACCESS_TOKEN = "access_token";
+    private static final String ETAG = "\"new\"";
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d+)-(\\d+)");
 
-    @Mock
-    private Path pathMock;
+    private final List<String> receivedRanges = new CopyOnWriteArrayList<>();
+
+    @TempDir
+    Path tempDir;
 
     DfcHttpClient dfcHttpClientSpy;
 
@@ -89,40 +110,54 @@ class DfcHttpClientTest {
     @Test
     void collectFile_AllOk() throws Exception {
         String REMOTE_FILE = "any";
-        Flux<InputStream> fis = Flux.just(new ByteArrayInputStream("ReturnedString".getBytes()));
+        Flux<ByteBuffer> fis = Flux.just(ByteBuffer.wrap("Returned".getBytes()), ByteBuffer.wrap("String".getBytes()));
 
         dfcHttpClientSpy.open();
 
         when(dfcHttpClientSpy.getServerResponse(any())).thenReturn(fis);
-        doReturn(false).when(dfcHttpClientSpy).isDownloadFailed(any());
 
-        dfcHttpClientSpy.collectFile(REMOTE_FILE, pathMock);
+        Path localFile = tempDir.resolve("localFile");
+        dfcHttpClientSpy.collectFile(REMOTE_FILE, localFile);
         dfcHttpClientSpy.close();
 
         verify(dfcHttpClientSpy, times(1)).getServerResponse(REMOTE_FILE);
-        verify(dfcHttpClientSpy, times(1)).processDataFromServer(any(), any(), any());
-        verify(dfcHttpClientSpy, times(1)).isDownloadFailed(any());
+        assertEquals("ReturnedString", Files.readString(localFile));
     }
 
     @Test
     void collectFile_AllOkWithJWTToken() throws Exception {
         dfcHttpClientSpy = spy(new DfcHttpClient(fileServerDataWithJWTToken()));
         String REMOTE_FILE = "any";
-        Flux<InputStream> fis = Flux.just(new ByteArrayInputStream("ReturnedString".getBytes()));
+        Flux<ByteBuffer> fis = Flux.just(ByteBuffer.wrap("ReturnedString".getBytes()));
 
         dfcHttpClientSpy.open();
         HttpClientConfig config = dfcHttpClientSpy.client.configuration();
         assertEquals(HttpUtils.jwtAuthContent(JWT_PASSWORD), config.headers().get("Authorization"));
 
         when(dfcHttpClientSpy.getServerResponse(any())).thenReturn(fis);
-        doReturn(false).when(dfcHttpClientSpy).isDownloadFailed(any());
 
-        dfcHttpClientSpy.collectFile(REMOTE_FILE, pathMock);
+        Path localFile = tempDir.resolve("localFile");
+        dfcHttpClientSpy.collectFile(REMOTE_FILE, localFile);
         dfcHttpClientSpy.close();
 
         verify(dfcHttpClientSpy, times(1)).getServerResponse(ArgumentMatchers.eq(REMOTE_FILE));
-        verify(dfcHttpClientSpy, times(1)).processDataFromServer(any(), any(), any());
-        verify(dfcHttpClientSpy, times(1)).isDownloadFailed(any());
+        assertEquals("ReturnedString", Files.readString(localFile));
+    }
+
+    @Test
+    void collectFile_existingFileIsReplaced() throws Exception {
+        String REMOTE_FILE = "any";
+        Path localFile = tempDir.resolve("localFile");
+        Files.writeString(localFile, "An older and longer content");
+
+        dfcHttpClientSpy.open();
+
+        doReturn(Flux.just(ByteBuffer.wrap("ReturnedString".getBytes()))).when(dfcHttpClientSpy)
+            .getServerResponse(any());
+
+        dfcHttpClientSpy.collectFile(REMOTE_FILE, localFile);
+
+        assertEquals("ReturnedString", Files.readString(localFile));
     }
 
     @Test
@@ -135,13 +170,157 @@ class DfcHttpClientTest {
 
         doReturn(fis).when(dfcHttpClientSpy).getServerResponse(any());
 
-        assertThatThrownBy(() -> dfcHttpClientSpy.collectFile(REMOTE_FILE, pathMock))
+        assertThatThrownBy(() -> dfcHttpClientSpy.collectFile(REMOTE_FILE, tempDir.resolve("localFile")))
+            .isInstanceOf(DatafileTaskException.class)
             .hasMessageContaining(ERROR_RESPONSE);
         verify(dfcHttpClientSpy, times(1)).getServerResponse(REMOTE_FILE);
-        verify(dfcHttpClientSpy, times(1)).processFailedConnectionWithServer(any(), any());
         dfcHttpClientSpy.close();
     }
 
+    @Test
+    void collectFile_nonRetryableErrorIsKept() throws DatafileTaskException {
+        dfcHttpClientSpy.open();
+
+        doReturn(Flux.error(new NonRetryableDatafileTaskException("Not found"))).when(dfcHttpClientSpy)
+            .getServerResponse(any());
+
+        assertThatThrownBy(() -> dfcHttpClientSpy.collectFile("any", tempDir.resolve("localFile")))
+            .isInstanceOf(NonRetryableDatafileTaskException.class)
+            .hasMessage("Not found");
+    }
+
+    @Test
+    void collectFile_smallFile_noRangeIsRequested() throws Exception {
+        byte[] content = "ReturnedString".getBytes();
+        DisposableServer server = startFileServer(content, true);
+        try {
+            Path localFile = tempDir.resolve("localFile");
+            collectFile(server, localFile);
+
+            assertArrayEquals(content, Files.readAllBytes(localFile));
+            assertEquals(List.of(""), receivedRanges);
+        } finally {
+            server.disposeNow();
+        }
+    }
+
+    @Test
+    void collectFile_largeFile_remainderIsFetchedInSegments() throws Exception {
+        byte[] content = randomContent(SegmentedDownload.SEGMENTED_DOWNLOAD_THRESHOLD
+            + 2 * SegmentedDownload.MIN_SEGMENT_SIZE);
+        DisposableServer server = startFileServer(content, true);
+        try {
+            Path localFile = tempDir.resolve("localFile");
+            collectFile(server, localFile);
+
+            assertArrayEquals(content, Files.readAllBytes(localFile));
+            long first = SegmentedDownload.SEGMENTED_DOWNLOAD_THRESHOLD;
+            long last = first + SegmentedDownload.MIN_SEGMENT_SIZE - 1;
+            assertEquals("", receivedRanges.get(0));
+            assertThat(receivedRanges.subList(1, receivedRanges.size())).containsExactlyInAnyOrder(
+                SegmentedDownload.range(first, last), SegmentedDownload.range(last + 1, content.length - 1L));
+        } finally {
+            server.disposeNow();
+        }
+    }
+
+    @Test
+    void collectFile_serverIgnoresRanges_resumedTransferFetchesWholeFile() throws Exception {
+        byte[] content = randomContent(SegmentedDownload.SEGMENTED_DOWNLOAD_THRESHOLD
+            + SegmentedDownload.MIN_SEGMENT_SIZE);
+        DisposableServer server = startFileServer(content, false);
+        try {
+            Path localFile = tempDir.resolve("localFile");
+            assertThatThrownBy(() -> collectFile(server, localFile)).isInstanceOf(DatafileTaskException.class)
+                .hasMessageContaining("Unexpected response for file segment");
+
+            DfcHttpClient client = new DfcHttpClient(fileServerData(server));
+            client.open();
+            client.collectFile("any", localFile, Files.size(localFile));
+            client.close();
+
+            assertArrayEquals(content, Files.readAllBytes(localFile));
+            assertEquals(4, receivedRanges.size());
+            assertEquals("", receivedRanges.get(3));
+        } finally {
+            server.disposeNow();
+        }
+    }
+
+    @Test
+    void collect_remoteFileChanged_ifRangeFetchesWholeFile() throws Exception {
+        byte[] content = "ReturnedString".getBytes();
+        DisposableServer server = startFileServer(content, true);
+        try {
+            Path localFile = tempDir.resolve("localFile");
+            Files.writeString(localFile, "Old");
+            PartialTransfer.save(localFile, 3, content.length, "\"old\"");
+            FileData fileData = mock(FileData.class);
+            when(fileData.remoteFilePath()).thenReturn("any");
+            when(fileData.getLocalFilePath()).thenReturn(localFile);
+
+            DfcHttpClient client = new DfcHttpClient(fileServerData(server));
+            client.collect(fileData, ContentDigest.none()).block();
+            client.close();
+
+            assertArrayEquals(content, Files.readAllBytes(localFile));
+            assertEquals(List.of("bytes=3-" + (SegmentedDownload.SEGMENTED_DOWNLOAD_THRESHOLD + 2), ""),
+                receivedRanges);
+        } finally {
+            server.disposeNow();
+        }
+    }
+
+    /**
+     * Starts a server that serves the content for any path. It sends the ranges that are asked for if it supports
+     * ranges, and the remote file has not changed since the ETag in If-Range.
+     */
+    private DisposableServer startFileServer(byte[] content, boolean supportsRanges) {
+        return HttpServer.create().port(0)
+            .handle((request, response) -> {
+                String range = request.requestHeaders().get(HttpHeaderNames.RANGE);
+                String ifRange = request.requestHeaders().get(HttpHeaderNames.IF_RANGE);
+                receivedRanges.add(range == null ? "" : range);
+                Matcher matcher = RANGE.matcher(range == null ? "" : range);
+                response.header(HttpHeaderNames.ACCEPT_RANGES, "bytes").header(HttpHeaderNames.ETAG, ETAG);
+                if (!supportsRanges || !matcher.matches() || (ifRange != null && !ifRange.equals(ETAG))) {
+                    return response.header(HttpHeaderNames.CONTENT_LENGTH, String.valueOf(content.length))
+                        .sendByteArray(Mono.just(content));
+                }
+                int first = Integer.parseInt(matcher.group(1));
+                int last = Math.min(Integer.parseInt(matcher.group(2)), content.length - 1);
+                return response.status(SegmentedDownload.PARTIAL_CONTENT)
+                    .header(HttpHeaderNames.CONTENT_RANGE, "bytes " + first + "-" + last + "/" + content.length)
+                    .header(HttpHeaderNames.CONTENT_LENGTH, String.valueOf(last - first + 1))
+                    .sendByteArray(Mono.just(Arrays.copyOfRange(content, first, last + 1)));
+            })
+            .bindNow();
+    }
+
+    private void collectFile(DisposableServer server, Path localFile) throws DatafileTaskException {
+        DfcHttpClient client = new DfcHttpClient(fileServerData(server));
+        client.open();
+        try {
+            client.collectFile("any", localFile);
+        } finally {
+            client.close();
+        }
+    }
+
+    private static ImmutableFileServerData fileServerData(DisposableServer server) {
+        return ImmutableFileServerData.builder()
+            .serverAddress(XNF_ADDRESS)
+            .userId(USERNAME).password(PASSWORD)
+            .port(server.port())
+            .build();
+    }
+
+    private static byte[] randomContent(long length) {
+        byte[] content = new byte[(int) length];
+        new Random(4711).nextBytes(content);
+        return content;
+    }
+
     @Test
     void isResponseOk_validateResponse() {
         assertTrue(dfcHttpClientSpy.isResponseOk(HttpClientResponseHelper.NETTY_RESPONSE_OK));
@@ -0,0 +1,252 @@
+/*-
+ * ============LICENSE_START======================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * ============LICENSE_END========================================================================
+ */
+
+package org.onap.dcaegen2.collectors.datafile.http;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.netty.channel.ChannelOption;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.KeyStore;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.TrustManagerFactory;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.onap.dcaegen2.collectors.datafile.commons.ImmutableFileServerData;
+import org.onap.dcaegen2.collectors.datafile.commons.TlsHandshakeMetrics;
+import org.onap.dcaegen2.collectors.datafile.exceptions.DatafileTaskException;
+import org.onap.dcaegen2.collectors.datafile.exceptions.NonRetryableDatafileTaskException;
+import org.onap.dcaegen2.collectors.datafile.service.HttpUtils;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+/**
+ * Collects files from a local HTTPS server. Its certificate is issued to localhost only.
+ */
+class DfcReactiveHttpsClientTest {
+
+    private static final String USERNAME = "bob";
+    private static final String PASSWORD = "123";
+    private static final String CONTENT = "ReturnedString";
+    private static final String SERVER_KEY_PATH = "src/test/resources/https_server.p12";
+    private static final String SERVER_KEY_PASSWORD = "src/test/resources/https_server.pass";
+    private static final String KEY_PATH = "src/test/resources/keystore.p12";
+    private static final String KEY_PASSWORD = "src/test/resources/keystore.pass";
+    private static final String KEY_IMPROPER_PASSWORD = "src/test/resources/dfc.jks.pass";
+    // Trusts the certificate of the server
+    private static final Path SERVER_TRUST_PATH = Paths.get("src/test/resources/https_trust.jks");
+    private static final Path SERVER_TRUST_PASSWORD = Paths.get("src/test/resources/https_trust.pass");
+    // Does not trust the certificate of the server, it has the same password as the trust store above
+    private static final Path OTHER_TRUST_PATH = Paths.get("src/test/resources/trust.jks");
+
+    @TempDir
+    Path tempDir;
+
+    private final List<String> authorizationHeaders = new CopyOnWriteArrayList<>();
+    private DisposableServer server;
+
+    @BeforeEach
+    void startServer() throws Exception {
+        SslContext serverSslContext = serverSslContext();
+        server = HttpServer.create().port(0) //
+            .secure(spec -> spec.sslContext(serverSslContext)) //
+            .handle((request, response) -> {
+                String authorization = request.requestHeaders().get(HttpHeaderNames.AUTHORIZATION);
+                authorizationHeaders.add(authorization == null ? "" : authorization);
+                return response.sendString(Mono.just(CONTENT));
+            }) //
+            .bindNow();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.disposeNow();
+    }
+
+    @Test
+    void collectFile_basicAuthIsSent() throws Exception {
+        DfcReactiveHttpsClient client = new DfcReactiveHttpsClient(fileServerData("localhost", USERNAME, PASSWORD),
+            clientSslContext(SERVER_TRUST_PATH), true);
+
+        Path localFile = collectFile(client);
+
+        assertEquals(CONTENT, Files.readString(localFile));
+        assertEquals(List.of(HttpUtils.basicAuthContent(USERNAME, PASSWORD)), authorizationHeaders);
+    }
+
+    @Test
+    void collectFile_withoutCredentials_noAuthorizationIsSent() throws Exception {
+        DfcReactiveHttpsClient client =
+            new DfcReactiveHttpsClient(fileServerData("localhost", "", ""), clientSslContext(SERVER_TRUST_PATH), true);
+
+        collectFile(client);
+
+        assertEquals(List.of(""), authorizationHeaders);
+    }
+
+    @Test
+    void collectFile_hostnameVerificationEnabled_otherNameIsNotRetried() throws Exception {
+        DfcReactiveHttpsClient client = new DfcReactiveHttpsClient(fileServerData("127.0.0.1", USERNAME, PASSWORD),
+            clientSslContext(SERVER_TRUST_PATH), true);
+
+        assertThatThrownBy(() -> collectFile(client)).isInstanceOf(NonRetryableDatafileTaskException.class);
+        assertTrue(authorizationHeaders.isEmpty());
+    }
+
+    @Test
+    void collectFile_hostnameVerificationDisabled_otherNameIsAccepted() throws Exception {
+        DfcReactiveHttpsClient client = new DfcReactiveHttpsClient(fileServerData("127.0.0.1", USERNAME, PASSWORD),
+            clientSslContext(SERVER_TRUST_PATH), false);
+
+        Path localFile = collectFile(client);
+
+        assertEquals(CONTENT, Files.readString(localFile));
+    }
+
+    @Test
+    void collectFile_untrustedServer_isNotRetried() throws Exception {
+        DfcReactiveHttpsClient client = new DfcReactiveHttpsClient(fileServerData("localhost", USERNAME, PASSWORD),
+            clientSslContext(OTHER_TRUST_PATH), true);
+
+        assertThatThrownBy(() -> collectFile(client)).isInstanceOf(NonRetryableDatafileTaskException.class);
+    }
+
+    @Test
+    void collectFile_connectionRefused_isNotRetried() throws Exception {
+        int port = server.port();
+        server.disposeNow();
+        DfcReactiveHttpsClient client = new DfcReactiveHttpsClient(ImmutableFileServerData.builder() //
+            .serverAddress("localhost") //
+            .userId(USERNAME).password(PASSWORD) //
+            .port(port) //
+            .build(), clientSslContext(SERVER_TRUST_PATH), true);
+
+        assertThatThrownBy(() -> collectFile(client)).isInstanceOf(NonRetryableDatafileTaskException.class);
+    }
+
+    @Test
+    void open_connectTimeoutIsSet() throws Exception {
+        DfcReactiveHttpsClient client = new DfcReactiveHttpsClient(fileServerData("localhost", USERNAME, PASSWORD),
+            clientSslContext(SERVER_TRUST_PATH), true);
+
+        client.open();
+
+        assertEquals(15000, client.client.configuration().options().get(ChannelOption.CONNECT_TIMEOUT_MILLIS));
+    }
+
+    @Test
+    void collectFile_handshakeIsCounted() throws Exception {
+        TlsHandshakeMetrics metrics = TlsHandshakeMetrics.getInstance();
+        long handshakesBefore = metrics.getFullHandshakes(TlsHandshakeMetrics.Client.HTTPS)
+            + metrics.getResumedHandshakes(TlsHandshakeMetrics.Client.HTTPS);
+        DfcReactiveHttpsClient client = new DfcReactiveHttpsClient(fileServerData("localhost", USERNAME, PASSWORD),
+            clientSslContext(SERVER_TRUST_PATH), true);
+
+        collectFile(client);
+
+        await().untilAsserted(() -> assertTrue(metrics.getFullHandshakes(TlsHandshakeMetrics.Client.HTTPS)
+            + metrics.getResumedHandshakes(TlsHandshakeMetrics.Client.HTTPS) > handshakesBefore));
+    }
+
+    @Test
+    void collectFile_rotatedTrustStore_newContextIsUsed() throws Exception {
+        Path trustPath = tempDir.resolve("trust.jks");
+        Path trustPasswordPath = tempDir.resolve("trust.pass");
+        Files.copy(OTHER_TRUST_PATH, trustPath);
+        Files.copy(SERVER_TRUST_PASSWORD, trustPasswordPath);
+        try {
+            HttpsClientConnectionManagerUtil.setupOrUpdate(KEY_PATH, KEY_PASSWORD, trustPath.toString(),
+                trustPasswordPath.toString(), true);
+            SslContext oldContext = HttpsClientConnectionManagerUtil.nettySslContext();
+            assertThatThrownBy(() -> collectFile(createClientFromCurrentContext()))
+                .isInstanceOf(NonRetryableDatafileTaskException.class);
+
+            Files.copy(SERVER_TRUST_PATH, trustPath, StandardCopyOption.REPLACE_EXISTING);
+
+            await().until(() -> HttpsClientConnectionManagerUtil.nettySslContext() != oldContext);
+            Path localFile = collectFile(createClientFromCurrentContext());
+            assertEquals(CONTENT, Files.readString(localFile));
+        } finally {
+            // Leaves no TLS context behind for the other tests
+            assertThrows(DatafileTaskException.class, () -> HttpsClientConnectionManagerUtil.setupOrUpdate(KEY_PATH,
+                KEY_IMPROPER_PASSWORD, trustPath.toString(), trustPasswordPath.toString(), true));
+        }
+    }
+
+    private DfcReactiveHttpsClient createClientFromCurrentContext() throws DatafileTaskException {
+        return new DfcReactiveHttpsClient(fileServerData("localhost", USERNAME, PASSWORD),
+            HttpsClientConnectionManagerUtil.nettySslContext(),
+            HttpsClientConnectionManagerUtil.isHostnameVerificationEnabled());
+    }
+
+    private Path collectFile(DfcReactiveHttpsClient client) throws DatafileTaskException {
+        Path localFile = tempDir.resolve("localFile");
+        client.open();
+        try {
+            client.collectFile("any", localFile);
+        } finally {
+            client.close();
+        }
+        return localFile;
+    }
+
+    private ImmutableFileServerData fileServerData(String serverAddress, String userId, String password) {
+        return ImmutableFileServerData.builder() //
+            .serverAddress(serverAddress) //
+            .userId(userId).password(password) //
+            .port(server.port()) //
+            .build();
+    }
+
+    private static SslContext serverSslContext() throws Exception {
+        char[] password = Files.readString(Paths.get(SERVER_KEY_PASSWORD)).toCharArray();
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        try (InputStream input = Files.newInputStream(Paths.get(SERVER_KEY_PATH))) {
+            keyStore.load(input, password);
+        }
+        KeyManagerFactory keyManagerFactory = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        keyManagerFactory.init(keyStore, password);
+        return SslContextBuilder.forServer(keyManagerFactory).build();
+    }
+
+    private static SslContext clientSslContext(Path trustPath) throws Exception {
+        KeyStore trustStore = KeyStore.getInstance("JKS");
+        try (InputStream input = Files.newInputStream(trustPath)) {
+            trustStore.load(input, Files.readString(SERVER_TRUST_PASSWORD).toCharArray());
+        }
+        TrustManagerFactory trustManagerFactory =
+            TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        trustManagerFactory.init(trustStore);
+        return SslContextBuilder.forClient().trustManager(trustManagerFactory).build();
+    }
+}
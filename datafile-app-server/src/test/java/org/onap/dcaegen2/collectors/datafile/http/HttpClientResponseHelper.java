@@ -20,23 +20,11 @@ import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import io.netty.handler.codec.http.HttpVersion;
 import io.netty.handler.codec.http.cookie.Cookie;
-import org.apache.http.Header;
-import org.apache.http.HeaderIterator;
-import org.apache.http.HttpEntity;
-import org.apache.http.ProtocolVersion;
-import org.apache.http.StatusLine;
-import org.apache.http.client.methods.CloseableHttpResponse;
-import org.apache.http.params.HttpParams;
 import reactor.core.publisher.Mono;
 import reactor.netty.http.client.HttpClientResponse;
 import reactor.util.context.Context;
 import reactor.util.context.ContextView;
 
-import java.io.ByteArrayInputStream;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
-import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 
@@ -205,166 +193,4 @@ public class HttpClientResponseHelper {
             return null;
         }
     };
-
-    public static final CloseableHttpResponse APACHE_RESPONSE_OK = new CloseableHttpResponse() {
-        @Override public void close() throws IOException {
-            getEntity().getContent().close();
-        }
-
-        @Override public StatusLine getStatusLine() {
-            return new StatusLine() {
-                @Override public ProtocolVersion getProtocolVersion() {
-                    return null;
-                }
-
-                @Override public int getStatusCode() {
-                    return 200;
-                }
-
-                @Override public String getReasonPhrase() {
-                    return null;
-                }
-            };
-        }
-
-        @Override public void setStatusLine(StatusLine statusLine) {
-
-        }
-
-        @Override public void setStatusLine(ProtocolVersion protocolVersion, int i) {
-
-        }
-
-        @Override public void setStatusLine(ProtocolVersion protocolVersion, int i, String s) {
-
-        }
-
-        @Override public void setStatusCode(int i) throws IllegalStateException {
-
-        }
-
-        @Override public void setReasonPhrase(String s) throws IllegalStateException {
-
-        }
-
-        @Override public HttpEntity getEntity() {
-            return new HttpEntity() {
-                @Override public boolean isRepeatable() {
-                    return false;
-                }
-
-                @Override public boolean isChunked() {
-                    return false;
-                }
-
-                @Override public long getContentLength() {
-                    return 0;
-                }
-
-                @Override public Header getContentType() {
-                    return null;
-                }
-
-                @Override public Header getContentEncoding() {
-                    return null;
-                }
-
-                @Override public InputStream getContent() throws IOException, UnsupportedOperationException {
-                    return new ByteArrayInputStream("abc".getBytes());
-                }
-
-                @Override public void writeTo(OutputStream outputStream) throws IOException {
-
-                }
-
-                @Override public boolean isStreaming() {
-                    return false;
-                }
-
-                @Override public void consumeContent() throws IOException {
-
-                }
-            };
-        }
-
-        @Override public void setEntity(HttpEntity httpEntity) {
-
-        }
-
-        @Override public Locale getLocale() {
-            return null;
-        }
-
-        @Override public void setLocale(Locale locale) {
-
-        }
-
-        @Override public ProtocolVersion getProtocolVersion() {
-            return null;
-        }
-
-        @Override public boolean containsHeader(String s) {
-            return false;
-        }
-
-        @Override public Header[] getHeaders(String s) {
-            return new Header[0];
-        }
-
-        @Override public Header getFirstHeader(String s) {
-            return null;
-        }
-
-        @Override public Header getLastHeader(String s) {
-            return null;
-        }
-
-        @Override public Header[] getAllHeaders() {
-            return new Header[0];
-        }
-
-        @Override public void addHeader(Header header) {
-
-        }
-
-        @Override public void addHeader(String s, String s1) {
-
-        }
-
-        @Override public void setHeader(Header header) {
-
-        }
-
-        @Override public void setHeader(String s, String s1) {
-
-        }
-
-        @Override public void setHeaders(Header[] headers) {
-
-        }
-
-        @Override public void removeHeader(Header header) {
-
-        }
-
-        @Override public void removeHeaders(String s) {
-
-        }
-
-        @Override public HeaderIterator headerIterator() {
-            return null;
-        }
-
-        @Override public HeaderIterator headerIterator(String s) {
-            return null;
-        }
-
-        @Override public HttpParams getParams() {
-            return null;
-        }
-
-        @Override public void setParams(HttpParams httpParams) {
-
-        }
-    };
 }
@@ -15,14 +15,14 @@
  */
 package org.onap.dcaegen2.collectors.datafile.http;
 
-import org.apache.http.conn.ssl.DefaultHostnameVerifier;
-import org.junit.Test;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.onap.dcaegen2.collectors.datafile.exceptions.DatafileTaskException;
 
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @ExtendWith(MockitoExtension.class)
 public class HttpsClientConnectionManagerUtilTest {
@@ -34,22 +34,23 @@ public class HttpsClientConnectionManagerUtilTest {
     private static final String TRUSTED_CA_PASSWORD = "src/test/resources/trust.pass";
 
     @Test
-    public void emptyManager_shouldThrowException() {
-        assertThrows(DatafileTaskException.class, () -> HttpsClientConnectionManagerUtil.instance());
+    public void emptyContext_shouldThrowException() {
+        assertThrows(DatafileTaskException.class, () -> HttpsClientConnectionManagerUtil.nettySslContext());
     }
 
     @Test
-    public void creatingManager_successfulCase() throws Exception {
+    public void creatingContext_successfulCase() throws Exception {
         HttpsClientConnectionManagerUtil.setupOrUpdate(KEY_PATH, KEY_PASSWORD, TRUSTED_CA_PATH, TRUSTED_CA_PASSWORD, //
                 true);
-        assertNotNull(HttpsClientConnectionManagerUtil.instance());
+        assertNotNull(HttpsClientConnectionManagerUtil.nettySslContext());
+        assertTrue(HttpsClientConnectionManagerUtil.isHostnameVerificationEnabled());
     }
 
     @Test
-    public void creatingManager_improperSecretShouldThrowException() {
+    public void creatingContext_improperSecretShouldThrowException() {
         assertThrows(DatafileTaskException.class, () -> HttpsClientConnectionManagerUtil.setupOrUpdate(KEY_PATH, //
                 KEY_IMPROPER_PASSWORD, TRUSTED_CA_PATH, TRUSTED_CA_PASSWORD, true));
-        assertThrows(DatafileTaskException.class, () -> HttpsClientConnectionManagerUtil.instance());
+        assertThrows(DatafileTaskException.class, () -> HttpsClientConnectionManagerUtil.nettySslContext());
     }
 
 }
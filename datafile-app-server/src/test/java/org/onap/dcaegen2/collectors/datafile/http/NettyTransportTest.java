@@ -0,0 +1,52 @@
+/*-
+ * ============LICENSE_START======================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * ============LICENSE_END========================================================================
+ */
+
+
+package org.onap.dcaegen2.collectors.datafile.http;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import io.netty.handler.ssl.OpenSsl;
+import io.netty.handler.ssl.SslProvider;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.netty.resources.LoopResources;
+
+public class NettyTransportTest {
+
+    @AfterEach
+    public void tearDown() {
+        NettyTransport.setNativeTransport(false);
+    }
+
+    @Test
+    public void whenNativeTransportIsDisabled_nioAndJdkTlsAreUsed() {
+        NettyTransport.setNativeTransport(false);
+
+        assertFalse(NettyTransport.isNativeTransport());
+        assertEquals(SslProvider.JDK, NettyTransport.sslProvider());
+    }
+
+    @Test
+    public void whenNativeTransportIsEnabled_itIsUsedIfAvailable() {
+        NettyTransport.setNativeTransport(true);
+
+        assertEquals(LoopResources.hasNativeSupport(), NettyTransport.isNativeTransport());
+        SslProvider expected =
+            OpenSsl.isAvailable() && OpenSsl.supportsKeyManagerFactory() ? SslProvider.OPENSSL : SslProvider.JDK;
+        assertEquals(expected, NettyTransport.sslProvider());
+    }
+}
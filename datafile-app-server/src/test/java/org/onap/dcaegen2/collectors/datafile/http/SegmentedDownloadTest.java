@@ -0,0 +1,185 @@
+/*-
+ * ============LICENSE_START======================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * ============LICENSE_END========================================================================
+ */
+
+
+package org.onap.dcaegen2.collectors.datafile.http;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.onap.dcaegen2.collectors.datafile.commons.PartialTransfer;
+import org.onap.dcaegen2.collectors.datafile.exceptions.DatafileTaskException;
+import org.onap.dcaegen2.collectors.datafile.http.SegmentedDownload.ContentRange;
+import org.onap.dcaegen2.collectors.datafile.http.SegmentedDownload.RangeFetcher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+public class SegmentedDownloadTest {
+
+    @Test
+    public void parseContentRange() {
+        ContentRange range = ContentRange.parse("bytes 0-33554431/100000000").get();
+        assertEquals(0, range.first);
+        assertEquals(33554431, range.last);
+        assertEquals(100000000, range.totalLength);
+        assertTrue(range.hasRemainder());
+
+        assertFalse(ContentRange.parse("bytes 0-99/100").get().hasRemainder());
+        assertFalse(ContentRange.parse("bytes */100").isPresent());
+        assertFalse(ContentRange.parse("bytes 0-99/*").isPresent());
+        assertFalse(ContentRange.parse("bytes 0-100/100").isPresent());
+        assertFalse(ContentRange.parse("bytes 50-10/100").isPresent());
+        assertFalse(ContentRange.parse("bytes 0-99999999999999999999/100").isPresent());
+        assertFalse(ContentRange.parse(null).isPresent());
+    }
+
+    @Test
+    public void remainderIsFetchedInSegments(@TempDir Path tempDir) throws Exception {
+        final int totalLength = (int) (SegmentedDownload.MIN_SEGMENT_SIZE * 3 + 1000);
+        final int firstSegmentLength = 1000;
+        byte[] content = new byte[totalLength];
+        new Random(4711).nextBytes(content);
+
+        Path localFile = tempDir.resolve("file");
+        Files.write(localFile, Arrays.copyOf(content, firstSegmentLength));
+
+        AtomicInteger numberOfSegments = new AtomicInteger();
+        SegmentedDownload.downloadRemainder("xnf", localFile,
+            new ContentRange(0, firstSegmentLength - 1L, totalLength), (first, last, channel) -> {
+                numberOfSegments.incrementAndGet();
+                return Mono.fromCallable(() -> SegmentedDownload.write(channel,
+                    ByteBuffer.wrap(content, (int) first, (int) (last - first + 1)), first));
+            }).block();
+
+        assertEquals(3, numberOfSegments.get());
+        assertArrayEquals(content, Files.readAllBytes(localFile));
+        assertEquals(0, SegmentedDownload.numberOfHostsWithPermits());
+    }
+
+    @Test
+    public void incompleteSegmentFailsTheDownload(@TempDir Path tempDir) throws Exception {
+        Path localFile = tempDir.resolve("file");
+        Files.write(localFile, new byte[10]);
+
+        StepVerifier.create(SegmentedDownload.downloadRemainder("xnf", localFile, new ContentRange(0, 9, 20),
+            (first, last, channel) -> Mono.just(last - first))) //
+            .expectErrorSatisfies(exception -> {
+                assertTrue(exception instanceof DatafileTaskException);
+                assertTrue(exception.getMessage().startsWith("Incomplete file segment bytes=10-19"),
+                    exception.getMessage());
+            }) //
+            .verify();
+        assertEquals(0, SegmentedDownload.numberOfHostsWithPermits());
+    }
+
+    @Test
+    public void busyHostGetsOneSegmentWithoutWaiting(@TempDir Path tempDir) throws Exception {
+        final long totalLength = SegmentedDownload.MIN_SEGMENT_SIZE * SegmentedDownload.MAX_SEGMENTS_PER_HOST + 1000;
+        Path outerFile = tempDir.resolve("outer");
+        Path innerFile = tempDir.resolve("inner");
+        Files.write(outerFile, new byte[1000]);
+        Files.write(innerFile, new byte[1000]);
+
+        AtomicInteger innerSegments = new AtomicInteger();
+        AtomicInteger outerSegments = new AtomicInteger();
+        RangeFetcher innerFetcher = (first, last, channel) -> {
+            innerSegments.incrementAndGet();
+            return Mono.just(last - first + 1);
+        };
+        SegmentedDownload.downloadRemainder("xnf", outerFile, new ContentRange(0, 999, totalLength),
+            (first, last, channel) -> {
+                // All permits for the xNF are taken by this download, the other download must not wait
+                if (outerSegments.incrementAndGet() == 1) {
+                    return SegmentedDownload.downloadRemainder("xnf", innerFile,
+                        new ContentRange(0, 999, totalLength), innerFetcher).thenReturn(last - first + 1);
+                }
+                return Mono.just(last - first + 1);
+            }).block();
+
+        assertEquals(SegmentedDownload.MAX_SEGMENTS_PER_HOST, outerSegments.get());
+        assertEquals(1, innerSegments.get());
+        assertEquals(0, SegmentedDownload.numberOfHostsWithPermits());
+    }
+
+    @Test
+    public void extraSegmentsAreCappedForAllHosts(@TempDir Path tempDir) throws Exception {
+        final long totalLength = SegmentedDownload.MIN_SEGMENT_SIZE * SegmentedDownload.MAX_SEGMENTS_PER_HOST + 1000;
+        final int numberOfHosts = SegmentedDownload.MAX_EXTRA_SEGMENTS;
+        Sinks.Empty<Void> transfer = Sinks.empty();
+        AtomicInteger numberOfSegments = new AtomicInteger();
+        RangeFetcher fetcher = (first, last, channel) -> {
+            numberOfSegments.incrementAndGet();
+            return transfer.asMono().thenReturn(last - first + 1);
+        };
+        List<Mono<Void>> downloads = new ArrayList<>();
+        for (int i = 0; i < numberOfHosts; ++i) {
+            Path localFile = tempDir.resolve("file" + i);
+            Files.write(localFile, new byte[1000]);
+            downloads.add(SegmentedDownload.downloadRemainder("xnf" + i, localFile,
+                new ContentRange(0, 999, totalLength), fetcher));
+        }
+
+        CompletableFuture<Void> allDownloads = Mono.when(downloads).toFuture();
+
+        // Each download has one segment of its own
+        assertEquals(numberOfHosts + SegmentedDownload.MAX_EXTRA_SEGMENTS, numberOfSegments.get());
+        assertEquals(0, SegmentedDownload.availableExtraSegments());
+        transfer.tryEmitEmpty();
+        allDownloads.get();
+        assertEquals(SegmentedDownload.MAX_EXTRA_SEGMENTS, SegmentedDownload.availableExtraSegments());
+        assertEquals(0, SegmentedDownload.numberOfHostsWithPermits());
+    }
+
+    @Test
+    public void largeFileIsSegmentedIfTheServerAcceptsRanges() {
+        final long totalLength = SegmentedDownload.SEGMENTED_DOWNLOAD_THRESHOLD + 1;
+        ContentRange first = SegmentedDownload.firstSegment(totalLength, "bytes").get();
+        assertEquals(0, first.first);
+        assertEquals(SegmentedDownload.SEGMENTED_DOWNLOAD_THRESHOLD - 1, first.last);
+        assertEquals(totalLength, first.totalLength);
+
+        assertFalse(SegmentedDownload.firstSegment(totalLength, "none").isPresent());
+        assertFalse(SegmentedDownload.firstSegment(totalLength, null).isPresent());
+        assertFalse(
+            SegmentedDownload.firstSegment(SegmentedDownload.SEGMENTED_DOWNLOAD_THRESHOLD, "bytes").isPresent());
+        assertFalse(SegmentedDownload.firstSegment(PartialTransfer.UNKNOWN_LENGTH, "bytes").isPresent());
+    }
+
+    @Test
+    public void firstBytesCutsTheBody() {
+        Flux<ByteBuffer> body = Flux.just("abc", "def", "ghi").map(text -> ByteBuffer.wrap(text.getBytes()));
+
+        StepVerifier.create(SegmentedDownload.firstBytes(body, 5).map(buffer -> {
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            return new String(bytes);
+        })).expectNext("abc", "de").verifyComplete();
+    }
+}
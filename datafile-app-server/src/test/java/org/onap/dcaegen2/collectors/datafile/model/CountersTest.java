@@ -0,0 +1,91 @@
+/*-
+ * ============LICENSE_START======================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * ============LICENSE_END========================================================================
+ */
+
+package org.onap.dcaegen2.collectors.datafile.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+
+public class CountersTest {
+
+    @Test
+    public void concurrentIncrements_allCounted() throws InterruptedException {
+        Counters counters = new Counters();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 1000; ++i) {
+            executor.execute(() -> {
+                counters.incNoOfCollectedFiles();
+                counters.incTotalPublishedFiles();
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(1000, counters.getNoOfCollectedFiles());
+        assertEquals(1000, counters.getTotalPublishedFiles());
+    }
+
+    @Test
+    public void bindTo_countersExportedToRegistry() {
+        Counters counters = new Counters();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        counters.bindTo(registry);
+
+        counters.incNoOfReceivedEvents();
+        counters.incNoOfCollectedFiles();
+        counters.incNoOfCollectedFiles();
+        counters.incNoOfFailedPublish();
+        counters.getCurrentNumberOfTasks().incrementAndGet();
+
+        assertEquals(1.0, registry.get("datafile.events.received").functionCounter().count());
+        assertEquals(2.0, registry.get("datafile.files.collected").functionCounter().count());
+        assertEquals(1.0, registry.get("datafile.publish.failed").functionCounter().count());
+        assertEquals(1.0, registry.get("datafile.tasks.current").gauge().value());
+    }
+
+    @Test
+    public void toString_containsCounterValues() {
+        Counters counters = new Counters();
+        counters.incNoOfCollectedFiles();
+        counters.incNoOfCollectedFiles();
+        counters.incNoOfFailedFtpAttempts();
+        counters.incNoOfFailedPublish();
+        counters.incNoOfFailedPublish();
+        counters.incNoOfFailedPublish();
+        counters.incNoOfForeignFiles();
+        counters.incNoOfForeignFiles();
+
+        String text = counters.toString();
+        assertCounterLine(text, "collectedFiles", 2);
+        assertCounterLine(text, "failedFtpAttempts", 1);
+        assertCounterLine(text, "noOfFailedPublish", 3);
+        assertCounterLine(text, "foreignFiles", 2);
+        assertCounterLine(text, "failedHttpAttempts", 0);
+        assertCounterLine(text, "totalPublishedFiles", 0);
+    }
+
+    private static void assertCounterLine(String text, String name, int value) {
+        assertTrue(Pattern.compile("^" + name + ":\\s+" + value + "\\s*$", Pattern.MULTILINE).matcher(text).find(),
+            () -> "No line '" + name + ": " + value + "' in:\n" + text);
+    }
+}
@@ -0,0 +1,88 @@
+/*-
+ * ============LICENSE_START======================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * ============LICENSE_END========================================================================
+ */
+
+package org.onap.dcaegen2.collectors.datafile.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.onap.dcaegen2.collectors.datafile.model.StageTimers.Stage;
+
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+public class StageTimersTest {
+
+    @Test
+    public void time_recordsInBoundRegistry() {
+        StageTimers timers = new StageTimers();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        timers.bindTo(registry);
+
+        StepVerifier.create(timers.time(Stage.FETCH, "SFTP", "PM_MEAS_FILES", Mono.just("x").delayElement(
+            Duration.ofMillis(10)))) //
+            .expectNext("x") //
+            .verifyComplete();
+
+        Timer timer = registry.get(StageTimers.METER_NAME) //
+            .tag("stage", "fetch") //
+            .tag("scheme", "SFTP") //
+            .tag("changeIdentifier", "PM_MEAS_FILES") //
+            .timer();
+        assertEquals(1, timer.count());
+        assertTrue(timer.totalTime(TimeUnit.MILLISECONDS) >= 10);
+    }
+
+    @Test
+    public void record_sameTags_timerRegisteredOnce() {
+        StageTimers timers = new StageTimers();
+        timers.record(Stage.FETCH, "SFTP", "PM_MEAS_FILES", System.nanoTime());
+        timers.recordPoll("source", 2, System.nanoTime());
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        timers.bindTo(registry);
+
+        timers.record(Stage.FETCH, "SFTP", "PM_MEAS_FILES", System.nanoTime());
+        timers.record(Stage.FETCH, "SFTP", "PM_MEAS_FILES", System.nanoTime());
+        timers.recordPoll("source", 3, System.nanoTime());
+
+        assertEquals(1, registry.find(StageTimers.METER_NAME).tag("stage", "fetch").timers().size());
+        assertEquals(2, registry.get(StageTimers.METER_NAME).tag("stage", "fetch").timer().count());
+        assertEquals(1, registry.get(StageTimers.POLL_METER_NAME).tag("source", "source").timer().count());
+        assertEquals(3, registry.get(StageTimers.POLLED_MESSAGES_METER_NAME).counter().count());
+    }
+
+    @Test
+    public void toString_containsRecordedStages() {
+        StageTimers timers = new StageTimers();
+        timers.record(Stage.PUBLISH, "HTTPS", "PM_MEAS_FILES", System.nanoTime());
+
+        String text = timers.toString();
+        assertTrue(text.contains("publish"));
+        assertTrue(text.contains("HTTPS"));
+        assertTrue(text.contains("p999[ms]"));
+    }
+
+    @Test
+    public void schemeOf_location() {
+        assertEquals("FTPES", StageTimers.schemeOf("ftpes://192.168.0.101/ftp/rop/A.gz"));
+        assertEquals(StageTimers.NO_TAG, StageTimers.schemeOf("no scheme"));
+    }
+}
@@ -0,0 +1,119 @@
+/*-
+ * ============LICENSE_START======================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * ============LICENSE_END========================================================================
+ */
+
+package org.onap.dcaegen2.collectors.datafile.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+public class XnfStatisticsTest {
+
+    private static final long ONE_MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    public void fileCollected_statisticsUpdated() {
+        XnfStatistics statistics = new XnfStatistics();
+        statistics.fileCollected("pnf1", 100, 10 * ONE_MS);
+        statistics.fileCollected("pnf1", 300, 30 * ONE_MS);
+        statistics.fileFailed("pnf1");
+
+        List<XnfTransferSnapshot> page = statistics.page(0, 10);
+        assertEquals(1, page.size());
+        XnfTransferSnapshot pnf1 = page.get(0);
+        assertEquals("pnf1", pnf1.getSourceName());
+        assertEquals(400, pnf1.getBytes());
+        assertEquals(2, pnf1.getFiles());
+        assertEquals(1, pnf1.getFailures());
+        assertEquals(20.0, pnf1.getMeanFetchTimeMs(), 0.001);
+        assertTrue(pnf1.getP99FetchTimeMs() >= 30);
+        assertFalse(pnf1.getLastSuccess().isEmpty());
+    }
+
+    @Test
+    public void slowestAndMostFailing_ordered() {
+        XnfStatistics statistics = new XnfStatistics();
+        statistics.fileCollected("fast", 1, ONE_MS);
+        statistics.fileCollected("slow", 1, 1000 * ONE_MS);
+        statistics.fileFailed("fast");
+        statistics.fileFailed("failing");
+        statistics.fileFailed("failing");
+
+        assertEquals("slow", statistics.slowest(1).get(0).getSourceName());
+        assertEquals("failing", statistics.mostFailing(1).get(0).getSourceName());
+        assertEquals("", statistics.mostFailing(1).get(0).getLastSuccess());
+    }
+
+    @Test
+    public void page_ordered() {
+        XnfStatistics statistics = new XnfStatistics();
+        statistics.fileFailed("c");
+        statistics.fileFailed("a");
+        statistics.fileFailed("b");
+
+        assertEquals("a", statistics.page(0, 2).get(0).getSourceName());
+        assertEquals("c", statistics.page(1, 2).get(0).getSourceName());
+        assertTrue(statistics.page(2, 2).isEmpty());
+    }
+
+    @Test
+    public void tableFull_leastRecentlyUpdatedEvicted() {
+        XnfStatistics statistics = new XnfStatistics(2);
+        statistics.fileFailed("old");
+        statistics.fileFailed("recent");
+        statistics.fileFailed("new");
+
+        assertEquals(2, statistics.size());
+        assertTrue(statistics.page(0, 10).stream().noneMatch(s -> s.getSourceName().equals("old")));
+    }
+
+    @Test
+    public void tableFull_updatedXnfKept() {
+        XnfStatistics statistics = new XnfStatistics(2);
+        statistics.fileFailed("first");
+        statistics.fileFailed("second");
+        statistics.fileCollected("first", 1, ONE_MS);
+        statistics.fileFailed("third");
+
+        List<XnfTransferSnapshot> page = statistics.page(0, 10);
+        assertEquals(2, page.size());
+        assertEquals("first", page.get(0).getSourceName());
+        assertEquals("third", page.get(1).getSourceName());
+    }
+
+    @Test
+    public void concurrentUpdates_tableStaysBounded() throws InterruptedException {
+        XnfStatistics statistics = new XnfStatistics(100);
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; ++t) {
+            final int offset = t * 1000;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 1000; ++i) {
+                    statistics.fileFailed("pnf" + (offset + i));
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(100, statistics.size());
+    }
+}
@@ -0,0 +1,103 @@
+/*-
+ * ============LICENSE_START======================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * ============LICENSE_END========================================================================
+ */
+
+
+package org.onap.dcaegen2.collectors.datafile.model.logging;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.onap.dcaegen2.collectors.datafile.model.logging.MappedDiagnosticContext.Scope;
+import org.onap.dcaegen2.services.sdk.rest.services.model.logging.MdcVariables;
+import org.slf4j.MDC;
+
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+public class MappedDiagnosticContextTest {
+
+    @AfterEach
+    public void clearMdc() {
+        MDC.clear();
+    }
+
+    @Test
+    public void restore_putsRequestIdBackWhenClosed() {
+        MDC.put(MdcVariables.REQUEST_ID, "poll");
+        Map<String, String> fileContext = MappedDiagnosticContext.createFileContext("file");
+
+        try (Scope scope = MappedDiagnosticContext.restore(fileContext)) {
+            assertEquals("file", MDC.get(MdcVariables.REQUEST_ID));
+        }
+        assertEquals("poll", MDC.get(MdcVariables.REQUEST_ID));
+    }
+
+    @Test
+    public void restore_removesRequestIdWhenThereWasNone() {
+        try (Scope scope = MappedDiagnosticContext.restore(MappedDiagnosticContext.createFileContext("file"))) {
+            assertEquals("file", MDC.get(MdcVariables.REQUEST_ID));
+        }
+        assertNull(MDC.get(MdcVariables.REQUEST_ID));
+    }
+
+    @Test
+    public void restore_contextWithoutRequestIdLeavesMdcUnchanged() {
+        MDC.put(MdcVariables.REQUEST_ID, "poll");
+
+        try (Scope scope = MappedDiagnosticContext.restore(Collections.emptyMap())) {
+            assertEquals("poll", MDC.get(MdcVariables.REQUEST_ID));
+        }
+        try (Scope scope = MappedDiagnosticContext.restore(null)) {
+            assertEquals("poll", MDC.get(MdcVariables.REQUEST_ID));
+        }
+        assertEquals("poll", MDC.get(MdcVariables.REQUEST_ID));
+    }
+
+    @Test
+    public void withContext_requestIdOnlyDuringLogStatement() {
+        MDC.put(MdcVariables.REQUEST_ID, "poll");
+        List<String> loggedRequestIds = new ArrayList<>();
+
+        MappedDiagnosticContext.withContext(MappedDiagnosticContext.createFileContext("file"),
+            () -> loggedRequestIds.add(MDC.get(MdcVariables.REQUEST_ID)));
+
+        assertEquals(List.of("file"), loggedRequestIds);
+        assertEquals("poll", MDC.get(MdcVariables.REQUEST_ID));
+    }
+
+    @Test
+    public void logOnNextAndError_restoreContextOfChain() {
+        List<String> loggedRequestIds = new ArrayList<>();
+        Mono<String> chain = Mono.just("x") //
+            .doOnEach(MappedDiagnosticContext.logOnNext(s -> loggedRequestIds.add(MDC.get(MdcVariables.REQUEST_ID)))) //
+            .flatMap(s -> Mono.<String>error(new IllegalStateException("failed"))) //
+            .doOnEach(MappedDiagnosticContext.logOnError(e -> loggedRequestIds.add(MDC.get(MdcVariables.REQUEST_ID))))
+
+            .contextWrite(MappedDiagnosticContext.write(MappedDiagnosticContext.createFileContext("file")));
+
+        StepVerifier.create(chain) //
+            .expectError(IllegalStateException.class) //
+            .verify();
+
+        assertEquals(List.of("file", "file"), loggedRequestIds);
+        assertNull(MDC.get(MdcVariables.REQUEST_ID));
+    }
+}
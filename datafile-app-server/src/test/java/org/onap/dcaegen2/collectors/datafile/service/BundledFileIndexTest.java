@@ -0,0 +1,65 @@
+/*-
+ * ============LICENSE_START======================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * ============LICENSE_END========================================================================
+ */
+
+
+package org.onap.dcaegen2.collectors.datafile.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import org.junit.jupiter.api.Test;
+
+public class BundledFileIndexTest {
+
+    private static final String FEED = "PM_MEAS_FILES";
+    private static final String FILE_NAME = "A20260101.0000+0100-0015+0100_xnf.xml.gz";
+    private static final Duration RETENTION = Duration.ofDays(7);
+    private static final int MAX_ENTRIES = 2;
+    private static final Instant NOW = Instant.parse("2026-01-01T00:00:00Z");
+
+    private final BundledFileIndex testObject = new BundledFileIndex();
+
+    @Test
+    public void bundledFile_isKnownWithinRetention() {
+        assertFalse(testObject.contains(FEED, FILE_NAME, NOW, RETENTION));
+        testObject.add(FEED, FILE_NAME, NOW, MAX_ENTRIES);
+
+        assertTrue(testObject.contains(FEED, FILE_NAME, NOW.plus(Duration.ofDays(2)), RETENTION));
+        assertFalse(testObject.contains("OTHER_FEED", FILE_NAME, NOW, RETENTION));
+        assertFalse(testObject.contains(FEED, FILE_NAME, NOW.plus(RETENTION), RETENTION));
+    }
+
+    @Test
+    public void numberOfEntriesIsBounded() {
+        testObject.add(FEED, "file1", NOW, MAX_ENTRIES);
+        testObject.add(FEED, "file2", NOW, MAX_ENTRIES);
+        testObject.add(FEED, "file3", NOW, MAX_ENTRIES);
+
+        assertEquals(2, testObject.size());
+        assertFalse(testObject.contains(FEED, "file1", NOW, RETENTION), "the oldest entry should have been evicted");
+    }
+
+    @Test
+    public void purge_removesOutdatedEntries() {
+        testObject.add(FEED, "file1", NOW, MAX_ENTRIES);
+        testObject.add(FEED, "file2", NOW.plus(Duration.ofDays(1)), MAX_ENTRIES);
+
+        testObject.purge(NOW.plus(RETENTION), RETENTION);
+        assertEquals(1, testObject.size());
+    }
+}
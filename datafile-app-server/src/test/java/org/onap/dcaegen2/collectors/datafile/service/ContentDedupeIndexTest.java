@@ -0,0 +1,81 @@
+/*-
+ * ============LICENSE_START======================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * ============LICENSE_END========================================================================
+ */
+
+
+package org.onap.dcaegen2.collectors.datafile.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import org.junit.jupiter.api.Test;
+
+public class ContentDedupeIndexTest {
+
+    private static final String FEED = "PM_MEAS_FILES";
+    private static final String CHECKSUM = "sha-256:abcd";
+    private static final Duration WINDOW = Duration.ofHours(1);
+    private static final int MAX_ENTRIES = 2;
+    private static final Instant NOW = Instant.parse("2026-01-01T00:00:00Z");
+
+    private final ContentDedupeIndex testObject = new ContentDedupeIndex();
+
+    @Test
+    public void identicalContent_isDuplicateWithinWindow() {
+        assertTrue(testObject.add(FEED, CHECKSUM, 100, NOW, WINDOW, MAX_ENTRIES));
+        assertFalse(testObject.add(FEED, CHECKSUM, 100, NOW.plusSeconds(60), WINDOW, MAX_ENTRIES));
+        assertTrue(testObject.add(FEED, CHECKSUM, 100, NOW.plus(WINDOW), WINDOW, MAX_ENTRIES));
+        assertEquals(1, testObject.size());
+    }
+
+    @Test
+    public void otherFeedOrSize_isNotDuplicate() {
+        assertTrue(testObject.add(FEED, CHECKSUM, 100, NOW, WINDOW, MAX_ENTRIES));
+        assertTrue(testObject.add("OTHER_FEED", CHECKSUM, 100, NOW, WINDOW, MAX_ENTRIES));
+        assertTrue(testObject.add(FEED, CHECKSUM, 101, NOW, WINDOW, MAX_ENTRIES));
+    }
+
+    @Test
+    public void numberOfEntriesIsBounded() {
+        testObject.add(FEED, "sha-256:01", 1, NOW, WINDOW, MAX_ENTRIES);
+        testObject.add(FEED, "sha-256:02", 1, NOW, WINDOW, MAX_ENTRIES);
+        testObject.add(FEED, "sha-256:03", 1, NOW, WINDOW, MAX_ENTRIES);
+
+        assertEquals(2, testObject.size());
+        assertTrue(testObject.add(FEED, "sha-256:01", 1, NOW, WINDOW, MAX_ENTRIES),
+            "the oldest entry should have been evicted");
+    }
+
+    @Test
+    public void purge_removesOutdatedEntries() {
+        testObject.add(FEED, "sha-256:01", 1, NOW, WINDOW, MAX_ENTRIES);
+        testObject.add(FEED, "sha-256:02", 1, NOW.plusSeconds(600), WINDOW, MAX_ENTRIES);
+
+        testObject.purge(NOW.plus(WINDOW), WINDOW);
+        assertEquals(1, testObject.size());
+    }
+
+    @Test
+    public void contains_onlyPublishedContentWithinWindow() {
+        assertFalse(testObject.contains(FEED, CHECKSUM, 100, NOW, WINDOW));
+        testObject.add(FEED, CHECKSUM, 100, NOW, WINDOW, MAX_ENTRIES);
+
+        assertTrue(testObject.contains(FEED, CHECKSUM, 100, NOW.plusSeconds(60), WINDOW));
+        assertFalse(testObject.contains(FEED, CHECKSUM, 101, NOW.plusSeconds(60), WINDOW));
+        assertFalse(testObject.contains(FEED, CHECKSUM, 100, NOW.plus(WINDOW), WINDOW));
+    }
+}
@@ -42,6 +42,7 @@ import org.onap.dcaegen2.collectors.datafile.model.ImmutableFileData;
 import org.onap.dcaegen2.collectors.datafile.model.ImmutableFileReadyMessage;
 import org.onap.dcaegen2.collectors.datafile.model.ImmutableMessageMetaData;
 import org.onap.dcaegen2.collectors.datafile.model.MessageMetaData;
+import org.onap.dcaegen2.collectors.datafile.model.StageTimers;
 import org.onap.dcaegen2.collectors.datafile.utils.JsonMessage;
 import org.onap.dcaegen2.collectors.datafile.utils.JsonMessage.AdditionalField;
 import org.onap.dcaegen2.collectors.datafile.utils.LoggingUtils;
@@ -57,6 +58,7 @@ import reactor.test.StepVerifier;
  */
 class JsonMessageParserTest {
     private static final String ERROR_LOG_TAG = "[ERROR] ";
+    private static final StageTimers STAGE_TIMERS = new StageTimers();
 
     private static final String NR_RADIO_ERICSSON_EVENT_NAME = "Noti_NrRadio-Ericsson_FileReady";
     private static final String PRODUCT_NAME = "NrRadio";
@@ -119,7 +121,7 @@ class JsonMessageParserTest {
             .build();
 
         String parsedString = message.getParsed();
-        JsonMessageParser jsonMessageParserUnderTest = spy(new JsonMessageParser());
+        JsonMessageParser jsonMessageParserUnderTest = spy(new JsonMessageParser(STAGE_TIMERS));
         JsonElement jsonElement = JsonParser.parseString(parsedString);
         Mockito.doReturn(Optional.of(jsonElement.getAsJsonObject())).when(jsonMessageParserUnderTest)
             .getJsonObjectFromAnArray(jsonElement);
@@ -172,7 +174,7 @@ class JsonMessageParserTest {
 
         String parsedString = message.getParsed();
         String messageString = "[" + parsedString + "," + parsedString + "]";
-        JsonMessageParser jsonMessageParserUnderTest = spy(new JsonMessageParser());
+        JsonMessageParser jsonMessageParserUnderTest = spy(new JsonMessageParser(STAGE_TIMERS));
         JsonElement jsonElement = JsonParser.parseString(parsedString);
         JsonElement jsonElement1 = JsonParser.parseString(messageString);
         Mockito.doReturn(Optional.of(jsonElement.getAsJsonObject())).when(jsonMessageParserUnderTest)
@@ -199,7 +201,7 @@ class JsonMessageParserTest {
             .build();
 
         String parsedString = message.getParsed();
-        JsonMessageParser jsonMessageParserUnderTest = spy(new JsonMessageParser());
+        JsonMessageParser jsonMessageParserUnderTest = spy(new JsonMessageParser(STAGE_TIMERS));
         JsonElement jsonElement = JsonParser.parseString(parsedString);
         Mockito.doReturn(Optional.of(jsonElement.getAsJsonObject())).when(jsonMessageParserUnderTest)
             .getJsonObjectFromAnArray(jsonElement);
@@ -231,7 +233,7 @@ class JsonMessageParserTest {
             .build();
 
         String parsedString = message.getParsed();
-        JsonMessageParser jsonMessageParserUnderTest = spy(new JsonMessageParser());
+        JsonMessageParser jsonMessageParserUnderTest = spy(new JsonMessageParser(STAGE_TIMERS));
         JsonElement jsonElement = JsonParser.parseString(parsedString);
         Mockito.doReturn(Optional.of(jsonElement.getAsJsonObject())).when(jsonMessageParserUnderTest)
             .getJsonObjectFromAnArray(jsonElement);
@@ -291,7 +293,7 @@ class JsonMessageParserTest {
 
         String parsedString = message.getParsed();
         String messageString = "[{\"event\":{}}," + parsedString + "]";
-        JsonMessageParser jsonMessageParserUnderTest = new JsonMessageParser();
+        JsonMessageParser jsonMessageParserUnderTest = new JsonMessageParser(STAGE_TIMERS);
         JsonElement jsonElement = JsonParser.parseString(messageString);
 
         StepVerifier.create(jsonMessageParserUnderTest.getMessagesFromJson(Flux.just(jsonElement))).expectSubscription()
@@ -315,7 +317,7 @@ class JsonMessageParserTest {
             .build();
 
         String parsedString = message.getParsed();
-        JsonMessageParser jsonMessageParserUnderTest = spy(new JsonMessageParser());
+        JsonMessageParser jsonMessageParserUnderTest = spy(new JsonMessageParser(STAGE_TIMERS));
         JsonElement jsonElement = JsonParser.parseString(parsedString);
         Mockito.doReturn(Optional.of(jsonElement.getAsJsonObject())).when(jsonMessageParserUnderTest)
             .getJsonObjectFromAnArray(jsonElement);
@@ -345,7 +347,7 @@ class JsonMessageParserTest {
             .build();
 
         String parsedString = message.getParsed();
-        JsonMessageParser jsonMessageParserUnderTest = spy(new JsonMessageParser());
+        JsonMessageParser jsonMessageParserUnderTest = spy(new JsonMessageParser(STAGE_TIMERS));
         JsonElement jsonElement = JsonParser.parseString(parsedString);
         Mockito.doReturn(Optional.of(jsonElement.getAsJsonObject())).when(jsonMessageParserUnderTest)
             .getJsonObjectFromAnArray(jsonElement);
@@ -370,7 +372,7 @@ class JsonMessageParserTest {
             .build();
 
         String parsedString = message.getParsed();
-        JsonMessageParser jsonMessageParserUnderTest = spy(new JsonMessageParser());
+        JsonMessageParser jsonMessageParserUnderTest = spy(new JsonMessageParser(STAGE_TIMERS));
         JsonElement jsonElement = JsonParser.parseString(parsedString);
         Mockito.doReturn(Optional.of(jsonElement.getAsJsonObject())).when(jsonMessageParserUnderTest)
             .getJsonObjectFromAnArray(jsonElement);
@@ -400,7 +402,7 @@ class JsonMessageParserTest {
             .build();
 
         String parsedString = message.getParsed();
-        JsonMessageParser jsonMessageParserUnderTest = spy(new JsonMessageParser());
+        JsonMessageParser jsonMessageParserUnderTest = spy(new JsonMessageParser(STAGE_TIMERS));
         JsonElement jsonElement = JsonParser.parseString(parsedString);
         Mockito.doReturn(Optional.of(jsonElement.getAsJsonObject())).when(jsonMessageParserUnderTest)
             .getJsonObjectFromAnArray(jsonElement);
@@ -432,7 +434,7 @@ class JsonMessageParserTest {
             .build();
 
         String parsedString = message.getParsed();
-        JsonMessageParser jsonMessageParserUnderTest = spy(new JsonMessageParser());
+        JsonMessageParser jsonMessageParserUnderTest = spy(new JsonMessageParser(STAGE_TIMERS));
         JsonElement jsonElement = JsonParser.parseString(parsedString);
         Mockito.doReturn(Optional.of(jsonElement.getAsJsonObject())).when(jsonMessageParserUnderTest)
             .getJsonObjectFromAnArray(jsonElement);
@@ -497,7 +499,7 @@ class JsonMessageParserTest {
             .build();
 
         String parsedString = message.getParsed();
-        JsonMessageParser jsonMessageParserUnderTest = spy(new JsonMessageParser());
+        JsonMessageParser jsonMessageParserUnderTest = spy(new JsonMessageParser(STAGE_TIMERS));
         JsonElement jsonElement = JsonParser.parseString(parsedString);
         Mockito.doReturn(Optional.of(jsonElement.getAsJsonObject())).when(jsonMessageParserUnderTest)
             .getJsonObjectFromAnArray(jsonElement);
@@ -513,7 +515,7 @@ class JsonMessageParserTest {
             .build();
 
         String parsedString = message.getParsed();
-        JsonMessageParser jsonMessageParserUnderTest = spy(new JsonMessageParser());
+        JsonMessageParser jsonMessageParserUnderTest = spy(new JsonMessageParser(STAGE_TIMERS));
         JsonElement jsonElement = JsonParser.parseString(parsedString);
         Mockito.doReturn(Optional.of(jsonElement.getAsJsonObject())).when(jsonMessageParserUnderTest)
             .getJsonObjectFromAnArray(jsonElement);
@@ -530,7 +532,7 @@ class JsonMessageParserTest {
 
     @Test
     void whenPassingJsonWithNullJsonElement_noFileData() {
-        JsonMessageParser jsonMessageParserUnderTest = spy(new JsonMessageParser());
+        JsonMessageParser jsonMessageParserUnderTest = spy(new JsonMessageParser(STAGE_TIMERS));
         JsonElement jsonElement = JsonParser.parseString("{}");
 
         Mockito.doReturn(Optional.of(jsonElement.getAsJsonObject())).when(jsonMessageParserUnderTest)
@@ -561,7 +563,7 @@ class JsonMessageParserTest {
             .build();
 
         String parsedString = message.getParsed();
-        JsonMessageParser jsonMessageParserUnderTest = spy(new JsonMessageParser());
+        JsonMessageParser jsonMessageParserUnderTest = spy(new JsonMessageParser(STAGE_TIMERS));
         JsonElement jsonElement = JsonParser.parseString(parsedString);
         Mockito.doReturn(Optional.of(jsonElement.getAsJsonObject())).when(jsonMessageParserUnderTest)
             .getJsonObjectFromAnArray(jsonElement);
@@ -592,7 +594,7 @@ class JsonMessageParserTest {
             .build();
 
         String parsedString = message.getParsed();
-        JsonMessageParser jsonMessageParserUnderTest = spy(new JsonMessageParser());
+        JsonMessageParser jsonMessageParserUnderTest = spy(new JsonMessageParser(STAGE_TIMERS));
         JsonElement jsonElement = JsonParser.parseString(parsedString);
         Mockito.doReturn(Optional.of(jsonElement.getAsJsonObject())).when(jsonMessageParserUnderTest)
             .getJsonObjectFromAnArray(jsonElement);
@@ -25,6 +25,7 @@ import com.google.gson.JsonElement;
 import com.google.gson.JsonParser;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.onap.dcaegen2.collectors.datafile.configuration.AppConfig;
 import org.onap.dcaegen2.collectors.datafile.configuration.ConsumerConfiguration;
 import org.onap.dcaegen2.collectors.datafile.exceptions.DatafileTaskException;
@@ -39,8 +40,11 @@ import org.onap.dcaegen2.collectors.datafile.model.ImmutableMessageMetaData;
 import org.onap.dcaegen2.collectors.datafile.model.MessageMetaData;
 import org.onap.dcaegen2.collectors.datafile.service.JsonMessageParser;
 import org.onap.dcaegen2.collectors.datafile.utils.JsonMessage;
+import org.onap.dcaegen2.collectors.datafile.model.StageTimers;
 import org.onap.dcaegen2.collectors.datafile.utils.JsonMessage.AdditionalField;
+import org.onap.dcaegen2.services.sdk.model.streams.dmaap.MessageRouterSource;
 import org.onap.dcaegen2.services.sdk.rest.services.dmaap.client.api.MessageRouterSubscriber;
+import org.onap.dcaegen2.services.sdk.rest.services.dmaap.client.model.ImmutableMessageRouterSubscribeRequest;
 import org.onap.dcaegen2.services.sdk.rest.services.dmaap.client.model.MessageRouterSubscribeRequest;
 import org.onap.dcaegen2.services.sdk.rest.services.dmaap.client.model.config.MessageRouterSubscriberConfig;
 import reactor.core.publisher.Flux;
@@ -50,9 +54,14 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
@@ -244,6 +253,127 @@ public class DMaaPMessageConsumerTest {
         verifyNoMoreInteractions(messageRouterSubscriber);
     }
 
+    @Test
+    public void whenBatchIsFull_NextPollIsLimitedByRemainingCapacity() {
+        messageRouterSubscriber = mock(MessageRouterSubscriber.class);
+        MessageRouterSubscribeRequest request = createSubscribeRequest("OpenDcae-c12");
+        dmaapConsumerConfiguration =
+            new ConsumerConfiguration(mock(MessageRouterSubscriberConfig.class), messageRouterSubscriber, request);
+        when(appConfig.getDmaapConsumerConfiguration()).thenReturn(dmaapConsumerConfiguration);
+
+        AtomicInteger availableMessages = new AtomicInteger(7);
+        when(messageRouterSubscriber.getElements(any())).thenAnswer(invocation -> {
+            MessageRouterSubscribeRequest polled = invocation.getArgument(0);
+            int numberOfMessages = Math.min(polled.limit(), availableMessages.get());
+            availableMessages.addAndGet(-numberOfMessages);
+            return Flux.range(0, numberOfMessages).map(i -> ftpesMessageJson);
+        });
+        JsonMessageParser jsonMessageParserMock = mock(JsonMessageParser.class);
+        when(jsonMessageParserMock.getMessagesFromJson(any())).thenReturn(Flux.just(expectedFtpesMessage));
+
+        AtomicInteger capacityCalls = new AtomicInteger();
+        messageConsumer = new DMaaPMessageConsumer(appConfig, jsonMessageParserMock, new StageTimers(),
+            () -> capacityCalls.getAndIncrement() == 0 ? 2 : 10);
+
+        StepVerifier.create(messageConsumer.getMessageRouterResponse()) //
+            .expectNext(expectedFtpesMessage, expectedFtpesMessage) //
+            .verifyComplete();
+
+        ArgumentCaptor<MessageRouterSubscribeRequest> polls =
+            ArgumentCaptor.forClass(MessageRouterSubscribeRequest.class);
+        verify(messageRouterSubscriber, times(2)).getElements(polls.capture());
+        assertEquals(2, polls.getAllValues().get(0).limit());
+        assertEquals(8, polls.getAllValues().get(1).limit(), "the first full batch is subtracted");
+        assertEquals(0, availableMessages.get());
+    }
+
+    @Test
+    public void whenBatchesAreNotHandedOver_PollingStopsAtCapacity() {
+        messageRouterSubscriber = mock(MessageRouterSubscriber.class);
+        MessageRouterSubscribeRequest request = createSubscribeRequest("OpenDcae-c12");
+        dmaapConsumerConfiguration =
+            new ConsumerConfiguration(mock(MessageRouterSubscriberConfig.class), messageRouterSubscriber, request);
+        when(appConfig.getDmaapConsumerConfiguration()).thenReturn(dmaapConsumerConfiguration);
+
+        // Always full batches
+        when(messageRouterSubscriber.getElements(any())).thenAnswer(invocation -> {
+            MessageRouterSubscribeRequest polled = invocation.getArgument(0);
+            return Flux.range(0, polled.limit()).map(i -> ftpesMessageJson);
+        });
+        // The parser does not take any of the messages, so they all stay outstanding
+        JsonMessageParser jsonMessageParserMock = mock(JsonMessageParser.class);
+        when(jsonMessageParserMock.getMessagesFromJson(any())).thenReturn(Flux.just(expectedFtpesMessage));
+
+        AtomicInteger capacityCalls = new AtomicInteger();
+        messageConsumer = new DMaaPMessageConsumer(appConfig, jsonMessageParserMock, new StageTimers(),
+            () -> capacityCalls.getAndIncrement() == 0 ? 2 : 10);
+
+        StepVerifier.create(messageConsumer.getMessageRouterResponse()) //
+            .expectNext(expectedFtpesMessage, expectedFtpesMessage) //
+            .verifyComplete();
+
+        ArgumentCaptor<MessageRouterSubscribeRequest> polls =
+            ArgumentCaptor.forClass(MessageRouterSubscribeRequest.class);
+        verify(messageRouterSubscriber, times(2)).getElements(polls.capture());
+        assertEquals(2, polls.getAllValues().get(0).limit());
+        assertEquals(8, polls.getAllValues().get(1).limit(), "all outstanding messages are subtracted");
+    }
+
+    @Test
+    public void whenNoCapacity_NoPoll() {
+        messageRouterSubscriber = mock(MessageRouterSubscriber.class);
+        MessageRouterSubscribeRequest request = createSubscribeRequest("OpenDcae-c12");
+        dmaapConsumerConfiguration =
+            new ConsumerConfiguration(mock(MessageRouterSubscriberConfig.class), messageRouterSubscriber, request);
+        when(appConfig.getDmaapConsumerConfiguration()).thenReturn(dmaapConsumerConfiguration);
+
+        messageConsumer =
+            new DMaaPMessageConsumer(appConfig, mock(JsonMessageParser.class), new StageTimers(), () -> 0);
+
+        StepVerifier.create(messageConsumer.getMessageRouterResponse()) //
+            .verifyComplete();
+
+        verifyNoMoreInteractions(messageRouterSubscriber);
+    }
+
+    @Test
+    public void whenSeveralSources_EachIsPolledWithAShareOfTheCapacity() {
+        messageRouterSubscriber = mock(MessageRouterSubscriber.class);
+        Map<String, MessageRouterSubscribeRequest> requests = new LinkedHashMap<>();
+        requests.put("topic1", createSubscribeRequest("OpenDcae-c12"));
+        requests.put("topic2", createSubscribeRequest("OpenDcae-c13"));
+        dmaapConsumerConfiguration =
+            new ConsumerConfiguration(mock(MessageRouterSubscriberConfig.class), messageRouterSubscriber, requests);
+        when(appConfig.getDmaapConsumerConfiguration()).thenReturn(dmaapConsumerConfiguration);
+
+        when(messageRouterSubscriber.getElements(any())).thenReturn(Flux.just(ftpesMessageJson, sftpMessageJson));
+        JsonMessageParser jsonMessageParserMock = mock(JsonMessageParser.class);
+        when(jsonMessageParserMock.getMessagesFromJson(any())).thenReturn(Flux.just(expectedFtpesMessage));
+
+        StageTimers stageTimers = new StageTimers();
+        messageConsumer = new DMaaPMessageConsumer(appConfig, jsonMessageParserMock, stageTimers, () -> 9);
+
+        StepVerifier.create(messageConsumer.getMessageRouterResponse()) //
+            .expectNext(expectedFtpesMessage, expectedFtpesMessage) //
+            .verifyComplete();
+
+        ArgumentCaptor<MessageRouterSubscribeRequest> polls =
+            ArgumentCaptor.forClass(MessageRouterSubscribeRequest.class);
+        verify(messageRouterSubscriber, times(2)).getElements(polls.capture());
+        assertEquals(5, polls.getAllValues().get(0).limit());
+        assertEquals(5, polls.getAllValues().get(1).limit());
+        assertTrue(stageTimers.toString().contains("source topic1"));
+        assertTrue(stageTimers.toString().contains("source topic2"));
+    }
+
+    private static MessageRouterSubscribeRequest createSubscribeRequest(String consumerGroup) {
+        return ImmutableMessageRouterSubscribeRequest.builder() //
+            .sourceDefinition(mock(MessageRouterSource.class)) //
+            .consumerGroup(consumerGroup) //
+            .consumerId("C12") //
+            .build();
+    }
+
     private void prepareMocksForDmaapConsumer(Optional<JsonElement> message,
         FileReadyMessage fileReadyMessageAfterConsume) {
         Flux<JsonElement> messageAsMono = message.isPresent() ? Flux.just(message.get()) : Flux.empty();
@@ -264,7 +394,8 @@ public class DMaaPMessageConsumerTest {
                 .thenReturn(Flux.error(new DatafileTaskException("problemas")));
         }
 
-        messageConsumer = spy(new DMaaPMessageConsumer(appConfig, jsonMessageParserMock));
+        messageConsumer = spy(new DMaaPMessageConsumer(appConfig, jsonMessageParserMock, new StageTimers(),
+            () -> DMaaPMessageConsumer.NO_LIMIT));
     }
 
 }
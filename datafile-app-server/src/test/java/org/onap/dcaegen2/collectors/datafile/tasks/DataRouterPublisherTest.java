@@ -49,7 +49,7 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
-import org.onap.dcaegen2.collectors.datafile.configuration.AppConfig;
+import org.onap.dcaegen2.collectors.datafile.configuration.ConfigSnapshot;
 import org.onap.dcaegen2.collectors.datafile.configuration.PublisherConfiguration;
 import org.onap.dcaegen2.collectors.datafile.exceptions.DatafileTaskException;
 import org.onap.dcaegen2.collectors.datafile.model.Counters;
@@ -96,7 +96,6 @@ class DataRouterPublisherTest {
 
     private static FilePublishInformation filePublishInformation;
     private static DmaapProducerHttpClient httpClientMock;
-    private static AppConfig appConfig;
     private static PublisherConfiguration publisherConfigurationMock = mock(PublisherConfiguration.class);
     private static Map<String, String> context = new HashMap<>();
     private static DataRouterPublisher publisherTaskUnderTestSpy;
@@ -121,14 +120,14 @@ class DataRouterPublisherTest {
             .fileFormatVersion(FILE_FORMAT_VERSION) //
             .context(context) //
             .changeIdentifier(CHANGE_IDENTIFIER) //
+            .config(new ConfigSnapshot(null, Map.of(CHANGE_IDENTIFIER, publisherConfigurationMock), null, null)) //
             .build(); //
-        appConfig = mock(AppConfig.class);
     }
 
     @BeforeEach
     void setUpTest() {
         counters = new Counters();
-        publisherTaskUnderTestSpy = spy(new DataRouterPublisher(appConfig, counters));
+        publisherTaskUnderTestSpy = spy(new DataRouterPublisher(counters));
     }
 
     @Test
@@ -240,9 +239,7 @@ class DataRouterPublisherTest {
     final void prepareMocksForTests(Exception exception, Integer firstResponse, Integer... nextHttpResponses)
         throws Exception {
         httpClientMock = mock(DmaapProducerHttpClient.class);
-        when(appConfig.getPublisherConfiguration(CHANGE_IDENTIFIER)).thenReturn(publisherConfigurationMock);
-        doReturn(publisherConfigurationMock).when(publisherTaskUnderTestSpy).resolveConfiguration(CHANGE_IDENTIFIER);
-        doReturn(httpClientMock).when(publisherTaskUnderTestSpy).resolveClient(CHANGE_IDENTIFIER);
+        doReturn(httpClientMock).when(publisherTaskUnderTestSpy).resolveClient(publisherConfigurationMock);
 
         HttpResponse httpResponseMock = mock(HttpResponse.class);
         if (exception == null) {
@@ -0,0 +1,103 @@
+/*-
+ * ============LICENSE_START======================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * ============LICENSE_END========================================================================
+ */
+
+
+package org.onap.dcaegen2.collectors.datafile.tasks;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.onap.dcaegen2.collectors.datafile.model.FilePublishInformation;
+import org.onap.dcaegen2.collectors.datafile.model.ImmutableFilePublishInformation;
+
+public class FileBundleWriterTest {
+
+    private static final String FEED = "PM_MEAS_FILES";
+
+    @TempDir
+    Path tempDir;
+
+    private FilePublishInformation file(String name, String sourceName, String start, String last, String content)
+        throws IOException {
+        Path localFile = tempDir.resolve(name + sourceName);
+        Files.write(localFile, content.getBytes(StandardCharsets.UTF_8));
+        return ImmutableFilePublishInformation.builder() //
+            .productName("product") //
+            .vendorName("vendor") //
+            .lastEpochMicrosec(last) //
+            .sourceName(sourceName) //
+            .startEpochMicrosec(start) //
+            .timeZoneOffset("UTC+05:00") //
+            .name(name) //
+            .location("sftp://192.168.0.101/" + name) //
+            .internalLocation(localFile) //
+            .compression("gzip") //
+            .fileFormatType("org.3GPP.32.435#measCollec") //
+            .fileFormatVersion("V10") //
+            .changeIdentifier(FEED) //
+            .context(new HashMap<>()) //
+            .build();
+    }
+
+    @Test
+    public void write_bundleHoldsManifestAndFiles() throws IOException {
+        List<FilePublishInformation> files = List.of( //
+            file("A.xml", "node1", "200", "900", "first"), //
+            file("A.xml", "node2", "100", "1000", "second"));
+        Path bundleFile = tempDir.resolve("bundle.zip");
+
+        FilePublishInformation bundle = FileBundleWriter.write(FEED, files, bundleFile);
+
+        assertEquals("bundle.zip", bundle.getName());
+        assertEquals("product", bundle.getProductName());
+        assertEquals("", bundle.getSourceName(), "differing attributes should be empty");
+        assertEquals("100", bundle.getStartEpochMicrosec());
+        assertEquals("1000", bundle.getLastEpochMicrosec());
+        assertEquals(FileBundleWriter.BUNDLE_COMPRESSION, bundle.getCompression());
+        assertEquals(FEED, bundle.getChangeIdentifier());
+        assertEquals(Files.size(bundleFile), bundle.getFileSize());
+
+        List<String> entryNames = new ArrayList<>();
+        List<String> contents = new ArrayList<>();
+        try (ZipInputStream zip = new ZipInputStream(Files.newInputStream(bundleFile))) {
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                entryNames.add(entry.getName());
+                contents.add(new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        assertEquals(List.of(FileBundleWriter.MANIFEST_ENTRY_NAME, "A.xml", "1/A.xml"), entryNames);
+        assertEquals(List.of("first", "second"), contents.subList(1, 3));
+
+        JsonArray manifest = JsonParser.parseString(contents.get(0)).getAsJsonArray();
+        assertEquals(2, manifest.size());
+        JsonObject second = manifest.get(1).getAsJsonObject();
+        assertEquals("1/A.xml", second.get(FileBundleWriter.ENTRY_NAME).getAsString());
+        assertEquals("node2", second.get("sourceName").getAsString());
+    }
+}
@@ -0,0 +1,118 @@
+/*-
+ * ============LICENSE_START======================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * ============LICENSE_END========================================================================
+ */
+
+
+package org.onap.dcaegen2.collectors.datafile.tasks;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.onap.dcaegen2.collectors.datafile.configuration.AppConfig;
+import org.onap.dcaegen2.collectors.datafile.model.FilePublishInformation;
+import org.onap.dcaegen2.collectors.datafile.model.ImmutableFilePublishInformation;
+
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+public class FileBundlerTest {
+
+    private static final String FEED = "PM_MEAS_FILES";
+    private static final Duration MAX_DELAY = Duration.ofSeconds(30);
+
+    private final AppConfig appConfig = mock(AppConfig.class);
+    private final VirtualTimeScheduler scheduler = VirtualTimeScheduler.create();
+    private final List<List<FilePublishInformation>> bundles = new ArrayList<>();
+    private FileBundler testObject;
+
+    @BeforeEach
+    public void setUp() {
+        doReturn(1000L).when(appConfig).getBundleMaxSize();
+        doReturn(3).when(appConfig).getBundleMaxFiles();
+        doReturn(MAX_DELAY).when(appConfig).getBundleMaxDelay();
+        testObject = new FileBundler(appConfig, scheduler, (feed, files) -> bundles.add(files));
+    }
+
+    private static FilePublishInformation file(String changeIdentifier, long size) {
+        return ImmutableFilePublishInformation.builder() //
+            .productName("") //
+            .vendorName("") //
+            .lastEpochMicrosec("") //
+            .sourceName("") //
+            .startEpochMicrosec("") //
+            .timeZoneOffset("") //
+            .name("A20161224.1030-1045.bin.gz") //
+            .location("") //
+            .internalLocation(Paths.get("internalLocation")) //
+            .compression("") //
+            .fileFormatType("") //
+            .fileFormatVersion("") //
+            .changeIdentifier(changeIdentifier) //
+            .fileSize(size) //
+            .context(new HashMap<>()) //
+            .build();
+    }
+
+    @Test
+    public void bundleIsHandedOverWhenMaxFilesIsReached() {
+        testObject.add(file(FEED, 10));
+        testObject.add(file(FEED, 10));
+        assertEquals(0, bundles.size());
+
+        testObject.add(file(FEED, 10));
+        assertEquals(1, bundles.size());
+        assertEquals(3, bundles.get(0).size());
+        assertEquals(0, testObject.getNumberOfPendingFiles());
+    }
+
+    @Test
+    public void bundleIsHandedOverWhenMaxSizeIsReached() {
+        testObject.add(file(FEED, 600));
+        testObject.add(file(FEED, 400));
+
+        assertEquals(1, bundles.size());
+        assertEquals(2, bundles.get(0).size());
+    }
+
+    @Test
+    public void bundleIsHandedOverAfterMaxDelay() {
+        testObject.add(file(FEED, 10));
+        scheduler.advanceTimeBy(MAX_DELAY.minusSeconds(1));
+        assertEquals(0, bundles.size());
+
+        scheduler.advanceTimeBy(Duration.ofSeconds(1));
+        assertEquals(1, bundles.size());
+    }
+
+    @Test
+    public void feedsAreBundledSeparately() {
+        testObject.add(file(FEED, 10));
+        testObject.add(file("OTHER_FEED", 10));
+        testObject.add(file(FEED, 10));
+        assertEquals(3, testObject.getNumberOfPendingFiles());
+
+        testObject.flushAll();
+        assertEquals(2, bundles.size());
+
+        scheduler.advanceTimeBy(MAX_DELAY);
+        assertEquals(2, bundles.size(), "flushed bundles should not be handed over again");
+    }
+}
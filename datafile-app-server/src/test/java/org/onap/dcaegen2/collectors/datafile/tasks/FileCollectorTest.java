@@ -18,42 +18,62 @@
 package org.onap.dcaegen2.collectors.datafile.tasks;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.UnknownHostException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
+
+import javax.net.ssl.SSLHandshakeException;
 
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.onap.dcaegen2.collectors.datafile.configuration.AppConfig;
 import org.onap.dcaegen2.collectors.datafile.configuration.CertificateConfig;
+import org.onap.dcaegen2.collectors.datafile.configuration.ConfigSnapshot;
+import org.onap.dcaegen2.collectors.datafile.configuration.ProcessingSettings;
+import org.onap.dcaegen2.collectors.datafile.exceptions.CircuitBreakerOpenException;
 import org.onap.dcaegen2.collectors.datafile.exceptions.DatafileTaskException;
 import org.onap.dcaegen2.collectors.datafile.exceptions.NonRetryableDatafileTaskException;
 import org.onap.dcaegen2.collectors.datafile.ftp.FtpesClient;
+import org.onap.dcaegen2.collectors.datafile.commons.ContentDigest;
 import org.onap.dcaegen2.collectors.datafile.commons.Scheme;
+import org.onap.dcaegen2.collectors.datafile.commons.TlsProfile;
 import org.onap.dcaegen2.collectors.datafile.ftp.SftpClient;
 import org.onap.dcaegen2.collectors.datafile.http.DfcHttpClient;
-import org.onap.dcaegen2.collectors.datafile.http.DfcHttpsClient;
+import org.onap.dcaegen2.collectors.datafile.http.DfcReactiveHttpsClient;
+import org.onap.dcaegen2.collectors.datafile.model.CircuitBreaker;
+import org.onap.dcaegen2.collectors.datafile.model.CircuitBreakers;
+import org.onap.dcaegen2.collectors.datafile.model.CollectedFile;
 import org.onap.dcaegen2.collectors.datafile.model.Counters;
 import org.onap.dcaegen2.collectors.datafile.model.FileData;
 import org.onap.dcaegen2.collectors.datafile.model.FilePublishInformation;
+import org.onap.dcaegen2.collectors.datafile.model.ImmutableCollectedFile;
 import org.onap.dcaegen2.collectors.datafile.model.ImmutableFileData;
 import org.onap.dcaegen2.collectors.datafile.model.ImmutableFilePublishInformation;
 import org.onap.dcaegen2.collectors.datafile.model.ImmutableMessageMetaData;
 import org.onap.dcaegen2.collectors.datafile.model.MessageMetaData;
+import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 public class FileCollectorTest {
@@ -103,8 +123,8 @@ public class FileCollectorTest {
     private static final String TRUSTED_CA_PASSWORD_PATH = "trustedCAPassword";
     private static final String CHANGE_IDENTIFIER = "PM_MEAS_FILES";
 
-    private static AppConfig appConfigMock = mock(AppConfig.class);
     private static CertificateConfig certificateConfigMock = mock(CertificateConfig.class);
+    private static ConfigSnapshot config = new ConfigSnapshot(null, null, certificateConfigMock, null);
 
     private FtpesClient ftpesClientMock = mock(FtpesClient.class);
 
@@ -112,7 +132,7 @@ public class FileCollectorTest {
     private final Map<String, String> contextMap = new HashMap<>();
 
     private DfcHttpClient dfcHttpClientMock = mock(DfcHttpClient.class);
-    private DfcHttpsClient dfcHttpsClientMock = mock(DfcHttpsClient.class);
+    private DfcReactiveHttpsClient dfcHttpsClientMock = mock(DfcReactiveHttpsClient.class);
 
     private Counters counters;
 
@@ -162,7 +182,6 @@ public class FileCollectorTest {
 
     @BeforeAll
     static void setUpConfiguration() {
-        when(appConfigMock.getCertificateConfiguration()).thenReturn(certificateConfigMock);
         when(certificateConfigMock.keyCert()).thenReturn(CERTIFICATE_KEY_PATH);
         when(certificateConfigMock.keyPasswordPath()).thenReturn(CERTIFICATE_KEY_PASSWORD_PATH);
         when(certificateConfigMock.trustedCa()).thenReturn(TRUSTED_CA_PATH);
@@ -176,15 +195,15 @@ public class FileCollectorTest {
 
     @Test
     public void whenFtpesFile_returnCorrectResponse() throws Exception {
-        FileCollector collectorUndetTest = spy(new FileCollector(appConfigMock, counters));
-        doReturn(ftpesClientMock).when(collectorUndetTest).createFtpesClient(any());
+        FileCollector collectorUndetTest = spy(new FileCollector(counters));
+        doReturn(ftpesClientMock).when(collectorUndetTest).createFtpesClient(any(), any());
 
         FileData fileData = createFileData(FTPES_LOCATION_NO_PORT, Scheme.FTPES);
 
         FilePublishInformation expectedfilePublishInformation =
             createExpectedFilePublishInformation(FTPES_LOCATION_NO_PORT);
 
-        StepVerifier.create(collectorUndetTest.collectFile(fileData, 3, Duration.ofSeconds(0), contextMap))
+        StepVerifier.create(collectorUndetTest.collectFile(fileData, config, 3, Duration.ofSeconds(0), contextMap))
             .expectNext(expectedfilePublishInformation) //
             .verifyComplete();
 
@@ -202,14 +221,14 @@ public class FileCollectorTest {
 
     @Test
     public void whenSftpFile_returnCorrectResponse() throws Exception {
-        FileCollector collectorUndetTest = spy(new FileCollector(appConfigMock, counters));
-        doReturn(sftpClientMock).when(collectorUndetTest).createSftpClient(any());
+        FileCollector collectorUndetTest = spy(new FileCollector(counters));
+        doReturn(sftpClientMock).when(collectorUndetTest).createSftpClient(any(), any());
 
         FileData fileData = createFileData(SFTP_LOCATION_NO_PORT, Scheme.SFTP);
         FilePublishInformation expectedfilePublishInformation =
             createExpectedFilePublishInformation(SFTP_LOCATION_NO_PORT);
 
-        StepVerifier.create(collectorUndetTest.collectFile(fileData, 3, Duration.ofSeconds(0), contextMap))
+        StepVerifier.create(collectorUndetTest.collectFile(fileData, config, 3, Duration.ofSeconds(0), contextMap))
             .expectNext(expectedfilePublishInformation) //
             .verifyComplete();
 
@@ -217,7 +236,7 @@ public class FileCollectorTest {
         fileData = createFileData(SFTP_LOCATION, Scheme.SFTP);
         expectedfilePublishInformation = createExpectedFilePublishInformation(SFTP_LOCATION);
 
-        StepVerifier.create(collectorUndetTest.collectFile(fileData, 3, Duration.ofSeconds(0), contextMap))
+        StepVerifier.create(collectorUndetTest.collectFile(fileData, config, 3, Duration.ofSeconds(0), contextMap))
             .expectNext(expectedfilePublishInformation) //
             .verifyComplete();
 
@@ -231,15 +250,17 @@ public class FileCollectorTest {
 
     @Test
     public void whenHttpFile_returnCorrectResponse() throws Exception {
-        FileCollector collectorUndetTest = spy(new FileCollector(appConfigMock, counters));
+        FileCollector collectorUndetTest = spy(new FileCollector(counters));
         doReturn(dfcHttpClientMock).when(collectorUndetTest).createHttpClient(any());
+        doReturn(Mono.just(CollectedFile.of(LOCAL_FILE_LOCATION, ContentDigest.none()))).when(dfcHttpClientMock)
+            .collect(any(), any());
 
         FileData fileData = createFileData(HTTP_LOCATION_NO_PORT, Scheme.HTTP);
 
         FilePublishInformation expectedfilePublishInformation =
                 createExpectedFilePublishInformation(HTTP_LOCATION_NO_PORT);
 
-        StepVerifier.create(collectorUndetTest.collectFile(fileData, 3, Duration.ofSeconds(0), contextMap))
+        StepVerifier.create(collectorUndetTest.collectFile(fileData, config, 3, Duration.ofSeconds(0), contextMap))
                 .expectNext(expectedfilePublishInformation) //
                 .verifyComplete();
 
@@ -247,13 +268,11 @@ public class FileCollectorTest {
         fileData = createFileData(HTTP_LOCATION, Scheme.HTTP);
         expectedfilePublishInformation = createExpectedFilePublishInformation(HTTP_LOCATION);
 
-        StepVerifier.create(collectorUndetTest.collectFile(fileData, 3, Duration.ofSeconds(0), contextMap))
+        StepVerifier.create(collectorUndetTest.collectFile(fileData, config, 3, Duration.ofSeconds(0), contextMap))
                 .expectNext(expectedfilePublishInformation) //
                 .verifyComplete();
 
-        verify(dfcHttpClientMock, times(2)).open();
-        verify(dfcHttpClientMock, times(2)).collectFile(REMOTE_FILE_LOCATION, LOCAL_FILE_LOCATION);
-        verify(dfcHttpClientMock, times(2)).close();
+        verify(dfcHttpClientMock, times(2)).collect(any(), any());
         verifyNoMoreInteractions(dfcHttpClientMock);
 
         assertEquals(2, counters.getNoOfCollectedFiles(),"collectedFiles should have been 1");
@@ -261,17 +280,91 @@ public class FileCollectorTest {
         assertEquals(0, counters.getNoOfFailedHttpAttempts(),"failedHttpAttempts should have been 0");
     }
 
+    @Test
+    public void whenFileIsCollected_capturedConfigurationIsUsed() throws Exception {
+        ConfigSnapshot capturedConfig = config.withSettings(new ProcessingSettings(ContentDigest.Algorithm.SHA_256,
+            Duration.ZERO, 0, 0, TlsProfile.DEFAULT));
+        FileCollector collectorUndetTest = spy(new FileCollector(counters));
+        doReturn(dfcHttpClientMock).when(collectorUndetTest).createHttpClient(any());
+        doReturn(Mono.just(CollectedFile.of(LOCAL_FILE_LOCATION, ContentDigest.none()))).when(dfcHttpClientMock)
+            .collect(any(), any());
+
+        FileData fileData = createFileData(HTTP_LOCATION, Scheme.HTTP);
+
+        StepVerifier.create(collectorUndetTest.collectFile(fileData, capturedConfig, 0, Duration.ZERO, contextMap))
+            .assertNext(publishInfo -> assertSame(capturedConfig, publishInfo.getConfig())) //
+            .verifyComplete();
+
+        verify(dfcHttpClientMock).collect(any(), argThat(ContentDigest::isEnabled));
+    }
+
+    @Test
+    public void whenOnlyDedupeIsEnabled_digestIsNotPublished() throws Exception {
+        ConfigSnapshot capturedConfig = config.withSettings(new ProcessingSettings(ContentDigest.Algorithm.NONE,
+            Duration.ofHours(1), 0, 0, TlsProfile.DEFAULT));
+        FileCollector collectorUndetTest = spy(new FileCollector(counters));
+        doReturn(dfcHttpClientMock).when(collectorUndetTest).createHttpClient(any());
+        CollectedFile collectedFile = ImmutableCollectedFile.builder() //
+            .localFile(LOCAL_FILE_LOCATION) //
+            .size(100) //
+            .checksum("sha-256:abcd") //
+            .contentDigest("sha-256:abcd") //
+            .build();
+        doReturn(Mono.just(collectedFile)).when(dfcHttpClientMock).collect(any(), any());
+
+        FileData fileData = createFileData(HTTP_LOCATION, Scheme.HTTP);
+
+        StepVerifier.create(collectorUndetTest.collectFile(fileData, capturedConfig, 0, Duration.ZERO, contextMap))
+            .assertNext(publishInfo -> {
+                assertEquals(Optional.empty(), publishInfo.getChecksum());
+                assertEquals(Optional.of("sha-256:abcd"), publishInfo.getContentDigest());
+            }) //
+            .verifyComplete();
+
+        verify(dfcHttpClientMock).collect(any(), argThat(ContentDigest::isEnabled));
+    }
+
+    @Test
+    public void whenCrc32cIsPublishedAndDedupeIsEnabled_sha256IsUsedForDedupe() throws Exception {
+        ConfigSnapshot capturedConfig = config.withSettings(new ProcessingSettings(ContentDigest.Algorithm.CRC32C,
+            Duration.ofHours(1), 0, 0, TlsProfile.DEFAULT));
+        FileCollector collectorUndetTest = spy(new FileCollector(counters));
+        doReturn(dfcHttpClientMock).when(collectorUndetTest).createHttpClient(any());
+        CollectedFile collectedFile = ImmutableCollectedFile.builder() //
+            .localFile(LOCAL_FILE_LOCATION) //
+            .size(100) //
+            .checksum("crc32c:875e7efe") //
+            .contentDigest("sha-256:abcd") //
+            .build();
+        doReturn(Mono.just(collectedFile)).when(dfcHttpClientMock).collect(any(), any());
+
+        FileData fileData = createFileData(HTTP_LOCATION, Scheme.HTTP);
+
+        StepVerifier.create(collectorUndetTest.collectFile(fileData, capturedConfig, 0, Duration.ZERO, contextMap))
+            .assertNext(publishInfo -> {
+                assertEquals(Optional.of("crc32c:875e7efe"), publishInfo.getChecksum());
+                assertEquals(Optional.of("sha-256:abcd"), publishInfo.getContentDigest());
+            }) //
+            .verifyComplete();
+
+        verify(dfcHttpClientMock).collect(any(),
+            argThat(digest -> digest.getValue().get().startsWith("crc32c:")
+                && digest.getValue(ContentDigest.Algorithm.SHA_256).isPresent()));
+    }
+
     @Test
     public void whenHttpsFile_returnCorrectResponse() throws Exception {
-        FileCollector collectorUndetTest = spy(new FileCollector(appConfigMock, counters));
-        doReturn(dfcHttpsClientMock).when(collectorUndetTest).createHttpsClient(any());
+        FileCollector collectorUndetTest = spy(new FileCollector(counters));
+        doReturn(dfcHttpsClientMock).when(collectorUndetTest).createHttpsClient(any(), any());
+        doReturn(Mono.just(CollectedFile.of(LOCAL_FILE_LOCATION, ContentDigest.none()))).when(dfcHttpsClientMock)
+            .collect(any(), any());
 
         FileData fileData = createFileData(HTTPS_LOCATION_NO_PORT, Scheme.HTTPS);
 
         FilePublishInformation expectedfilePublishInformation =
                 createExpectedFilePublishInformation(HTTPS_LOCATION_NO_PORT);
 
-        StepVerifier.create(collectorUndetTest.collectFile(fileData, 3, Duration.ofSeconds(0), contextMap))
+        StepVerifier.create(collectorUndetTest.collectFile(fileData, config, 3, Duration.ofSeconds(0), contextMap))
                 .expectNext(expectedfilePublishInformation) //
                 .verifyComplete();
 
@@ -279,13 +372,11 @@ public class FileCollectorTest {
         fileData = createFileData(HTTPS_LOCATION, Scheme.HTTPS);
         expectedfilePublishInformation = createExpectedFilePublishInformation(HTTPS_LOCATION);
 
-        StepVerifier.create(collectorUndetTest.collectFile(fileData, 3, Duration.ofSeconds(0), contextMap))
+        StepVerifier.create(collectorUndetTest.collectFile(fileData, config, 3, Duration.ofSeconds(0), contextMap))
                 .expectNext(expectedfilePublishInformation) //
                 .verifyComplete();
 
-        verify(dfcHttpsClientMock, times(2)).open();
-        verify(dfcHttpsClientMock, times(2)).collectFile(REMOTE_FILE_LOCATION, LOCAL_FILE_LOCATION);
-        verify(dfcHttpsClientMock, times(2)).close();
+        verify(dfcHttpsClientMock, times(2)).collect(any(), any());
         verifyNoMoreInteractions(dfcHttpsClientMock);
 
         assertEquals(2, counters.getNoOfCollectedFiles(),"collectedFiles should have been 1");
@@ -293,17 +384,35 @@ public class FileCollectorTest {
         assertEquals(0, counters.getNoOfFailedHttpAttempts(),"failedHttpAttempts should have been 0");
     }
 
+    @Test
+    public void whenHttpFileTimesOut_retryAndFail() throws Exception {
+        FileCollector collectorUndetTest =
+            spy(new FileCollector(counters, new CircuitBreakers(), Duration.ofMillis(10)));
+        doReturn(dfcHttpClientMock).when(collectorUndetTest).createHttpClient(any());
+        doReturn(Mono.never()).when(dfcHttpClientMock).collect(any(), any());
+
+        FileData fileData = createFileData(HTTP_LOCATION, Scheme.HTTP);
+
+        StepVerifier.create(collectorUndetTest.collectFile(fileData, config, 1, Duration.ofSeconds(0), contextMap))
+            .expectErrorMessage("Retries exhausted: 1/1") //
+            .verify();
+
+        verify(dfcHttpClientMock, times(2)).collect(any(), any());
+        assertEquals(0, counters.getNoOfCollectedFiles(), "collectedFiles should have been 0");
+        assertEquals(2, counters.getNoOfFailedHttpAttempts(), "failedHttpAttempts should have been 2");
+    }
+
     @Test
     public void whenTlsDisabled_ThrowExceptionForHttpsFile() {
-        when(appConfigMock.getCertificateConfiguration().enableCertAuth()).thenReturn(false);
-        FileCollector collectorUndetTest = spy(new FileCollector(appConfigMock, counters));
+        when(certificateConfigMock.enableCertAuth()).thenReturn(false);
+        FileCollector collectorUndetTest = spy(new FileCollector(counters));
         FileData fileData = createFileData(HTTPS_LOCATION, Scheme.HTTPS);
 
-        StepVerifier.create(collectorUndetTest.collectFile(fileData, 3, Duration.ofSeconds(0), contextMap))
+        StepVerifier.create(collectorUndetTest.collectFile(fileData, config, 3, Duration.ofSeconds(0), contextMap))
             .expectErrorMessage("Retries exhausted: 3/3")
             .verify();
 
-        StepVerifier.create(collectorUndetTest.collectFile(fileData, 3, Duration.ofSeconds(0), contextMap))
+        StepVerifier.create(collectorUndetTest.collectFile(fileData, config, 3, Duration.ofSeconds(0), contextMap))
             .consumeErrorWith(throwable ->
                 assertEquals("HTTPS error: TLS connection is disabled", throwable.getCause().getMessage()))
             .verify();
@@ -311,15 +420,15 @@ public class FileCollectorTest {
 
     @Test
     public void whenTlsDisabled_ThrowExceptionForFtpesFile() {
-        when(appConfigMock.getCertificateConfiguration().enableCertAuth()).thenReturn(false);
-        FileCollector collectorUndetTest = spy(new FileCollector(appConfigMock, counters));
+        when(certificateConfigMock.enableCertAuth()).thenReturn(false);
+        FileCollector collectorUndetTest = spy(new FileCollector(counters));
         FileData fileData = createFileData(FTPES_LOCATION, Scheme.FTPES);
 
-        StepVerifier.create(collectorUndetTest.collectFile(fileData, 3, Duration.ofSeconds(0), contextMap))
+        StepVerifier.create(collectorUndetTest.collectFile(fileData, config, 3, Duration.ofSeconds(0), contextMap))
             .expectErrorMessage("Retries exhausted: 3/3")
             .verify();
 
-        StepVerifier.create(collectorUndetTest.collectFile(fileData, 3, Duration.ofSeconds(0), contextMap))
+        StepVerifier.create(collectorUndetTest.collectFile(fileData, config, 3, Duration.ofSeconds(0), contextMap))
             .consumeErrorWith(throwable ->
                 assertEquals("FTPES error: TLS connection is disabled", throwable.getCause().getMessage()))
             .verify();
@@ -327,14 +436,14 @@ public class FileCollectorTest {
 
     @Test
     public void whenFtpesFileAlwaysFail_retryAndFail() throws Exception {
-        FileCollector collectorUndetTest = spy(new FileCollector(appConfigMock, counters));
-        doReturn(ftpesClientMock).when(collectorUndetTest).createFtpesClient(any());
+        FileCollector collectorUndetTest = spy(new FileCollector(counters));
+        doReturn(ftpesClientMock).when(collectorUndetTest).createFtpesClient(any(), any());
 
         FileData fileData = createFileData(FTPES_LOCATION, Scheme.FTPES);
         doThrow(new DatafileTaskException("Unable to collect file.")).when(ftpesClientMock)
             .collectFile(REMOTE_FILE_LOCATION, LOCAL_FILE_LOCATION);
 
-        StepVerifier.create(collectorUndetTest.collectFile(fileData, 3, Duration.ofSeconds(0), contextMap))
+        StepVerifier.create(collectorUndetTest.collectFile(fileData, config, 3, Duration.ofSeconds(0), contextMap))
             .expectErrorMessage("Retries exhausted: 3/3") //
             .verify();
 
@@ -347,14 +456,14 @@ public class FileCollectorTest {
 
     @Test
     public void whenFtpesFileAlwaysFail_failWithoutRetry() throws Exception {
-        FileCollector collectorUndetTest = spy(new FileCollector(appConfigMock, counters));
-        doReturn(ftpesClientMock).when(collectorUndetTest).createFtpesClient(any());
+        FileCollector collectorUndetTest = spy(new FileCollector(counters));
+        doReturn(ftpesClientMock).when(collectorUndetTest).createFtpesClient(any(), any());
 
         FileData fileData = createFileData(FTPES_LOCATION, Scheme.FTPES);
         doThrow(new NonRetryableDatafileTaskException("Unable to collect file.")).when(ftpesClientMock)
             .collectFile(REMOTE_FILE_LOCATION, LOCAL_FILE_LOCATION);
 
-        StepVerifier.create(collectorUndetTest.collectFile(fileData, 3, Duration.ofSeconds(0), contextMap))
+        StepVerifier.create(collectorUndetTest.collectFile(fileData, config, 3, Duration.ofSeconds(0), contextMap))
             .expectErrorMessage("Non retryable file transfer failure") //
             .verify();
 
@@ -367,8 +476,8 @@ public class FileCollectorTest {
 
     @Test
     public void whenFtpesFileFailOnce_retryAndReturnCorrectResponse() throws Exception {
-        FileCollector collectorUndetTest = spy(new FileCollector(appConfigMock, counters));
-        doReturn(ftpesClientMock).when(collectorUndetTest).createFtpesClient(any());
+        FileCollector collectorUndetTest = spy(new FileCollector(counters));
+        doReturn(ftpesClientMock).when(collectorUndetTest).createFtpesClient(any(), any());
         doThrow(new DatafileTaskException("Unable to collect file.")).doNothing().when(ftpesClientMock)
             .collectFile(REMOTE_FILE_LOCATION, LOCAL_FILE_LOCATION);
 
@@ -377,7 +486,7 @@ public class FileCollectorTest {
 
         FileData fileData = createFileData(FTPES_LOCATION_NO_PORT, Scheme.FTPES);
 
-        StepVerifier.create(collectorUndetTest.collectFile(fileData, 3, Duration.ofSeconds(0), contextMap))
+        StepVerifier.create(collectorUndetTest.collectFile(fileData, config, 3, Duration.ofSeconds(0), contextMap))
             .expectNext(expectedfilePublishInformation) //
             .verifyComplete();
 
@@ -387,4 +496,93 @@ public class FileCollectorTest {
         assertEquals(1, counters.getNoOfFailedFtpAttempts(),"failedFtpAttempts should have been 1");
         assertEquals(0, counters.getNoOfFailedHttpAttempts(),"failedHttpAttempts should have been 0");
     }
+
+    @Test
+    public void whenCircuitBreakerOpen_failFastWithoutConnecting() throws Exception {
+        CircuitBreakers circuitBreakers = new CircuitBreakers();
+        FileCollector collectorUndetTest = spy(new FileCollector(counters, circuitBreakers));
+        doReturn(ftpesClientMock).when(collectorUndetTest).createFtpesClient(any(), any());
+
+        FileData fileData = createFileData(FTPES_LOCATION, Scheme.FTPES);
+        CircuitBreaker circuitBreaker = circuitBreakers.get(fileData);
+        for (int i = 0; i < CircuitBreakers.DEFAULT_FAILURE_THRESHOLD; ++i) {
+            circuitBreaker.onFailure();
+        }
+
+        // The file is not retried while the breaker is open, it is deferred by the caller
+        StepVerifier.create(collectorUndetTest.collectFile(fileData, config, 3, Duration.ofSeconds(0), contextMap))
+            .expectError(CircuitBreakerOpenException.class) //
+            .verify();
+
+        verifyNoMoreInteractions(ftpesClientMock);
+        assertEquals(1, circuitBreaker.snapshot().getRejectedAttempts());
+        assertEquals(0, counters.getNoOfFailedFtpAttempts(), "failedFtpAttempts should have been 0");
+    }
+
+    @Test
+    public void whenConnectionRefused_circuitBreakerOpens() throws Exception {
+        CircuitBreakers circuitBreakers = new CircuitBreakers();
+        FileCollector collectorUndetTest = spy(new FileCollector(counters, circuitBreakers));
+        doReturn(ftpesClientMock).when(collectorUndetTest).createFtpesClient(any(), any());
+        doThrow(new DatafileTaskException("Could not open connection", new ConnectException("Connection refused")))
+            .when(ftpesClientMock).open();
+
+        FileData fileData = createFileData(FTPES_LOCATION, Scheme.FTPES);
+        StepVerifier.create(collectorUndetTest.collectFile(fileData, config, 10, Duration.ofSeconds(0), contextMap))
+            .expectError(CircuitBreakerOpenException.class) //
+            .verify();
+
+        verify(ftpesClientMock, times(CircuitBreakers.DEFAULT_FAILURE_THRESHOLD)).open();
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreakers.get(fileData).getState());
+    }
+
+    @Test
+    public void whenTransferFailsAfterConnecting_circuitBreakerNotCounted() throws Exception {
+        CircuitBreakers circuitBreakers = new CircuitBreakers();
+        FileCollector collectorUndetTest = spy(new FileCollector(counters, circuitBreakers));
+        doReturn(ftpesClientMock).when(collectorUndetTest).createFtpesClient(any(), any());
+        doThrow(new DatafileTaskException("Could not fetch file", new IOException("Connection reset")))
+            .when(ftpesClientMock).collectFile(REMOTE_FILE_LOCATION, LOCAL_FILE_LOCATION);
+
+        FileData fileData = createFileData(FTPES_LOCATION, Scheme.FTPES);
+        StepVerifier.create(collectorUndetTest.collectFile(fileData, config, 10, Duration.ofSeconds(0), contextMap))
+            .expectErrorMessage("Retries exhausted: 10/10") //
+            .verify();
+
+        CircuitBreaker circuitBreaker = circuitBreakers.get(fileData);
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertEquals(0, circuitBreaker.snapshot().getConsecutiveFailures());
+    }
+
+    @Test
+    public void whenAttemptCancelledOrUnexpectedError_circuitBreakerPermissionReleased() throws Exception {
+        CircuitBreakers circuitBreakers = mock(CircuitBreakers.class);
+        CircuitBreaker circuitBreaker = mock(CircuitBreaker.class);
+        when(circuitBreakers.get(any())).thenReturn(circuitBreaker);
+        when(circuitBreaker.tryAcquirePermission()).thenReturn(true);
+        FileCollector collectorUndetTest = spy(new FileCollector(counters, circuitBreakers));
+        doReturn(dfcHttpClientMock).when(collectorUndetTest).createHttpClient(any());
+        doReturn(Mono.never(), Mono.error(new IllegalStateException("bug"))).when(dfcHttpClientMock)
+            .collect(any(), any());
+
+        FileData fileData = createFileData(HTTP_LOCATION, Scheme.HTTP);
+        collectorUndetTest.collectFile(fileData, config, 0, Duration.ZERO, contextMap).subscribe().dispose();
+        verify(circuitBreaker, times(1)).releasePermission();
+
+        StepVerifier.create(collectorUndetTest.collectFile(fileData, config, 0, Duration.ZERO, contextMap))
+            .expectError(IllegalStateException.class) //
+            .verify();
+        verify(circuitBreaker, times(2)).releasePermission();
+        verify(circuitBreaker, never()).onFailure();
+    }
+
+    @Test
+    public void isConnectFailure_onlyUnreachableServerOrFailedHandshake() {
+        assertTrue(FileCollector.isConnectFailure(
+            new DatafileTaskException("failed", new UnknownHostException("unknown.host"))));
+        assertTrue(FileCollector.isConnectFailure(
+            new NonRetryableDatafileTaskException("failed", new SSLHandshakeException("bad certificate"))));
+        assertFalse(FileCollector.isConnectFailure(new DatafileTaskException("failed", new IOException("reset"))));
+        assertFalse(FileCollector.isConnectFailure(new DatafileTaskException("Timeout after PT15M")));
+    }
 }
@@ -0,0 +1,142 @@
+/*-
+ * ============LICENSE_START======================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * ============LICENSE_END========================================================================
+ */
+
+
+package org.onap.dcaegen2.collectors.datafile.tasks;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class RetryQueueTest {
+
+    private static final Duration TICK = Duration.ofMillis(100);
+    private static final int WHEEL_SIZE = 8;
+
+    private final AtomicLong clock = new AtomicLong();
+    private final List<Runnable> dispatched = new CopyOnWriteArrayList<>();
+    private RetryQueue queue;
+
+    @BeforeEach
+    public void setUp() {
+        queue = new RetryQueue(dispatched::add, TICK, WHEEL_SIZE, 2, clock::get);
+    }
+
+    private void elapse(Duration duration) {
+        clock.addAndGet(duration.toNanos());
+        queue.advance();
+    }
+
+    @Test
+    public void retryIsDispatchedWhenDue() {
+        Runnable retry = () -> {
+        };
+        assertTrue(queue.schedule(retry, Duration.ofMillis(250)));
+        assertEquals(1, queue.size());
+
+        elapse(Duration.ofMillis(200));
+        assertTrue(dispatched.isEmpty());
+
+        elapse(Duration.ofMillis(100));
+        assertEquals(List.of(retry), dispatched);
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void retryLongerThanOneRevolutionWaitsForItsRound() {
+        // One revolution of the wheel is 800 ms
+        assertTrue(queue.schedule(() -> {
+        }, Duration.ofMillis(1000)));
+
+        elapse(Duration.ofMillis(900));
+        assertTrue(dispatched.isEmpty());
+
+        elapse(Duration.ofMillis(100));
+        assertEquals(1, dispatched.size());
+    }
+
+    @Test
+    public void retryScheduledAfterItsBucketPassedIsDispatchedOnNextTick() {
+        elapse(Duration.ofMillis(500));
+        assertTrue(queue.schedule(() -> {
+        }, Duration.ZERO));
+
+        elapse(TICK);
+        assertEquals(1, dispatched.size());
+    }
+
+    @Test
+    public void retryBudget() {
+        assertTrue(queue.schedule(() -> {
+        }, TICK));
+        assertTrue(queue.schedule(() -> {
+        }, TICK));
+        assertFalse(queue.schedule(() -> {
+        }, TICK), "the retry budget should be used up");
+
+        elapse(TICK);
+        assertEquals(2, dispatched.size());
+        assertTrue(queue.schedule(() -> {
+        }, TICK), "the budget should be returned when the retries are dispatched");
+    }
+
+    @Test
+    public void clear_dropsParkedRetries() {
+        assertTrue(queue.schedule(() -> {
+        }, Duration.ofMillis(100)));
+        elapse(Duration.ofMillis(50)); // Moved from the incoming queue to the wheel
+        assertTrue(queue.schedule(() -> {
+        }, Duration.ofMillis(100)));
+
+        assertEquals(2, queue.clear());
+        assertEquals(0, queue.size());
+
+        elapse(Duration.ofSeconds(1));
+        assertTrue(dispatched.isEmpty());
+        assertTrue(queue.schedule(() -> {
+        }, Duration.ZERO), "the budget should have been released");
+    }
+
+    @Test
+    public void clear_runsOnDroppedOfDroppedRetries() {
+        List<String> droppedRetries = new ArrayList<>();
+        assertTrue(queue.schedule(() -> {
+        }, () -> droppedRetries.add("parked"), Duration.ofSeconds(1)));
+        assertTrue(queue.schedule(() -> {
+        }, () -> droppedRetries.add("dispatched"), TICK));
+        elapse(TICK);
+        assertEquals(1, dispatched.size());
+
+        assertEquals(1, queue.clear());
+        assertEquals(List.of("parked"), droppedRetries);
+    }
+
+    @Test
+    public void backoffIsExponentialWithJitter() {
+        Duration first = Duration.ofSeconds(2);
+        for (int i = 0; i < 100; ++i) {
+            long millis = RetryQueue.backoff(first, 2).toMillis();
+            assertTrue(millis >= 4000 && millis <= 12000, "backoff out of range: " + millis);
+        }
+    }
+}
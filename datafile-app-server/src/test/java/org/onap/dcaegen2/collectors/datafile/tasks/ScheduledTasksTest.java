@@ -28,9 +28,13 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.notNull;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -39,6 +43,8 @@ import static org.mockito.Mockito.verifyNoMoreInteractions;
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.core.read.ListAppender;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.Duration;
 import java.time.Instant;
@@ -50,12 +56,22 @@ import java.util.Map;
 import org.apache.commons.lang3.StringUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
 import org.onap.dcaegen2.collectors.datafile.configuration.AppConfig;
+import org.onap.dcaegen2.collectors.datafile.configuration.ConfigSnapshot;
 import org.onap.dcaegen2.collectors.datafile.configuration.ConsumerConfiguration;
 import org.onap.dcaegen2.collectors.datafile.configuration.ImmutablePublisherConfiguration;
+import org.onap.dcaegen2.collectors.datafile.configuration.ProcessingSettings;
 import org.onap.dcaegen2.collectors.datafile.configuration.PublisherConfiguration;
+import org.onap.dcaegen2.collectors.datafile.exceptions.CircuitBreakerOpenException;
 import org.onap.dcaegen2.collectors.datafile.exceptions.DatafileTaskException;
+import org.onap.dcaegen2.collectors.datafile.exceptions.NonRetryableDatafileTaskException;
+import org.onap.dcaegen2.collectors.datafile.commons.ContentDigest;
+import org.onap.dcaegen2.collectors.datafile.commons.ReplicaPartitioner;
 import org.onap.dcaegen2.collectors.datafile.commons.Scheme;
+import org.onap.dcaegen2.collectors.datafile.commons.TlsProfile;
+import org.onap.dcaegen2.collectors.datafile.model.DrainStatus;
 import org.onap.dcaegen2.collectors.datafile.model.FileData;
 import org.onap.dcaegen2.collectors.datafile.model.FilePublishInformation;
 import org.onap.dcaegen2.collectors.datafile.model.FileReadyMessage;
@@ -89,6 +105,7 @@ public class ScheduledTasksTest {
     private FileCollector fileCollectorMock;
     private DataRouterPublisher dataRouterMock;
     private Map<String, String> contextMap = new HashMap<String, String>();
+    private ConfigSnapshot configSnapshot;
 
     private final String publishUrl = "https://54.45.33.2:1234/unauthenticated.VES_NOTIFICATION_OUTPUT";
 
@@ -105,6 +122,7 @@ public class ScheduledTasksTest {
         doReturn(publishedCheckerMock).when(testedObject).createPublishedChecker();
         doReturn(fileCollectorMock).when(testedObject).createFileCollector();
         doReturn(dataRouterMock).when(testedObject).createDataRouterPublisher();
+        doReturn(ReplicaPartitioner.SINGLE_REPLICA).when(appConfig).getReplicaPartitioner();
     }
 
     private void setUpConfiguration() throws DatafileTaskException {
@@ -127,7 +145,9 @@ public class ScheduledTasksTest {
 
         doReturn(dmaapPublisherConfiguration).when(appConfig).getPublisherConfiguration(CHANGE_IDENTIFIER);
         doReturn(dmaapConsumerConfiguration).when(appConfig).getDmaapConsumerConfiguration();
-        doReturn(true).when(appConfig).isFeedConfigured(CHANGE_IDENTIFIER);
+        configSnapshot = new ConfigSnapshot(dmaapConsumerConfiguration,
+            Map.of(CHANGE_IDENTIFIER, dmaapPublisherConfiguration), null, null);
+        doReturn(configSnapshot).when(appConfig).getConfigSnapshot();
     }
 
     private MessageMetaData messageMetaData() {
@@ -198,7 +218,8 @@ public class ScheduledTasksTest {
     }
 
     @Test
-    public void purgeFileCache() {
+    public void purgeFileCache() throws DatafileTaskException {
+        setUpConfiguration();
         testedObject.publishedFilesCache.put(Paths.get("file.xml"));
 
         testedObject.purgeCachedInformation(Instant.MAX);
@@ -206,6 +227,92 @@ public class ScheduledTasksTest {
         assertEquals(0, testedObject.publishedFilesCacheSize());
     }
 
+    @Test
+    public void drain_noFilesInProgress_drained() throws DatafileTaskException {
+        setUpConfiguration();
+
+        StepVerifier //
+            .create(testedObject.drain(Duration.ofSeconds(10))) //
+            .expectNextMatches(status -> status.getState() == DrainStatus.State.DRAINED) //
+            .verifyComplete();
+
+        testedObject.executeDatafileMainTask();
+        verifyNoMoreInteractions(consumerMock);
+
+        testedObject.resumeIntake();
+        assertEquals(DrainStatus.State.RUNNING, testedObject.getDrainStatus().getState());
+    }
+
+    @Test
+    public void drain_fileInProgress_waitsUntilPublished() throws DatafileTaskException {
+        setUpConfiguration();
+
+        Flux<FileReadyMessage> fileReadyMessages = fileReadyMessageFlux(1, 1, true);
+        doReturn(fileReadyMessages).when(consumerMock).getMessageRouterResponse();
+        doReturn(false).when(publishedCheckerMock).isFilePublished(anyString(), anyString(), any());
+
+        Mono<FilePublishInformation> collectedFile = Mono.just(filePublishInformation());
+        doReturn(collectedFile.delayElement(Duration.ofSeconds(1))).when(fileCollectorMock).collectFile(notNull(),
+            notNull(), anyLong(), notNull(), notNull());
+        doReturn(collectedFile).when(dataRouterMock).publishFile(notNull(), anyLong(), notNull());
+
+        testedObject.executeDatafileMainTask();
+        await().untilAsserted(() -> assertEquals(1, testedObject.getCurrentNumberOfTasks()));
+
+        StepVerifier //
+            .create(testedObject.drain(Duration.ofSeconds(10))) //
+            .expectNextMatches(status -> status.getState() == DrainStatus.State.DRAINED) //
+            .verifyComplete();
+
+        verify(dataRouterMock, times(1)).publishFile(notNull(), anyLong(), notNull());
+        assertEquals(0, testedObject.getCurrentNumberOfTasks());
+    }
+
+    @Test
+    public void drain_deadlineExceeded_cancelsWorkInProgress() throws Exception {
+        setUpConfiguration();
+
+        Flux<FileReadyMessage> fileReadyMessages = fileReadyMessageFlux(1, 2, true);
+        doReturn(fileReadyMessages).when(consumerMock).getMessageRouterResponse();
+        // The partially collected files of the cancelled work and a file that is not part of it
+        Files.createDirectories(Paths.get(FileData.DATAFILE_TMPDIR));
+        List<Path> cancelledFiles = new LinkedList<>();
+        for (FileData file : fileReadyMessages.blockFirst().files()) {
+            cancelledFiles.add(Files.write(file.getLocalFilePath(), new byte[] {1}));
+        }
+        Path otherFile = Files.write(Paths.get(FileData.DATAFILE_TMPDIR, "otherFile"), new byte[] {1});
+        doReturn(false).when(publishedCheckerMock).isFilePublished(anyString(), anyString(), any());
+
+        // The first file is parked for a retry, the second one is still being collected at the deadline
+        Mono<FilePublishInformation> collectedFile = Mono.just(filePublishInformation());
+        Mono<Object> error = Mono.error(new DatafileTaskException("problem"));
+        doReturn(error, collectedFile.delayElement(Duration.ofSeconds(2))).when(fileCollectorMock)
+            .collectFile(notNull(), notNull(), anyLong(), notNull(), notNull());
+        doReturn(collectedFile).when(dataRouterMock).publishFile(notNull(), anyLong(), notNull());
+
+        testedObject.executeDatafileMainTask();
+        await().untilAsserted(() -> assertEquals(1, testedObject.getNumberOfPendingRetries()));
+
+        StepVerifier //
+            .create(testedObject.drain(Duration.ofMillis(300))) //
+            .expectNextMatches(status -> status.getState() == DrainStatus.State.DEADLINE_EXCEEDED) //
+            .verifyComplete();
+
+        assertEquals(0, testedObject.getNumberOfPendingRetries());
+        assertEquals(0, testedObject.getCurrentNumberOfTasks());
+        assertEquals(0, testedObject.getNumberOfTrackedSubscriptions());
+        assertEquals(0, testedObject.publishedFilesCacheSize(), "the cancelled files should be collected again");
+        assertEquals(2, testedObject.getDrainStatus().getNumberOfDeletedFiles());
+        for (Path file : cancelledFiles) {
+            assertFalse(Files.exists(file), "the cancelled file should have been deleted: " + file);
+        }
+        assertTrue(Files.exists(otherFile), "only the files of the cancelled work should be deleted");
+        Files.delete(otherFile);
+        await().pollDelay(Duration.ofSeconds(3)).untilAsserted(
+            () -> verify(dataRouterMock, never()).publishFile(notNull(), anyLong(), notNull()));
+        assertEquals(0, testedObject.getCurrentNumberOfSubscriptions());
+    }
+
     @Test
     public void nothingToConsume() throws DatafileTaskException {
         setUpConfiguration();
@@ -242,7 +349,8 @@ public class ScheduledTasksTest {
         doReturn(false).when(publishedCheckerMock).isFilePublished(anyString(), any(), any());
 
         Mono<FilePublishInformation> collectedFile = Mono.just(filePublishInformation());
-        doReturn(collectedFile).when(fileCollectorMock).collectFile(notNull(), anyLong(), notNull(), notNull());
+        doReturn(collectedFile).when(fileCollectorMock) //
+            .collectFile(notNull(), notNull(), anyLong(), notNull(), notNull());
         doReturn(collectedFile).when(dataRouterMock).publishFile(notNull(), anyLong(), notNull());
 
         testedObject.executeDatafileMainTask();
@@ -253,12 +361,26 @@ public class ScheduledTasksTest {
         assertFalse(StringUtils.isBlank(MDC.get(MdcVariables.REQUEST_ID)));
 
         verify(appConfig).getDmaapConsumerConfiguration();
-        verify(appConfig).isFeedConfigured(CHANGE_IDENTIFIER);
+        verify(appConfig).getReplicaPartitioner();
+        verify(appConfig).getConfigSnapshot();
         verifyNoMoreInteractions(appConfig);
 
         assertEquals(1, testedObject.getCounters().getTotalReceivedEvents(),"totalReceivedEvents should have been 1");
     }
 
+    @Test
+    public void executeDatafileMainTask_unknownReplicaOrdinal_noIntake() throws DatafileTaskException {
+        setUpConfiguration();
+        doThrow(new IllegalStateException("The ordinal of this replica is unknown")).when(appConfig)
+            .getReplicaPartitioner();
+
+        testedObject.executeDatafileMainTask();
+
+        assertEquals(0, testedObject.getCurrentNumberOfSubscriptions());
+        assertEquals(0, testedObject.getNumberOfTrackedSubscriptions());
+        verify(consumerMock, never()).getMessageRouterResponse();
+    }
+
     @Test
     public void executeDatafileMainTask_unconfiguredChangeIdentifier() throws DatafileTaskException {
         final PublisherConfiguration dmaapPublisherConfiguration = ImmutablePublisherConfiguration.builder() //
@@ -279,7 +401,9 @@ public class ScheduledTasksTest {
 
         doReturn(dmaapPublisherConfiguration).when(appConfig).getPublisherConfiguration(CHANGE_IDENTIFIER);
         doReturn(dmaapConsumerConfiguration).when(appConfig).getDmaapConsumerConfiguration();
-        doReturn(false).when(appConfig).isFeedConfigured(CHANGE_IDENTIFIER);
+        doReturn(new ConfigSnapshot(dmaapConsumerConfiguration,
+            Map.of("Different changeIdentifier", dmaapPublisherConfiguration), null, null)).when(appConfig)
+                .getConfigSnapshot();
         final int noOfEvents = 1;
         final int noOfFilesPerEvent = 1;
 
@@ -326,7 +450,8 @@ public class ScheduledTasksTest {
         doReturn(false).when(publishedCheckerMock).isFilePublished(anyString(), anyString(), any());
 
         Mono<FilePublishInformation> collectedFile = Mono.just(filePublishInformation());
-        doReturn(collectedFile).when(fileCollectorMock).collectFile(notNull(), anyLong(), notNull(), notNull());
+        doReturn(collectedFile).when(fileCollectorMock) //
+            .collectFile(notNull(), notNull(), anyLong(), notNull(), notNull());
         doReturn(collectedFile).when(dataRouterMock).publishFile(notNull(), anyLong(), notNull());
 
         StepVerifier //
@@ -342,7 +467,7 @@ public class ScheduledTasksTest {
         verify(consumerMock, times(1)).getMessageRouterResponse();
         verifyNoMoreInteractions(consumerMock);
 
-        verify(fileCollectorMock, times(noOfFiles)).collectFile(notNull(), anyLong(), notNull(), notNull());
+        verify(fileCollectorMock, times(noOfFiles)).collectFile(notNull(), notNull(), anyLong(), notNull(), notNull());
         verifyNoMoreInteractions(fileCollectorMock);
 
         verify(dataRouterMock, times(noOfFiles)).publishFile(notNull(), anyLong(), notNull());
@@ -367,7 +492,7 @@ public class ScheduledTasksTest {
         // First file collect will fail, 3 will succeed
         doReturn(error, collectedFile, collectedFile, collectedFile) //
             .when(fileCollectorMock) //
-            .collectFile(any(FileData.class), anyLong(), any(Duration.class), notNull());
+            .collectFile(any(FileData.class), any(ConfigSnapshot.class), anyLong(), any(Duration.class), notNull());
 
         doReturn(collectedFile).when(dataRouterMock).publishFile(notNull(), anyLong(), notNull());
         doReturn(collectedFile).when(dataRouterMock).publishFile(notNull(), anyLong(), notNull());
@@ -384,7 +509,7 @@ public class ScheduledTasksTest {
         verify(consumerMock, times(1)).getMessageRouterResponse();
         verifyNoMoreInteractions(consumerMock);
 
-        verify(fileCollectorMock, times(4)).collectFile(notNull(), anyLong(), notNull(), notNull());
+        verify(fileCollectorMock, times(4)).collectFile(notNull(), notNull(), anyLong(), notNull(), notNull());
         verifyNoMoreInteractions(fileCollectorMock);
 
         verify(dataRouterMock, times(3)).publishFile(notNull(), anyLong(), notNull());
@@ -395,6 +520,80 @@ public class ScheduledTasksTest {
         assertEquals(0, testedObject.getCounters().getNoOfFailedHttp(),"failedHttp should have been 0");
     }
 
+    @Test
+    public void consume_fetchFailedRetryable_releasesWorker() throws DatafileTaskException {
+        setUpConfiguration();
+
+        Flux<FileReadyMessage> fileReadyMessages = fileReadyMessageFlux(2, 2, true); // 4 files
+        doReturn(fileReadyMessages).when(consumerMock).getMessageRouterResponse();
+
+        doReturn(false).when(publishedCheckerMock).isFilePublished(anyString(), anyString(), any());
+
+        Mono<FilePublishInformation> collectedFile = Mono.just(filePublishInformation());
+        Mono<Object> error = Mono.error(new DatafileTaskException("problem"));
+
+        // First file collect fails with a retryable error, 3 will succeed
+        doReturn(error, collectedFile, collectedFile, collectedFile) //
+            .when(fileCollectorMock) //
+            .collectFile(any(FileData.class), any(ConfigSnapshot.class), anyLong(), any(Duration.class), notNull());
+        doReturn(collectedFile).when(dataRouterMock).publishFile(notNull(), anyLong(), notNull());
+
+        StepVerifier //
+            .create(testedObject.createMainTask(contextMap)) //
+            .expectSubscription() //
+            .expectNextCount(3) //
+            .expectComplete() //
+            .verify(); //
+
+        // The failed file waits in the retry queue, without holding up the others
+        assertEquals(1, testedObject.getCurrentNumberOfTasks());
+        assertEquals(1, testedObject.getNumberOfPendingRetries());
+        assertEquals(1, testedObject.getCounters().getNoOfScheduledRetries());
+        assertEquals(0, testedObject.getCounters().getNoOfFailedFtp(), "failedFtp should have been 0");
+
+        verify(fileCollectorMock, times(4)).collectFile(notNull(), notNull(), eq(0L), eq(Duration.ZERO), notNull());
+        verify(dataRouterMock, times(3)).publishFile(notNull(), eq(0L), eq(Duration.ZERO));
+
+        testedObject.shutdown();
+        assertEquals(0, testedObject.getNumberOfPendingRetries(), "the parked retry should have been dropped");
+        assertEquals(0, testedObject.getCurrentNumberOfTasks(), "the dropped retry should have been counted down");
+    }
+
+    @Test
+    public void consume_circuitBreakerOpen_fileDeferred() throws DatafileTaskException {
+        setUpConfiguration();
+
+        Flux<FileReadyMessage> fileReadyMessages = fileReadyMessageFlux(1, 1, true);
+        doReturn(fileReadyMessages).when(consumerMock).getMessageRouterResponse();
+        doReturn(false).when(publishedCheckerMock).isFilePublished(anyString(), anyString(), any());
+
+        Mono<Object> error =
+            Mono.error(new CircuitBreakerOpenException("sftp://192.168.0.101:22", Duration.ofMinutes(1)));
+        doReturn(error).when(fileCollectorMock) //
+            .collectFile(any(FileData.class), any(ConfigSnapshot.class), anyLong(), any(Duration.class), notNull());
+
+        StepVerifier //
+            .create(testedObject.createMainTask(contextMap)) //
+            .expectSubscription() //
+            .expectNextCount(0) //
+            .expectComplete() //
+            .verify(); //
+
+        // The file waits for the breaker, it is not given up
+        assertEquals(1, testedObject.getCurrentNumberOfTasks());
+        assertEquals(1, testedObject.getNumberOfPendingRetries());
+        assertEquals(0, testedObject.getCounters().getNoOfFailedFtp(), "failedFtp should have been 0");
+
+        testedObject.shutdown();
+    }
+
+    @Test
+    public void isRetryable_onlyRetryableDatafileTaskException() {
+        assertTrue(ScheduledTasks.isRetryable(new DatafileTaskException("problem")));
+        assertFalse(ScheduledTasks.isRetryable(new NonRetryableDatafileTaskException("problem")));
+        assertFalse(ScheduledTasks.isRetryable(new IllegalStateException("problem")));
+    }
+
     @Test
     public void consume_publishFailedOnce() throws DatafileTaskException {
         setUpConfiguration();
@@ -405,7 +604,8 @@ public class ScheduledTasksTest {
         doReturn(false).when(publishedCheckerMock).isFilePublished(anyString(), anyString(), any());
 
         Mono<FilePublishInformation> collectedFile = Mono.just(filePublishInformation());
-        doReturn(collectedFile).when(fileCollectorMock).collectFile(notNull(), anyLong(), notNull(), notNull());
+        doReturn(collectedFile).when(fileCollectorMock) //
+            .collectFile(notNull(), notNull(), anyLong(), notNull(), notNull());
 
         Mono<Object> error = Mono.error(new Exception("problem"));
         // One publish will fail, the rest will succeed
@@ -428,7 +628,7 @@ public class ScheduledTasksTest {
         verify(consumerMock, times(1)).getMessageRouterResponse();
         verifyNoMoreInteractions(consumerMock);
 
-        verify(fileCollectorMock, times(4)).collectFile(notNull(), anyLong(), notNull(), notNull());
+        verify(fileCollectorMock, times(4)).collectFile(notNull(), notNull(), anyLong(), notNull(), notNull());
         verifyNoMoreInteractions(fileCollectorMock);
 
         verify(dataRouterMock, times(4)).publishFile(notNull(), anyLong(), notNull());
@@ -438,6 +638,210 @@ public class ScheduledTasksTest {
         assertEquals(1, testedObject.getCounters().getNoOfFailedPublish(),"noOfFailedPublish should have been 1");
     }
 
+    @Test
+    public void consume_identicalContents_publishedOnce() throws DatafileTaskException {
+        setUpConfiguration();
+        ConfigSnapshot config = configSnapshot.withSettings(new ProcessingSettings(ContentDigest.Algorithm.SHA_256,
+            Duration.ofHours(1), 0, 0, TlsProfile.DEFAULT));
+
+        // 4 files with different names but the same content, handled one at a time
+        Flux<FileReadyMessage> fileReadyMessages = fileReadyMessageFlux(1, 4, true);
+        doReturn(fileReadyMessages).when(consumerMock).getMessageRouterResponse();
+
+        doReturn(false).when(publishedCheckerMock).isFilePublished(anyString(), anyString(), any());
+
+        Mono<FilePublishInformation> collectedFile = Mono.just(ImmutableFilePublishInformation
+            .copyOf(filePublishInformation()).withContentDigest("sha-256:abcd").withFileSize(100).withConfig(config));
+        doReturn(collectedFile).when(fileCollectorMock) //
+            .collectFile(notNull(), notNull(), anyLong(), notNull(), notNull());
+        doReturn(collectedFile).when(dataRouterMock).publishFile(notNull(), anyLong(), notNull());
+
+        StepVerifier //
+            .create(testedObject.createMainTask(contextMap)) //
+            .expectSubscription() //
+            .expectNextCount(1) //
+            .expectComplete() //
+            .verify(); //
+
+        assertEquals(0, testedObject.getCurrentNumberOfTasks());
+
+        verify(fileCollectorMock, times(4)).collectFile(notNull(), notNull(), anyLong(), notNull(), notNull());
+        verify(dataRouterMock, times(1)).publishFile(notNull(), anyLong(), notNull());
+
+        assertEquals(3, testedObject.getCounters().getNoOfDuplicateFiles());
+        assertEquals(300, testedObject.getCounters().getDuplicateBytesSaved());
+    }
+
+    @Test
+    public void consume_sameCrc32cDifferentContents_bothPublished() throws DatafileTaskException {
+        setUpConfiguration();
+        ConfigSnapshot config = configSnapshot.withSettings(new ProcessingSettings(ContentDigest.Algorithm.CRC32C,
+            Duration.ofHours(1), 0, 0, TlsProfile.DEFAULT));
+
+        Flux<FileReadyMessage> fileReadyMessages = fileReadyMessageFlux(1, 2, true);
+        doReturn(fileReadyMessages).when(consumerMock).getMessageRouterResponse();
+
+        doReturn(false).when(publishedCheckerMock).isFilePublished(anyString(), anyString(), any());
+
+        // Same size and CRC32C checksum, but not the same content
+        ImmutableFilePublishInformation first = ImmutableFilePublishInformation.copyOf(filePublishInformation())
+            .withChecksum("crc32c:875e7efe").withContentDigest("sha-256:abcd").withFileSize(10).withConfig(config);
+        FilePublishInformation second = first.withContentDigest("sha-256:ef01");
+        doReturn(Mono.just(first), Mono.just(second)).when(fileCollectorMock) //
+            .collectFile(notNull(), notNull(), anyLong(), notNull(), notNull());
+        doAnswer(invocation -> Mono.just(invocation.getArgument(0))).when(dataRouterMock)
+            .publishFile(notNull(), anyLong(), notNull());
+
+        StepVerifier //
+            .create(testedObject.createMainTask(contextMap)) //
+            .expectSubscription() //
+            .expectNextCount(2) //
+            .expectComplete() //
+            .verify(); //
+
+        verify(dataRouterMock, times(2)).publishFile(notNull(), anyLong(), notNull());
+        assertEquals(0, testedObject.getCounters().getNoOfDuplicateFiles());
+        assertEquals(2, testedObject.contentDedupeIndex.size());
+    }
+
+    @Test
+    public void consume_identicalContentsFirstPublishFails_copyIsPublished() throws DatafileTaskException {
+        setUpConfiguration();
+        ConfigSnapshot config = configSnapshot.withSettings(new ProcessingSettings(ContentDigest.Algorithm.NONE,
+            Duration.ofHours(1), 0, 0, TlsProfile.DEFAULT));
+
+        Flux<FileReadyMessage> fileReadyMessages = fileReadyMessageFlux(1, 2, true);
+        doReturn(fileReadyMessages).when(consumerMock).getMessageRouterResponse();
+
+        doReturn(false).when(publishedCheckerMock).isFilePublished(anyString(), anyString(), any());
+
+        Mono<FilePublishInformation> collectedFile = Mono.just(ImmutableFilePublishInformation
+            .copyOf(filePublishInformation()).withContentDigest("sha-256:abcd").withFileSize(100).withConfig(config));
+        doReturn(collectedFile).when(fileCollectorMock) //
+            .collectFile(notNull(), notNull(), anyLong(), notNull(), notNull());
+        doReturn(Mono.error(new NonRetryableDatafileTaskException("Failed")), collectedFile).when(dataRouterMock)
+            .publishFile(notNull(), anyLong(), notNull());
+
+        StepVerifier //
+            .create(testedObject.createMainTask(contextMap)) //
+            .expectSubscription() //
+            .expectNextCount(1) //
+            .expectComplete() //
+            .verify(); //
+
+        verify(dataRouterMock, times(2)).publishFile(notNull(), anyLong(), notNull());
+        assertEquals(0, testedObject.getCounters().getNoOfDuplicateFiles());
+        assertEquals(1, testedObject.getCounters().getNoOfFailedPublish());
+        assertEquals(1, testedObject.contentDedupeIndex.size());
+    }
+
+    @Test
+    public void consume_smallFiles_publishedInOneBundle(@TempDir Path tempDir) throws Exception {
+        setUpConfiguration();
+        ConfigSnapshot config = configSnapshot.withSettings(
+            new ProcessingSettings(ContentDigest.Algorithm.NONE, Duration.ZERO, 1000, 100, TlsProfile.DEFAULT));
+        doReturn(1000L).when(appConfig).getBundleMaxSize();
+        doReturn(4).when(appConfig).getBundleMaxFiles();
+        doReturn(Duration.ofMinutes(1)).when(appConfig).getBundleMaxDelay();
+
+        Flux<FileReadyMessage> fileReadyMessages = fileReadyMessageFlux(2, 2, true); // 4 files
+        doReturn(fileReadyMessages).when(consumerMock).getMessageRouterResponse();
+
+        doReturn(false).when(publishedCheckerMock).isFilePublished(anyString(), anyString(), any());
+
+        Path localFile = Files.write(tempDir.resolve("collected.xml"), new byte[10]);
+        ImmutableFilePublishInformation collectedFile = ImmutableFilePublishInformation
+            .copyOf(filePublishInformation()).withInternalLocation(localFile).withFileSize(10).withConfig(config);
+        doAnswer(invocation -> Mono.just(collectedFile.withName(invocation.<FileData>getArgument(0).name())))
+            .when(fileCollectorMock).collectFile(notNull(), notNull(), anyLong(), notNull(), notNull());
+        doAnswer(invocation -> Mono.just(invocation.getArgument(0))).when(dataRouterMock).publishFile(notNull(),
+            anyLong(), notNull());
+
+        StepVerifier //
+            .create(testedObject.createMainTask(contextMap)) //
+            .expectSubscription() //
+            .expectNextCount(0) // The bundle is published in a separate subscription
+            .expectComplete() //
+            .verify(); //
+
+        await().untilAsserted(() -> assertEquals(0, testedObject.getCurrentNumberOfTasks()));
+        await().untilAsserted(() -> assertEquals(0, testedObject.getNumberOfTrackedSubscriptions()));
+
+        ArgumentCaptor<FilePublishInformation> published = ArgumentCaptor.forClass(FilePublishInformation.class);
+        verify(dataRouterMock, times(1)).publishFile(published.capture(), anyLong(), notNull());
+        assertTrue(published.getValue().getName().startsWith("bundle-"));
+        assertFalse(Files.exists(published.getValue().getInternalLocation()), "the bundle should have been deleted");
+        assertEquals(1, testedObject.getCounters().getNoOfBundles());
+        assertEquals(4, testedObject.getCounters().getNoOfBundledFiles());
+        assertEquals(4, testedObject.bundledFileIndex.size());
+        assertTrue(testedObject.bundledFileIndex.contains(CHANGE_IDENTIFIER, PM_FILE_NAME + uniqueValue,
+            Instant.now(), Duration.ofDays(7)));
+    }
+
+    @Test
+    public void consume_filePublishedInBundle_skipped() throws DatafileTaskException {
+        setUpConfiguration();
+        doReturn(configSnapshot.withSettings(
+            new ProcessingSettings(ContentDigest.Algorithm.NONE, Duration.ZERO, 1000, 100, TlsProfile.DEFAULT)))
+                .when(appConfig).getConfigSnapshot();
+
+        Flux<FileReadyMessage> fileReadyMessages = fileReadyMessageFlux(1, 1, true);
+        doReturn(fileReadyMessages).when(consumerMock).getMessageRouterResponse();
+        testedObject.bundledFileIndex.add(CHANGE_IDENTIFIER, PM_FILE_NAME + uniqueValue, Instant.now(), 1000);
+
+        StepVerifier //
+            .create(testedObject.createMainTask(contextMap)) //
+            .expectSubscription() //
+            .expectNextCount(0) //
+            .expectComplete() //
+            .verify(); //
+
+        verifyNoMoreInteractions(publishedCheckerMock, fileCollectorMock, dataRouterMock);
+        assertEquals(0, testedObject.getCurrentNumberOfTasks());
+    }
+
+    @Test
+    public void consume_noFeedBundled_bundledFileIndexNotLookedUp() throws DatafileTaskException {
+        setUpConfiguration(); // Bundling is disabled in the default settings
+
+        Flux<FileReadyMessage> fileReadyMessages = fileReadyMessageFlux(1, 1, true);
+        doReturn(fileReadyMessages).when(consumerMock).getMessageRouterResponse();
+        testedObject.bundledFileIndex.add(CHANGE_IDENTIFIER, PM_FILE_NAME + uniqueValue, Instant.now(), 1000);
+        doReturn(true).when(publishedCheckerMock).isFilePublished(anyString(), anyString(), any());
+
+        StepVerifier //
+            .create(testedObject.createMainTask(contextMap)) //
+            .expectSubscription() //
+            .expectNextCount(0) //
+            .expectComplete() //
+            .verify(); //
+
+        verify(publishedCheckerMock, times(1)).isFilePublished(anyString(), anyString(), any());
+        verifyNoMoreInteractions(fileCollectorMock, dataRouterMock);
+    }
+
+    @Test
+    public void consume_xnfOwnedByOtherReplica_skipped() throws DatafileTaskException {
+        setUpConfiguration();
+        int owner = ReplicaPartitioner.of(0, 2).ownerOf(messageMetaData().sourceName());
+        doReturn(ReplicaPartitioner.of(1 - owner, 2)).when(appConfig).getReplicaPartitioner();
+
+        Flux<FileReadyMessage> fileReadyMessages = fileReadyMessageFlux(2, 2, true); // 4 files
+        doReturn(fileReadyMessages).when(consumerMock).getMessageRouterResponse();
+
+        StepVerifier //
+            .create(testedObject.createMainTask(contextMap)) //
+            .expectSubscription() //
+            .expectNextCount(0) //
+            .expectComplete() //
+            .verify(); //
+
+        verifyNoMoreInteractions(fileCollectorMock);
+        verifyNoMoreInteractions(publishedCheckerMock);
+        assertEquals(4, testedObject.getCounters().getNoOfForeignFiles());
+        assertEquals(0, testedObject.publishedFilesCacheSize());
+    }
+
     @Test
     public void consume_successfulCase_sameFileNames() throws DatafileTaskException {
         setUpConfiguration();
@@ -452,7 +856,8 @@ public class ScheduledTasksTest {
         doReturn(false).when(publishedCheckerMock).isFilePublished(anyString(), anyString(), any());
 
         Mono<FilePublishInformation> collectedFile = Mono.just(filePublishInformation());
-        doReturn(collectedFile).when(fileCollectorMock).collectFile(notNull(), anyLong(), notNull(), notNull());
+        doReturn(collectedFile).when(fileCollectorMock) //
+            .collectFile(notNull(), notNull(), anyLong(), notNull(), notNull());
         doReturn(collectedFile).when(dataRouterMock).publishFile(notNull(), anyLong(), notNull());
 
         StepVerifier //
@@ -466,7 +871,7 @@ public class ScheduledTasksTest {
         verify(consumerMock, times(1)).getMessageRouterResponse();
         verifyNoMoreInteractions(consumerMock);
 
-        verify(fileCollectorMock, times(1)).collectFile(notNull(), anyLong(), notNull(), notNull());
+        verify(fileCollectorMock, times(1)).collectFile(notNull(), notNull(), anyLong(), notNull(), notNull());
         verifyNoMoreInteractions(fileCollectorMock);
 
         verify(dataRouterMock, times(1)).publishFile(notNull(), anyLong(), notNull());
@@ -0,0 +1,112 @@
+/*-
+ * ============LICENSE_START======================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * ============LICENSE_END========================================================================
+ */
+
+
+package org.onap.dcaegen2.collectors.datafile.http;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.netty.resources.LoopResources;
+
+/**
+ * Measures an HTTP file download over the loopback interface with the NIO and the native epoll transport, selected by
+ * app.netty-native-transport. The client keeps its connection, as the file collection does towards an xNF.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NettyTransportBenchmark {
+    private static final String HOST = "127.0.0.1";
+    private static final String FILE_URI = "/file";
+
+    @Param({"false", "true"})
+    public boolean nativeTransport;
+
+    @Param({"65536", "1048576"})
+    public int fileSize;
+
+    private LoopResources loops;
+    private DisposableServer server;
+    private ConnectionProvider connectionProvider;
+    private HttpClient client;
+
+    /**
+     * Starts a server returning a file of the given size and creates a client for it.
+     */
+    @Setup
+    public void setUp() {
+        if (nativeTransport && !LoopResources.hasNativeSupport()) {
+            throw new IllegalStateException("The native transport is not available on this platform");
+        }
+        byte[] file = new byte[fileSize];
+        new Random(0).nextBytes(file);
+
+        loops = LoopResources.create("benchmark", 1, 2, true);
+        server = HttpServer.create() //
+            .host(HOST) //
+            .port(0) //
+            .runOn(loops, nativeTransport) //
+            .route(routes -> routes.get(FILE_URI,
+                (request, response) -> response.send(Mono.fromSupplier(() -> Unpooled.wrappedBuffer(file))))) //
+            .bindNow();
+        connectionProvider = ConnectionProvider.create("benchmark", 1);
+        client = HttpClient.create(connectionProvider) //
+            .runOn(loops, nativeTransport) //
+            .baseUrl("http://" + HOST + ":" + server.port());
+    }
+
+    /**
+     * Stops the server and releases the event loops.
+     */
+    @TearDown
+    public void tearDown() {
+        server.disposeNow();
+        connectionProvider.disposeLater().block();
+        loops.disposeLater().block();
+    }
+
+    @Benchmark
+    public long download() {
+        return client.get() //
+            .uri(FILE_URI) //
+            .responseContent() //
+            .map(ByteBuf::readableBytes) //
+            .reduce(0L, (total, bytes) -> total + bytes) //
+            .block();
+    }
+}
@@ -0,0 +1,202 @@
+/*-
+ * ============LICENSE_START======================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * ============LICENSE_END========================================================================
+ */
+
+
+package org.onap.dcaegen2.collectors.datafile.http;
+
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.handler.ssl.OpenSsl;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.SslProvider;
+import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLEngineResult.HandshakeStatus;
+import javax.net.ssl.SSLException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the CPU cost of TLS with the JDK and the OpenSSL engine, selected by app.netty-native-transport. The
+ * client and server engines talk through memory buffers, so only the handshakes and the encryption are measured,
+ * excluding the network.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TlsEngineBenchmark {
+    private static final String KEY_STORE = "/keystore.p12";
+    private static final String KEY_STORE_PASSWORD = "/keystore.pass";
+    private static final String XNF_HOST = "xnf.example.com";
+    private static final int XNF_PORT = 443;
+    private static final int TRANSFER_SIZE = 1024 * 1024;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_HANDSHAKE_STEPS = 20;
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+    @Param({"JDK", "OPENSSL"})
+    public SslProvider provider;
+
+    @Param({"TLSv1.3", "TLSv1.2"})
+    public String protocol;
+
+    private SslContext serverContext;
+    private SslContext clientContext;
+    private SSLEngine transferClient;
+    private SSLEngine transferServer;
+    private final ByteBuffer payload = ByteBuffer.allocate(TRANSFER_SIZE);
+    private final ByteBuffer clientToServer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final ByteBuffer serverToClient = ByteBuffer.allocate(BUFFER_SIZE);
+    private final ByteBuffer clientSink = ByteBuffer.allocate(BUFFER_SIZE);
+    private final ByteBuffer serverSink = ByteBuffer.allocate(BUFFER_SIZE);
+
+    /**
+     * Creates the TLS contexts and an established connection for the transfer benchmark.
+     */
+    @Setup
+    public void setUp() throws IOException, GeneralSecurityException {
+        if (provider == SslProvider.OPENSSL && !OpenSsl.isAvailable()) {
+            throw new IllegalStateException("OpenSSL is not available", OpenSsl.unavailabilityCause());
+        }
+        serverContext = SslContextBuilder.forServer(serverKeyManagerFactory()) //
+            .sslProvider(provider) //
+            .protocols(protocol) //
+            .build();
+        clientContext = SslContextBuilder.forClient() //
+            .sslProvider(provider) //
+            .protocols(protocol) //
+            .trustManager(InsecureTrustManagerFactory.INSTANCE) //
+            .build();
+        transferClient = clientContext.newEngine(ByteBufAllocator.DEFAULT);
+        transferServer = serverContext.newEngine(ByteBufAllocator.DEFAULT);
+        handshake(transferClient, transferServer);
+    }
+
+    /**
+     * A connection to an xNF not connected to before, or without a session cache.
+     */
+    @Benchmark
+    public void fullHandshake() throws SSLException {
+        handshake(clientContext.newEngine(ByteBufAllocator.DEFAULT), serverContext.newEngine(ByteBufAllocator.DEFAULT));
+    }
+
+    /**
+     * A connection to an xNF with a cached session, identified by the host and port of the xNF.
+     */
+    @Benchmark
+    public void resumedHandshake() throws SSLException {
+        handshake(clientContext.newEngine(ByteBufAllocator.DEFAULT, XNF_HOST, XNF_PORT),
+            serverContext.newEngine(ByteBufAllocator.DEFAULT));
+    }
+
+    /**
+     * Sends one MiB from the xNF over an established connection.
+     */
+    @Benchmark
+    public int transfer() throws SSLException {
+        payload.clear();
+        while (payload.hasRemaining()) {
+            exchange(transferServer, payload, serverToClient, transferClient, clientSink);
+        }
+        return payload.position();
+    }
+
+    private void handshake(SSLEngine client, SSLEngine server) throws SSLException {
+        clientToServer.clear();
+        serverToClient.clear();
+        client.beginHandshake();
+        server.beginHandshake();
+        for (int step = 0; step < MAX_HANDSHAKE_STEPS; step++) {
+            exchange(client, EMPTY, clientToServer, server, serverSink);
+            exchange(server, EMPTY, serverToClient, client, clientSink);
+            if (isHandshakeDone(client) && isHandshakeDone(server)) {
+                // Delivers any TLS 1.3 session ticket, needed for resumption
+                exchange(server, EMPTY, serverToClient, client, clientSink);
+                return;
+            }
+        }
+        throw new IllegalStateException("The handshake did not complete");
+    }
+
+    private static boolean isHandshakeDone(SSLEngine engine) {
+        HandshakeStatus status = engine.getHandshakeStatus();
+        return status == HandshakeStatus.NOT_HANDSHAKING || status == HandshakeStatus.FINISHED;
+    }
+
+    /**
+     * Wraps one record and lets the peer unwrap whatever is on the wire, the plain text received is dropped.
+     */
+    private static void exchange(SSLEngine from, ByteBuffer source, ByteBuffer wire, SSLEngine to, ByteBuffer sink)
+        throws SSLException {
+        from.wrap(source, wire);
+        runDelegatedTasks(from);
+        wire.flip();
+        while (wire.hasRemaining()) {
+            sink.clear();
+            SSLEngineResult result = to.unwrap(wire, sink);
+            runDelegatedTasks(to);
+            if (result.getStatus() != SSLEngineResult.Status.BUFFER_OVERFLOW && result.bytesConsumed() == 0) {
+                break;
+            }
+        }
+        wire.compact();
+    }
+
+    private static void runDelegatedTasks(SSLEngine engine) {
+        Runnable task;
+        while ((task = engine.getDelegatedTask()) != null) {
+            task.run();
+        }
+    }
+
+    private static KeyManagerFactory serverKeyManagerFactory() throws IOException, GeneralSecurityException {
+        char[] password = readResource(KEY_STORE_PASSWORD).toCharArray();
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        try (InputStream input = TlsEngineBenchmark.class.getResourceAsStream(KEY_STORE)) {
+            keyStore.load(input, password);
+        }
+        KeyManagerFactory factory = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        factory.init(keyStore, password);
+        return factory;
+    }
+
+    private static String readResource(String name) throws IOException {
+        try (InputStream input = TlsEngineBenchmark.class.getResourceAsStream(name)) {
+            return new String(input.readAllBytes());
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*-
+ * ============LICENSE_START======================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * ============LICENSE_END========================================================================
+ */
+
+package org.onap.dcaegen2.collectors.datafile.service;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.onap.dcaegen2.collectors.datafile.model.FileReadyMessage;
+import org.onap.dcaegen2.collectors.datafile.utils.JsonMessage;
+import org.onap.dcaegen2.collectors.datafile.utils.JsonMessage.AdditionalField;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * Measures the parsing of fileReady events, with a varying number of files per event.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonMessageParserBenchmark {
+    private static final String PM_FILE_NAME = "A20161224.1030-1045.bin.gz";
+
+    @Param({"1", "10", "100"})
+    private int numberOfFiles;
+
+    private String rawMessage;
+    private JsonElement parsedMessage;
+    private final JsonMessageParser parser = new JsonMessageParser();
+
+    /**
+     * Creates a fileReady event with the configured number of files.
+     */
+    @Setup
+    public void setUp() {
+        JsonMessage.JsonMessageBuilder builder = new JsonMessage.JsonMessageBuilder() //
+            .eventName("Noti_NrRadio-Ericsson_FileReady") //
+            .changeIdentifier("PM_MEAS_FILES") //
+            .changeType("FileReady") //
+            .notificationFieldsVersion("1.0");
+        for (int i = 0; i < numberOfFiles; ++i) {
+            AdditionalField additionalField = new JsonMessage.AdditionalFieldBuilder() //
+                .name(i + PM_FILE_NAME) //
+                .location("sftp://192.168.0.101:22/ftp/rop/" + i + PM_FILE_NAME) //
+                .compression("gzip") //
+                .fileFormatType("org.3GPP.32.435#measCollec") //
+                .fileFormatVersion("V10") //
+                .build();
+            builder.addAdditionalField(additionalField);
+        }
+        rawMessage = builder.build().getParsed();
+        parsedMessage = JsonParser.parseString(rawMessage);
+    }
+
+    @Benchmark
+    public JsonElement parseJson() {
+        return JsonParser.parseString(rawMessage);
+    }
+
+    @Benchmark
+    public List<FileReadyMessage> parseFileReadyMessage() {
+        return parser.getMessagesFromJson(Flux.just(parsedMessage)).collectList().block();
+    }
+
+    @Benchmark
+    public List<FileReadyMessage> parseRawFileReadyMessage() {
+        return parser.getMessagesFromJson(Flux.just(JsonParser.parseString(rawMessage))).collectList().block();
+    }
+}
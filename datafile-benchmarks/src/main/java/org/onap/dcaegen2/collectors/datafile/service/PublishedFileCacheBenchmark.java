@@ -0,0 +1,84 @@
+/*-
+ * ============LICENSE_START======================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * ============LICENSE_END========================================================================
+ */
+
+package org.onap.dcaegen2.collectors.datafile.service;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cache of published files, which is shared by all collecting threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PublishedFileCacheBenchmark {
+
+    @Param({"1000", "100000"})
+    private int cacheSize;
+
+    private PublishedFileCache cache;
+    private Path[] paths;
+    private int index = 0;
+
+    /**
+     * Fills the cache with the configured number of files.
+     */
+    @Setup
+    public void setUp() {
+        cache = new PublishedFileCache();
+        paths = new Path[cacheSize];
+        for (int i = 0; i < cacheSize; ++i) {
+            paths[i] = Paths.get("/tmp/onap_datafile/5GRAN_DU_" + i + "_A20161224.1030-1045.bin.gz");
+            cache.put(paths[i]);
+        }
+    }
+
+    @Benchmark
+    public Instant putRemove() {
+        Path path = paths[Math.floorMod(index++, cacheSize)];
+        cache.remove(path);
+        return cache.put(path);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Instant putRemoveContended() {
+        return putRemove();
+    }
+
+    @Benchmark
+    public int purge() {
+        cache.purge(Instant.now());
+        return cache.size();
+    }
+}
@@ -0,0 +1,105 @@
+/*-
+ * ============LICENSE_START======================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * ============LICENSE_END========================================================================
+ */
+
+package org.onap.dcaegen2.collectors.datafile.tasks;
+
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.client.methods.HttpPut;
+import org.onap.dcaegen2.collectors.datafile.configuration.ConfigSnapshot;
+import org.onap.dcaegen2.collectors.datafile.configuration.ImmutablePublisherConfiguration;
+import org.onap.dcaegen2.collectors.datafile.configuration.PublisherConfiguration;
+import org.onap.dcaegen2.collectors.datafile.exceptions.DatafileTaskException;
+import org.onap.dcaegen2.collectors.datafile.model.Counters;
+import org.onap.dcaegen2.collectors.datafile.model.FilePublishInformation;
+import org.onap.dcaegen2.collectors.datafile.model.ImmutableFilePublishInformation;
+import org.onap.dcaegen2.collectors.datafile.model.JsonSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the creation of the DataRouter publish request, excluding the network round trip.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DataRouterPublisherBenchmark {
+    private static final String CHANGE_IDENTIFIER = "PM_MEAS_FILES";
+    private static final String PM_FILE_NAME = "A20161224.1030-1045.bin.gz";
+
+    private DataRouterPublisher publisher;
+    private FilePublishInformation publishInfo;
+
+    /**
+     * Creates a publisher with a fixed feed configuration.
+     */
+    @Setup
+    public void setUp() {
+        PublisherConfiguration publisherConfiguration = ImmutablePublisherConfiguration.builder() //
+            .publishUrl("https://54.45.33.2:1234/publish/1") //
+            .logUrl("https://54.45.33.2:1234/feedlog/1") //
+            .userName("user") //
+            .password("password") //
+            .trustStorePath("") //
+            .trustStorePasswordPath("") //
+            .keyStorePath("") //
+            .keyStorePasswordPath("") //
+            .enableDmaapCertAuth(false) //
+            .changeIdentifier(CHANGE_IDENTIFIER) //
+            .build();
+        publisher = new DataRouterPublisher(new Counters());
+
+        publishInfo = ImmutableFilePublishInformation.builder() //
+            .productName("NrRadio") //
+            .vendorName("Ericsson") //
+            .lastEpochMicrosec("8745745764578") //
+            .sourceName("oteNB5309") //
+            .startEpochMicrosec("8745745764578") //
+            .timeZoneOffset("UTC+05:00") //
+            .name(PM_FILE_NAME) //
+            .location("ftpes://192.168.0.101:22/ftp/rop/" + PM_FILE_NAME) //
+            .internalLocation(Paths.get("/tmp/onap_datafile/oteNB5309/" + PM_FILE_NAME)) //
+            .compression("gzip") //
+            .fileFormatType("org.3GPP.32.435#measCollec") //
+            .fileFormatVersion("V10") //
+            .context(new HashMap<>()) //
+            .changeIdentifier(CHANGE_IDENTIFIER) //
+            .config(new ConfigSnapshot(null, Map.of(CHANGE_IDENTIFIER, publisherConfiguration), null, null)) //
+            .build();
+    }
+
+    @Benchmark
+    public String createJsonBody() {
+        return JsonSerializer.createJsonBodyForDataRouter(publishInfo);
+    }
+
+    @Benchmark
+    public HttpPut createPutRequest() throws DatafileTaskException {
+        return publisher.createPutRequest(publishInfo, publisher.resolveConfiguration(publishInfo));
+    }
+}
@@ -0,0 +1,125 @@
+/*-
+ * ============LICENSE_START======================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * ============LICENSE_END========================================================================
+ */
+
+package org.onap.dcaegen2.collectors.datafile.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A data router with one feed. Publish requests are redirected to a node, which receives the file and reports it to
+ * the latency recorder, in the same way as a real data router. The feed log is always empty, so no file is considered
+ * as already published.
+ */
+public class FakeDataRouter implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(FakeDataRouter.class);
+    private static final String PUBLISH_PATH = "/publish/1";
+    private static final String NODE_PATH = "/node";
+    private static final String FEED_LOG_PATH = "/feedlog/1";
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final HttpServer server;
+    private final LatencyRecorder latencyRecorder;
+
+    /**
+     * Starts the data router on a free port on the loopback interface.
+     *
+     * @param latencyRecorder gets all files delivered to the node.
+     * @throws IOException if the server cannot be started.
+     */
+    public FakeDataRouter(LatencyRecorder latencyRecorder) throws IOException {
+        this.latencyRecorder = latencyRecorder;
+        server = HttpServer.create(LoadTest.loopbackAddress(), 0);
+        server.createContext(PUBLISH_PATH, this::handlePublish);
+        server.createContext(NODE_PATH + PUBLISH_PATH, this::handleNodePublish);
+        server.createContext(FEED_LOG_PATH, this::handleFeedLog);
+        server.setExecutor(executor);
+        server.start();
+        logger.info("Data router started on port {}", server.getAddress().getPort());
+    }
+
+    public String publishUrl() {
+        return baseUrl() + PUBLISH_PATH;
+    }
+
+    public String logUrl() {
+        return baseUrl() + FEED_LOG_PATH;
+    }
+
+    private String baseUrl() {
+        return "http://" + LoadTest.LOCALHOST + ":" + server.getAddress().getPort();
+    }
+
+    private void handlePublish(HttpExchange exchange) throws IOException {
+        try {
+            consume(exchange.getRequestBody());
+            exchange.getResponseHeaders().add("Location", baseUrl() + NODE_PATH + exchange.getRequestURI());
+            exchange.sendResponseHeaders(307, -1);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleNodePublish(HttpExchange exchange) throws IOException {
+        try {
+            long bytes = consume(exchange.getRequestBody());
+            String path = exchange.getRequestURI().getPath();
+            String fileName = path.substring(path.lastIndexOf('/') + 1);
+            logger.debug("File delivered: {}, {} bytes, meta data: {}", fileName, bytes,
+                exchange.getRequestHeaders().getFirst("X-DMAAP-DR-META"));
+            latencyRecorder.fileDelivered(fileName, bytes);
+            exchange.sendResponseHeaders(HttpURLConnection.HTTP_NO_CONTENT, -1);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleFeedLog(HttpExchange exchange) throws IOException {
+        try {
+            byte[] body = "[]".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static long consume(InputStream in) throws IOException {
+        byte[] buffer = new byte[64 * 1024];
+        long total = 0;
+        for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+            total += read;
+        }
+        return total;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
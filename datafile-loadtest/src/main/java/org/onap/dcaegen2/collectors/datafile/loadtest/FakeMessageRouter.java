@@ -0,0 +1,114 @@
+/*-
+ * ============LICENSE_START======================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * ============LICENSE_END========================================================================
+ */
+
+package org.onap.dcaegen2.collectors.datafile.loadtest;
+
+import com.google.gson.JsonArray;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A message router topic, serving the published fileReady events to long polling consumers.
+ */
+public class FakeMessageRouter implements AutoCloseable {
+    public static final String TOPIC_PATH = "/events/unauthenticated.VES_NOTIFICATION_OUTPUT";
+
+    private static final Logger logger = LoggerFactory.getLogger(FakeMessageRouter.class);
+    private static final int MAX_EVENTS_PER_POLL = 10000;
+    private static final long DEFAULT_POLL_TIMEOUT_MILLIS = 1000;
+
+    private final BlockingQueue<String> events = new LinkedBlockingQueue<>();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final HttpServer server;
+
+    /**
+     * Starts the message router on a free port on the loopback interface.
+     *
+     * @throws IOException if the server cannot be started.
+     */
+    public FakeMessageRouter() throws IOException {
+        server = HttpServer.create(LoadTest.loopbackAddress(), 0);
+        server.createContext(TOPIC_PATH, this::handlePoll);
+        server.setExecutor(executor);
+        server.start();
+        logger.info("Message router started on port {}", server.getAddress().getPort());
+    }
+
+    public String topicUrl() {
+        return "http://" + LoadTest.LOCALHOST + ":" + server.getAddress().getPort() + TOPIC_PATH;
+    }
+
+    public void publish(String event) {
+        events.add(event);
+    }
+
+    public int queuedEvents() {
+        return events.size();
+    }
+
+    private void handlePoll(HttpExchange exchange) throws IOException {
+        try {
+            List<String> polled = new ArrayList<>();
+            String first = events.poll(pollTimeoutMillis(exchange.getRequestURI().getQuery()), TimeUnit.MILLISECONDS);
+            if (first != null) {
+                polled.add(first);
+                events.drainTo(polled, MAX_EVENTS_PER_POLL - 1);
+            }
+            JsonArray body = new JsonArray();
+            polled.forEach(body::add);
+            byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static long pollTimeoutMillis(String query) {
+        if (query != null) {
+            for (String parameter : query.split("&")) {
+                if (parameter.startsWith("timeout=")) {
+                    return Long.parseLong(parameter.substring("timeout=".length()));
+                }
+            }
+        }
+        return DEFAULT_POLL_TIMEOUT_MILLIS;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
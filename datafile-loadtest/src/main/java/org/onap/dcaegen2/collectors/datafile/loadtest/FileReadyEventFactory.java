@@ -0,0 +1,100 @@
+/*-
+ * ============LICENSE_START======================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * ============LICENSE_END========================================================================
+ */
+
+package org.onap.dcaegen2.collectors.datafile.loadtest;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Creates fileReady VES events. The xNFs and file servers are picked round robin, every file gets a unique name.
+ */
+public class FileReadyEventFactory {
+    public static final String CHANGE_IDENTIFIER = "PM_MEAS_FILES";
+
+    private final List<XnfFileServer> fileServers;
+    private final String remoteFileName;
+    private final int numberOfXnfs;
+    private final int filesPerEvent;
+    private long eventSequenceNumber = 0;
+    private long fileSequenceNumber = 0;
+
+    /**
+     * Constructor.
+     *
+     * @param fileServers the servers to collect from.
+     * @param remoteFileName the file all events point to.
+     * @param numberOfXnfs the number of simulated xNFs.
+     * @param filesPerEvent the number of files in each event.
+     */
+    public FileReadyEventFactory(List<XnfFileServer> fileServers, String remoteFileName, int numberOfXnfs,
+        int filesPerEvent) {
+        this.fileServers = fileServers;
+        this.remoteFileName = remoteFileName;
+        this.numberOfXnfs = numberOfXnfs;
+        this.filesPerEvent = filesPerEvent;
+    }
+
+    /**
+     * Creates the next event.
+     *
+     * @param fileNameConsumer gets the name of each file in the event.
+     * @return the event, as published on the message router.
+     */
+    public synchronized String createEvent(Consumer<String> fileNameConsumer) {
+        String sourceName = String.format("xnf%05d", eventSequenceNumber++ % numberOfXnfs);
+        long epochMicros = System.currentTimeMillis() * 1000;
+
+        JsonObject commonEventHeader = new JsonObject();
+        commonEventHeader.addProperty("domain", "notification");
+        commonEventHeader.addProperty("eventName", "Noti_LoadTest-Onap_FileReady");
+        commonEventHeader.addProperty("eventType", "fileReady");
+        commonEventHeader.addProperty("lastEpochMicrosec", epochMicros);
+        commonEventHeader.addProperty("sourceName", sourceName);
+        commonEventHeader.addProperty("startEpochMicrosec", epochMicros);
+        commonEventHeader.addProperty("timeZoneOffset", "UTC+00:00");
+
+        JsonArray files = new JsonArray();
+        for (int i = 0; i < filesPerEvent; ++i) {
+            XnfFileServer fileServer = fileServers.get((int) (fileSequenceNumber % fileServers.size()));
+            String fileName = "A" + fileSequenceNumber++ + "." + sourceName + ".bin";
+            JsonObject hashMap = new JsonObject();
+            hashMap.addProperty("location", fileServer.location(remoteFileName));
+            hashMap.addProperty("compression", "gzip");
+            hashMap.addProperty("fileFormatType", "org.3GPP.32.435#measCollec");
+            hashMap.addProperty("fileFormatVersion", "V10");
+            JsonObject file = new JsonObject();
+            file.addProperty("name", fileName);
+            file.add("hashMap", hashMap);
+            files.add(file);
+            fileNameConsumer.accept(fileName);
+        }
+
+        JsonObject notificationFields = new JsonObject();
+        notificationFields.addProperty("changeIdentifier", CHANGE_IDENTIFIER);
+        notificationFields.addProperty("changeType", "FileReady");
+        notificationFields.addProperty("notificationFieldsVersion", "2.0");
+        notificationFields.add("arrayOfNamedHashMap", files);
+
+        JsonObject event = new JsonObject();
+        event.add("commonEventHeader", commonEventHeader);
+        event.add("notificationFields", notificationFields);
+        JsonObject root = new JsonObject();
+        root.add("event", event);
+        return root.toString();
+    }
+}
@@ -0,0 +1,118 @@
+/*-
+ * ============LICENSE_START======================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * ============LICENSE_END========================================================================
+ */
+
+package org.onap.dcaegen2.collectors.datafile.loadtest;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.apache.ftpserver.ConnectionConfigFactory;
+import org.apache.ftpserver.DataConnectionConfigurationFactory;
+import org.apache.ftpserver.FtpServer;
+import org.apache.ftpserver.FtpServerFactory;
+import org.apache.ftpserver.ftplet.FtpException;
+import org.apache.ftpserver.ftplet.UserManager;
+import org.apache.ftpserver.listener.Listener;
+import org.apache.ftpserver.listener.ListenerFactory;
+import org.apache.ftpserver.ssl.SslConfigurationFactory;
+import org.apache.ftpserver.usermanager.ClearTextPasswordEncryptor;
+import org.apache.ftpserver.usermanager.PropertiesUserManagerFactory;
+import org.apache.ftpserver.usermanager.impl.BaseUser;
+import org.apache.ftpserver.usermanager.impl.ConcurrentLoginPermission;
+import org.apache.ftpserver.usermanager.impl.TransferRatePermission;
+import org.onap.dcaegen2.collectors.datafile.commons.Scheme;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An embedded FTP server with explicit TLS (FTPES), based on Apache FtpServer.
+ */
+public class FtpesFileServer implements XnfFileServer {
+    private static final Logger logger = LoggerFactory.getLogger(FtpesFileServer.class);
+    private static final String LISTENER_NAME = "default";
+    private static final int MAX_LOGINS = 10000;
+
+    private final FtpServer server;
+    private final int port;
+
+    /**
+     * Starts the server on a free port on the loopback interface.
+     *
+     * @param rootDirectory the directory to serve.
+     * @param certificates the server certificate.
+     * @throws FtpException if the server cannot be started.
+     */
+    public FtpesFileServer(Path rootDirectory, TestCertificates certificates) throws FtpException {
+        SslConfigurationFactory ssl = new SslConfigurationFactory();
+        ssl.setKeystoreFile(certificates.keyStore().toFile());
+        ssl.setKeystoreType("PKCS12");
+        ssl.setKeystorePassword(certificates.password());
+        ssl.setKeyPassword(certificates.password());
+
+        DataConnectionConfigurationFactory dataConnection = new DataConnectionConfigurationFactory();
+        dataConnection.setPassiveAddress(LoadTest.LOCALHOST);
+        dataConnection.setPassiveExternalAddress(LoadTest.LOCALHOST);
+
+        ListenerFactory listenerFactory = new ListenerFactory();
+        listenerFactory.setServerAddress(LoadTest.LOCALHOST);
+        listenerFactory.setPort(0);
+        listenerFactory.setImplicitSsl(false);
+        listenerFactory.setSslConfiguration(ssl.createSslConfiguration());
+        listenerFactory.setDataConnectionConfiguration(dataConnection.createDataConnectionConfiguration());
+
+        ConnectionConfigFactory connectionConfig = new ConnectionConfigFactory();
+        connectionConfig.setMaxLogins(MAX_LOGINS);
+        connectionConfig.setAnonymousLoginEnabled(false);
+
+        FtpServerFactory serverFactory = new FtpServerFactory();
+        serverFactory.addListener(LISTENER_NAME, listenerFactory.createListener());
+        serverFactory.setConnectionConfig(connectionConfig.createConnectionConfig());
+        serverFactory.setUserManager(createUserManager(rootDirectory));
+
+        server = serverFactory.createServer();
+        server.start();
+        Listener listener = serverFactory.getListener(LISTENER_NAME);
+        port = listener.getPort();
+        logger.info("FTPES server started on port {}", port);
+    }
+
+    private static UserManager createUserManager(Path rootDirectory) throws FtpException {
+        PropertiesUserManagerFactory userManagerFactory = new PropertiesUserManagerFactory();
+        userManagerFactory.setPasswordEncryptor(new ClearTextPasswordEncryptor());
+        UserManager userManager = userManagerFactory.createUserManager();
+
+        BaseUser user = new BaseUser();
+        user.setName(USER);
+        user.setPassword(PASSWORD);
+        user.setHomeDirectory(rootDirectory.toString());
+        user.setAuthorities(Arrays.asList(new ConcurrentLoginPermission(0, 0), new TransferRatePermission(0, 0)));
+        userManager.save(user);
+        return userManager;
+    }
+
+    @Override
+    public Scheme scheme() {
+        return Scheme.FTPES;
+    }
+
+    @Override
+    public String location(String fileName) {
+        return "ftpes://" + USER + ":" + PASSWORD + "@" + LoadTest.LOCALHOST + ":" + port + "/" + fileName;
+    }
+
+    @Override
+    public void close() {
+        server.stop();
+    }
+}
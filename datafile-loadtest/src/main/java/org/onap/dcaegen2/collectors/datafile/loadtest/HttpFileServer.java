@@ -0,0 +1,121 @@
+/*-
+ * ============LICENSE_START======================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * ============LICENSE_END========================================================================
+ */
+
+package org.onap.dcaegen2.collectors.datafile.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.sun.net.httpserver.HttpsConfigurator;
+import com.sun.net.httpserver.HttpsServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.net.ssl.SSLContext;
+
+import org.onap.dcaegen2.collectors.datafile.commons.Scheme;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An embedded HTTP or HTTPS file server, based on the HTTP server in the JDK. The credentials in the location are
+ * accepted but not checked.
+ */
+public class HttpFileServer implements XnfFileServer {
+    private static final Logger logger = LoggerFactory.getLogger(HttpFileServer.class);
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final Path rootDirectory;
+    private final Scheme scheme;
+
+    /**
+     * Starts a plain HTTP server on a free port on the loopback interface.
+     *
+     * @param rootDirectory the directory to serve.
+     * @throws IOException if the server cannot be started.
+     */
+    public HttpFileServer(Path rootDirectory) throws IOException {
+        this(rootDirectory, HttpServer.create(LoadTest.loopbackAddress(), 0), Scheme.HTTP);
+    }
+
+    /**
+     * Starts an HTTPS server on a free port on the loopback interface.
+     *
+     * @param rootDirectory the directory to serve.
+     * @param sslContext the server side TLS context.
+     * @throws IOException if the server cannot be started.
+     */
+    public HttpFileServer(Path rootDirectory, SSLContext sslContext) throws IOException {
+        this(rootDirectory, createHttpsServer(LoadTest.loopbackAddress(), sslContext), Scheme.HTTPS);
+    }
+
+    private HttpFileServer(Path rootDirectory, HttpServer server, Scheme scheme) {
+        this.rootDirectory = rootDirectory.toAbsolutePath().normalize();
+        this.server = server;
+        this.scheme = scheme;
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+        logger.info("{} server started on port {}", scheme, server.getAddress().getPort());
+    }
+
+    private static HttpServer createHttpsServer(InetSocketAddress address, SSLContext sslContext)
+        throws IOException {
+        HttpsServer httpsServer = HttpsServer.create(address, 0);
+        httpsServer.setHttpsConfigurator(new HttpsConfigurator(sslContext));
+        return httpsServer;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            Path file = rootDirectory.resolve(exchange.getRequestURI().getPath().substring(1)).normalize();
+            if (!"GET".equals(exchange.getRequestMethod()) || !file.startsWith(rootDirectory)
+                || !Files.isRegularFile(file)) {
+                exchange.sendResponseHeaders(HttpURLConnection.HTTP_NOT_FOUND, -1);
+                return;
+            }
+            exchange.getResponseHeaders().add("Content-Type", "application/octet-stream");
+            exchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, Files.size(file));
+            try (OutputStream out = exchange.getResponseBody()) {
+                Files.copy(file, out);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    @Override
+    public Scheme scheme() {
+        return scheme;
+    }
+
+    @Override
+    public String location(String fileName) {
+        return scheme.name().toLowerCase() + "://" + USER + ":" + PASSWORD + "@" + LoadTest.LOCALHOST + ":"
+            + server.getAddress().getPort() + "/" + fileName;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
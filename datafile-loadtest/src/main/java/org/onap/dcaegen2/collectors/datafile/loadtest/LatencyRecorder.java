@@ -0,0 +1,114 @@
+/*-
+ * ============LICENSE_START======================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * ============LICENSE_END========================================================================
+ */
+
+package org.onap.dcaegen2.collectors.datafile.loadtest;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records the time from a file is announced on the message router until it is delivered to the data router node.
+ */
+public class LatencyRecorder {
+    private final Map<String, Long> announcedFiles = new ConcurrentHashMap<>();
+    private final AtomicLong announcedCount = new AtomicLong();
+    private final AtomicLong deliveredCount = new AtomicLong();
+    private final AtomicLong deliveredBytes = new AtomicLong();
+    private final AtomicLong duplicateCount = new AtomicLong();
+    private volatile long firstAnnouncedNanos = 0;
+    private volatile long lastDeliveredNanos = 0;
+    private long[] latencies = new long[1024];
+    private int numberOfLatencies = 0;
+
+    /**
+     * Called when a fileReady event is made available for DFC.
+     *
+     * @param fileName the name of the announced file.
+     */
+    public void fileAnnounced(String fileName) {
+        long now = System.nanoTime();
+        if (announcedCount.getAndIncrement() == 0) {
+            firstAnnouncedNanos = now;
+        }
+        announcedFiles.put(fileName, now);
+    }
+
+    /**
+     * Called when a file is published to the data router node.
+     *
+     * @param fileName the name of the published file.
+     * @param bytes the size of the published file.
+     */
+    public void fileDelivered(String fileName, long bytes) {
+        long now = System.nanoTime();
+        Long announcedNanos = announcedFiles.remove(fileName);
+        if (announcedNanos == null) {
+            duplicateCount.incrementAndGet();
+            return;
+        }
+        deliveredCount.incrementAndGet();
+        deliveredBytes.addAndGet(bytes);
+        lastDeliveredNanos = now;
+        addLatency(now - announcedNanos);
+    }
+
+    private synchronized void addLatency(long nanos) {
+        if (numberOfLatencies == latencies.length) {
+            latencies = Arrays.copyOf(latencies, latencies.length * 2);
+        }
+        latencies[numberOfLatencies++] = nanos;
+    }
+
+    public long announcedCount() {
+        return announcedCount.get();
+    }
+
+    public long deliveredCount() {
+        return deliveredCount.get();
+    }
+
+    public long outstandingCount() {
+        return announcedFiles.size();
+    }
+
+    /**
+     * Summarizes the recorded throughput and latencies.
+     *
+     * @return a human readable report.
+     */
+    public synchronized String report() {
+        long[] sorted = Arrays.copyOf(latencies, numberOfLatencies);
+        Arrays.sort(sorted);
+        double seconds = Math.max(lastDeliveredNanos - firstAnnouncedNanos, 1) / 1e9;
+        return String.format(
+            "files announced: %d, delivered: %d, not delivered: %d, duplicates: %d%n"
+                + "throughput: %.1f files/s, %.2f MB/s over %.1f s%n"
+                + "latency ms: p50 %d, p90 %d, p99 %d, p999 %d, max %d",
+            announcedCount.get(), deliveredCount.get(), announcedFiles.size(), duplicateCount.get(),
+            deliveredCount.get() / seconds, deliveredBytes.get() / seconds / 1e6, seconds, //
+            percentileMillis(sorted, 0.5), percentileMillis(sorted, 0.9), percentileMillis(sorted, 0.99),
+            percentileMillis(sorted, 0.999), percentileMillis(sorted, 1.0));
+    }
+
+    private static long percentileMillis(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return TimeUnit.NANOSECONDS.toMillis(sorted[Math.max(index, 0)]);
+    }
+}
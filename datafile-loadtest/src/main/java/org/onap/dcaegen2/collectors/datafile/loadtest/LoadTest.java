@@ -0,0 +1,215 @@
+/*-
+ * ============LICENSE_START======================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * ============LICENSE_END========================================================================
+ */
+
+package org.onap.dcaegen2.collectors.datafile.loadtest;
+
+import com.google.gson.JsonObject;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.onap.dcaegen2.collectors.datafile.commons.Scheme;
+import org.onap.dcaegen2.collectors.datafile.configuration.AppConfig;
+import org.onap.dcaegen2.collectors.datafile.tasks.ScheduledTasks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs DFC against embedded xNF file servers, a message router and a data router, all on the loopback interface.
+ * fileReady events are published at a fixed rate and the time until each file reaches the data router is measured.
+ *
+ * <p>
+ * Usage: <code>java -jar loadtest.jar [eventsPerSecond=10] [filesPerEvent=1] [fileSize=100000] [xnfs=100]
+ * [durationSeconds=60] [pollIntervalMillis=1000] [schemes=SFTP,FTPES,HTTP,HTTPS]</code>
+ */
+public class LoadTest implements AutoCloseable {
+    static final String LOCALHOST = "127.0.0.1";
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadTest.class);
+    private static final String REMOTE_FILE_NAME = "payload.bin";
+    private static final Duration DRAIN_TIMEOUT = Duration.ofMinutes(2);
+    private static final Duration GENERATOR_TICK = Duration.ofMillis(10);
+
+    private final LoadTestSettings settings;
+    private final LatencyRecorder latencyRecorder = new LatencyRecorder();
+    private final List<AutoCloseable> resources = new ArrayList<>();
+    private final ScheduledExecutorService executor = Executors.newScheduledThreadPool(2);
+    private final FakeMessageRouter messageRouter;
+    private final FileReadyEventFactory eventFactory;
+    private final AppConfig appConfig = new AppConfig();
+    private final ScheduledTasks scheduledTasks = new ScheduledTasks(appConfig);
+
+    LoadTest(LoadTestSettings settings, Path workDirectory) throws Exception {
+        this.settings = settings;
+        Path fileDirectory = Files.createDirectories(workDirectory.resolve("files"));
+        createPayload(fileDirectory.resolve(REMOTE_FILE_NAME), settings.fileSize());
+        TestCertificates certificates = TestCertificates.generate(workDirectory);
+
+        List<XnfFileServer> fileServers = new ArrayList<>();
+        for (Scheme scheme : settings.schemes()) {
+            fileServers.add(register(createFileServer(scheme, fileDirectory, workDirectory, certificates)));
+        }
+        messageRouter = register(new FakeMessageRouter());
+        FakeDataRouter dataRouter = register(new FakeDataRouter(latencyRecorder));
+        eventFactory = new FileReadyEventFactory(fileServers, REMOTE_FILE_NAME, settings.numberOfXnfs(),
+            settings.filesPerEvent());
+
+        Path configFile = workDirectory.resolve("datafile_loadtest_config.json");
+        String configuration = createConfiguration(certificates, dataRouter).toString();
+        Files.write(configFile, configuration.getBytes(StandardCharsets.UTF_8));
+        appConfig.setFilepath(configFile.toString());
+        appConfig.initialize();
+        if (appConfig.getDmaapConsumerConfiguration() == null) {
+            throw new IllegalStateException("Could not load configuration " + configFile);
+        }
+    }
+
+    /**
+     * Runs a load test.
+     *
+     * @param args the settings, see {@link LoadTestSettings}.
+     * @throws Exception if the test environment cannot be started.
+     */
+    public static void main(String[] args) throws Exception {
+        LoadTestSettings settings = LoadTestSettings.parse(args);
+        Path workDirectory = Files.createTempDirectory("dfc-loadtest");
+        try (LoadTest loadTest = new LoadTest(settings, workDirectory)) {
+            logger.info("Load test started: {}", settings);
+            loadTest.run();
+            logger.info("Load test finished: {}\n{}\n{}", settings, loadTest.latencyRecorder.report(),
+                loadTest.scheduledTasks.getCounters());
+        }
+    }
+
+    void run() throws InterruptedException {
+        long startNanos = System.nanoTime();
+        AtomicLong publishedEvents = new AtomicLong();
+        executor.scheduleAtFixedRate(() -> {
+            long dueEvents = (long) ((System.nanoTime() - startNanos) / 1e9 * settings.eventsPerSecond());
+            while (publishedEvents.get() < dueEvents) {
+                messageRouter.publish(eventFactory.createEvent(latencyRecorder::fileAnnounced));
+                publishedEvents.incrementAndGet();
+            }
+        }, 0, GENERATOR_TICK.toMillis(), TimeUnit.MILLISECONDS);
+        executor.scheduleWithFixedDelay(scheduledTasks::executeDatafileMainTask, 0,
+            settings.pollInterval().toMillis(), TimeUnit.MILLISECONDS);
+
+        Thread.sleep(settings.duration().toMillis());
+        executor.shutdown();
+        logger.info("Stopped publishing events, waiting for {} files to be delivered",
+            latencyRecorder.outstandingCount());
+
+        long deadline = System.nanoTime() + DRAIN_TIMEOUT.toNanos();
+        while ((latencyRecorder.outstandingCount() > 0 || messageRouter.queuedEvents() > 0)
+            && System.nanoTime() < deadline) {
+            scheduledTasks.executeDatafileMainTask();
+            Thread.sleep(settings.pollInterval().toMillis());
+        }
+    }
+
+    private <T extends AutoCloseable> T register(T resource) {
+        resources.add(resource);
+        return resource;
+    }
+
+    private static XnfFileServer createFileServer(Scheme scheme, Path fileDirectory, Path workDirectory,
+        TestCertificates certificates) throws Exception {
+        switch (scheme) {
+            case SFTP:
+                return new SftpFileServer(fileDirectory, workDirectory);
+            case FTPES:
+                return new FtpesFileServer(fileDirectory, certificates);
+            case HTTP:
+                return new HttpFileServer(fileDirectory);
+            case HTTPS:
+                return new HttpFileServer(fileDirectory, certificates.createServerContext());
+            default:
+                throw new IllegalArgumentException("Unhandled protocol: " + scheme);
+        }
+    }
+
+    private static void createPayload(Path file, int size) throws IOException {
+        byte[] content = new byte[size];
+        new Random(size).nextBytes(content);
+        Files.write(file, content);
+    }
+
+    private JsonObject createConfiguration(TestCertificates certificates, FakeDataRouter dataRouter) {
+        JsonObject config = new JsonObject();
+        config.addProperty("dmaap.certificateConfig.enableCertAuth", true);
+        config.addProperty("dmaap.certificateConfig.keyCert", certificates.keyStore().toString());
+        config.addProperty("dmaap.certificateConfig.keyPasswordPath", certificates.passwordFile().toString());
+        config.addProperty("dmaap.certificateConfig.trustedCa", certificates.trustStore().toString());
+        config.addProperty("dmaap.certificateConfig.trustedCaPasswordPath", certificates.passwordFile().toString());
+        config.addProperty("dmaap.certificateConfig.httpsHostnameVerify", false);
+        config.addProperty("dmaap.security.enableDmaapCertAuth", false);
+        config.addProperty("dmaap.dmaapConsumerConfiguration.consumerGroup", "loadtest");
+        config.addProperty("dmaap.dmaapConsumerConfiguration.consumerId", "dfc");
+        config.addProperty("dmaap.dmaapConsumerConfiguration.timeoutMs", settings.pollInterval().toMillis());
+        config.addProperty("sftp.security.strictHostKeyChecking", false);
+
+        JsonObject dmaapInfo = new JsonObject();
+        dmaapInfo.addProperty("username", "dfc");
+        dmaapInfo.addProperty("password", "dfc");
+        dmaapInfo.addProperty("publish_url", dataRouter.publishUrl());
+        dmaapInfo.addProperty("log_url", dataRouter.logUrl());
+        JsonObject feed = new JsonObject();
+        feed.addProperty("type", "data_router");
+        feed.add("dmaap_info", dmaapInfo);
+        JsonObject publishes = new JsonObject();
+        publishes.add(FileReadyEventFactory.CHANGE_IDENTIFIER, feed);
+        config.add("streams_publishes", publishes);
+
+        JsonObject topicInfo = new JsonObject();
+        topicInfo.addProperty("topic_url", messageRouter.topicUrl());
+        JsonObject topic = new JsonObject();
+        topic.addProperty("type", "message_router");
+        topic.add("dmaap_info", topicInfo);
+        JsonObject subscribes = new JsonObject();
+        subscribes.add("dmaap_subscriber", topic);
+        config.add("streams_subscribes", subscribes);
+
+        JsonObject root = new JsonObject();
+        root.add("config", config);
+        return root;
+    }
+
+    static InetSocketAddress loopbackAddress() {
+        return new InetSocketAddress(LOCALHOST, 0);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        appConfig.stop();
+        for (AutoCloseable resource : resources) {
+            try {
+                resource.close();
+            } catch (Exception e) {
+                logger.warn("Could not stop {}", resource, e);
+            }
+        }
+    }
+}
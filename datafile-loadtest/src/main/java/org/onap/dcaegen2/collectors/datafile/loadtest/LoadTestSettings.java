@@ -0,0 +1,115 @@
+/*-
+ * ============LICENSE_START======================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * ============LICENSE_END========================================================================
+ */
+
+package org.onap.dcaegen2.collectors.datafile.loadtest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.onap.dcaegen2.collectors.datafile.commons.Scheme;
+
+/**
+ * The parameters of a load test run, given as <code>name=value</code> program arguments.
+ */
+public class LoadTestSettings {
+    private static final String EVENTS_PER_SECOND = "eventsPerSecond";
+    private static final String FILES_PER_EVENT = "filesPerEvent";
+    private static final String FILE_SIZE = "fileSize";
+    private static final String NUMBER_OF_XNFS = "xnfs";
+    private static final String DURATION = "durationSeconds";
+    private static final String POLL_INTERVAL = "pollIntervalMillis";
+    private static final String SCHEMES = "schemes";
+
+    private final double eventsPerSecond;
+    private final int filesPerEvent;
+    private final int fileSize;
+    private final int numberOfXnfs;
+    private final Duration duration;
+    private final Duration pollInterval;
+    private final List<Scheme> schemes;
+
+    private LoadTestSettings(Map<String, String> values) {
+        eventsPerSecond = Double.parseDouble(values.getOrDefault(EVENTS_PER_SECOND, "10"));
+        filesPerEvent = Integer.parseInt(values.getOrDefault(FILES_PER_EVENT, "1"));
+        fileSize = Integer.parseInt(values.getOrDefault(FILE_SIZE, "100000"));
+        numberOfXnfs = Integer.parseInt(values.getOrDefault(NUMBER_OF_XNFS, "100"));
+        duration = Duration.ofSeconds(Long.parseLong(values.getOrDefault(DURATION, "60")));
+        pollInterval = Duration.ofMillis(Long.parseLong(values.getOrDefault(POLL_INTERVAL, "1000")));
+        List<Scheme> parsedSchemes = new ArrayList<>();
+        for (String scheme : values.getOrDefault(SCHEMES, "SFTP,FTPES,HTTP,HTTPS").split(",")) {
+            parsedSchemes.add(Scheme.valueOf(scheme.trim().toUpperCase(Locale.ROOT)));
+        }
+        schemes = Collections.unmodifiableList(parsedSchemes);
+    }
+
+    /**
+     * Parses the program arguments.
+     *
+     * @param args arguments on the form <code>name=value</code>, all are optional.
+     * @return the settings.
+     * @throws IllegalArgumentException if an argument is malformed.
+     */
+    public static LoadTestSettings parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Expected name=value, got: " + arg);
+            }
+            values.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        return new LoadTestSettings(values);
+    }
+
+    public double eventsPerSecond() {
+        return eventsPerSecond;
+    }
+
+    public int filesPerEvent() {
+        return filesPerEvent;
+    }
+
+    public int fileSize() {
+        return fileSize;
+    }
+
+    public int numberOfXnfs() {
+        return numberOfXnfs;
+    }
+
+    public Duration duration() {
+        return duration;
+    }
+
+    public Duration pollInterval() {
+        return pollInterval;
+    }
+
+    public List<Scheme> schemes() {
+        return schemes;
+    }
+
+    @Override
+    public String toString() {
+        return EVENTS_PER_SECOND + "=" + eventsPerSecond + " " + FILES_PER_EVENT + "=" + filesPerEvent + " "
+            + FILE_SIZE + "=" + fileSize + " " + NUMBER_OF_XNFS + "=" + numberOfXnfs + " " + DURATION + "="
+            + duration.getSeconds() + " " + POLL_INTERVAL + "=" + pollInterval.toMillis() + " " + SCHEMES + "="
+            + schemes;
+    }
+}
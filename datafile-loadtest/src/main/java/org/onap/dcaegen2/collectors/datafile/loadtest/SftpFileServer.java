@@ -0,0 +1,80 @@
+/*-
+ * ============LICENSE_START======================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * ============LICENSE_END========================================================================
+ */
+
+package org.onap.dcaegen2.collectors.datafile.loadtest;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+
+import org.apache.sshd.common.config.keys.KeyUtils;
+import org.apache.sshd.common.file.virtualfs.VirtualFileSystemFactory;
+import org.apache.sshd.server.SshServer;
+import org.apache.sshd.server.keyprovider.SimpleGeneratorHostKeyProvider;
+import org.apache.sshd.sftp.server.SftpSubsystemFactory;
+import org.onap.dcaegen2.collectors.datafile.commons.Scheme;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An embedded SFTP server, based on Apache MINA SSHD.
+ */
+public class SftpFileServer implements XnfFileServer {
+    private static final Logger logger = LoggerFactory.getLogger(SftpFileServer.class);
+
+    private final SshServer server;
+
+    /**
+     * Starts the server on a free port on the loopback interface.
+     *
+     * @param rootDirectory the directory to serve.
+     * @param workDirectory where the generated host key is stored.
+     * @throws IOException if the server cannot be started.
+     */
+    public SftpFileServer(Path rootDirectory, Path workDirectory) throws IOException {
+        server = SshServer.setUpDefaultServer();
+        server.setHost(LoadTest.LOCALHOST);
+        server.setPort(0);
+        // RSA host key since DFC uses JSch, which does not support the newer key types
+        SimpleGeneratorHostKeyProvider keyProvider =
+            new SimpleGeneratorHostKeyProvider(workDirectory.resolve("sftp_host_key"));
+        keyProvider.setAlgorithm(KeyUtils.RSA_ALGORITHM);
+        server.setKeyPairProvider(keyProvider);
+        server.setPasswordAuthenticator(
+            (user, password, session) -> USER.equals(user) && PASSWORD.equals(password));
+        server.setSubsystemFactories(Collections.singletonList(new SftpSubsystemFactory()));
+        server.setFileSystemFactory(new VirtualFileSystemFactory(rootDirectory));
+        server.start();
+        logger.info("SFTP server started on port {}", server.getPort());
+    }
+
+    @Override
+    public Scheme scheme() {
+        return Scheme.SFTP;
+    }
+
+    @Override
+    public String location(String fileName) {
+        return "sftp://" + USER + ":" + PASSWORD + "@" + LoadTest.LOCALHOST + ":" + server.getPort() + "/" + fileName;
+    }
+
+    @Override
+    public void close() {
+        try {
+            server.stop(true);
+        } catch (IOException e) {
+            logger.warn("Could not stop SFTP server", e);
+        }
+    }
+}
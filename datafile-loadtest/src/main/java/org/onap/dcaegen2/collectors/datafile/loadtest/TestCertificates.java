@@ -0,0 +1,127 @@
+/*-
+ * ============LICENSE_START======================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * ============LICENSE_END========================================================================
+ */
+
+package org.onap.dcaegen2.collectors.datafile.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManagerFactory;
+
+/**
+ * A self signed certificate for localhost, generated with the JDK keytool so that no external CA is needed. The same
+ * key is used by the file servers and by DFC.
+ */
+public class TestCertificates {
+    private static final String PASSWORD = "loadtest";
+    private static final String ALIAS = "localhost";
+
+    private final Path keyStore;
+    private final Path trustStore;
+    private final Path passwordFile;
+
+    private TestCertificates(Path directory) {
+        this.keyStore = directory.resolve("keystore.p12");
+        this.trustStore = directory.resolve("truststore.p12");
+        this.passwordFile = directory.resolve("keystore.pass");
+    }
+
+    /**
+     * Generates a key store, a trust store and a password file in the given directory.
+     *
+     * @param directory where the files are created.
+     * @return the created certificates.
+     * @throws IOException if keytool fails.
+     */
+    public static TestCertificates generate(Path directory) throws IOException {
+        TestCertificates certificates = new TestCertificates(directory);
+        Path certificate = directory.resolve("localhost.crt");
+        keytool("-genkeypair", "-alias", ALIAS, "-keyalg", "RSA", "-keysize", "2048", "-validity", "2", //
+            "-dname", "CN=localhost", "-ext", "SAN=dns:localhost,ip:127.0.0.1", //
+            "-storetype", "PKCS12", "-keystore", certificates.keyStore.toString(), "-storepass", PASSWORD);
+        keytool("-exportcert", "-alias", ALIAS, "-keystore", certificates.keyStore.toString(), //
+            "-storepass", PASSWORD, "-file", certificate.toString());
+        keytool("-importcert", "-noprompt", "-alias", ALIAS, "-file", certificate.toString(), //
+            "-storetype", "PKCS12", "-keystore", certificates.trustStore.toString(), "-storepass", PASSWORD);
+        Files.write(certificates.passwordFile, PASSWORD.getBytes(StandardCharsets.UTF_8));
+        return certificates;
+    }
+
+    public Path keyStore() {
+        return keyStore;
+    }
+
+    public Path trustStore() {
+        return trustStore;
+    }
+
+    public Path passwordFile() {
+        return passwordFile;
+    }
+
+    public String password() {
+        return PASSWORD;
+    }
+
+    /**
+     * Creates a server side TLS context using the generated key.
+     *
+     * @return an initialized TLS context.
+     * @throws IOException if the key store cannot be read.
+     */
+    public SSLContext createServerContext() throws IOException {
+        try (InputStream in = Files.newInputStream(keyStore)) {
+            KeyStore store = KeyStore.getInstance("PKCS12");
+            store.load(in, PASSWORD.toCharArray());
+            KeyManagerFactory keyManagers = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+            keyManagers.init(store, PASSWORD.toCharArray());
+            TrustManagerFactory trustManagers =
+                TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+            trustManagers.init(store);
+            SSLContext context = SSLContext.getInstance("TLS");
+            context.init(keyManagers.getKeyManagers(), trustManagers.getTrustManagers(), null);
+            return context;
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Could not create TLS context from " + keyStore, e);
+        }
+    }
+
+    private static void keytool(String... args) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "keytool").toString());
+        command.addAll(Arrays.asList(args));
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        try {
+            String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            if (!process.waitFor(30, TimeUnit.SECONDS) || process.exitValue() != 0) {
+                throw new IOException("keytool failed: " + command + "\n" + output);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while running keytool", e);
+        }
+    }
+}
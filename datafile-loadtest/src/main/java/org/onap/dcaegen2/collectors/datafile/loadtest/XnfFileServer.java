@@ -0,0 +1,39 @@
+/*-
+ * ============LICENSE_START======================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * ============LICENSE_END========================================================================
+ */
+
+package org.onap.dcaegen2.collectors.datafile.loadtest;
+
+import org.onap.dcaegen2.collectors.datafile.commons.Scheme;
+
+/**
+ * An embedded file server standing in for the xNFs. All files are served from the same directory and all servers
+ * accept the same user.
+ */
+public interface XnfFileServer extends AutoCloseable {
+    String USER = "dfc";
+    String PASSWORD = "dfcpassword";
+
+    Scheme scheme();
+
+    /**
+     * Gets the location of a file, as it is given in a fileReady event.
+     *
+     * @param fileName the name of a file in the served directory.
+     * @return the location of the file.
+     */
+    String location(String fileName);
+
+    @Override
+    void close();
+}